@@ -6,14 +6,30 @@ import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRespo
 import gov.va.med.cies.ocr.exceptions.BaseClientException;
 import gov.va.med.cies.ocr.model.CanonicalDocument;
 import gov.va.med.cies.ocr.model.CanonicalRequest;
+import gov.va.med.cies.ocr.provider.ProviderRegistry;
 import org.apache.http.HttpHeaders;
 
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.Set;
 
 public abstract class AbstractApplicationLoadBalancerLambda
         extends AbstractBaseLambda
         implements RequestHandler<ApplicationLoadBalancerRequestEvent, ApplicationLoadBalancerResponseEvent> {
 
+    protected AbstractApplicationLoadBalancerLambda() {
+        super();
+    }
+
+    protected AbstractApplicationLoadBalancerLambda(final Set<ProviderRegistry.Dependency> dependencies) {
+        super(dependencies);
+    }
+
+    protected AbstractApplicationLoadBalancerLambda(final Set<ProviderRegistry.Dependency> dependencies, final DocumentExtractManager dxm) {
+        super(dependencies, dxm);
+    }
+
     protected CanonicalRequest parse(ApplicationLoadBalancerRequestEvent event)
             throws BaseClientException {
         // the full path may include:
@@ -35,6 +51,19 @@ public abstract class AbstractApplicationLoadBalancerLambda
                 documentBuilder.withContentLength(Integer.valueOf(headers.get(HttpHeaders.CONTENT_LENGTH)));
             if (headers.get(HeaderTags.METADATA_KEY_FILE_NAME) != null)
                 documentBuilder.withFilename(headers.get(HeaderTags.METADATA_KEY_FILE_NAME));
+            if (headers.get(HeaderTags.METADATA_KEY_CALLBACK_URL) != null)
+                documentBuilder.withCallbackUrl(headers.get(HeaderTags.METADATA_KEY_CALLBACK_URL));
+        }
+
+        // the ALB does not decode the query string parameters
+        // with multi value headers enabled on the target group the ALB sends only the multi value parameters
+        if (event.getQueryStringParameters() != null) {
+            event.getQueryStringParameters().forEach((name, value) -> builder.withParameter(decode(name), decode(value)));
+        } else if (event.getMultiValueQueryStringParameters() != null) {
+            event.getMultiValueQueryStringParameters().forEach((name, values) -> {
+                if (values != null && !values.isEmpty())
+                    builder.withParameter(decode(name), decode(values.get(0)));
+            });
         }
 
         if (event.getBody() != null)
@@ -45,4 +74,13 @@ public abstract class AbstractApplicationLoadBalancerLambda
         builder.withCanonicalDocument(documentBuilder.build());
         return builder.build();
     }
+
+    private static String decode(final String value) {
+        try {
+            return value == null ? null : URLDecoder.decode(value, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException iaX) {
+            // not a valid encoding, use it as it is
+            return value;
+        }
+    }
 }
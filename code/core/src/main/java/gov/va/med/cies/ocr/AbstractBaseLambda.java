@@ -0,0 +1,186 @@
+package gov.va.med.cies.ocr;
+
+import gov.va.med.cies.ocr.pdf.BundledFontMapper;
+import gov.va.med.cies.ocr.priming.LambdaPrimer;
+import gov.va.med.cies.ocr.priming.PrimingLifecycle;
+import gov.va.med.cies.ocr.provider.ProviderRegistry;
+import org.crac.Core;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The base class the Lambda functions.
+ * This creates an instance of the DocumentExtractManager class, which implements all of the
+ * application capabilities.
+ * Each function declares the dependencies (see ProviderRegistry) that its requests use, only those clients
+ * are created (and primed) during the initialization, any other is created if and when it is first used.
+ * The time and the heap taken by the initialization, the classes loaded and the size of the jar of the function
+ * (see the functions modules of the pom) are logged, by function.
+ * A function that declares PDF maps the fonts that a document does not embed to the font bundled with PDFBox
+ * (see BundledFontMapper), unless BundledFontMapping is false.
+ * With PrimingEnabled, the function is primed before a SnapStart checkpoint (see LambdaPrimer) and the
+ * DocumentExtractManager, and with it the S3 and Textract clients, is created again after the restore.
+ * The records of an event are processed by the RecordProcessor, by up to RecordConcurrency at once.
+ */
+public abstract class AbstractBaseLambda {
+    private final Logger logger = LoggerFactory.getLogger(AbstractBaseLambda.class);
+    private final String sourceBucketName;
+    private final String destinationBucketName;
+    private final String textractServiceRole;
+    private final String textractStatusTopic;
+    private final String region;
+    private final Set<ProviderRegistry.Dependency> dependencies;
+    private volatile ProviderRegistry providers;
+    private volatile DocumentExtractManager dxm;
+    // the global CRaC context holds its resources weakly
+    private final PrimingLifecycle primingLifecycle;
+    private final RecordProcessor recordProcessor;
+
+    /**
+     * A function that declares every dependency.
+     */
+    public AbstractBaseLambda() {
+        this(EnumSet.allOf(ProviderRegistry.Dependency.class));
+    }
+
+    /**
+     * @param dependencies the dependencies that the requests of the function use
+     */
+    protected AbstractBaseLambda(final Set<ProviderRegistry.Dependency> dependencies) {
+        final long start = System.currentTimeMillis();
+        final Runtime runtime = Runtime.getRuntime();
+        final long initialHeapUsed = runtime.totalMemory() - runtime.freeMemory();
+
+        this.dependencies = dependencies;
+        sourceBucketName = System.getenv("SOURCE_BUCKET");
+        destinationBucketName = System.getenv("DESTINATION_BUCKET");
+        textractServiceRole = System.getenv("TEXTRACT_SERVICE_ROLE");
+        textractStatusTopic = System.getenv("TEXTRACT_STATUS_TOPIC");
+        region = System.getenv("AWS_REGION");
+
+        // the font mapper of PDFBox is set for the JVM, once, before a document is extracted (or primed)
+        if (dependencies.contains(ProviderRegistry.Dependency.PDF)
+                && Boolean.parseBoolean(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.BUNDLED_FONT_MAPPING, "true")))
+            BundledFontMapper.install();
+        providers = new ProviderRegistry(region, dependencies);
+        providers.initialize();
+        dxm = createDocumentExtractManager(providers);
+        recordProcessor = new RecordProcessor(Math.max(1,
+                Integer.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.RECORD_CONCURRENCY, "8"))));
+
+        if (Boolean.parseBoolean(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.PRIMING_ENABLED, "true"))) {
+            primingLifecycle = new PrimingLifecycle(() -> new LambdaPrimer().prime(dependencies), this::refreshDocumentExtractManager);
+            Core.getGlobalContext().register(primingLifecycle);
+        } else {
+            primingLifecycle = null;
+        }
+
+        logger.info("AbstractBaseLambda, {} {} initialized in {} ms, {} KB heap, {} classes loaded, {} KB artifact, clients created {}",
+                getClass().getSimpleName(), dependencies,
+                System.currentTimeMillis() - start,
+                (runtime.totalMemory() - runtime.freeMemory() - initialHeapUsed) / 1024,
+                ManagementFactory.getClassLoadingMXBean().getLoadedClassCount(),
+                getArtifactSize() / 1024,
+                providers.getCreationMillis()
+        );
+    }
+
+    /**
+     * A function that uses the given DocumentExtractManager rather than creating one, e.g. to test the requests
+     * of the function against a mocked DocumentExtractManager. No client is created and the function is not primed.
+     */
+    protected AbstractBaseLambda(final Set<ProviderRegistry.Dependency> dependencies, final DocumentExtractManager dxm) {
+        this.dependencies = dependencies;
+        sourceBucketName = System.getenv("SOURCE_BUCKET");
+        destinationBucketName = System.getenv("DESTINATION_BUCKET");
+        textractServiceRole = System.getenv("TEXTRACT_SERVICE_ROLE");
+        textractStatusTopic = System.getenv("TEXTRACT_STATUS_TOPIC");
+        region = System.getenv("AWS_REGION");
+
+        providers = null;
+        this.dxm = dxm;
+        recordProcessor = new RecordProcessor(Math.max(1,
+                Integer.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.RECORD_CONCURRENCY, "8"))));
+        primingLifecycle = null;
+    }
+
+    private DocumentExtractManager createDocumentExtractManager(final ProviderRegistry providers) {
+        logger.info("AbstractBaseLambda, creating DocumentExtractManager({}, {}, {}, {}, {})",
+                region,
+                sourceBucketName, destinationBucketName,
+                textractServiceRole, textractStatusTopic
+        );
+        return new DocumentExtractManager(
+                region,
+                sourceBucketName, destinationBucketName,
+                textractServiceRole, textractStatusTopic,
+                providers
+        );
+    }
+
+    // the clients of the snapshot hold the credentials and connections of the initialization, replace them
+    private void refreshDocumentExtractManager() {
+        final ProviderRegistry previous = providers;
+        final ProviderRegistry refreshed = new ProviderRegistry(region, dependencies);
+        refreshed.initialize();
+        dxm = createDocumentExtractManager(refreshed);
+        providers = refreshed;
+        previous.close();
+    }
+
+    public String getSourceBucketName() {
+        return sourceBucketName;
+    }
+
+    public String getDestinationBucketName() {
+        return destinationBucketName;
+    }
+
+    public String getTextractServiceRole() {
+        return textractServiceRole;
+    }
+
+    public String getTextractStatusTopic() {
+        return textractStatusTopic;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public Set<ProviderRegistry.Dependency> getDependencies() {
+        return dependencies;
+    }
+
+    public DocumentExtractManager getDocumentExtractManager() {
+        return dxm;
+    }
+
+    public RecordProcessor getRecordProcessor() {
+        return recordProcessor;
+    }
+
+    /**
+     * @return the size of the jar that the function was loaded from, 0 if it was not loaded from a jar
+     * (e.g. from the classes of the build) or if the size is not known
+     */
+    public long getArtifactSize() {
+        try {
+            final CodeSource codeSource = getClass().getProtectionDomain().getCodeSource();
+            final Path artifact = codeSource == null ? null : Paths.get(codeSource.getLocation().toURI());
+            return artifact != null && Files.isRegularFile(artifact) ? Files.size(artifact) : 0L;
+        } catch (IOException | URISyntaxException | RuntimeException x) {
+            return 0L;
+        }
+    }
+}
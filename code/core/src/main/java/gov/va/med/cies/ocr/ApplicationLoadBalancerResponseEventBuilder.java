@@ -6,6 +6,7 @@ import gov.va.med.cies.ocr.model.CanonicalDocument;
 import org.apache.http.HttpStatus;
 import org.apache.http.HttpHeaders;
 
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -14,6 +15,7 @@ public class ApplicationLoadBalancerResponseEventBuilder {
     private String statusDescription;
     private Map<String, String> headers = new HashMap<>();
     private String body;
+    private boolean bodyIsBase64Encoded = false;
 
     public ApplicationLoadBalancerResponseEventBuilder statusCode(int result) {
         statusCode = result;
@@ -40,6 +42,15 @@ public class ApplicationLoadBalancerResponseEventBuilder {
         return this;
     }
 
+    public ApplicationLoadBalancerResponseEventBuilder forbidden(final String msg) {
+        statusCode(HttpStatus.SC_FORBIDDEN);
+        if (msg != null) {
+            body = msg;
+        }
+
+        return this;
+    }
+
     public ApplicationLoadBalancerResponseEventBuilder notFound(final String msg) {
         statusCode(HttpStatus.SC_NOT_FOUND);
         if (msg != null) {
@@ -118,6 +129,8 @@ public class ApplicationLoadBalancerResponseEventBuilder {
             headers.put(HttpHeaders.CONTENT_TYPE, document.getContentType());
         if (document.getContentLength() != null)
             headers.put(HttpHeaders.CONTENT_LENGTH, document.getContentLength().toString());
+        if (document.getContentEncoding() != null)
+            headers.put(HttpHeaders.CONTENT_ENCODING, document.getContentEncoding());
         if (document.getIdentifier() != null)
             headers.put(HeaderTags.METADATA_KEY_FILE_NAME, document.getFilename());
         if (document.getDocumentExtractStatus() != null)
@@ -132,6 +145,16 @@ public class ApplicationLoadBalancerResponseEventBuilder {
 
     public ApplicationLoadBalancerResponseEventBuilder body(final String body) {
         this.body = body;
+        this.bodyIsBase64Encoded = false;
+        return this;
+    }
+
+    /**
+     * A binary body e.g. compressed content, the load balancer decodes it before it is returned to the client.
+     */
+    public ApplicationLoadBalancerResponseEventBuilder body(final byte[] body) {
+        this.body = Base64.getEncoder().encodeToString(body);
+        this.bodyIsBase64Encoded = true;
         return this;
     }
 
@@ -144,6 +167,7 @@ public class ApplicationLoadBalancerResponseEventBuilder {
         response.setStatusDescription(statusDescription);
         if (body != null)
             response.setBody(body);
+        response.setIsBase64Encoded(bodyIsBase64Encoded);
 
         return response;
     }
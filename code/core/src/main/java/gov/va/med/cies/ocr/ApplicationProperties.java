@@ -0,0 +1,72 @@
+package gov.va.med.cies.ocr;
+
+import java.io.IOException;
+import java.util.Properties;
+
+public class ApplicationProperties extends Properties {
+    private static ApplicationProperties singleton;
+
+    public static final String PRESIGNED_URL_EXPIRATION = "PresignedUrlExpiration";
+    public static final String LARGE_FILE_THRESHOLD = "LargeFileThreshold";
+    public static final String PDF_TEXT_CONTENT_THRESHOLD = "MinimumTextPercentageToSkipTextract";
+    public static final String TEXTRACT_MODE = "TextractMode";
+    public static final String PDF_READ_BLOCK_SIZE = "PdfReadBlockSize";
+    public static final String PDF_READ_CACHED_BLOCKS = "PdfReadCachedBlocks";
+    public static final String PDF_READ_SPILL_TO_TEMP_FILE = "PdfReadSpillToTempFile";
+    public static final String TEXT_PROBE_SAMPLE_PAGES = "TextProbeSamplePages";
+    public static final String TEXT_PROBE_CONFIDENCE = "TextProbeConfidence";
+    public static final String PDF_EXTRACTION_PARALLELISM = "PdfExtractionParallelism";
+    public static final String PDF_EXTRACTION_MINIMUM_PAGES_PER_TASK = "PdfExtractionMinimumPagesPerTask";
+    public static final String PDF_ROUTING_MODE = "PdfRoutingMode";
+    public static final String LARGE_FILE_PAGE_THRESHOLD = "LargeFilePageThreshold";
+    public static final String LARGE_FILE_MAXIMUM_CHUNKS = "LargeFileMaximumChunks";
+    public static final String DEDUPLICATE_BY_CONTENT_HASH = "DeduplicateByContentHash";
+    public static final String DEDUPLICATE_HASH_MAXIMUM_SIZE = "DeduplicateHashMaximumSize";
+    public static final String SYNCHRONOUS_TEXTRACT_THRESHOLD = "SynchronousTextractThreshold";
+    public static final String TEXTRACT_START_RATE = "TextractStartRate";
+    public static final String TEXTRACT_MAXIMUM_CONCURRENT_JOBS = "TextractMaximumConcurrentJobs";
+    public static final String TEXTRACT_SUBMISSION_MAXIMUM_ATTEMPTS = "TextractSubmissionMaximumAttempts";
+    public static final String TEXTRACT_RETRY_BASE_DELAY = "TextractRetryBaseDelay";
+    public static final String TEXTRACT_RETRY_MAXIMUM_DELAY = "TextractRetryMaximumDelay";
+    public static final String DOCUMENT_STATUS_STORE = "DocumentStatusStore";
+    public static final String DOCUMENT_STATUS_TABLE = "DocumentStatusTable";
+    public static final String DOCUMENT_STATUS_ENDPOINT = "DocumentStatusEndpoint";
+    public static final String METADATA_CACHE_MAXIMUM_ENTRIES = "MetadataCacheMaximumEntries";
+    public static final String METADATA_CACHE_TTL = "MetadataCacheTtl";
+    public static final String STATUS_CACHE_TTL = "StatusCacheTtl";
+    public static final String NEGATIVE_CACHE_TTL = "NegativeCacheTtl";
+    public static final String LONG_POLL_MAXIMUM_TIMEOUT = "LongPollMaximumTimeout";
+    public static final String WEBHOOK_MAXIMUM_CONCURRENCY = "WebhookMaximumConcurrency";
+    public static final String WEBHOOK_MAXIMUM_ATTEMPTS = "WebhookMaximumAttempts";
+    public static final String WEBHOOK_RETRY_BASE_DELAY = "WebhookRetryBaseDelay";
+    public static final String WEBHOOK_REQUEST_TIMEOUT = "WebhookRequestTimeout";
+    public static final String WEBHOOK_DELIVERY_DEADLINE = "WebhookDeliveryDeadline";
+    public static final String WEBHOOK_INLINE_TEXT_MAXIMUM = "WebhookInlineTextMaximum";
+    public static final String WEBHOOK_INLINE_TEXT = "WebhookInlineText";
+    public static final String WEBHOOK_ALLOWED_HOSTS = "WebhookAllowedHosts";
+    public static final String STATUS_QUERY_MAXIMUM_IDENTIFIERS = "StatusQueryMaximumIdentifiers";
+    public static final String STATUS_QUERY_PARALLELISM = "StatusQueryParallelism";
+    public static final String CONCURRENT_S3_READS = "ConcurrentS3Reads";
+    public static final String DOCUMENT_TIMELINE_ENABLED = "DocumentTimelineEnabled";
+    public static final String LATENCY_REPORT_WINDOW = "LatencyReportWindow";
+    public static final String LATENCY_REPORT_MAXIMUM_DOCUMENTS = "LatencyReportMaximumDocuments";
+    public static final String PRIMING_ENABLED = "PrimingEnabled";
+    public static final String BUNDLED_FONT_MAPPING = "BundledFontMapping";
+    public static final String RECORD_CONCURRENCY = "RecordConcurrency";
+
+    static {
+        singleton = new ApplicationProperties();
+    }
+
+    public static final ApplicationProperties getSingleton() {
+        return singleton;
+    }
+
+    private ApplicationProperties() {
+        try {
+            this.load(ApplicationProperties.class.getResourceAsStream("/application.properties"));
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError("Failed to load application properties");
+        }
+    }
+}
@@ -0,0 +1,2356 @@
+package gov.va.med.cies.ocr;
+
+import com.amazonaws.services.s3.model.S3Object;
+import gov.va.med.cies.ocr.cache.TtlCache;
+import gov.va.med.cies.ocr.exceptions.*;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.*;
+import com.amazonaws.util.StringInputStream;
+import gov.va.med.cies.ocr.exceptions.BaseServiceException;
+import gov.va.med.cies.ocr.io.S3CallRecorder;
+import gov.va.med.cies.ocr.io.S3CallScope;
+import gov.va.med.cies.ocr.io.S3MultipartOutputStream;
+import gov.va.med.cies.ocr.io.S3ObjectBlockCache;
+import gov.va.med.cies.ocr.io.S3ReadFanOut;
+import gov.va.med.cies.ocr.io.S3RangedRandomAccessRead;
+import gov.va.med.cies.ocr.model.CanonicalDocument;
+import gov.va.med.cies.ocr.model.CanonicalRequest;
+import gov.va.med.cies.ocr.model.CanonicalResponse;
+import gov.va.med.cies.ocr.model.ContentIndexEntry;
+import gov.va.med.cies.ocr.model.DocumentStatusQuery;
+import gov.va.med.cies.ocr.model.DocumentStatusQueryResult;
+import gov.va.med.cies.ocr.model.ExtractedPdfText;
+import gov.va.med.cies.ocr.model.ExtractionChunkResult;
+import gov.va.med.cies.ocr.model.ExtractionManifest;
+import gov.va.med.cies.ocr.model.TextDensityEstimate;
+import gov.va.med.cies.ocr.model.TextractSubmission;
+import gov.va.med.cies.ocr.pdf.ParallelPdfTextExtractor;
+import gov.va.med.cies.ocr.pdf.PdfChunkPlanner;
+import gov.va.med.cies.ocr.pdf.PdfPageClassifier;
+import gov.va.med.cies.ocr.pdf.PdfTextDensityProbe;
+import gov.va.med.cies.ocr.provider.LazyProvider;
+import gov.va.med.cies.ocr.provider.ProviderRegistry;
+import gov.va.med.cies.ocr.status.DocumentStatusRecord;
+import gov.va.med.cies.ocr.status.DocumentStatusStore;
+import gov.va.med.cies.ocr.status.DynamoDbDocumentStatusStore;
+import gov.va.med.cies.ocr.status.InMemoryDocumentStatusStore;
+import gov.va.med.cies.ocr.status.S3TagDocumentStatusStore;
+import gov.va.med.cies.ocr.textract.InFlightJobCounter;
+import gov.va.med.cies.ocr.textract.InMemoryInFlightJobCounter;
+import gov.va.med.cies.ocr.textract.S3InFlightJobCounter;
+import gov.va.med.cies.ocr.textract.S3SubmissionRetryQueue;
+import gov.va.med.cies.ocr.textract.SubmissionOutcome;
+import gov.va.med.cies.ocr.textract.TextractBlockJsonWriter;
+import gov.va.med.cies.ocr.textract.TextractResultPager;
+import gov.va.med.cies.ocr.textract.TextractSubmissionScheduler;
+import gov.va.med.cies.ocr.textract.TokenBucket;
+import gov.va.med.cies.ocr.timeline.DocumentTimeline;
+import gov.va.med.cies.ocr.timeline.StageLatencyReport;
+import gov.va.med.cies.ocr.webhook.WebhookDispatcher;
+import gov.va.med.cies.ocr.webhook.WebhookNotification;
+import org.apache.http.HttpStatus;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.textract.TextractClient;
+import software.amazon.awssdk.services.textract.model.*;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+public class DocumentExtractManager {
+    public static final String DETECTION_MODE = "DETECTION";
+    public static final String ANALYSIS_MODE = "ANALYSIS";
+    public static final String DOCUMENT_ROUTING_MODE = "DOCUMENT";
+    public static final String PAGE_ROUTING_MODE = "PAGE";
+
+    public static final int ASSUMED_MAX_CHAR_PER_PAGE = 528;    // used for
+    public static final int MAX_CHUNK_SUBMISSION_THREADS = 8;
+    // the in flight job markers and the submission retry queue are kept in the destination bucket
+    public static final String IN_FLIGHT_JOB_PREFIX = "textract-inflight/";
+    public static final String SUBMISSION_RETRY_QUEUE_PREFIX = "textract-queue/";
+    // a job whose completion notification was lost stops counting against the concurrent job quota after this
+    public static final Duration IN_FLIGHT_JOB_EXPIRY = Duration.ofHours(6);
+    public static final int MAX_QUEUED_SUBMISSIONS_PER_DRAIN = 25;
+    // image types that Textract can extract synchronously, a PDF must also be a single page
+    public static final Set<String> SYNCHRONOUS_IMAGE_CONTENT_TYPES = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList("image/jpeg", "image/png", "image/tiff")));
+    // a completion notification may change the status of a document only if the extraction is not complete,
+    // a late or duplicate notification must not change the outcome
+    public static final Set<DocumentExtractStatus> INCOMPLETE_STATUSES = Collections.unmodifiableSet(EnumSet.of(
+            DocumentExtractStatus.New, DocumentExtractStatus.Queued, DocumentExtractStatus.Submitted));
+    // a deferred submission that is retried may change the status of a document only if it is still waiting
+    public static final Set<DocumentExtractStatus> SUBMITTING_STATUSES = Collections.unmodifiableSet(EnumSet.of(
+            DocumentExtractStatus.Queued, DocumentExtractStatus.Submitted));
+    // a document in one of these statuses will not change status again (until it is replaced)
+    public static final Set<DocumentExtractStatus> TERMINAL_STATUSES = Collections.unmodifiableSet(EnumSet.of(
+            DocumentExtractStatus.SUCCEEDED, DocumentExtractStatus.FAILED
+    ));
+    // a long poll re-reads the status after this delay, doubling after each read up to the maximum
+    public static final Duration LONG_POLL_INITIAL_DELAY = Duration.ofMillis(250);
+    public static final Duration LONG_POLL_MAXIMUM_DELAY = Duration.ofSeconds(2);
+    public static final String GZIP_CONTENT_ENCODING = "gzip";
+    public static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    // the results of a document saved by the completion of a Textract job, the blocks (JSON) are saved only
+    // with the text of a document that was submitted whole
+    private enum SavedResults { NONE, TEXT, TEXT_AND_BLOCKS }
+
+    private final Logger logger = LoggerFactory.getLogger(DocumentExtractManager.class);
+
+    private final Region defaultRegion;
+    // the client as given, and the same client called through the S3CallScope of each operation, a
+    // provided client is created with the first call
+    private final LazyProvider<AmazonS3> amazonS3Client;
+    private final AmazonS3 amazonS3;
+    // created when first used, a function that never calls Textract never creates the client
+    private final LazyProvider<TextractClient> textractClient;
+
+    private final String sourceBucketName;
+    private final String destinationBucketName;
+    private final String textractServiceRoleArn;
+    private final String textractStatusTopicName;
+    private final int presignedUrlExpiration;
+
+    private final String textractMode;
+    private final int largeFileThreshold;
+    private final int minimumTextPercentageToSkipTextract;
+    private final int pdfReadBlockSize;
+    private final int pdfReadCachedBlocks;
+    private final boolean pdfReadSpillToTempFile;
+    private final PdfTextDensityProbe textDensityProbe;
+    private final ParallelPdfTextExtractor pdfTextExtractor;
+    private final String pdfRoutingMode;
+    private final PdfChunkPlanner chunkPlanner;
+    private final boolean deduplicateByContentHash;
+    private final long deduplicateHashMaximumSize;
+    private final long synchronousTextractThreshold;
+    private final TextractSubmissionScheduler submissionScheduler;
+    private final DocumentStatusStore statusStore;
+
+    // the metadata and status read by getDocumentMetadata(), for the life of this instance
+    // an empty metadata value is a document that was not found, an empty status value is a document with no status
+    private final TtlCache<String, Optional<CanonicalDocument>> metadataCache;
+    private final TtlCache<String, Optional<DocumentStatusRecord>> statusCache;
+    private final Duration metadataCacheTtl;
+    private final Duration statusCacheTtl;
+    private final Duration negativeCacheTtl;
+    private final Duration longPollMaximumTimeout;
+    private final LazyProvider<WebhookDispatcher> webhookDispatcher;
+    private final boolean webhookInlineText;
+    private final long webhookInlineTextMaximum;
+    private final Set<String> webhookAllowedHosts;
+    private final int statusQueryMaximumIdentifiers;
+    private final int statusQueryParallelism;
+    private final RecordProcessor statusQueryProcessor;
+    // the documents that have completed (SUCCEEDED or FAILED) since the last deliverCompletionNotifications()
+    private final Set<String> completedDocuments = Collections.synchronizedSet(new LinkedHashSet<>());
+    // the S3 calls of each public operation (and of each request, when the Lambda opens a scope for it)
+    private final S3CallRecorder s3CallRecorder = new S3CallRecorder();
+    private final S3ReadFanOut s3ReadFanOut;
+    private final boolean documentTimelineEnabled;
+    private final Duration latencyReportWindow;
+    private final int latencyReportMaximumDocuments;
+
+    public DocumentExtractManager(
+            final String region,
+            final String sourceBucketName, final String destinationBucketName,
+            final String textractServiceRoleArn, final String textractStatusTopicName
+    ) {
+        this(
+                region,
+                sourceBucketName, destinationBucketName,
+                textractServiceRoleArn, textractStatusTopicName,
+                new ProviderRegistry(region, EnumSet.noneOf(ProviderRegistry.Dependency.class))
+        );
+    }
+
+    /**
+     * The S3 and Textract clients of the registry are created when they are first used, a function creates
+     * the clients of its declared dependencies (see ProviderRegistry.initialize()) before it creates this.
+     */
+    public DocumentExtractManager(
+            final String region,
+            final String sourceBucketName, final String destinationBucketName,
+            final String textractServiceRoleArn, final String textractStatusTopicName,
+            final ProviderRegistry providers
+    ) {
+        this(
+                region,
+                sourceBucketName, destinationBucketName,
+                textractServiceRoleArn, textractStatusTopicName,
+                providers.getAmazonS3(),
+                providers.getTextractClient(),
+                createDocumentStatusStore(S3CallScope.memoizing(providers.getAmazonS3()), sourceBucketName, providers.getDynamoDbClient())
+        );
+    }
+
+    public DocumentExtractManager(
+            final String region,
+            final String sourceBucketName, final String destinationBucketName,
+            final String textractServiceRoleArn, final String textractStatusTopicName,
+            final AmazonS3 amazonS3,
+            final TextractClient textractClient
+    ) {
+        this(
+                region,
+                sourceBucketName, destinationBucketName,
+                textractServiceRoleArn, textractStatusTopicName,
+                amazonS3,
+                textractClient,
+                createDocumentStatusStore(
+                        S3CallScope.memoizing(amazonS3), sourceBucketName,
+                        new LazyProvider<>("DynamoDbClient", () -> ProviderRegistry.createDynamoDbClient(region)))
+        );
+    }
+
+    public DocumentExtractManager(
+            final String region,
+            final String sourceBucketName, final String destinationBucketName,
+            final String textractServiceRoleArn, final String textractStatusTopicName,
+            final AmazonS3 amazonS3,
+            final TextractClient textractClient,
+            final DocumentStatusStore statusStore
+    ) {
+        this(
+                region,
+                sourceBucketName, destinationBucketName,
+                textractServiceRoleArn, textractStatusTopicName,
+                LazyProvider.of("AmazonS3", amazonS3),
+                LazyProvider.of("TextractClient", textractClient),
+                statusStore
+        );
+    }
+
+    public DocumentExtractManager(
+            final String region,
+            final String sourceBucketName, final String destinationBucketName,
+            final String textractServiceRoleArn, final String textractStatusTopicName,
+            final LazyProvider<AmazonS3> amazonS3,
+            final LazyProvider<TextractClient> textractClient,
+            final DocumentStatusStore statusStore
+    ) {
+        presignedUrlExpiration = Integer.valueOf(ApplicationProperties.getSingleton().getProperty("PresignedUrlExpiration", "120"));
+        textractMode = ApplicationProperties.getSingleton().getProperty(ApplicationProperties.TEXTRACT_MODE, DETECTION_MODE);
+        minimumTextPercentageToSkipTextract = Integer.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.PDF_TEXT_CONTENT_THRESHOLD, "50"));
+        largeFileThreshold = Integer.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.LARGE_FILE_THRESHOLD, "1046528"));
+        pdfReadBlockSize = Integer.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.PDF_READ_BLOCK_SIZE, String.valueOf(S3ObjectBlockCache.DEFAULT_BLOCK_SIZE)));
+        pdfReadCachedBlocks = Integer.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.PDF_READ_CACHED_BLOCKS, String.valueOf(S3ObjectBlockCache.DEFAULT_CACHED_BLOCKS)));
+        pdfReadSpillToTempFile = Boolean.parseBoolean(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.PDF_READ_SPILL_TO_TEMP_FILE, "false"));
+        textDensityProbe = new PdfTextDensityProbe(
+                Integer.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.TEXT_PROBE_SAMPLE_PAGES, "8")),
+                Double.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.TEXT_PROBE_CONFIDENCE, "0.95"))
+        );
+        pdfTextExtractor = new ParallelPdfTextExtractor(
+                Integer.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.PDF_EXTRACTION_PARALLELISM, "0")),
+                Integer.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.PDF_EXTRACTION_MINIMUM_PAGES_PER_TASK, "16"))
+        );
+        pdfRoutingMode = ApplicationProperties.getSingleton().getProperty(ApplicationProperties.PDF_ROUTING_MODE, DOCUMENT_ROUTING_MODE);
+        chunkPlanner = new PdfChunkPlanner(
+                largeFileThreshold,
+                Integer.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.LARGE_FILE_PAGE_THRESHOLD, "100")),
+                Integer.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.LARGE_FILE_MAXIMUM_CHUNKS, "10"))
+        );
+        synchronousTextractThreshold = Long.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.SYNCHRONOUS_TEXTRACT_THRESHOLD, "5242880"));
+        deduplicateByContentHash = Boolean.parseBoolean(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.DEDUPLICATE_BY_CONTENT_HASH, "true"));
+        deduplicateHashMaximumSize = Long.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.DEDUPLICATE_HASH_MAXIMUM_SIZE, "1048576"));
+        final int metadataCacheMaximumEntries = Integer.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.METADATA_CACHE_MAXIMUM_ENTRIES, "1000"));
+        metadataCache = new TtlCache<>(metadataCacheMaximumEntries);
+        statusCache = new TtlCache<>(metadataCacheMaximumEntries);
+        metadataCacheTtl = Duration.ofSeconds(Long.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.METADATA_CACHE_TTL, "5")));
+        statusCacheTtl = Duration.ofSeconds(Long.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.STATUS_CACHE_TTL, "2")));
+        negativeCacheTtl = Duration.ofSeconds(Long.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.NEGATIVE_CACHE_TTL, "5")));
+        longPollMaximumTimeout = Duration.ofSeconds(Long.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.LONG_POLL_MAXIMUM_TIMEOUT, "25")));
+        final int webhookMaximumConcurrency = Integer.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.WEBHOOK_MAXIMUM_CONCURRENCY, "8"));
+        final int webhookMaximumAttempts = Integer.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.WEBHOOK_MAXIMUM_ATTEMPTS, "3"));
+        final Duration webhookRetryBaseDelay = Duration.ofMillis(Long.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.WEBHOOK_RETRY_BASE_DELAY, "500")));
+        final Duration webhookRequestTimeout = Duration.ofSeconds(Long.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.WEBHOOK_REQUEST_TIMEOUT, "5")));
+        final Duration webhookDeliveryDeadline = Duration.ofSeconds(Long.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.WEBHOOK_DELIVERY_DEADLINE, "5")));
+        // the HTTP client of the dispatcher starts a selector thread, it is created with the first notification
+        webhookDispatcher = new LazyProvider<>("WebhookDispatcher", () -> new WebhookDispatcher(
+                webhookMaximumConcurrency, webhookMaximumAttempts, webhookRetryBaseDelay, webhookRequestTimeout, webhookDeliveryDeadline
+        ));
+        webhookInlineText = Boolean.parseBoolean(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.WEBHOOK_INLINE_TEXT, "false"));
+        webhookInlineTextMaximum = Long.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.WEBHOOK_INLINE_TEXT_MAXIMUM, "65536"));
+        webhookAllowedHosts = Arrays.stream(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.WEBHOOK_ALLOWED_HOSTS, "").split(","))
+                .map(String::trim)
+                .filter(host -> !host.isEmpty())
+                .collect(Collectors.toSet());
+        statusQueryMaximumIdentifiers = Integer.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.STATUS_QUERY_MAXIMUM_IDENTIFIERS, "5000"));
+        statusQueryParallelism = Math.max(1, Integer.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.STATUS_QUERY_PARALLELISM, "16")));
+        statusQueryProcessor = new RecordProcessor(statusQueryParallelism);
+        documentTimelineEnabled = Boolean.parseBoolean(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.DOCUMENT_TIMELINE_ENABLED, "true"));
+        latencyReportWindow = Duration.ofHours(Long.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.LATENCY_REPORT_WINDOW, "24")));
+        latencyReportMaximumDocuments = Integer.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.LATENCY_REPORT_MAXIMUM_DOCUMENTS, "1000"));
+        s3ReadFanOut = new S3ReadFanOut(Boolean.parseBoolean(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.CONCURRENT_S3_READS, "true")));
+
+        this.defaultRegion = Region.of(region);
+        this.sourceBucketName = sourceBucketName;
+        this.destinationBucketName = destinationBucketName;
+        this.textractServiceRoleArn = textractServiceRoleArn;
+        this.textractStatusTopicName = textractStatusTopicName;
+
+        this.amazonS3Client = amazonS3;
+        this.amazonS3 = S3CallScope.memoizing(amazonS3);
+        this.textractClient = textractClient;
+        this.statusStore = statusStore;
+
+        final double textractStartRate = Double.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.TEXTRACT_START_RATE, "5"));
+        final int maximumConcurrentJobs = Integer.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.TEXTRACT_MAXIMUM_CONCURRENT_JOBS, "100"));
+        final InFlightJobCounter inFlightJobCounter = maximumConcurrentJobs > 0
+                ? new S3InFlightJobCounter(this.amazonS3, destinationBucketName, IN_FLIGHT_JOB_PREFIX, maximumConcurrentJobs, IN_FLIGHT_JOB_EXPIRY)
+                : new InMemoryInFlightJobCounter(0);
+        submissionScheduler = new TextractSubmissionScheduler(
+                new TokenBucket(textractStartRate, (int) Math.ceil(textractStartRate)),
+                inFlightJobCounter,
+                new S3SubmissionRetryQueue(this.amazonS3, destinationBucketName, SUBMISSION_RETRY_QUEUE_PREFIX),
+                this::startTextractJob,
+                Integer.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.TEXTRACT_SUBMISSION_MAXIMUM_ATTEMPTS, "10")),
+                Duration.ofSeconds(Long.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.TEXTRACT_RETRY_BASE_DELAY, "30"))),
+                Duration.ofSeconds(Long.valueOf(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.TEXTRACT_RETRY_MAXIMUM_DELAY, "900")))
+        );
+    }
+
+    /**
+     * Create the document status store selected by the application properties.
+     * @param dynamoDbClient the client of a DYNAMODB store, owned (and closed) by the caller
+     */
+    private static DocumentStatusStore createDocumentStatusStore(
+            final AmazonS3 amazonS3, final String sourceBucketName,
+            final LazyProvider<DynamoDbClient> dynamoDbClient) {
+        final String storeType = ApplicationProperties.getSingleton().getProperty(ApplicationProperties.DOCUMENT_STATUS_STORE, "S3");
+        switch (storeType.trim().toUpperCase()) {
+            case "DYNAMODB":
+                final String tableEnvironment = System.getenv("DOCUMENT_STATUS_TABLE");
+                final String tableName = tableEnvironment != null && !tableEnvironment.isEmpty()
+                        ? tableEnvironment
+                        : ApplicationProperties.getSingleton().getProperty(ApplicationProperties.DOCUMENT_STATUS_TABLE, "");
+                // without a table every status read and write would fail, fail now rather than on the first request
+                if (tableName.trim().isEmpty())
+                    throw new IllegalStateException("The DYNAMODB document status store requires a table, set DOCUMENT_STATUS_TABLE or "
+                            + ApplicationProperties.DOCUMENT_STATUS_TABLE);
+                return new DynamoDbDocumentStatusStore(dynamoDbClient.get(), tableName.trim());
+            case "MEMORY":
+                return new InMemoryDocumentStatusStore();
+            default:
+                return new S3TagDocumentStatusStore(amazonS3, sourceBucketName);
+        }
+    }
+
+    // allow access so that a mocked instance can have behavior added
+    public AmazonS3 getAmazonS3() {
+        return amazonS3Client.get();
+    }
+
+    // allow access so that a mocked instance can have behavior added
+    public TextractClient getTextractClient() {
+        return textractClient.get();
+    }
+
+    public URL generatePresignedPostURL(final String identifier)
+            throws AbstractApplicationException {
+
+        URL result = null;
+        logger.debug("generatePresignedPostURL({}), sourceBucket is [{}], presignedUrlExpiration=[{}]",
+                identifier, this.sourceBucketName, this.presignedUrlExpiration
+        );
+        try {
+            Date expirationDate = Date.from(Instant.now().plus(this.presignedUrlExpiration, ChronoUnit.SECONDS));
+            result = amazonS3.generatePresignedUrl(this.sourceBucketName, identifier, expirationDate);
+        } catch (SdkClientException sdkcX) {
+            logger.error("Error generating presigned post URL: {}", sdkcX);
+        }
+
+        return result;
+    }
+
+    /**
+     * Get document metadata, including the status and Job ID.
+     * Clients poll this for the status of a document, so the result is cached, see getCachedDocumentMetadata().
+     *
+     * @param request
+     * @return
+     */
+    public CanonicalResponse getDocumentMetadata(final CanonicalRequest request) {
+        return inS3CallScope("getDocumentMetadata", () -> getDocumentMetadataInScope(request));
+    }
+
+    // getDocumentMetadata within the S3CallScope of the operation
+    private CanonicalResponse getDocumentMetadataInScope(final CanonicalRequest request) {
+        CanonicalResponse.Builder responseBuilder = CanonicalResponse.builder();
+
+        try {
+            CanonicalDocument metadata = getCachedDocumentMetadata(request.getCanonicalDocument().getIdentifier());
+            if (metadata == null) {
+                responseBuilder.notFound();
+            } else {
+                responseBuilder.addDocument(metadata);
+                responseBuilder.success();
+            }
+        } catch (BaseServiceException bsX) {
+            responseBuilder.serviceException(bsX);
+        }
+        logger.debug("getDocumentMetadata(), metadata cache [{}], status cache [{}]",
+                metadataCache.getStatistics(), statusCache.getStatistics());
+
+        return responseBuilder.build();
+    }
+
+    /**
+     * Get document metadata, as getDocumentMetadata(), once the document has one of the given statuses.
+     * The status is re-read with an increasing delay until it is one of the statuses, it is a terminal status
+     * (the document will never have one of the statuses), or the timeout (limited to longPollMaximumTimeout)
+     * expires. The current metadata is returned whichever happens first, the caller checks the status.
+     *
+     * @param waitFor the statuses to wait for
+     * @param timeout the longest time to wait
+     */
+    public CanonicalResponse waitForDocumentStatus(
+            final CanonicalRequest request,
+            final Set<DocumentExtractStatus> waitFor,
+            final Duration timeout) {
+        return inS3CallScope("waitForDocumentStatus", () -> waitForDocumentStatusInScope(request, waitFor, timeout));
+    }
+
+    // waitForDocumentStatus within the S3CallScope of the operation
+    private CanonicalResponse waitForDocumentStatusInScope(
+            final CanonicalRequest request,
+            final Set<DocumentExtractStatus> waitFor,
+            final Duration timeout) {
+        CanonicalResponse.Builder responseBuilder = CanonicalResponse.builder();
+        final String identifier = request.getCanonicalDocument().getIdentifier();
+        final Duration effectiveTimeout = timeout.compareTo(longPollMaximumTimeout) > 0 ? longPollMaximumTimeout : timeout;
+        final long deadline = System.nanoTime() + effectiveTimeout.toNanos();
+
+        try {
+            CanonicalDocument metadata = getCachedDocumentMetadata(identifier);
+            long delayMillis = LONG_POLL_INITIAL_DELAY.toMillis();
+            int reads = 1;
+            while (metadata != null && !isWaitOver(metadata.getDocumentExtractStatus(), waitFor)) {
+                final long remainingMillis = Duration.ofNanos(deadline - System.nanoTime()).toMillis();
+                if (remainingMillis <= 0L)
+                    break;
+                try {
+                    Thread.sleep(Math.min(delayMillis, remainingMillis));
+                } catch (InterruptedException iX) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                delayMillis = Math.min(delayMillis * 2, LONG_POLL_MAXIMUM_DELAY.toMillis());
+
+                // the cached status may be older than the wait, read it again and refresh the cache for HEAD requests
+                statusCache.invalidate(identifier);
+                S3CallScope.forget(this.sourceBucketName, identifier);
+                metadata = getCachedDocumentMetadata(identifier);
+                ++reads;
+            }
+            logger.debug("waitForDocumentStatus({}, {}), status is [{}] after {} reads",
+                    identifier, waitFor, metadata == null ? null : metadata.getDocumentExtractStatus(), reads);
+
+            if (metadata == null) {
+                responseBuilder.notFound();
+            } else {
+                responseBuilder.addDocument(metadata);
+                responseBuilder.success();
+            }
+        } catch (BaseServiceException bsX) {
+            responseBuilder.serviceException(bsX);
+        }
+
+        return responseBuilder.build();
+    }
+
+    private static boolean isWaitOver(final DocumentExtractStatus status, final Set<DocumentExtractStatus> waitFor) {
+        final DocumentExtractStatus effectiveStatus = status == null ? DocumentExtractStatus.New : status;
+        return waitFor.contains(effectiveStatus) || TERMINAL_STATUSES.contains(effectiveStatus);
+    }
+
+    public TtlCache.Statistics getMetadataCacheStatistics() {
+        return metadataCache.getStatistics();
+    }
+
+    public TtlCache.Statistics getStatusCacheStatistics() {
+        return statusCache.getStatistics();
+    }
+
+    /**
+     * Open a scope in which the S3 calls are counted and the metadata and tags read are reused, see S3CallScope.
+     * Each public operation opens its own scope, a caller may open a scope for a request that makes several
+     * operations. The calls are recorded by operation when the scope is closed.
+     */
+    public S3CallScope openS3CallScope(final String operation) {
+        return S3CallScope.open(operation, s3CallRecorder::record);
+    }
+
+    // an operation, or the part of one, that is made within an S3CallScope
+    @FunctionalInterface
+    private interface ScopedOperation<T, X extends Exception> {
+        T call() throws X;
+    }
+
+    /**
+     * Make the operation within its own S3CallScope, which is closed when the operation returns or throws.
+     */
+    private <T, X extends Exception> T inS3CallScope(final String operation, final ScopedOperation<T, X> scopedOperation) throws X {
+        final S3CallScope s3CallScope = openS3CallScope(operation);
+        try {
+            return scopedOperation.call();
+        } finally {
+            s3CallScope.close();
+        }
+    }
+
+    /**
+     * Start a read that is independent of the other reads of an operation, it is made concurrently with them.
+     * The result is awaited with S3ReadFanOut.await(), which throws the exception thrown by the read.
+     */
+    private <T> CompletableFuture<T> readConcurrently(final Supplier<T> read) {
+        return s3ReadFanOut.read(read);
+    }
+
+    public S3CallRecorder.Statistics getS3CallStatistics(final String operation) {
+        return s3CallRecorder.getStatistics(operation);
+    }
+
+    public int getStatusQueryMaximumIdentifiers() {
+        return statusQueryMaximumIdentifiers;
+    }
+
+    /**
+     * Get the status (and optionally the metadata) of many documents, replacing a HEAD request for each.
+     * Duplicate identifiers are read once. The statuses are read from the status store in batches of as many
+     * documents as the store reads with one request, then the metadata of each document is read through the metadata cache,
+     * both by up to statusQueryParallelism threads.
+     * Without metadata the source bucket is not read and a document with no status is reported as not found.
+     * A document that could not be read is reported as failed rather than failing the whole query.
+     *
+     * @throws IllegalArgumentException if the query has more than statusQueryMaximumIdentifiers identifiers
+     */
+    public DocumentStatusQueryResult queryDocumentStatus(final DocumentStatusQuery query) throws BaseServiceException {
+        return inS3CallScope("queryDocumentStatus", () -> queryDocumentStatusInScope(query));
+    }
+
+    // queryDocumentStatus within the S3CallScope of the operation
+    private DocumentStatusQueryResult queryDocumentStatusInScope(final DocumentStatusQuery query) throws BaseServiceException {
+        final List<String> identifiers = new ArrayList<>(new LinkedHashSet<>(query.getIdentifiers()));
+        if (identifiers.size() > statusQueryMaximumIdentifiers)
+            throw new IllegalArgumentException("A status query is limited to " + statusQueryMaximumIdentifiers + " identifiers");
+        if (identifiers.isEmpty())
+            return new DocumentStatusQueryResult(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList());
+
+        // a batch is one read of the store, a store that reads each document in turn has a batch per document
+        final int batchSize = Math.max(1, statusStore.getBatchSize());
+        List<List<String>> batches = new ArrayList<>();
+        for (int start = 0; start < identifiers.size(); start += batchSize)
+            batches.add(identifiers.subList(start, Math.min(start + batchSize, identifiers.size())));
+
+        final Map<String, DocumentStatusRecord> statusRecords = new ConcurrentHashMap<>();
+        final Set<String> failed = ConcurrentHashMap.newKeySet();
+        final Map<String, CanonicalDocument> metadata = new ConcurrentHashMap<>();
+        // the reads are made by the workers of the shared RecordProcessor, no more than statusQueryParallelism at once
+        List<Runnable> reads = new ArrayList<>();
+        for (List<String> batch : batches)
+            reads.add(() -> {
+                try {
+                    statusRecords.putAll(statusStore.getAll(batch));
+                } catch (RuntimeException rX) {
+                    logger.warn("queryDocumentStatus(), failed to read the status of {} documents", batch.size(), rX);
+                    failed.addAll(batch);
+                }
+            });
+        if (query.isIncludeMetadata())
+            for (String identifier : identifiers)
+                reads.add(() -> {
+                    try {
+                        // a document that does not exist has no entry
+                        getCachedSourceMetadata(identifier).ifPresent(documentMetadata -> metadata.put(identifier, documentMetadata));
+                    } catch (RuntimeException rX) {
+                        logger.warn("queryDocumentStatus(), failed to read the metadata of [{}]", identifier, rX);
+                        failed.add(identifier);
+                    }
+                });
+        statusQueryProcessor.process(reads, Runnable::run);
+
+        Map<String, CanonicalDocument> documents = new LinkedHashMap<>();
+        List<String> notFound = new ArrayList<>();
+        List<String> failedInOrder = new ArrayList<>();
+        for (String identifier : identifiers) {
+            final DocumentStatusRecord statusRecord = statusRecords.get(identifier);
+            if (failed.contains(identifier)) {
+                failedInOrder.add(identifier);
+            } else if (query.isIncludeMetadata() ? !metadata.containsKey(identifier) : statusRecord == null) {
+                notFound.add(identifier);
+            } else {
+                CanonicalDocument.Builder documentBuilder = CanonicalDocument.builder().withIdentifier(identifier);
+                if (query.isIncludeMetadata())
+                    documentBuilder.with(metadata.get(identifier));
+                if (statusRecord != null)
+                    documentBuilder
+                            .withDocumentExtractStatus(statusRecord.getStatus())
+                            .withJobId(statusRecord.getJobId());
+                documents.put(identifier, documentBuilder.build());
+            }
+        }
+        logger.info("queryDocumentStatus(), {} identifiers, {} found, {} not found, {} failed",
+                identifiers.size(), documents.size(), notFound.size(), failedInOrder.size());
+
+        return new DocumentStatusQueryResult(documents, notFound, failedInOrder);
+    }
+
+    /**
+     * @return when each stage of the extraction of the document was reached, or null if no stage was recorded
+     */
+    public DocumentTimeline getDocumentTimeline(final String identifier) throws BaseServiceException {
+        return inS3CallScope("getDocumentTimeline", () -> getTimelineFromDestinationBucket(identifier));
+    }
+
+    /**
+     * Report the latency of each stage of the pipeline over the documents uploaded within latencyReportWindow,
+     * no more than latencyReportMaximumDocuments of them.
+     * The timelines are listed an hour of uploads at a time, the most recent hour first (within an hour the
+     * documents are in identifier order), and the listing stops once there are enough documents. No timeline
+     * object is read, the stages of each transition are in its key.
+     */
+    public StageLatencyReport getStageLatencyReport() throws BaseServiceException {
+        return inS3CallScope("getStageLatencyReport", () -> getStageLatencyReportInScope());
+    }
+
+    // getStageLatencyReport within the S3CallScope of the operation
+    private StageLatencyReport getStageLatencyReportInScope() throws BaseServiceException {
+        final Instant now = Instant.now();
+        final Instant windowStart = now.minus(latencyReportWindow);
+        final List<DocumentTimeline> timelines = new ArrayList<>();
+        try {
+            for (Instant hour = now;
+                 timelines.size() < latencyReportMaximumDocuments && !hour.isBefore(windowStart.truncatedTo(ChronoUnit.HOURS));
+                 hour = hour.minus(1, ChronoUnit.HOURS)) {
+                final int remaining = latencyReportMaximumDocuments - timelines.size();
+                final List<String> keys = new ArrayList<>();
+                List<DocumentTimeline> hourTimelines;
+                ListObjectsV2Request listRequest = new ListObjectsV2Request()
+                        .withBucketName(this.destinationBucketName)
+                        .withPrefix(DocumentTimeline.createHourPrefix(hour));
+                ListObjectsV2Result listing;
+                // the transitions of a document are listed together, once there are more timelines than are
+                // needed the timelines that are used are complete
+                do {
+                    listing = amazonS3.listObjectsV2(listRequest);
+                    listing.getObjectSummaries().forEach(summary -> keys.add(summary.getKey()));
+                    listRequest.setContinuationToken(listing.getNextContinuationToken());
+                    hourTimelines = DocumentTimeline.fromTransitionKeys(keys).stream()
+                            .filter(timeline -> !timeline.getTimestamp(DocumentTimeline.Stage.UPLOAD_RECEIVED).isBefore(windowStart))
+                            .collect(Collectors.toList());
+                } while (listing.isTruncated() && hourTimelines.size() <= remaining);
+                timelines.addAll(hourTimelines.subList(0, Math.min(hourTimelines.size(), remaining)));
+            }
+        } catch (SdkClientException sdkcX) {
+            throw new BaseServiceException("Failed to list the document timelines", sdkcX);
+        }
+
+        final StageLatencyReport result = StageLatencyReport.of(timelines, latencyReportWindow);
+        logger.info("getStageLatencyReport(), {}", result);
+        return result;
+    }
+
+    /**
+     * This function saves the file to the S3 bucket along with whatever metadata is provided.
+     * The job status is saved to an S3 tag.
+     * The S3 bucket has an event listener lambda, which submits the document to Textract for OCR
+     * NOTE: the Metadata is stored with the S3 object with the prefix "x-amz-meta-" added.
+     * i.e. site_id becomes x-amz-meta-site_id in S3
+     */
+    public CanonicalResponse saveDocumentToSourceBucket(final CanonicalRequest canonicalRequest)
+            throws AbstractApplicationException {
+        return inS3CallScope("saveDocumentToSourceBucket", () -> saveDocumentToSourceBucketInScope(canonicalRequest));
+    }
+
+    // saveDocumentToSourceBucket within the S3CallScope of the operation
+    private CanonicalResponse saveDocumentToSourceBucketInScope(final CanonicalRequest canonicalRequest)
+            throws AbstractApplicationException {
+        logger.debug("saveDocumentToSourceBucket({})", canonicalRequest);
+
+        CanonicalResponse.Builder canonicalResponseBuilder = CanonicalResponse.builder();
+
+        CanonicalDocument requestDocument = canonicalRequest.getCanonicalDocument();
+        if (requestDocument == null) {
+            canonicalResponseBuilder.serviceException(new BaseServiceException("requestDocument cannot be null or an empty string"));
+        } else if (canonicalRequest.getMethod() == "PUT" && (requestDocument.getIdentifier() == null || requestDocument.getIdentifier().isEmpty())) {
+            canonicalResponseBuilder.serviceException(new BaseServiceException("identifier cannot be null or an empty string"));
+        } else if (! requestDocument.hasBody()) {
+            canonicalResponseBuilder.serviceException(new BaseServiceException("body cannot be null or a empty"));
+        } else if (requestDocument.getCallbackUrl() != null && !WebhookDispatcher.isValidCallbackUrl(requestDocument.getCallbackUrl(), webhookAllowedHosts)) {
+            canonicalResponseBuilder.serviceException(new BaseServiceException("callback URL must be an absolute https URL to an allowed host"));
+        } else {
+            CanonicalDocument.Builder effectiveDocumentBuilder = CanonicalDocument.builder()
+                    .with(requestDocument)
+                    .withIdentifierIfNull(UUID.randomUUID().toString())
+                    .withFilenameDefaultIfNull()
+                    .withContentTypeDefaultIfNull()
+                    .withStatusDefaultIfNull();
+            CanonicalDocument effectiveDocument = effectiveDocumentBuilder.build();
+            logger.debug("effectiveDocument: {}", effectiveDocument);
+
+            try {
+                // POST or PUT the document body and metadata
+                CanonicalDocument result = saveDocumentAndMetadataToSourceBucket(effectiveDocument);
+                // Mutable properties (status and job ID) are stored as tags in S3, set with the document, or in a
+                // status store. The PUT has triggered the submission, which may have moved the status on from New
+                if (!statusStore.isRecordedWithDocument())
+                    transitionStatusAndJobId(effectiveDocument.getIdentifier(), EnumSet.of(DocumentExtractStatus.New), DocumentExtractStatus.New, null);
+                canonicalResponseBuilder.addDocument(result);
+                canonicalResponseBuilder.success();
+            } catch (SdkClientException sdkcX) {
+                canonicalResponseBuilder.serviceException(sdkcX);
+            }
+        }
+        return canonicalResponseBuilder.build();
+    }
+
+    /**
+     * This function retrieves the original document given the document_id
+     */
+    public CanonicalResponse getDocumentFromSourceBucket(final CanonicalRequest canonicalRequest)
+            throws AbstractApplicationException {
+        return inS3CallScope("getDocumentFromSourceBucket", () -> getDocumentFromSourceBucketInScope(canonicalRequest));
+    }
+
+    // getDocumentFromSourceBucket within the S3CallScope of the operation
+    private CanonicalResponse getDocumentFromSourceBucketInScope(final CanonicalRequest canonicalRequest)
+            throws AbstractApplicationException {
+        logger.debug("getDocumentFromSourceBucket({})", canonicalRequest);
+        CanonicalResponse.Builder canonicalResponseBuilder = CanonicalResponse.builder();
+
+        if (canonicalRequest == null || canonicalRequest.getCanonicalDocument() == null || canonicalRequest.getCanonicalDocument().getIdentifier() == null) {
+            canonicalResponseBuilder.genericBadRequestException(new BaseClientException("identifier must not be null"));
+        } else {
+            final String identifier = canonicalRequest.getCanonicalDocument().getIdentifier();
+
+            // the object carries its metadata, there is no need to HEAD it
+            final S3Object s3Object = amazonS3.getObject(sourceBucketName, identifier);
+            final ObjectMetadata objectMetadata = s3Object == null ? null : s3Object.getObjectMetadata();
+
+            if (s3Object != null && objectMetadata != null) {
+                canonicalResponseBuilder.success();
+
+                CanonicalDocument.Builder documentBuilder = CanonicalDocument.builder();
+                documentBuilder.withBodyStream(s3Object.getObjectContent());
+                documentBuilder.withContentType(objectMetadata.getContentType());
+                documentBuilder.withContentLength((int) objectMetadata.getContentLength());
+                documentBuilder.withIdentifier(identifier);
+                documentBuilder.withDocumentExtractStatus(DocumentExtractStatus.of(objectMetadata.getUserMetaDataOf(HeaderTags.TAG_KEY_STATUS)));
+
+                canonicalResponseBuilder.addDocument(documentBuilder.build());
+            } else {
+                canonicalResponseBuilder.notFound();
+            }
+        }
+        return canonicalResponseBuilder.build();
+    }
+
+    /**
+     * This function retrieves the extracted text given the document_id
+     */
+    public CanonicalResponse getTextFromDestinationBucket(final CanonicalRequest canonicalRequest)
+            throws AbstractApplicationException {
+        return inS3CallScope("getTextFromDestinationBucket", () -> getTextFromDestinationBucketInScope(canonicalRequest));
+    }
+
+    // getTextFromDestinationBucket within the S3CallScope of the operation
+    private CanonicalResponse getTextFromDestinationBucketInScope(final CanonicalRequest canonicalRequest)
+            throws AbstractApplicationException {
+        logger.debug("getTextFromDestinationBucket({})", canonicalRequest);
+        return getFromDestinationBucket(Utility.createTextResultId(canonicalRequest.getCanonicalDocument().getIdentifier()));
+    }
+
+    /**
+     * This function retrieves the entire extracted document given the document_id
+     */
+    public CanonicalResponse getJsonFromDestinationBucket(final CanonicalRequest canonicalRequest)
+            throws AbstractApplicationException {
+        return inS3CallScope("getJsonFromDestinationBucket", () -> getJsonFromDestinationBucketInScope(canonicalRequest));
+    }
+
+    // getJsonFromDestinationBucket within the S3CallScope of the operation
+    private CanonicalResponse getJsonFromDestinationBucketInScope(final CanonicalRequest canonicalRequest)
+            throws AbstractApplicationException {
+        logger.debug("getJsonFromDestinationBucket({})", canonicalRequest);
+        return getFromDestinationBucket(Utility.createJsonResultId(canonicalRequest.getCanonicalDocument().getIdentifier()));
+    }
+
+    public CanonicalResponse deleteDocumentFromSourceBucket(final CanonicalRequest canonicalRequest)
+            throws AbstractApplicationException {
+        return inS3CallScope("deleteDocumentFromSourceBucket", () -> deleteDocumentFromSourceBucketInScope(canonicalRequest));
+    }
+
+    // deleteDocumentFromSourceBucket within the S3CallScope of the operation
+    private CanonicalResponse deleteDocumentFromSourceBucketInScope(final CanonicalRequest canonicalRequest)
+            throws AbstractApplicationException {
+        logger.debug("deleteDocumentFromSourceBucket({})", canonicalRequest);
+        CanonicalResponse.Builder canonicalResponseBuilder = CanonicalResponse.builder();
+
+        if (canonicalRequest == null || canonicalRequest.getCanonicalDocument() == null || canonicalRequest.getCanonicalDocument().getIdentifier() == null) {
+            canonicalResponseBuilder.genericBadRequestException(new BaseClientException("identifier must not be null"));
+        } else {
+            final String identifier = canonicalRequest.getCanonicalDocument().getIdentifier();
+
+            // retrieve the object metadata, which will be used to populate the response
+            final ObjectMetadata objectMetadata = amazonS3.getObjectMetadata(sourceBucketName, identifier);
+
+            if (objectMetadata != null) {
+                // if the object metadata was found, then the object exists to delete
+                amazonS3.deleteObject(sourceBucketName, identifier);
+                metadataCache.invalidate(identifier);
+                statusCache.invalidate(identifier);
+
+                canonicalResponseBuilder.success();
+
+                CanonicalDocument.Builder documentBuilder = CanonicalDocument.builder();
+                documentBuilder.withContentType(objectMetadata.getContentType());
+                documentBuilder.withContentLength((int) objectMetadata.getContentLength());
+                documentBuilder.withIdentifier(identifier);
+                documentBuilder.withDocumentExtractStatus(DocumentExtractStatus.of(objectMetadata.getUserMetaDataOf(HeaderTags.TAG_KEY_STATUS)));
+
+                canonicalResponseBuilder.addDocument(documentBuilder.build());
+            } else {
+                // the object does not exist, return a not found response
+                canonicalResponseBuilder.notFound();
+            }
+        }
+        return canonicalResponseBuilder.build();
+    }
+
+    /**
+     * Submit a document to Textract for either text detection or text analysis, depending on the application properties.
+     * This method is called by a Lambda which is triggered when a new document is added to the source S3 bucket.
+     * This method may invoke either Textract text analysis or detection, depending on application mode.
+     * Text detection extracts the text from the document.
+     * Text analysis extracts the structure of the document, including the text,
+     */
+    public CanonicalResponse submitDocumentForTextExtraction(final CanonicalRequest canonicalRequest) {
+        return inS3CallScope("submitDocumentForTextExtraction", () -> submitDocumentForTextExtractionInScope(canonicalRequest));
+    }
+
+    // submitDocumentForTextExtraction within the S3CallScope of the operation
+    private CanonicalResponse submitDocumentForTextExtractionInScope(final CanonicalRequest canonicalRequest) {
+        CanonicalResponse.Builder canonicalResponseBuilder = CanonicalResponse.builder();
+
+        logger.debug("submitDocumentForTextExtraction({})", canonicalRequest);
+        if (canonicalRequest == null || canonicalRequest.getCanonicalDocument() == null || canonicalRequest.getCanonicalDocument().getIdentifier() == null) {
+            canonicalResponseBuilder.genericBadRequestException(new BaseClientException("identifier must not be null"));
+        } else {
+            final String identifier = canonicalRequest.getCanonicalDocument().getIdentifier();
+            try {
+                final CanonicalDocument documentMetadata = getDocumentMetadataInternal(identifier);
+                final Map<DocumentTimeline.Stage, Instant> stages = new EnumMap<>(DocumentTimeline.Stage.class);
+                final String contentKey = deduplicateByContentHash ? getContentKey(identifier, documentMetadata, true) : null;
+
+                // if a document with the same content has already been extracted then copy its results and skip the OCR
+                if (contentKey != null && copyResultsOfIdenticalDocument(identifier, contentKey)) {
+                    updateStatusAndJobId(identifier, DocumentExtractStatus.SUCCEEDED, null);
+                    stages.put(DocumentTimeline.Stage.SHORTCUT_EVALUATED, Instant.now());
+                    stages.put(DocumentTimeline.Stage.RESULTS_STORED, Instant.now());
+                    canonicalResponseBuilder.success();
+
+                } else {
+                    // if the PDF has enough text (not images of text) then extract that, save it and skip the OCR,
+                    // else OCR either the source document, a document containing only the pages that need it or,
+                    // if the document is large, chunks of either
+                    List<software.amazon.awssdk.services.textract.model.S3Object> textractDocuments = evaluatePdfTextAndShortcut(identifier, documentMetadata);
+                    stages.put(DocumentTimeline.Stage.SHORTCUT_EVALUATED, Instant.now());
+                    if (textractDocuments.isEmpty()) {
+                        stages.put(DocumentTimeline.Stage.RESULTS_STORED, Instant.now());
+                        registerContentKey(identifier, contentKey, false);
+                        canonicalResponseBuilder.success();
+
+                    } else if (textractDocuments.size() == 1 && this.sourceBucketName.equals(textractDocuments.get(0).bucket())) {
+                        // the source document, whole, there is no manifest
+                        final SubmissionOutcome outcome = submitDocumentToTextract(textractDocuments.get(0), identifier);
+                        if (applySubmissionOutcomes(identifier, Collections.singletonList(outcome), null) == DocumentExtractStatus.Submitted)
+                            stages.put(DocumentTimeline.Stage.TEXTRACT_SUBMITTED, Instant.now());
+                        canonicalResponseBuilder.success();
+
+                    } else {
+                        // there is a job for each chunk (one if only some of the pages are OCRed), the job tag of a
+                        // chunk tells the completion notification that there is a manifest
+                        final List<SubmissionOutcome> outcomes = submitChunksToTextract(identifier, textractDocuments);
+                        logger.info("submitDocumentForTextExtraction({}), submitted {} chunks {}", identifier, outcomes.size(), outcomes);
+                        if (applySubmissionOutcomes(identifier, outcomes, null) == DocumentExtractStatus.Submitted)
+                            stages.put(DocumentTimeline.Stage.TEXTRACT_SUBMITTED, Instant.now());
+                        canonicalResponseBuilder.success();
+                    }
+                }
+                recordTimeline(identifier, stages);
+            } catch (BaseServiceException bsX) {
+                canonicalResponseBuilder.serviceException(bsX);
+            }
+        }
+
+        return canonicalResponseBuilder.build();
+    }
+
+    /**
+     * Notification that Textract has completed extraction
+     */
+    public CanonicalResponse moveExtractedTextToDestination(final CanonicalRequest canonicalRequest) {
+        return inS3CallScope("moveExtractedTextToDestination", () -> moveExtractedTextToDestinationInScope(canonicalRequest));
+    }
+
+    // moveExtractedTextToDestination within the S3CallScope of the operation
+    private CanonicalResponse moveExtractedTextToDestinationInScope(final CanonicalRequest canonicalRequest) {
+        final Instant notificationReceived = Instant.now();
+        CanonicalResponse.Builder canonicalResponseBuilder = CanonicalResponse.builder();
+
+        if (canonicalRequest == null || canonicalRequest.getCanonicalDocument() == null || canonicalRequest.getCanonicalDocument().getIdentifier() == null) {
+            canonicalResponseBuilder.genericBadRequestException(new BaseClientException("identifier must not be null"));
+        } else if (canonicalRequest == null || canonicalRequest.getCanonicalDocument() == null || canonicalRequest.getCanonicalDocument().getDocumentExtractStatus() == null) {
+            canonicalResponseBuilder.genericBadRequestException(new BaseClientException("document status must not be null"));
+        } else {
+            CanonicalDocument requestDocument = canonicalRequest.getCanonicalDocument();
+            String identifier = requestDocument.getIdentifier();
+            String jobId = requestDocument.getJobId();
+            Integer chunkIndex = requestDocument.getChunkIndex();
+
+            // the job is no longer counted against the concurrent job quota
+            try {
+                submissionScheduler.release(chunkIndex == null ? identifier : Utility.createChunkJobTag(identifier, chunkIndex));
+            } catch (BaseServiceException bsX) {
+                logger.warn("moveExtractedTextToDestination({}), failed to release job", identifier, bsX);
+            }
+
+            switch (requestDocument.getDocumentExtractStatus()) {
+                case SUCCEEDED:
+                    logger.info("{document_id} OCR status SUCCEEDED, moving results to output bucket", identifier);
+                    try {
+                        // a document that was split is complete only when the results of all the chunks are available
+                        final Map<DocumentTimeline.Stage, Instant> stages = new EnumMap<>(DocumentTimeline.Stage.class);
+                        stages.put(DocumentTimeline.Stage.NOTIFICATION_RECEIVED, notificationReceived);
+                        final SavedResults savedResults = moveTextToDestinationBucket(jobId, identifier, chunkIndex);
+                        if (savedResults != SavedResults.NONE) {
+                            stages.put(DocumentTimeline.Stage.RESULTS_STORED, Instant.now());
+                            transitionStatusAndJobId(identifier, INCOMPLETE_STATUSES, DocumentExtractStatus.SUCCEEDED, null);
+                            if (deduplicateByContentHash)
+                                registerContentKey(identifier, getContentKey(identifier, getDocumentMetadataInternal(identifier), false),
+                                        savedResults == SavedResults.TEXT_AND_BLOCKS);
+                        }
+                        recordTimeline(identifier, stages);
+                        canonicalResponseBuilder.success();
+                    } catch (BaseServiceException bsX) {
+                        canonicalResponseBuilder.serviceException(bsX);
+                    }
+                    break;
+                case FAILED:
+                    logger.info("{document_id} OCR status FAILED, no results available", identifier);
+                    try {
+                        recordChunkFailure(identifier, chunkIndex);
+                        transitionStatusAndJobId(identifier, INCOMPLETE_STATUSES, DocumentExtractStatus.FAILED, null);
+                        recordTimeline(identifier, Collections.singletonMap(DocumentTimeline.Stage.NOTIFICATION_RECEIVED, notificationReceived));
+                        canonicalResponseBuilder.success();     // "success" as in the event was handled successfully
+                    } catch (BaseServiceException bsX) {
+                        canonicalResponseBuilder.serviceException(bsX);
+                    }
+                    break;
+                default:
+                    logger.warn("Invalid status [{}] received in Extract completion event for document [{}]", requestDocument.getDocumentExtractStatus(), identifier);
+                    break;
+            }
+        }
+
+        return canonicalResponseBuilder.build();
+    }
+
+    /**
+     * Notify the callback URL of each document that has completed since the last call.
+     * The Lambdas that complete documents call this once, after handling all the records of an event, so that
+     * the notifications are delivered as one batch. A document saved without a callback URL is skipped.
+     * Successful documents include the text only when webhookInlineText is enabled and the text is no larger than
+     * webhookInlineTextMaximum bytes, otherwise the receiver reads it with its own credentials.
+     * Delivery is best-effort, the completed documents are held in memory until this is called (see WebhookDispatcher),
+     * and returns within the webhook delivery deadline, abandoning the notifications not delivered by then.
+     */
+    public CanonicalResponse deliverCompletionNotifications() {
+        return inS3CallScope("deliverCompletionNotifications", () -> deliverCompletionNotificationsInScope());
+    }
+
+    // deliverCompletionNotifications within the S3CallScope of the operation
+    private CanonicalResponse deliverCompletionNotificationsInScope() {
+        CanonicalResponse.Builder canonicalResponseBuilder = CanonicalResponse.builder();
+
+        final List<String> identifiers;
+        synchronized (completedDocuments) {
+            identifiers = new ArrayList<>(completedDocuments);
+            completedDocuments.clear();
+        }
+
+        List<WebhookNotification> notifications = new ArrayList<>();
+        for (String identifier : identifiers) {
+            try {
+                final WebhookNotification notification = createWebhookNotification(identifier);
+                if (notification != null)
+                    notifications.add(notification);
+            } catch (BaseServiceException bsX) {
+                logger.warn("deliverCompletionNotifications(), unable to notify completion of [{}]", identifier, bsX);
+            }
+        }
+
+        final int delivered = notifications.isEmpty() ? 0 : webhookDispatcher.get().deliver(notifications);
+        logger.debug("deliverCompletionNotifications(), {} completed documents, {} of {} notifications delivered",
+                identifiers.size(), delivered, notifications.size());
+        canonicalResponseBuilder.success();
+        return canonicalResponseBuilder.build();
+    }
+
+    /**
+     * @return the notification of the completion of the document, null if the document has no callback URL
+     */
+    private WebhookNotification createWebhookNotification(final String identifier) throws BaseServiceException {
+        try {
+            final String callbackUrl = amazonS3.getObjectMetadata(this.sourceBucketName, identifier)
+                    .getUserMetaDataOf(HeaderTags.METADATA_KEY_CALLBACK_URL);
+            if (callbackUrl == null)
+                return null;
+            // the allowed hosts may have changed since the document was saved
+            if (!WebhookDispatcher.isValidCallbackUrl(callbackUrl, webhookAllowedHosts)) {
+                logger.warn("createWebhookNotification({}), callback URL is no longer allowed, not notified", identifier);
+                return null;
+            }
+
+            final DocumentStatusRecord statusRecord = statusStore.get(identifier);
+            final DocumentExtractStatus status = statusRecord == null ? null : statusRecord.getStatus();
+            String text = null;
+            if (status == DocumentExtractStatus.SUCCEEDED && webhookInlineText && webhookInlineTextMaximum > 0) {
+                final String textIdentifier = Utility.createTextResultId(identifier);
+                if (amazonS3.getObjectMetadata(this.destinationBucketName, textIdentifier).getContentLength() <= webhookInlineTextMaximum)
+                    text = amazonS3.getObjectAsString(this.destinationBucketName, textIdentifier);
+            }
+            return new WebhookNotification(
+                    callbackUrl, identifier, status, statusRecord == null ? null : statusRecord.getJobId(), text);
+        } catch (SdkClientException sdkcX) {
+            throw new BaseServiceException("Error communicating with S3, unable to create webhook notification", sdkcX);
+        } catch (SdkException sdkX) {
+            throw new BaseServiceException("Unable to retrieve the document status", sdkX);
+        }
+    }
+
+    /**
+     * Retry the Textract submissions that were deferred and are now due.
+     * This method is called when Textract jobs complete, freeing capacity, and periodically.
+     */
+    public CanonicalResponse submitQueuedDocuments() {
+        return inS3CallScope("submitQueuedDocuments", () -> submitQueuedDocumentsInScope());
+    }
+
+    // submitQueuedDocuments within the S3CallScope of the operation
+    private CanonicalResponse submitQueuedDocumentsInScope() {
+        CanonicalResponse.Builder canonicalResponseBuilder = CanonicalResponse.builder();
+
+        try {
+            final List<SubmissionOutcome> outcomes = submissionScheduler.drain(MAX_QUEUED_SUBMISSIONS_PER_DRAIN);
+            if (!outcomes.isEmpty())
+                logger.info("submitQueuedDocuments(), retried {}", outcomes);
+
+            // group the outcomes by document, a document may have several chunks in the queue
+            Map<String, List<SubmissionOutcome>> documentOutcomes = outcomes.stream()
+                    .collect(Collectors.groupingBy(
+                            outcome -> Utility.getDocumentIdFromJobTag(outcome.getSubmission().getJobTag()),
+                            LinkedHashMap::new,
+                            Collectors.toList()));
+            for (Map.Entry<String, List<SubmissionOutcome>> entry : documentOutcomes.entrySet())
+                if (applySubmissionOutcomes(entry.getKey(), entry.getValue(), SUBMITTING_STATUSES) == DocumentExtractStatus.Submitted)
+                    recordTimeline(entry.getKey(), Collections.singletonMap(DocumentTimeline.Stage.TEXTRACT_SUBMITTED, Instant.now()));
+
+            canonicalResponseBuilder.success();
+        } catch (BaseServiceException bsX) {
+            canonicalResponseBuilder.serviceException(bsX);
+        }
+
+        return canonicalResponseBuilder.build();
+    }
+
+    /*
+     * ====================================================================================================
+     * Private helpers
+     * ====================================================================================================
+     */
+
+    /**
+     * Get the identified document from the destination bucket
+     *
+     * @param identifier
+     * @return
+     * @throws AbstractApplicationException
+     */
+    private CanonicalResponse getFromDestinationBucket(final String identifier)
+            throws AbstractApplicationException {
+        logger.debug("getFromDestinationBucket({})", identifier);
+        CanonicalResponse.Builder canonicalResponseBuilder = CanonicalResponse.builder();
+
+        // the object carries its metadata, there is no need to HEAD it
+        final S3Object s3Object = amazonS3.getObject(destinationBucketName, identifier);
+        final ObjectMetadata objectMetadata = s3Object == null ? null : s3Object.getObjectMetadata();
+
+        if (s3Object != null && objectMetadata != null) {
+            canonicalResponseBuilder.success();
+
+            CanonicalDocument.Builder documentBuilder = CanonicalDocument.builder();
+            documentBuilder.withBodyStream(s3Object.getObjectContent());
+            documentBuilder.withContentType(objectMetadata.getContentType());
+            documentBuilder.withContentLength((int) objectMetadata.getContentLength());
+            documentBuilder.withContentEncoding(objectMetadata.getContentEncoding());
+            documentBuilder.withIdentifier(identifier);
+
+            canonicalResponseBuilder.addDocument(documentBuilder.build());
+        } else {
+            canonicalResponseBuilder.notFound();
+        }
+
+        return canonicalResponseBuilder.build();
+    }
+
+
+    /**
+     * If the document is a PDF with enough text (not images of text), save that text as the result
+     * and mark the document as SUCCEEDED.
+     * In PAGE routing mode, when only some of the pages require OCR, the text of the other pages is saved in
+     * a manifest and the pages that require OCR are copied to a new document in the destination bucket.
+     * Large documents are split into chunks in the destination bucket.
+     * @param identifier
+     * @param documentMetadata
+     * @return the documents to submit to Textract, empty if the text was saved and Textract is not needed
+     * @throws BaseServiceException
+     */
+    private List<software.amazon.awssdk.services.textract.model.S3Object> evaluatePdfTextAndShortcut(
+            final String identifier,
+            final CanonicalDocument documentMetadata) throws BaseServiceException {
+        List<software.amazon.awssdk.services.textract.model.S3Object> result =
+                Collections.singletonList(createTextractS3Object(this.sourceBucketName, identifier));
+
+        if ("application/pdf".equals(documentMetadata.getContentType())) {
+            try (S3ObjectBlockCache blockCache = openSourceDocument(identifier, documentMetadata.getContentLength());
+                 PDDocument pdfDocument = Loader.loadPDF(new S3RangedRandomAccessRead(blockCache, false))) {
+                if (PAGE_ROUTING_MODE.equals(pdfRoutingMode)) {
+                    result = routePdfPages(identifier, pdfDocument, blockCache.length());
+                } else {
+                    final String pdfText = extractTextIfShortcut(identifier, pdfDocument, () -> new S3RangedRandomAccessRead(blockCache, false));
+                    if (pdfText != null) {
+                        // shortcut
+                        // according to our criteria, there is enough text that the image content is likely not part of
+                        // the report text (i.e. there is text in the PDF and not a scanned document)
+                        saveTextToDestinationBucket(identifier, pdfText);
+                        updateStatusAndJobId(identifier, DocumentExtractStatus.SUCCEEDED, null);
+                        result = Collections.emptyList();
+                    } else {
+                        result = prepareTextractDocuments(identifier, pdfDocument, blockCache.length(), allPages(pdfDocument), Collections.emptyMap());
+                    }
+                }
+            } catch (SdkClientException sdkcX) {
+                throw new BaseServiceException("Failed during analysis of PDF document.", sdkcX);
+            } catch (IOException ioX) {
+                throw new BaseServiceException("Failed during analysis of PDF document.", ioX);
+            }
+        } else if (SYNCHRONOUS_IMAGE_CONTENT_TYPES.contains(documentMetadata.getContentType())
+                && documentMetadata.getContentLength() != null
+                && documentMetadata.getContentLength() <= synchronousTextractThreshold) {
+            // an image is a single page, small images are extracted synchronously
+            final Document document = Document.builder()
+                    .s3Object(createTextractS3Object(this.sourceBucketName, identifier))
+                    .build();
+            if (extractSynchronously(identifier, document, new ExtractionManifest(1, Collections.emptyMap(), Collections.singletonList(Collections.singletonList(1)))))
+                result = Collections.emptyList();
+        }
+
+        return result;
+    }
+
+    /**
+     * Classify each page of the PDF and decide what must be submitted to Textract.
+     * If no page requires OCR then the PDF text is saved as the result. Otherwise the pages requiring OCR are
+     * submitted, and the text of the remaining pages is saved in a manifest until the Textract jobs complete.
+     * @param identifier
+     * @param pdfDocument
+     * @param documentLength the size of the source document in bytes
+     * @return the documents to submit to Textract, empty if the text was saved and Textract is not needed
+     */
+    private List<software.amazon.awssdk.services.textract.model.S3Object> routePdfPages(
+            final String identifier,
+            final PDDocument pdfDocument,
+            final long documentLength)
+            throws IOException, BaseServiceException {
+        final double minimumCharactersPerPage = (this.minimumTextPercentageToSkipTextract / 100.0) * ASSUMED_MAX_CHAR_PER_PAGE;
+
+        // a document that is mostly images is submitted as is, there is no point classifying every page
+        final TextDensityEstimate estimate = textDensityProbe.estimate(pdfDocument, minimumCharactersPerPage);
+        logger.debug("routePdfPages({}), {}", identifier, estimate);
+        if (estimate.getDecision() == TextDensityEstimate.Decision.TEXTRACT)
+            return prepareTextractDocuments(identifier, pdfDocument, documentLength, allPages(pdfDocument), Collections.emptyMap());
+
+        final List<PdfPageClassifier.ClassifiedPage> pages = new PdfPageClassifier(minimumCharactersPerPage).classify(pdfDocument);
+        final List<Integer> ocrPages = pages.stream()
+                .filter(PdfPageClassifier.ClassifiedPage::isRequiresOcr)
+                .map(PdfPageClassifier.ClassifiedPage::getPageNumber)
+                .collect(Collectors.toList());
+        logger.info("routePdfPages({}), {} of {} pages require OCR", identifier, ocrPages.size(), pages.size());
+
+        if (ocrPages.isEmpty()) {
+            final String pdfText = pages.stream()
+                    .map(PdfPageClassifier.ClassifiedPage::getText)
+                    .collect(Collectors.joining());
+            saveTextToDestinationBucket(identifier, pdfText);
+            updateStatusAndJobId(identifier, DocumentExtractStatus.SUCCEEDED, null);
+            return Collections.emptyList();
+        }
+
+        final Map<Integer, String> localPages = new TreeMap<>();
+        pages.stream()
+                .filter(page -> !page.isRequiresOcr())
+                .forEach(page -> localPages.put(page.getPageNumber(), page.getText()));
+
+        return prepareTextractDocuments(identifier, pdfDocument, documentLength, ocrPages, localPages);
+    }
+
+    /**
+     * Decide which documents to submit to Textract for the given pages. If there is a single, small, page then
+     * it is extracted synchronously and the text is saved. If the pages are the whole document,
+     * and it is not large, then the source document is submitted as is. Otherwise the pages are copied into
+     * one or more chunk documents in the destination bucket and a manifest, describing how to assemble the
+     * text of the document, is saved.
+     * @param identifier
+     * @param pdfDocument
+     * @param documentLength the size of the source document in bytes
+     * @param ocrPages the page numbers to OCR, in order
+     * @param localPages the text of the pages that will not be submitted to Textract
+     * @return the documents to submit to Textract, in chunk order, empty if the text was saved
+     */
+    private List<software.amazon.awssdk.services.textract.model.S3Object> prepareTextractDocuments(
+            final String identifier,
+            final PDDocument pdfDocument,
+            final long documentLength,
+            final List<Integer> ocrPages,
+            final Map<Integer, String> localPages)
+            throws IOException, BaseServiceException {
+        final int pageCount = pdfDocument.getNumberOfPages();
+
+        // a single page is extracted synchronously, if it is small enough
+        if (ocrPages.size() == 1 && synchronousTextractThreshold > 0) {
+            final Document document = createSinglePageDocument(identifier, pdfDocument, documentLength, ocrPages.get(0));
+            final ExtractionManifest manifest = new ExtractionManifest(pageCount, localPages, Collections.singletonList(ocrPages));
+            if (document != null && extractSynchronously(identifier, document, manifest))
+                return Collections.emptyList();
+        }
+
+        // assume that the pages are all about the same size
+        final long estimatedBytes = documentLength * ocrPages.size() / Math.max(1, pageCount);
+        final List<List<Integer>> chunks = chunkPlanner.plan(ocrPages, estimatedBytes);
+
+        if (chunks.size() == 1 && ocrPages.size() == pageCount)
+            return Collections.singletonList(createTextractS3Object(this.sourceBucketName, identifier));
+
+        logger.info("prepareTextractDocuments({}), {} pages to OCR in {} chunks", identifier, ocrPages.size(), chunks.size());
+        List<software.amazon.awssdk.services.textract.model.S3Object> result = new ArrayList<>(chunks.size());
+        for (int chunkIndex = 0; chunkIndex < chunks.size(); ++chunkIndex) {
+            final String chunkId = Utility.createChunkId(identifier, chunkIndex);
+            saveChunkToDestinationBucket(chunkId, pdfDocument, chunks.get(chunkIndex));
+            result.add(createTextractS3Object(this.destinationBucketName, chunkId));
+        }
+        saveManifestToDestinationBucket(identifier, new ExtractionManifest(pageCount, localPages, chunks));
+
+        return result;
+    }
+
+    /**
+     * Create a Textract document of a single page of the PDF. A single page PDF is referenced in the source bucket,
+     * else the page is copied into a new PDF that is sent with the request.
+     * @return the document, or null if it is larger than the synchronous threshold
+     */
+    private Document createSinglePageDocument(
+            final String identifier,
+            final PDDocument pdfDocument,
+            final long documentLength,
+            final int pageNumber) throws IOException {
+        if (pdfDocument.getNumberOfPages() == 1)
+            return documentLength <= synchronousTextractThreshold
+                    ? Document.builder().s3Object(createTextractS3Object(this.sourceBucketName, identifier)).build()
+                    : null;
+
+        final byte[] content = createChunkContent(pdfDocument, Collections.singletonList(pageNumber));
+        return content.length <= synchronousTextractThreshold
+                ? Document.builder().bytes(SdkBytes.fromByteArray(content)).build()
+                : null;
+    }
+
+    /**
+     * Extract the text of a single page document with a synchronous Textract call, merge it with the text of
+     * the other pages (if any), save it and mark the document as SUCCEEDED.
+     * @param manifest describes the other pages, the document is the only page of the only chunk
+     * @return true if the text was saved, false if the document must be submitted to an asynchronous job
+     */
+    private boolean extractSynchronously(final String identifier, final Document document, final ExtractionManifest manifest)
+            throws BaseServiceException {
+        List<Block> blocks = null;
+        try {
+            if (DETECTION_MODE.equals(textractMode)) {
+                blocks = textractClient.get().detectDocumentText(DetectDocumentTextRequest.builder()
+                        .document(document)
+                        .build()).blocks();
+            } else if (ANALYSIS_MODE.equals(textractMode)) {
+                blocks = textractClient.get().analyzeDocument(AnalyzeDocumentRequest.builder()
+                        .document(document)
+                        .featureTypes(FeatureType.LAYOUT)
+                        .build()).blocks();
+            }
+        } catch (SdkException sdkX) {
+            // e.g. a multi-page TIFF or throttling, the asynchronous job will be retried
+            logger.warn("extractSynchronously({}), falling back to asynchronous extraction", identifier, sdkX);
+            return false;
+        }
+
+        Map<Integer, StringBuilder> pageTextBuilders = new TreeMap<>();
+        collectPageText(blocks, pageTextBuilders);
+        // the result of a synchronous call is a single page
+        final String ocrText = pageTextBuilders.values().stream()
+                .map(StringBuilder::toString)
+                .collect(Collectors.joining());
+
+        logger.info("extractSynchronously({}), extracted {} characters", identifier, ocrText.length());
+        saveTextToDestinationBucket(identifier, manifest.merge(Collections.singletonMap(0, Collections.singletonMap(1, ocrText))));
+        updateStatusAndJobId(identifier, DocumentExtractStatus.SUCCEEDED, null);
+        return true;
+    }
+
+    // the page numbers of all the pages of the document, 1 based
+    private static List<Integer> allPages(final PDDocument pdfDocument) {
+        final List<Integer> result = new ArrayList<>(pdfDocument.getNumberOfPages());
+        for (int pageNumber = 1; pageNumber <= pdfDocument.getNumberOfPages(); ++pageNumber)
+            result.add(pageNumber);
+        return result;
+    }
+
+    private software.amazon.awssdk.services.textract.model.S3Object createTextractS3Object(final String bucketName, final String key) {
+        return software.amazon.awssdk.services.textract.model.S3Object.builder()
+                .bucket(bucketName)
+                .name(key)
+                .build();
+    }
+
+    /**
+     * Get the key of the document content in the content index. A document saved through the API has the
+     * SHA-256 of its content in a tag, set by the PUT of the document. Else (e.g. the document was uploaded with a presigned URL), a document
+     * of no more than deduplicateHashMaximumSize bytes is read to compute the hash, which is recorded as a tag so
+     * that it is available when the extraction completes, and a larger document is keyed by its ETag, which S3
+     * derives from the content, rather than being read.
+     * @param compute false to use only a hash that has already been recorded
+     * @return the key, or null if the document does not exist or its content has no key
+     */
+    private String getContentKey(final String identifier, final CanonicalDocument documentMetadata, final boolean compute)
+            throws BaseServiceException {
+        if (documentMetadata.getContentLength() == null)
+            return null;
+        final String recordedContentSha256 = getRecordedContentSha256(identifier);
+        if (recordedContentSha256 != null)
+            return Utility.createContentHashIndexId(recordedContentSha256);
+        if (documentMetadata.getContentLength() <= deduplicateHashMaximumSize)
+            return compute ? Utility.createContentHashIndexId(computeContentSha256(identifier)) : null;
+
+        try {
+            // the metadata has been read (and is remembered) by the S3CallScope of the operation
+            final ObjectMetadata objectMetadata = amazonS3.getObjectMetadata(this.sourceBucketName, identifier);
+            return objectMetadata == null || objectMetadata.getETag() == null
+                    ? null
+                    : Utility.createContentETagIndexId(objectMetadata.getETag());
+        } catch (AmazonS3Exception s3X) {
+            if (s3X.getStatusCode() == HttpStatus.SC_NOT_FOUND)
+                return null;
+            throw new BaseServiceException("Failed to read the ETag of the document", s3X);
+        } catch (SdkClientException sdkcX) {
+            throw new BaseServiceException("Failed to read the ETag of the document", sdkcX);
+        }
+    }
+
+    // the SHA-256 of the document content recorded as a tag, null if none is recorded
+    private String getRecordedContentSha256(final String identifier) throws BaseServiceException {
+        try {
+            final GetObjectTaggingResult tagging = amazonS3.getObjectTagging(new GetObjectTaggingRequest(this.sourceBucketName, identifier));
+            return tagging == null || tagging.getTagSet() == null
+                    ? null
+                    : tagging.getTagSet().stream()
+                        .filter(tag -> HeaderTags.METADATA_KEY_CONTENT_SHA256.equals(tag.getKey()))
+                        .map(Tag::getValue)
+                        .findFirst()
+                        .orElse(null);
+        } catch (AmazonS3Exception s3X) {
+            if (s3X.getStatusCode() == HttpStatus.SC_NOT_FOUND)
+                return null;
+            throw new BaseServiceException("Failed to read the content hash of the document", s3X);
+        } catch (SdkClientException sdkcX) {
+            throw new BaseServiceException("Failed to read the content hash of the document", sdkcX);
+        }
+    }
+
+    // computes the SHA-256 of the document content and records it as a tag
+    private String computeContentSha256(final String identifier) throws BaseServiceException {
+        try (S3Object s3Object = amazonS3.getObject(this.sourceBucketName, identifier);
+             DigestInputStream digestStream = new DigestInputStream(s3Object.getObjectContent(), Utility.createSha256Digest())) {
+            final byte[] buffer = new byte[64 * 1024];
+            while (digestStream.read(buffer) >= 0)
+                ;
+            final String result = Utility.toHexString(digestStream.getMessageDigest().digest());
+            updateDocumentTag(identifier, HeaderTags.METADATA_KEY_CONTENT_SHA256, result);
+            return result;
+        } catch (SdkClientException sdkcX) {
+            throw new BaseServiceException("Failed to compute the content hash of the document", sdkcX);
+        } catch (IOException ioX) {
+            throw new BaseServiceException("Failed to compute the content hash of the document", ioX);
+        }
+    }
+
+    /**
+     * If the content index has an entry for the content key, copy the results of that document to the results
+     * of the given document (server side copies). The entry is used only if the document that it names still
+     * has the same content and its extraction succeeded, an entry that no longer holds is deleted.
+     * @return true if every result that the indexed document has was copied, false if the document must be extracted
+     */
+    private boolean copyResultsOfIdenticalDocument(final String identifier, final String contentKey) throws BaseServiceException {
+        try {
+            final ContentIndexEntry entry = ContentIndexEntry.fromJson(amazonS3.getObjectAsString(this.destinationBucketName, contentKey));
+            if (entry == null || identifier.equals(entry.getIdentifier()) || !contentKey.equals(entry.getContentKey()))
+                return false;
+
+            // the indexed document may have been saved again with other content, or deleted, since it was indexed
+            final CanonicalDocument indexedDocument = getDocumentMetadataInternal(entry.getIdentifier());
+            if (!contentKey.equals(getContentKey(entry.getIdentifier(), indexedDocument, false))
+                    || indexedDocument.getDocumentExtractStatus() != DocumentExtractStatus.SUCCEEDED) {
+                logger.info("copyResultsOfIdenticalDocument({}), {} no longer holds, removing it", identifier, entry);
+                removeContentKey(contentKey);
+                return false;
+            }
+
+            amazonS3.copyObject(
+                    this.destinationBucketName, Utility.createTextResultId(entry.getIdentifier()),
+                    this.destinationBucketName, Utility.createTextResultId(identifier));
+            if (entry.isBlocks())
+                amazonS3.copyObject(
+                        this.destinationBucketName, Utility.createJsonResultId(entry.getIdentifier()),
+                        this.destinationBucketName, Utility.createJsonResultId(identifier));
+            logger.info("copyResultsOfIdenticalDocument({}), copied results of identical document [{}]", identifier, entry.getIdentifier());
+            return true;
+        } catch (AmazonS3Exception s3X) {
+            // either the content is not in the index, the indexed document has been deleted or one of its results has
+            // been, the document is extracted and its results replace any that were copied
+            if (s3X.getStatusCode() == HttpStatus.SC_NOT_FOUND)
+                return false;
+            throw new BaseServiceException("Failed to copy results of identical document", s3X);
+        } catch (SdkClientException sdkcX) {
+            throw new BaseServiceException("Failed to copy results of identical document", sdkcX);
+        }
+    }
+
+    // add an entry to the content index for a document whose results have been saved
+    private void registerContentKey(final String identifier, final String contentKey, final boolean blocks) {
+        if (contentKey == null)
+            return;
+        try {
+            amazonS3.putObject(this.destinationBucketName, contentKey, new ContentIndexEntry(identifier, contentKey, blocks).toJson());
+        } catch (SdkClientException sdkcX) {
+            // not fatal, the next identical document will be extracted
+            logger.warn("Failed to register content key of [{}]", identifier, sdkcX);
+        }
+    }
+
+    // remove an entry of the content index that no longer holds
+    private void removeContentKey(final String contentKey) {
+        try {
+            amazonS3.deleteObject(this.destinationBucketName, contentKey);
+        } catch (SdkClientException sdkcX) {
+            // not fatal, the entry is checked again when it is next used
+            logger.warn("Failed to remove content hash index entry [{}]", contentKey, sdkcX);
+        }
+    }
+
+    /**
+     * Decide whether the PDF has enough text to meet the minimum criteria for the amount of text
+     * (50% of 80 columns by 66 lines by default). A sample of the pages is stripped first, the whole
+     * document is stripped only when the shortcut is taken or when the sample is inconclusive.
+     * @param identifier
+     * @param pdfDocument
+     * @param source a source of the same document, from which pages may be stripped in parallel
+     * @return the text within the PDF, if there is enough to meet the minimum criteria, else null
+     * @throws IOException
+     */
+    private String extractTextIfShortcut(
+            final String identifier,
+            final PDDocument pdfDocument,
+            final ParallelPdfTextExtractor.DocumentSource source) throws IOException {
+        final double minimumCharactersPerPage = (this.minimumTextPercentageToSkipTextract / 100.0) * ASSUMED_MAX_CHAR_PER_PAGE;
+
+        final TextDensityEstimate estimate = textDensityProbe.estimate(pdfDocument, minimumCharactersPerPage);
+        logger.debug("extractTextIfShortcut({}), {}", identifier, estimate);
+
+        switch (estimate.getDecision()) {
+            case SHORTCUT:
+                return pdfTextExtractor.extractText(pdfDocument, source).getText();
+            case TEXTRACT:
+                return null;
+            default:
+                ExtractedPdfText pdfText = pdfTextExtractor.extractText(pdfDocument, source);
+                return pdfText.getText().length() > (int) (minimumCharactersPerPage * pdfText.getPageCount())
+                        ? pdfText.getText()
+                        : null;
+        }
+    }
+
+    /**
+     * Open the identified document in the source bucket for random access reading.
+     * Any number of S3RangedRandomAccessRead may read from the result, closing the result releases
+     * the cached blocks (and spill file, if any).
+     */
+    private S3ObjectBlockCache openSourceDocument(final String identifier, final Integer contentLength) throws IOException {
+        final long length = contentLength != null
+                ? contentLength.longValue()
+                : amazonS3.getObjectMetadata(this.sourceBucketName, identifier).getContentLength();
+        final File spillDirectory = pdfReadSpillToTempFile ? new File(System.getProperty("java.io.tmpdir")) : null;
+
+        return new S3ObjectBlockCache(
+                amazonS3, this.sourceBucketName, identifier, length,
+                pdfReadBlockSize, pdfReadCachedBlocks, spillDirectory);
+    }
+
+    /**
+     * Submit a document to Textract through the scheduler, which either starts the job or defers it to the retry queue.
+     * @param s3Object the document to submit
+     * @param jobTag identifies the document (and chunk) in the completion notification
+     */
+    private SubmissionOutcome submitDocumentToTextract(
+            final software.amazon.awssdk.services.textract.model.S3Object s3Object,
+            final String jobTag) throws BaseServiceException {
+        return submissionScheduler.submit(TextractSubmission.create(jobTag, s3Object.bucket(), s3Object.name()));
+    }
+
+    /**
+     * Start a Textract job for either text detection or text analysis, depending on the application properties.
+     * Called by the scheduler, which handles the Textract exceptions.
+     * @return the Textract job ID
+     */
+    private String startTextractJob(final TextractSubmission submission) {
+        DocumentLocation location = DocumentLocation.builder()
+                .s3Object(createTextractS3Object(submission.getBucket(), submission.getKey()))
+                .build();
+
+        NotificationChannel notificationChannel = NotificationChannel.builder()
+                .snsTopicArn(textractStatusTopicName)
+                .roleArn(textractServiceRoleArn)
+                .build();
+
+        String jobId = null;
+        if (DETECTION_MODE.equals(textractMode)) {
+            jobId = submitDocumentToTextDetection(location, notificationChannel, submission);
+        } else if (ANALYSIS_MODE.equals(textractMode)) {
+            jobId = submitDocumentToTextAnalysis(location, notificationChannel, submission);
+        }
+        return jobId;
+    }
+
+    /**
+     * Record the outcomes of the submissions of a document (or its chunks) on the document.
+     * The document is Submitted if all the jobs started, Queued if any were deferred, and FAILED if any were
+     * abandoned.
+     * @param expected the statuses that the document may have, null to set the status whatever it is
+     * @return the status given to the document
+     */
+    private DocumentExtractStatus applySubmissionOutcomes(
+            final String identifier,
+            final List<SubmissionOutcome> outcomes,
+            final Set<DocumentExtractStatus> expected) throws BaseServiceException {
+        boolean deferred = false;
+        boolean abandoned = false;
+        for (SubmissionOutcome outcome : outcomes) {
+            if (outcome.getState() == SubmissionOutcome.State.ABANDONED) {
+                recordChunkFailure(identifier, Utility.getChunkIndexFromJobTag(outcome.getSubmission().getJobTag()));
+                abandoned = true;
+            } else if (outcome.getState() == SubmissionOutcome.State.DEFERRED) {
+                deferred = true;
+            }
+        }
+
+        if (abandoned) {
+            transitionStatusAndJobId(identifier, expected, DocumentExtractStatus.FAILED, null);
+            return DocumentExtractStatus.FAILED;
+        } else if (deferred) {
+            transitionStatusAndJobId(identifier, expected, DocumentExtractStatus.Queued, null);
+            return DocumentExtractStatus.Queued;
+        } else {
+            // the job ID is recorded only if the document is a single job
+            final SubmissionOutcome outcome = outcomes.get(0);
+            transitionStatusAndJobId(identifier, expected, DocumentExtractStatus.Submitted, outcomes.size() == 1 ? outcome.getJobId() : null);
+            return DocumentExtractStatus.Submitted;
+        }
+    }
+
+    /**
+     * Submit the chunks of a document to Textract concurrently, each with a job tag that includes the chunk index.
+     * @return the outcome of each submission, in chunk order
+     */
+    private List<SubmissionOutcome> submitChunksToTextract(
+            final String identifier,
+            final List<software.amazon.awssdk.services.textract.model.S3Object> chunks) throws BaseServiceException {
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(chunks.size(), MAX_CHUNK_SUBMISSION_THREADS));
+        try {
+            List<Future<SubmissionOutcome>> futures = new ArrayList<>(chunks.size());
+            for (int chunkIndex = 0; chunkIndex < chunks.size(); ++chunkIndex) {
+                final software.amazon.awssdk.services.textract.model.S3Object chunk = chunks.get(chunkIndex);
+                final String jobTag = Utility.createChunkJobTag(identifier, chunkIndex);
+                futures.add(executor.submit(() -> submitDocumentToTextract(chunk, jobTag)));
+            }
+
+            List<SubmissionOutcome> result = new ArrayList<>(chunks.size());
+            for (Future<SubmissionOutcome> future : futures)
+                result.add(future.get());
+            return result;
+        } catch (ExecutionException eX) {
+            if (eX.getCause() instanceof BaseServiceException)
+                throw (BaseServiceException) eX.getCause();
+            throw new BaseServiceException("Failed to submit document chunks for text extraction", eX.getCause());
+        } catch (InterruptedException iX) {
+            Thread.currentThread().interrupt();
+            throw new BaseServiceException("Interrupted while submitting document chunks for text extraction", iX);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Submit a document to Textract for analysis.
+     */
+    private String submitDocumentToTextAnalysis(
+            final DocumentLocation location,
+            final NotificationChannel notificationChannel,
+            final TextractSubmission submission) {
+        StartDocumentAnalysisRequest documentAnalysisRequest = StartDocumentAnalysisRequest.builder()
+                .documentLocation(location)
+                .featureTypes(Arrays.asList(FeatureType.LAYOUT))
+                .notificationChannel(notificationChannel)
+                .jobTag(submission.getJobTag())
+                .clientRequestToken(submission.getClientRequestToken())
+                .build();
+
+        StartDocumentAnalysisResponse txtResponse = textractClient.get().startDocumentAnalysis(documentAnalysisRequest);
+        return txtResponse.jobId();
+    }
+
+    /**
+     * Submit a document to Textract for text detection only.
+     */
+    private String submitDocumentToTextDetection(
+            final DocumentLocation location,
+            final NotificationChannel notificationChannel,
+            final TextractSubmission submission) {
+        StartDocumentTextDetectionRequest documentTextDetectionRequest = StartDocumentTextDetectionRequest.builder()
+                .documentLocation(location)
+                .notificationChannel(notificationChannel)
+                .jobTag(submission.getJobTag())
+                .clientRequestToken(submission.getClientRequestToken())
+                .build();
+
+        StartDocumentTextDetectionResponse txtResponse = textractClient.get().startDocumentTextDetection(documentTextDetectionRequest);
+        return txtResponse != null ? txtResponse.jobId() : null;
+    }
+
+    /**
+     * Copy the (text) document from the Textract result to the destination bucket
+     * The identifier should be a UUID but it can be any string. When a file is copied
+     * directly to the source bucket it may have any object ID.
+     * If the document was split into chunks, the text of the chunk is saved and the text of the document
+     * is assembled only when the results of all the chunks are available.
+     * Only a document that was split, or of which only some of the pages were submitted, has a manifest, the
+     * job of either has a chunk index in its job tag. The manifest is not read for a job of the whole document.
+     * @param chunkIndex the chunk that the job was for, null if the job was for the whole document
+     * @return the results of the document that were saved, NONE if the document is not complete
+     */
+    private SavedResults moveTextToDestinationBucket(final String jobId, final String identifier, final Integer chunkIndex) throws BaseServiceException {
+        logger.debug("moveTextToDestination({}, {})", identifier, chunkIndex);
+
+        if (identifier == null || identifier.isEmpty())
+            throw new IllegalArgumentException("identifier must not be null or empty");
+
+        // if only some of the pages, or chunks of the document, were submitted to Textract then merge the OCR text
+        // with the PDF text
+        final ExtractionManifest manifest = chunkIndex == null ? null : getManifestFromDestinationBucket(identifier);
+        if (manifest != null) {
+            logger.info("moveTextToDestination({}), merging OCR text into {}", identifier, manifest);
+            final Map<Integer, String> ocrPageText = retrievePageText(jobId);
+
+            final Map<Integer, Map<Integer, String>> chunkPageText;
+            if (manifest.getChunkCount() == 1) {
+                chunkPageText = Collections.singletonMap(0, ocrPageText);
+            } else {
+                saveChunkResultToDestinationBucket(identifier, new ExtractionChunkResult(chunkIndex, DocumentExtractStatus.SUCCEEDED, ocrPageText));
+
+                // every chunk saves its result before looking for the others, so the last chunk to complete finds them all
+                final Map<Integer, ExtractionChunkResult> chunkResults = getChunkResultsFromDestinationBucket(identifier, manifest);
+                if (chunkResults == null) {
+                    logger.info("moveTextToDestination({}), chunk {} complete, waiting for the remaining chunks", identifier, chunkIndex);
+                    return SavedResults.NONE;
+                }
+                if (chunkResults.values().stream().anyMatch(chunkResult -> chunkResult.getStatus() != DocumentExtractStatus.SUCCEEDED)) {
+                    logger.warn("moveTextToDestination({}), at least one chunk FAILED, no results available", identifier);
+                    deleteIntermediateObjects(identifier, manifest);
+                    return SavedResults.NONE;
+                }
+                chunkPageText = new TreeMap<>();
+                chunkResults.forEach((index, chunkResult) -> chunkPageText.put(index, chunkResult.getPageText()));
+            }
+
+            saveTextToDestinationBucket(identifier, manifest.merge(chunkPageText));
+            deleteIntermediateObjects(identifier, manifest);
+            return SavedResults.TEXT;
+        }
+
+        // the manifest of a chunked document is deleted when the text is assembled, a late (duplicate)
+        // notification must not overwrite the assembled text with the text of one chunk
+        if (chunkIndex != null) {
+            logger.warn("moveTextToDestination({}), no manifest for chunk {}, the document has already been assembled", identifier, chunkIndex);
+            return SavedResults.NONE;
+        }
+
+        saveResultToDestinationBucket(identifier, jobId);
+        return SavedResults.TEXT_AND_BLOCKS;
+    }
+
+    /**
+     * Record the failure of the Textract job of a chunk. When the results of all the chunks are available
+     * the intermediate objects are deleted. A job of the whole document has no manifest, nothing is recorded.
+     */
+    private void recordChunkFailure(final String identifier, final Integer chunkIndex) throws BaseServiceException {
+        if (chunkIndex == null)
+            return;
+        final ExtractionManifest manifest = getManifestFromDestinationBucket(identifier);
+        if (manifest == null)
+            return;
+
+        if (manifest.getChunkCount() > 1) {
+            saveChunkResultToDestinationBucket(identifier, new ExtractionChunkResult(chunkIndex, DocumentExtractStatus.FAILED, null));
+            if (getChunkResultsFromDestinationBucket(identifier, manifest) == null)
+                return;
+        }
+        deleteIntermediateObjects(identifier, manifest);
+    }
+
+    // Pages through the blocks of a Textract result, depending on the application mode
+    private TextractResultPager createResultPager(final String jobId) {
+        return ANALYSIS_MODE.equals(this.textractMode)
+                ? TextractResultPager.analysis(textractClient.get(), jobId)
+                : TextractResultPager.detection(textractClient.get(), jobId);
+    }
+
+    // Retrieves the text of each page of a Textract result
+    private Map<Integer, String> retrievePageText(final String jobId) throws BaseServiceException {
+        try {
+            Map<Integer, StringBuilder> pageTextBuilders = new TreeMap<>();
+            createResultPager(jobId).forEachPage(blocks -> collectPageText(blocks, pageTextBuilders));
+
+            Map<Integer, String> result = new TreeMap<>();
+            pageTextBuilders.forEach((page, text) -> result.put(page, text.toString()));
+            return result;
+        } catch (SdkException sdkX) {
+            throw new BaseServiceException("failed to retrieve extracted text", sdkX);
+        }
+    }
+
+    /**
+     * Writes the text and the blocks (JSON) of a Textract result to the destination bucket as the result is
+     * retrieved, so that only a page or two of the result is in memory at any time.
+     * The blocks are gzip compressed, the object is stored with a Content-Encoding of gzip.
+     */
+    private void saveResultToDestinationBucket(final String identifier, final String jobId) throws BaseServiceException {
+        logger.info("saveResultToDestinationBucket({}, {})", identifier, jobId);
+        ObjectMetadata textMetadata = new ObjectMetadata();
+        textMetadata.setContentType("text/plain");
+        final S3MultipartOutputStream textStream = new S3MultipartOutputStream(
+                amazonS3, this.destinationBucketName, Utility.createTextResultId(identifier), textMetadata);
+
+        ObjectMetadata jsonMetadata = new ObjectMetadata();
+        jsonMetadata.setContentType("application/json");
+        jsonMetadata.setContentEncoding(GZIP_CONTENT_ENCODING);
+        final S3MultipartOutputStream jsonStream = new S3MultipartOutputStream(
+                amazonS3, this.destinationBucketName, Utility.createJsonResultId(identifier), jsonMetadata);
+
+        // the upload is aborted on any failure, including an unchecked exception thrown while writing a page,
+        // else its parts would be stored (and charged for) until the bucket lifecycle removes them
+        boolean completed = false;
+        try {
+            final Writer textWriter = new BufferedWriter(new OutputStreamWriter(textStream, StandardCharsets.UTF_8));
+            final TextractBlockJsonWriter jsonWriter = new TextractBlockJsonWriter(
+                    new GZIPOutputStream(jsonStream, GZIP_BUFFER_SIZE), jobId);
+            createResultPager(jobId).forEachPage(blocks -> {
+                writeLineText(blocks, textWriter);
+                jsonWriter.write(blocks);
+            });
+            jsonWriter.close();
+            textWriter.close();
+            completed = true;
+        } catch (SdkException sdkX) {
+            throw new BaseServiceException("failed to retrieve extracted text", sdkX);
+        } catch (IOException ioX) {
+            throw new BaseServiceException("Failed to put text to destination bucket", ioX);
+        } finally {
+            // abort() does nothing to a stream that has been closed (completed), both are aborted so that the
+            // text is never left without its blocks
+            if (!completed) {
+                textStream.abort();
+                jsonStream.abort();
+            }
+        }
+    }
+
+    // writes the text of each LINE block, one line per block
+    private static void writeLineText(final List<Block> blocks, final Writer writer) throws IOException {
+        for (Block block : blocks)
+            if (BlockType.LINE.equals(block.blockType()) && block.text() != null) {
+                writer.write(block.text());
+                writer.write(System.lineSeparator());
+            }
+    }
+
+    // appends the text of each LINE block to the text of its page, one line per block
+    private static void collectPageText(final List<Block> blocks, final Map<Integer, StringBuilder> pageTextBuilders) {
+        if (blocks == null)
+            return;
+        blocks.stream()
+                .filter(block -> BlockType.LINE.equals(block.blockType()) && block.text() != null)
+                .forEach(line -> pageTextBuilders
+                        .computeIfAbsent(line.page() == null ? 1 : line.page(), page -> new StringBuilder())
+                        .append(line.text())
+                        .append(System.lineSeparator()));
+    }
+
+    // saves the given pages of the PDF as a new PDF in the destination bucket
+    private void saveChunkToDestinationBucket(final String chunkId, final PDDocument pdfDocument, final List<Integer> pages)
+            throws IOException, BaseServiceException {
+        final byte[] content = createChunkContent(pdfDocument, pages);
+
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentType("application/pdf");
+        objectMetadata.setContentLength(content.length);
+        PutObjectRequest request = new PutObjectRequest(this.destinationBucketName, chunkId, new ByteArrayInputStream(content), objectMetadata);
+        try {
+            amazonS3.putObject(request);
+        } catch (SdkClientException sdkcX) {
+            throw new BaseServiceException("Failed to put document chunk to destination bucket", sdkcX);
+        }
+    }
+
+    // copies the given pages of the PDF into a new PDF
+    private static byte[] createChunkContent(final PDDocument pdfDocument, final List<Integer> pages) throws IOException {
+        try (PDDocument chunkDocument = new PDDocument()) {
+            for (int pageNumber : pages)
+                chunkDocument.importPage(pdfDocument.getPage(pageNumber - 1));
+            ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+            chunkDocument.save(outStream);
+            return outStream.toByteArray();
+        }
+    }
+
+    private void saveManifestToDestinationBucket(final String identifier, final ExtractionManifest manifest) throws BaseServiceException {
+        try {
+            amazonS3.putObject(this.destinationBucketName, Utility.createManifestId(identifier), manifest.toJson());
+        } catch (SdkClientException sdkcX) {
+            throw new BaseServiceException("Failed to put extraction manifest to destination bucket", sdkcX);
+        }
+    }
+
+    // returns the manifest of a document submitted in PAGE routing mode, or null if there is no manifest
+    private ExtractionManifest getManifestFromDestinationBucket(final String identifier) throws BaseServiceException {
+        try {
+            final String json = amazonS3.getObjectAsString(this.destinationBucketName, Utility.createManifestId(identifier));
+            return json == null ? null : ExtractionManifest.fromJson(json);
+        } catch (AmazonS3Exception s3X) {
+            if (s3X.getStatusCode() == HttpStatus.SC_NOT_FOUND)
+                return null;
+            throw new BaseServiceException("Failed to get extraction manifest from destination bucket", s3X);
+        } catch (SdkClientException sdkcX) {
+            throw new BaseServiceException("Failed to get extraction manifest from destination bucket", sdkcX);
+        }
+    }
+
+    /**
+     * Record when the stages were reached in the timeline of the current upload of the document, as a new object
+     * (see DocumentTimeline), the stages already recorded are not read. The timeline is not needed to extract
+     * the text, a failure to record it is logged and otherwise ignored.
+     */
+    private void recordTimeline(final String identifier, final Map<DocumentTimeline.Stage, Instant> stages) {
+        if (!documentTimelineEnabled || stages.isEmpty())
+            return;
+        final Instant uploadReceived = getSourceLastModified(identifier);
+        if (uploadReceived == null)
+            return;
+        try {
+            final String transitionKey = DocumentTimeline.createTransitionKey(identifier, uploadReceived, stages);
+            amazonS3.putObject(this.destinationBucketName, transitionKey, "");
+            logger.debug("recordTimeline({}), {}", identifier, transitionKey);
+        } catch (SdkClientException sdkcX) {
+            logger.warn("recordTimeline({}), failed to record {}", identifier, stages.keySet(), sdkcX);
+        }
+    }
+
+    // returns the timeline of the current upload of a document, or null if no stage was recorded
+    private DocumentTimeline getTimelineFromDestinationBucket(final String identifier) throws BaseServiceException {
+        final Instant uploadReceived = getSourceLastModified(identifier);
+        if (uploadReceived == null)
+            return null;
+        try {
+            final List<String> keys = new ArrayList<>();
+            ListObjectsV2Request listRequest = new ListObjectsV2Request()
+                    .withBucketName(this.destinationBucketName)
+                    .withPrefix(DocumentTimeline.createTimelinePrefix(identifier, uploadReceived));
+            ListObjectsV2Result listing;
+            do {
+                listing = amazonS3.listObjectsV2(listRequest);
+                listing.getObjectSummaries().forEach(summary -> keys.add(summary.getKey()));
+                listRequest.setContinuationToken(listing.getNextContinuationToken());
+            } while (listing.isTruncated());
+            final List<DocumentTimeline> timelines = DocumentTimeline.fromTransitionKeys(keys);
+            return timelines.isEmpty() ? null : timelines.get(0);
+        } catch (SdkClientException sdkcX) {
+            throw new BaseServiceException("Failed to list document timeline in destination bucket", sdkcX);
+        }
+    }
+
+    // the time that the document was written to the source bucket, the metadata has been read by the caller
+    private Instant getSourceLastModified(final String identifier) {
+        try {
+            final ObjectMetadata objectMetadata = amazonS3.getObjectMetadata(this.sourceBucketName, identifier);
+            return objectMetadata == null || objectMetadata.getLastModified() == null
+                    ? null
+                    : objectMetadata.getLastModified().toInstant();
+        } catch (SdkClientException sdkcX) {
+            logger.warn("getSourceLastModified({}), unable to read the upload time", identifier, sdkcX);
+            return null;
+        }
+    }
+
+    private void saveChunkResultToDestinationBucket(final String identifier, final ExtractionChunkResult chunkResult) throws BaseServiceException {
+        try {
+            amazonS3.putObject(this.destinationBucketName, Utility.createChunkResultId(identifier, chunkResult.getChunkIndex()), chunkResult.toJson());
+        } catch (SdkClientException sdkcX) {
+            throw new BaseServiceException("Failed to put chunk result to destination bucket", sdkcX);
+        }
+    }
+
+    // returns the results of all the chunks keyed by chunk index, or null if any chunk result is not yet available
+    private Map<Integer, ExtractionChunkResult> getChunkResultsFromDestinationBucket(final String identifier, final ExtractionManifest manifest)
+            throws BaseServiceException {
+        try {
+            final ListObjectsV2Result listing = amazonS3.listObjectsV2(this.destinationBucketName, Utility.createChunkPrefix(identifier));
+            if (listing == null || listing.getObjectSummaries() == null)
+                return null;
+            final Set<String> keys = listing.getObjectSummaries().stream()
+                    .map(S3ObjectSummary::getKey)
+                    .collect(Collectors.toSet());
+
+            Map<Integer, ExtractionChunkResult> result = new TreeMap<>();
+            for (int chunkIndex = 0; chunkIndex < manifest.getChunkCount(); ++chunkIndex) {
+                final String chunkResultId = Utility.createChunkResultId(identifier, chunkIndex);
+                if (!keys.contains(chunkResultId))
+                    return null;
+                result.put(chunkIndex, ExtractionChunkResult.fromJson(amazonS3.getObjectAsString(this.destinationBucketName, chunkResultId)));
+            }
+            return result;
+        } catch (AmazonS3Exception s3X) {
+            // another chunk completed at the same time, assembled the document and deleted the chunk results
+            if (s3X.getStatusCode() == HttpStatus.SC_NOT_FOUND)
+                return null;
+            throw new BaseServiceException("Failed to get chunk results from destination bucket", s3X);
+        } catch (SdkClientException sdkcX) {
+            throw new BaseServiceException("Failed to get chunk results from destination bucket", sdkcX);
+        }
+    }
+
+    // deletes the manifest, chunk documents and chunk results of a document
+    private void deleteIntermediateObjects(final String identifier, final ExtractionManifest manifest) {
+        List<String> keys = new ArrayList<>();
+        keys.add(Utility.createManifestId(identifier));
+        for (int chunkIndex = 0; chunkIndex < manifest.getChunkCount(); ++chunkIndex) {
+            keys.add(Utility.createChunkId(identifier, chunkIndex));
+            keys.add(Utility.createChunkResultId(identifier, chunkIndex));
+        }
+
+        try {
+            amazonS3.deleteObjects(new DeleteObjectsRequest(this.destinationBucketName)
+                    .withKeys(keys.toArray(new String[0]))
+                    .withQuiet(true));
+        } catch (SdkClientException sdkcX) {
+            // not fatal, the result has been saved
+            logger.warn("Failed to delete intermediate objects of [{}] from destination bucket", identifier, sdkcX);
+        }
+    }
+
+    // saves the document body and metadata to the source bucket
+    private CanonicalDocument saveDocumentAndMetadataToSourceBucket(final CanonicalDocument requestDocument) throws BaseServiceException {
+        CanonicalDocument.Builder resultBuilder = CanonicalDocument.builder();
+
+        try {
+            // the content hash is sent with the content, so the body is read twice, once to digest it and once to
+            // send it; the body is the string of the request event, which is in memory already
+            final String body = requestDocument.getBody();
+            final String contentSha256;
+            try (DigestInputStream digestStream = new DigestInputStream(
+                    openBodyStream(body, requestDocument.isBodyIsBase64Encoded()), Utility.createSha256Digest())) {
+                final byte[] buffer = new byte[64 * 1024];
+                while (digestStream.read(buffer) >= 0)
+                    ;
+                contentSha256 = Utility.toHexString(digestStream.getMessageDigest().digest());
+            }
+
+            // Immutable properties are stored as metadata in S3
+            ObjectMetadata objectMetadata = new ObjectMetadata();
+            if (requestDocument.getContentType() != null)
+                objectMetadata.setContentType(requestDocument.getContentType());
+            if (requestDocument.getContentLength() != null)
+                objectMetadata.setContentLength(requestDocument.getContentLength());
+            if (requestDocument.getFilename() != null)
+                objectMetadata.addUserMetadata(HeaderTags.METADATA_KEY_FILE_NAME, requestDocument.getFilename());
+            if (requestDocument.getCallbackUrl() != null)
+                objectMetadata.addUserMetadata(HeaderTags.METADATA_KEY_CALLBACK_URL, requestDocument.getCallbackUrl());
+            // mark the document with ocr-status as 'New'
+            objectMetadata.addUserMetadata(HeaderTags.TAG_KEY_STATUS, DocumentExtractStatus.New.toString());
+            // the initial tags are set by the PUT, so that the document never exists without them and no later
+            // write of the tags races with the submission that the PUT triggers
+            List<Tag> tags = new ArrayList<>();
+            tags.add(new Tag(HeaderTags.METADATA_KEY_CONTENT_SHA256, contentSha256));
+            if (statusStore.isRecordedWithDocument())
+                tags.add(new Tag(HeaderTags.TAG_KEY_STATUS, DocumentExtractStatus.New.toString()));
+            PutObjectRequest putObjectRequest = new PutObjectRequest(
+                    sourceBucketName, requestDocument.getIdentifier(),
+                    openBodyStream(body, requestDocument.isBodyIsBase64Encoded()), objectMetadata)
+                    .withTagging(new ObjectTagging(tags));
+
+            PutObjectResult putObjectResult = amazonS3.putObject(putObjectRequest);
+            metadataCache.invalidate(requestDocument.getIdentifier());
+            statusCache.invalidate(requestDocument.getIdentifier());
+
+            // copy the metadata from the request, and overwrite with content type and length from S3
+            resultBuilder.withMetadata(requestDocument);
+            resultBuilder.withContentSha256(contentSha256);
+
+            // putObjectResult should never be null in production, but it may be with mock objects
+            if (putObjectResult != null) {
+                ObjectMetadata s3ObjectMetadata = putObjectResult.getMetadata();
+                if (s3ObjectMetadata.getContentLength() > 0)
+                    resultBuilder.withContentLength(Integer.valueOf((int) s3ObjectMetadata.getContentLength()));
+                if (s3ObjectMetadata.getContentType() != null)
+                    resultBuilder.withContentType(s3ObjectMetadata.getContentType());
+            }
+        } catch (SdkClientException sdkcX) {
+            throw new BaseServiceException("Failed to put document and metadats to source bucket", sdkcX);
+        } catch (IOException ioX) {
+            throw new BaseServiceException("Failed to put document body from CanonicalDocument", ioX);
+        }
+
+        return resultBuilder.build();
+    }
+
+    // the content of a request body, decoded if it is base64 encoded
+    private static InputStream openBodyStream(final String body, final boolean base64Encoded) throws UnsupportedEncodingException {
+        final InputStream bodyStream = new StringInputStream(body);
+        return base64Encoded ? Base64.getDecoder().wrap(bodyStream) : bodyStream;
+    }
+
+    /**
+     * This function saves text to the destination S3 bucket, with error handling
+     * and logging to help with debugging and troubleshooting.
+     */
+    private void saveTextToDestinationBucket(final String identifier, final String body) throws BaseServiceException {
+        logger.info("saveTextToDestinationBucket({}, ...)", identifier);
+        final String textIdentifier = Utility.createTextResultId(identifier);
+
+        // NOTE: the PutObjectRequest(String, String, String) constructor takes a redirect location, not the content
+        try {
+            PutObjectResult response = amazonS3.putObject(this.destinationBucketName, textIdentifier, body);
+        } catch (SdkClientException sdkcX) {
+            throw new BaseServiceException("Failed to put text to destination bucket", sdkcX);
+        }
+    }
+
+    /**
+     * Set the status, and the job ID if it is not null, of the document whatever its current status.
+     * @param identifier
+     * @param status
+     * @param jobId
+     */
+    private void updateStatusAndJobId(final String identifier, final DocumentExtractStatus status, final String jobId)
+    throws BaseServiceException {
+        statusCache.invalidate(identifier);
+        // the status store may keep the other tags, read the current tags rather than those read earlier
+        S3CallScope.forget(this.sourceBucketName, identifier);
+        try {
+            statusStore.put(identifier, status, jobId);
+        } catch (SdkClientException | SdkException sdkX) {
+            throw new BaseServiceException("Failed to update status and/or job identifier", sdkX);
+        }
+        if (TERMINAL_STATUSES.contains(status))
+            completedDocuments.add(identifier);
+    }
+
+    /**
+     * Set the status, and the job ID if it is not null, of the document if its current status is expected.
+     * @param expected the statuses from which the transition is allowed, null to set the status whatever it is
+     * @return false if the status of the document was not expected and was not changed
+     */
+    private boolean transitionStatusAndJobId(
+            final String identifier,
+            final Set<DocumentExtractStatus> expected,
+            final DocumentExtractStatus status, final String jobId) throws BaseServiceException {
+        if (expected == null) {
+            updateStatusAndJobId(identifier, status, jobId);
+            return true;
+        }
+        statusCache.invalidate(identifier);
+        // compare with the current status, not one read earlier in the request
+        S3CallScope.forget(this.sourceBucketName, identifier);
+        try {
+            final boolean result = statusStore.compareAndSet(identifier, expected, status, jobId);
+            if (!result)
+                logger.info("transitionStatusAndJobId({}, {}), the status is not one of {}, not changed", identifier, status, expected);
+            else if (TERMINAL_STATUSES.contains(status))
+                completedDocuments.add(identifier);
+            return result;
+        } catch (SdkClientException | SdkException sdkX) {
+            throw new BaseServiceException("Failed to update status and/or job identifier", sdkX);
+        }
+    }
+
+    /**
+     * Set the value of a single tag of the source document, replacing any existing value.
+     */
+    private void updateDocumentTag(final String identifier, final String tagKey, final String tagValue) throws BaseServiceException {
+        try {
+            GetObjectTaggingRequest taggingGetRequest = new GetObjectTaggingRequest(this.sourceBucketName, identifier);
+            final GetObjectTaggingResult initialObjectTagging = amazonS3.getObjectTagging(taggingGetRequest);
+            List<Tag> tagUpdates = initialObjectTagging == null || initialObjectTagging.getTagSet() == null
+                    ? new ArrayList<>()
+                    : initialObjectTagging.getTagSet().stream()
+                        .filter(tag -> !tagKey.equals(tag.getKey()))
+                        .collect(Collectors.toCollection(ArrayList::new));
+
+            tagUpdates.add(new Tag(tagKey, tagValue));
+            SetObjectTaggingRequest taggingUpdateRequest = new SetObjectTaggingRequest(this.sourceBucketName, identifier, new ObjectTagging(tagUpdates));
+            amazonS3.setObjectTagging(taggingUpdateRequest);
+            metadataCache.invalidate(identifier);
+        } catch (SdkClientException sdkcX) {
+            throw new BaseServiceException("Failed to update tag [" + tagKey + "]", sdkcX);
+        }
+    }
+
+    /**
+     * Retrieve the document status for the given document_id
+     */
+     private DocumentExtractStatus getDocumentStatus(String identifier) throws BaseServiceException {
+         final DocumentStatusRecord record = getDocumentStatusRecord(identifier);
+         return record == null ? null : record.getStatus();
+     }
+
+    /**
+     *
+     * @param identifier
+     * @return
+     * @throws BaseServiceException
+     */
+    private String getDocumentJobId(String identifier) throws BaseServiceException {
+        final DocumentStatusRecord record = getDocumentStatusRecord(identifier);
+        return record == null ? null : record.getJobId();
+    }
+
+    private DocumentStatusRecord getDocumentStatusRecord(final String identifier) throws BaseServiceException {
+        if (identifier == null || identifier.isEmpty())
+            throw new IllegalArgumentException("identifier must be a non-null String");
+
+        try {
+            return statusStore.get(identifier);
+        } catch (SdkClientException | SdkException sdkX) {
+            throw new BaseServiceException("Unable to retrieve the document status", sdkX);
+        }
+    }
+
+    /**
+     * Get the metadata, status and job ID of a document through the caches.
+     * The content type, length and file name only change when the document is saved, they are cached for
+     * metadataCacheTtl, a few seconds as a save or delete by another instance is not seen until it expires.
+     * The status and job ID change as the document is extracted, they are cached for statusCacheTtl. A document that does not exist is cached for negativeCacheTtl so that
+     * polling for a document that has not been uploaded yet does not HEAD the bucket every time.
+     * The content hash is not read, it is not returned to clients.
+     * Submission and completion read through getDocumentMetadataInternal(), never from the caches.
+     *
+     * @return the document metadata, or null if the document does not exist
+     */
+    private CanonicalDocument getCachedDocumentMetadata(final String identifier) throws BaseServiceException {
+        if (identifier == null || identifier.isEmpty())
+            throw new IllegalArgumentException("identifier must be a non-null String");
+
+        try {
+            Optional<CanonicalDocument> metadata = metadataCache.get(identifier);
+            if (metadata != null && !metadata.isPresent())
+                return null;
+
+            // the status is read while the metadata is read, when neither is cached
+            Optional<DocumentStatusRecord> statusRecord = statusCache.get(identifier);
+            final CompletableFuture<DocumentStatusRecord> statusRecordRead = statusRecord == null
+                    ? readConcurrently(() -> statusStore.get(identifier))
+                    : null;
+            if (metadata == null) {
+                metadata = readSourceMetadata(identifier);
+                if (!metadata.isPresent())
+                    return null;
+            }
+            if (statusRecordRead != null) {
+                statusRecord = Optional.ofNullable(S3ReadFanOut.await(statusRecordRead));
+                statusCache.put(identifier, statusRecord, statusCacheTtl);
+            }
+
+            CanonicalDocument.Builder resultBuilder = CanonicalDocument.builder().withIdentifier(identifier);
+            resultBuilder.with(metadata.get());
+            statusRecord.ifPresent(record -> resultBuilder
+                    .withDocumentExtractStatus(record.getStatus())
+                    .withJobId(record.getJobId()));
+            return resultBuilder.build();
+        } catch (AmazonS3Exception s3X) {
+            // the cached metadata is of a document that has since been deleted (by another instance)
+            if (s3X.getStatusCode() != HttpStatus.SC_NOT_FOUND)
+                throw new BaseServiceException("Error communicating woth S3, unable to retrieve metadata", s3X);
+            statusCache.invalidate(identifier);
+            metadataCache.put(identifier, Optional.empty(), negativeCacheTtl);
+            return null;
+        } catch (SdkClientException sdkcX) {
+            throw new BaseServiceException("Error communicating woth S3, unable to retrieve metadata", sdkcX);
+        } catch (SdkException sdkX) {
+            throw new BaseServiceException("Unable to retrieve the document status", sdkX);
+        }
+    }
+
+    /**
+     * Get the content type, length and file name of a document through the metadata cache.
+     * @return the metadata, empty if the document does not exist
+     * @throws AmazonS3Exception if the document could not be read
+     */
+    private Optional<CanonicalDocument> getCachedSourceMetadata(final String identifier) {
+        final Optional<CanonicalDocument> metadata = metadataCache.get(identifier);
+        return metadata == null ? readSourceMetadata(identifier) : metadata;
+    }
+
+    /**
+     * Read the content type, length and file name of a document and cache them, as getCachedSourceMetadata().
+     */
+    private Optional<CanonicalDocument> readSourceMetadata(final String identifier) {
+        try {
+            final ObjectMetadata objectMetadata = amazonS3.getObjectMetadata(this.sourceBucketName, identifier);
+            // no metadata at all is not a not found response, the document has only its identifier and is not cached
+            if (objectMetadata == null)
+                return Optional.of(CanonicalDocument.builder().withIdentifier(identifier).build());
+            final Optional<CanonicalDocument> metadata = Optional.of(CanonicalDocument.builder()
+                    .withIdentifier(identifier)
+                    .withFilename(objectMetadata.getUserMetaDataOf(HeaderTags.METADATA_KEY_FILE_NAME))
+                    .withContentType(objectMetadata.getContentType())
+                    .withContentLength(Integer.valueOf((int) objectMetadata.getContentLength()))
+                    .build());
+            metadataCache.put(identifier, metadata, metadataCacheTtl);
+            return metadata;
+        } catch (AmazonS3Exception s3X) {
+            if (s3X.getStatusCode() != HttpStatus.SC_NOT_FOUND)
+                throw s3X;
+            metadataCache.put(identifier, Optional.empty(), negativeCacheTtl);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * This function retrieves document information from the S3 metadata and tags using the document_id
+     * with error handling and logging to help with debugging and troubleshooting.
+     * see https://boto3.amazonaws.com/v1/documentation/api/latest/reference/services/s3/client/head_object.html
+     * for the returned format
+     * The parts of the return format from metadata that we care about is something like:
+     * {
+     *   'ArchiveStatus': 'ARCHIVE_ACCESS'|'DEEP_ARCHIVE_ACCESS',
+     *   'LastModified': datetime(2015, 1, 1),
+     *   'ContentLength': 123,
+     *   'Metadata': {
+     *       'string': 'string'
+     *   }
+     * }
+     * Note: the document status is stored as a Tag so that it can be mutated
+     * Note: the result MUST not have any values of None, which confuses ALB
+     **/
+     private CanonicalDocument getDocumentMetadataInternal(final String identifier) throws BaseServiceException {
+         CanonicalDocument.Builder resultBuilder = CanonicalDocument.builder();
+
+         if (identifier == null || identifier.isEmpty())
+             throw new IllegalArgumentException("identifier must be a non-null String");
+         try {
+             // the metadata and the status are independent, they are read concurrently
+             final CompletableFuture<DocumentStatusRecord> statusRecordRead = readConcurrently(() -> statusStore.get(identifier));
+             ObjectMetadata objectMetadata = amazonS3.getObjectMetadata(this.sourceBucketName, identifier);
+             if (objectMetadata != null) {
+                 resultBuilder.withFilename(objectMetadata.getUserMetaDataOf(HeaderTags.METADATA_KEY_FILE_NAME));
+                 resultBuilder.withIdentifier(identifier);
+                 resultBuilder.withContentType(objectMetadata.getContentType());
+                 resultBuilder.withContentLength(Integer.valueOf((int) objectMetadata.getContentLength()));
+                 resultBuilder.withCallbackUrl(objectMetadata.getUserMetaDataOf(HeaderTags.METADATA_KEY_CALLBACK_URL));
+             }
+
+             final DocumentStatusRecord statusRecord = S3ReadFanOut.await(statusRecordRead);
+             if (statusRecord != null) {
+                 resultBuilder.withDocumentExtractStatus(statusRecord.getStatus());
+                 resultBuilder.withJobId(statusRecord.getJobId());
+             }
+         } catch (SdkClientException sdkcX) {
+             throw new BaseServiceException("Error communicating woth S3, unable to retrieve metadata and/or tags", sdkcX);
+         } catch (SdkException sdkX) {
+             throw new BaseServiceException("Unable to retrieve the document status", sdkX);
+         }
+
+         return resultBuilder.build();
+     }
+
+    /**
+     * Log the first maxLength characters of a message. This is used to log
+     * requests and responses without including all of a multi-megabyte body.
+     * @param prefix
+     * @param message
+     * @param maxLength
+     */
+    private void logLimitedLengthMessage(final String prefix, final String message, final int maxLength) {
+        final String effectiveMessage = message == null ? "null" : message;
+        final String effectivePrefix = prefix == null ? "" : prefix;
+        final int effectiveMaxLength = maxLength <= 0 ? 32 : maxLength;
+
+        logger.debug("{}:{}", effectivePrefix, effectiveMessage.length() > effectiveMaxLength
+                ? effectiveMessage.substring(0, effectiveMaxLength-1)
+                : effectiveMessage);
+    }
+}
@@ -0,0 +1,32 @@
+package gov.va.med.cies.ocr;
+
+/**
+ * The inconsistent capitalization of the values must not be changed.
+ */
+public enum DocumentExtractStatus {
+    New,
+    // waiting in the retry queue for Textract capacity
+    Queued,
+    Submitted,
+    SUCCEEDED,
+    FAILED;
+
+    public static DocumentExtractStatus of(String ocrStatus) {
+        try {
+            return ocrStatus == null ? New : DocumentExtractStatus.valueOf(ocrStatus);
+        } catch (IllegalArgumentException iaX) {
+            return New;
+        }
+    }
+
+    /**
+     * @param name the name of a status in any case e.g. "succeeded" or "SUBMITTED"
+     * @throws IllegalArgumentException if the name is not the name of a status
+     */
+    public static DocumentExtractStatus valueOfIgnoreCase(final String name) {
+        for (DocumentExtractStatus status : values())
+            if (status.name().equalsIgnoreCase(name))
+                return status;
+        throw new IllegalArgumentException("No DocumentExtractStatus named " + name);
+    }
+}
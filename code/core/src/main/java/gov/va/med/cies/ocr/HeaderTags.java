@@ -9,10 +9,15 @@ public class HeaderTags {
     public static final String METADATA_KEY_SITE_ID = "site-id";
     public static final String TAG_KEY_STATUS = "ocr-status";
     public static final String TAG_JOB_ID = "job-id";
+    // recorded as metadata when the document is saved through the API, else as a tag when it is first submitted
+    public static final String METADATA_KEY_CONTENT_SHA256 = "content-sha256";
+    // the URL notified when extraction of the document completes
+    public static final String METADATA_KEY_CALLBACK_URL = "callback-url";
 
     public static final String S3_METADATA_KEY_FILE_NAME = S3_METADATA_PREFIX + METADATA_KEY_FILE_NAME;
     public static final String S3_METADATA_KEY_USER_ID = S3_METADATA_PREFIX + METADATA_KEY_USER_ID;
     public static final String S3_METADATA_KEY_SITE_ID = S3_METADATA_PREFIX + METADATA_KEY_SITE_ID;
     public static final String S3_METADATA_KEY_STATUS = S3_METADATA_PREFIX + TAG_KEY_STATUS;
     public static final String S3_METADATA_KEY_JOB_ID = S3_METADATA_PREFIX + TAG_JOB_ID;
+    public static final String S3_METADATA_KEY_CALLBACK_URL = S3_METADATA_PREFIX + METADATA_KEY_CALLBACK_URL;
 }
@@ -0,0 +1,107 @@
+package gov.va.med.cies.ocr;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Processes the records of an event (the S3 objects of an S3Event, the messages of an SNSEvent ...), or any list of
+ * independent reads (the batches of a status query ...), concurrently, by up to the given concurrency of workers,
+ * each takes the next record when it has finished with the last, so that a slow record holds up only its own worker.
+ * A record that fails is logged and counted, the remaining records are processed regardless.
+ * The workers are virtual threads where the runtime has them (Java 21 and later), otherwise daemon threads
+ * that are kept for reuse. One of the workers is the calling thread, a single record, or a concurrency of 1,
+ * is processed on it alone.
+ */
+public class RecordProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(RecordProcessor.class);
+    private static final ExecutorService WORKER_EXECUTOR = createWorkerExecutor();
+
+    private final int concurrency;
+
+    /**
+     * @param concurrency the maximum number of records processed at once, at least 1
+     */
+    public RecordProcessor(final int concurrency) {
+        if (concurrency < 1)
+            throw new IllegalArgumentException("concurrency must be at least 1");
+        this.concurrency = concurrency;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Process each of the records, returning when all of them have been processed.
+     * @return the number of records that failed
+     */
+    public <T> int process(final List<T> records, final Consumer<T> recordHandler) {
+        if (records == null || records.isEmpty())
+            return 0;
+
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final Runnable worker = () -> {
+            for (int index = next.getAndIncrement(); index < records.size(); index = next.getAndIncrement()) {
+                try {
+                    recordHandler.accept(records.get(index));
+                } catch (RuntimeException rX) {
+                    logger.warn("process(), record {} of {} failed", index, records.size(), rX);
+                    failed.incrementAndGet();
+                }
+            }
+        };
+
+        final int workers = Math.min(concurrency, records.size());
+        final List<Future<?>> futures = new ArrayList<>(workers - 1);
+        for (int workerIndex = 1; workerIndex < workers; ++workerIndex)
+            futures.add(WORKER_EXECUTOR.submit(worker));
+        worker.run();
+
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException iX) {
+                    // the records are still being processed, they must complete before the event is acknowledged
+                    interrupted = true;
+                } catch (ExecutionException eX) {
+                    // a worker catches the failures of its records, this is an Error
+                    logger.error("process(), a worker failed", eX.getCause());
+                    failed.incrementAndGet();
+                    break;
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+
+        if (failed.get() > 0)
+            logger.warn("process(), {} of {} records failed", failed.get(), records.size());
+        return failed.get();
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor is found by name, the functions are compiled for (and run on) Java 11
+    private static ExecutorService createWorkerExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException x) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "record-processor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
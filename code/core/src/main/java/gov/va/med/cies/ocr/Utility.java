@@ -4,6 +4,8 @@ import org.apache.http.HttpStatus;
 
 import java.net.URLConnection;
 import java.security.InvalidParameterException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -117,6 +119,97 @@ public class Utility {
         return identifier.endsWith(".json") ? identifier : identifier + ".json";
     }
 
+    public static String createManifestId(final String identifier) {
+        if (identifier == null)
+            throw new InvalidParameterException("identifier cannot be null");
+        return identifier + ".manifest.json";
+    }
+
+    public static String createChunkId(final String identifier, final int chunkIndex) {
+        return createChunkPrefix(identifier) + chunkIndex + ".pdf";
+    }
+
+    public static String createChunkResultId(final String identifier, final int chunkIndex) {
+        return createChunkPrefix(identifier) + chunkIndex + ".result.json";
+    }
+
+    // the common prefix of the chunk documents and chunk results of a document
+    public static String createChunkPrefix(final String identifier) {
+        if (identifier == null)
+            throw new InvalidParameterException("identifier cannot be null");
+        return identifier + ".chunk-";
+    }
+
+    /**
+     * The Textract job tag of a chunk of a document, a Textract job tag may contain only
+     * letters, digits, '_', '.', '-' and ':'.
+     */
+    public static String createChunkJobTag(final String identifier, final int chunkIndex) {
+        if (identifier == null)
+            throw new InvalidParameterException("identifier cannot be null");
+        return identifier + ":" + chunkIndex;
+    }
+
+    /**
+     * given a Textract job tag, return the document identifier
+     */
+    public static String getDocumentIdFromJobTag(final String jobTag) {
+        if (jobTag == null)
+            throw new InvalidParameterException("jobTag cannot be null");
+        return getChunkIndexFromJobTag(jobTag) == null ? jobTag : jobTag.substring(0, jobTag.lastIndexOf(':'));
+    }
+
+    /**
+     * given a Textract job tag, return the chunk index or null if the job is not for a chunk of a document
+     */
+    public static Integer getChunkIndexFromJobTag(final String jobTag) {
+        if (jobTag == null)
+            throw new InvalidParameterException("jobTag cannot be null");
+        final int separator = jobTag.lastIndexOf(':');
+        if (separator <= 0 || separator == jobTag.length() - 1)
+            return null;
+        final String suffix = jobTag.substring(separator + 1);
+        return suffix.chars().allMatch(Character::isDigit) ? Integer.valueOf(suffix) : null;
+    }
+
+    /**
+     * The key, in the destination bucket, of the index entry (a ContentIndexEntry) that maps a content hash
+     * to the identifier of a document with that content and a text result.
+     */
+    public static String createContentHashIndexId(final String contentSha256) {
+        if (contentSha256 == null)
+            throw new InvalidParameterException("contentSha256 cannot be null");
+        return "sha256/" + contentSha256;
+    }
+
+    /**
+     * The key, in the destination bucket, of the index entry (a ContentIndexEntry) that maps the ETag of a
+     * document to the identifier of a document with that ETag and a text result. S3 derives the ETag from the
+     * content (and, for a multipart upload, the part size), identical content may have different ETags but
+     * different content does not have the same ETag.
+     */
+    public static String createContentETagIndexId(final String eTag) {
+        if (eTag == null)
+            throw new InvalidParameterException("eTag cannot be null");
+        return "etag/" + eTag.replace("\"", "");
+    }
+
+    public static MessageDigest createSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException nsaX) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException("SHA-256 is not available", nsaX);
+        }
+    }
+
+    public static String toHexString(final byte[] bytes) {
+        StringBuilder result = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes)
+            result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return result.toString();
+    }
+
     public static String createTempPdfFileName(final String identifier) {
         if (identifier == null)
             throw new InvalidParameterException("identifier cannot be null");
@@ -0,0 +1,186 @@
+package gov.va.med.cies.ocr.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded, least recently used cache in which every entry has its own time to live.
+ * Expired entries are removed when they are read, and the least recently used entries are
+ * evicted when the cache is full. An instance is thread safe.
+ * A cache with a maximum of zero entries holds nothing, every get is a miss.
+ */
+public class TtlCache<K, V> {
+    private final int maximumEntries;
+    private final LongSupplier clock;
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<K, CachedValue<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public TtlCache(final int maximumEntries) {
+        this(maximumEntries, System::nanoTime);
+    }
+
+    /**
+     * @param maximumEntries the most entries held, zero or less disables the cache
+     * @param clock a monotonic clock in nanoseconds, injectable for tests
+     */
+    public TtlCache(final int maximumEntries, final LongSupplier clock) {
+        this.maximumEntries = Math.max(0, maximumEntries);
+        this.clock = clock;
+        this.entries = new LinkedHashMap<K, CachedValue<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<K, CachedValue<V>> eldest) {
+                if (size() > TtlCache.this.maximumEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return the cached value, or null if there is no value or it has expired
+     */
+    public V get(final K key) {
+        synchronized (lock) {
+            final CachedValue<V> entry = entries.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (clock.getAsLong() - entry.expiry >= 0L) {
+                entries.remove(key);
+                expirations.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Cache a value for the given time. A null value, or a time to live that is not positive, is not cached
+     * and removes any value already cached.
+     */
+    public void put(final K key, final V value, final Duration timeToLive) {
+        if (value == null || timeToLive == null || timeToLive.isZero() || timeToLive.isNegative() || maximumEntries == 0) {
+            invalidate(key);
+            return;
+        }
+        synchronized (lock) {
+            entries.put(key, new CachedValue<>(value, clock.getAsLong() + timeToLive.toNanos()));
+        }
+    }
+
+    public void invalidate(final K key) {
+        synchronized (lock) {
+            entries.remove(key);
+        }
+    }
+
+    public void clear() {
+        synchronized (lock) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Remove every expired entry, reads remove expired entries anyway so this only reclaims memory sooner.
+     */
+    public void removeExpired() {
+        synchronized (lock) {
+            final long now = clock.getAsLong();
+            for (Iterator<CachedValue<V>> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+                if (now - iterator.next().expiry >= 0L) {
+                    iterator.remove();
+                    expirations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    public Statistics getStatistics() {
+        return new Statistics(hits.get(), misses.get(), expirations.get(), evictions.get(), size());
+    }
+
+    private static class CachedValue<V> {
+        private final V value;
+        private final long expiry;
+
+        private CachedValue(final V value, final long expiry) {
+            this.value = value;
+            this.expiry = expiry;
+        }
+    }
+
+    /**
+     * A snapshot of the counters of a cache since it was created.
+     * Expired reads are counted as both expirations and misses.
+     */
+    public static class Statistics {
+        private final long hits;
+        private final long misses;
+        private final long expirations;
+        private final long evictions;
+        private final int size;
+
+        public Statistics(final long hits, final long misses, final long expirations, final long evictions, final int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.expirations = expirations;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getExpirations() {
+            return expirations;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * @return the fraction of reads that were hits, zero if there have been no reads
+         */
+        public double getHitRate() {
+            final long reads = hits + misses;
+            return reads == 0L ? 0.0 : (double) hits / reads;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d, misses=%d, hitRate=%.3f, expirations=%d, evictions=%d, size=%d",
+                    hits, misses, getHitRate(), expirations, evictions, size);
+        }
+    }
+}
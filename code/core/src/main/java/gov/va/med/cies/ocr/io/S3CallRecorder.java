@@ -0,0 +1,90 @@
+package gov.va.med.cies.ocr.io;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the S3 calls of each operation, from the S3CallScope of each invocation of the operation,
+ * for the life of the instance.
+ */
+public class S3CallRecorder {
+    private final Map<String, Statistics> statistics = new ConcurrentHashMap<>();
+
+    public void record(final S3CallScope scope) {
+        final int calls = scope.getTotalCallCount();
+        final int memoizedCalls = scope.getMemoizedCallCount();
+        statistics.merge(
+                scope.getOperation(),
+                new Statistics(1, calls, calls, memoizedCalls),
+                (current, added) -> new Statistics(
+                        current.invocations + added.invocations,
+                        current.totalCalls + added.totalCalls,
+                        Math.max(current.maximumCalls, added.maximumCalls),
+                        current.memoizedCalls + added.memoizedCalls));
+    }
+
+    /**
+     * @return the statistics of the operation, all zero if the operation has not been recorded
+     */
+    public Statistics getStatistics(final String operation) {
+        return statistics.getOrDefault(operation, new Statistics(0, 0L, 0, 0L));
+    }
+
+    public Set<String> getOperations() {
+        return Collections.unmodifiableSet(new TreeSet<>(statistics.keySet()));
+    }
+
+    public void clear() {
+        statistics.clear();
+    }
+
+    public static final class Statistics {
+        private final long invocations;
+        private final long totalCalls;
+        private final int maximumCalls;
+        private final long memoizedCalls;
+
+        private Statistics(final long invocations, final long totalCalls, final int maximumCalls, final long memoizedCalls) {
+            this.invocations = invocations;
+            this.totalCalls = totalCalls;
+            this.maximumCalls = maximumCalls;
+            this.memoizedCalls = memoizedCalls;
+        }
+
+        public long getInvocations() {
+            return invocations;
+        }
+
+        // the S3 calls of all the invocations
+        public long getTotalCalls() {
+            return totalCalls;
+        }
+
+        // the most S3 calls of a single invocation
+        public int getMaximumCalls() {
+            return maximumCalls;
+        }
+
+        // the calls answered without calling S3, of all the invocations
+        public long getMemoizedCalls() {
+            return memoizedCalls;
+        }
+
+        public double getAverageCalls() {
+            return invocations == 0 ? 0.0 : (double) totalCalls / invocations;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics{" +
+                    "invocations=" + invocations +
+                    ", totalCalls=" + totalCalls +
+                    ", maximumCalls=" + maximumCalls +
+                    ", memoizedCalls=" + memoizedCalls +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package gov.va.med.cies.ocr.io;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbstractPutObjectRequest;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.DeleteObjectRequest;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.GetObjectTaggingRequest;
+import com.amazonaws.services.s3.model.GetObjectTaggingResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.SetObjectTaggingRequest;
+import org.apache.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The S3 calls of one request (or one operation within a request).
+ * While a scope is open, the S3 calls made through a client returned by memoizing() on the thread that opened
+ * it (and on threads created by that thread) are counted, and the object metadata (HEAD) and object tags
+ * read within the scope are remembered and reused rather than read again. The metadata of an object
+ * read with getObject(bucket, key) is remembered as if it had been read with a HEAD.
+ * A call that is not a read (a put, copy, delete, tagging update ...) forgets what was remembered of the
+ * object written, or everything if the object is not known, so a read that follows a write always reads S3.
+ * A scope opened within another scope counts its calls in both and shares the remembered results.
+ * Outside of any scope the calls are passed to S3 unchanged and are not counted.
+ */
+public class S3CallScope implements AutoCloseable {
+    private static final InheritableThreadLocal<S3CallScope> CURRENT = new InheritableThreadLocal<>();
+
+    private final Logger logger = LoggerFactory.getLogger(S3CallScope.class);
+
+    private final String operation;
+    private final S3CallScope parent;
+    private final Consumer<S3CallScope> closeListener;
+    // the remembered results, shared by nested scopes, an AmazonS3Exception is a remembered not found
+    private final Map<String, Object> results;
+    private final Map<String, AtomicInteger> callCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger memoizedCallCount = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    private S3CallScope(final String operation, final S3CallScope parent, final Consumer<S3CallScope> closeListener) {
+        this.operation = operation;
+        this.parent = parent;
+        this.closeListener = closeListener;
+        this.results = parent == null ? new ConcurrentHashMap<>() : parent.results;
+    }
+
+    /**
+     * Open a scope on the current thread, it must be closed on the same thread.
+     * @param operation the name of the request or operation, e.g. "getDocumentFromSourceBucket"
+     * @param closeListener notified when the scope is closed, e.g. to record the calls, may be null
+     */
+    public static S3CallScope open(final String operation, final Consumer<S3CallScope> closeListener) {
+        final S3CallScope result = new S3CallScope(operation, active(), closeListener);
+        CURRENT.set(result);
+        return result;
+    }
+
+    /**
+     * @return the innermost open scope of the current thread, or null if there is none
+     */
+    public static S3CallScope active() {
+        S3CallScope scope = CURRENT.get();
+        // a thread created within a scope keeps the scope after it is closed
+        while (scope != null && scope.closed)
+            scope = scope.parent;
+        return scope;
+    }
+
+    /**
+     * Make the calls of the read within the given scope, on whatever thread the read runs.
+     * A thread taken from a pool does not inherit the scope of the thread that submitted the task.
+     * @param scope the scope to make the calls in, usually the active() scope of the submitting thread, may be null
+     */
+    public static <T> Supplier<T> within(final S3CallScope scope, final Supplier<T> read) {
+        return () -> {
+            final S3CallScope previous = CURRENT.get();
+            CURRENT.set(scope);
+            try {
+                return read.get();
+            } finally {
+                if (previous == null)
+                    CURRENT.remove();
+                else
+                    CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Forget the remembered metadata and tags of an object e.g. when polling for a change made elsewhere.
+     */
+    public static void forget(final String bucketName, final String key) {
+        final S3CallScope scope = active();
+        if (scope != null) {
+            scope.results.remove(metadataKey(bucketName, key));
+            scope.results.remove(taggingKey(bucketName, key));
+        }
+    }
+
+    /**
+     * @return a client that calls the given client through the active scope, if there is one
+     */
+    public static AmazonS3 memoizing(final AmazonS3 amazonS3) {
+        if (Proxy.isProxyClass(amazonS3.getClass()) && Proxy.getInvocationHandler(amazonS3) instanceof MemoizingInvocationHandler)
+            return amazonS3;
+        return memoizing(() -> amazonS3);
+    }
+
+    /**
+     * @return a client that calls the supplied client through the active scope, if there is one, the client is
+     * not supplied until the first call
+     */
+    public static AmazonS3 memoizing(final Supplier<AmazonS3> amazonS3) {
+        return (AmazonS3) Proxy.newProxyInstance(
+                AmazonS3.class.getClassLoader(),
+                new Class<?>[]{AmazonS3.class},
+                new MemoizingInvocationHandler(amazonS3));
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return the number of calls of the named AmazonS3 method made to S3, e.g. "getObjectMetadata"
+     */
+    public int getCallCount(final String methodName) {
+        final AtomicInteger count = callCounts.get(methodName);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * @return the number of calls made to S3 of each AmazonS3 method, by method name
+     */
+    public Map<String, Integer> getCallCounts() {
+        Map<String, Integer> result = new TreeMap<>();
+        callCounts.forEach((methodName, count) -> result.put(methodName, count.get()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * @return the number of calls made to S3
+     */
+    public int getTotalCallCount() {
+        return callCounts.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    /**
+     * @return the number of calls answered with a remembered result, without calling S3
+     */
+    public int getMemoizedCallCount() {
+        return memoizedCallCount.get();
+    }
+
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        if (CURRENT.get() == this) {
+            if (parent == null)
+                CURRENT.remove();
+            else
+                CURRENT.set(parent);
+        }
+        // threads created within the scope may keep a reference to it, release what was remembered
+        if (parent == null)
+            results.clear();
+        logger.debug("close(), {}", this);
+        if (closeListener != null)
+            closeListener.accept(this);
+    }
+
+    @Override
+    public String toString() {
+        return "S3CallScope{" +
+                "operation='" + operation + '\'' +
+                ", calls=" + getCallCounts() +
+                ", memoized=" + memoizedCallCount.get() +
+                '}';
+    }
+
+    private void countCall(final String methodName) {
+        for (S3CallScope scope = this; scope != null; scope = scope.parent)
+            scope.callCounts.computeIfAbsent(methodName, name -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private void countMemoizedCall() {
+        for (S3CallScope scope = this; scope != null; scope = scope.parent)
+            scope.memoizedCallCount.incrementAndGet();
+    }
+
+    private Object invoke(final AmazonS3 amazonS3, final Method method, final Object[] args) throws Throwable {
+        final String methodName = method.getName();
+        final String resultKey = resultKey(methodName, args);
+        if (resultKey != null) {
+            final Object result = results.get(resultKey);
+            if (result instanceof AmazonS3Exception) {
+                countMemoizedCall();
+                throw (AmazonS3Exception) result;
+            } else if (result != null) {
+                countMemoizedCall();
+                return copy(result);
+            }
+        }
+
+        final Object result;
+        try {
+            result = MemoizingInvocationHandler.call(amazonS3, method, args);
+        } catch (AmazonS3Exception s3X) {
+            if (resultKey != null && s3X.getStatusCode() == HttpStatus.SC_NOT_FOUND)
+                results.put(resultKey, s3X);
+            throw s3X;
+        } finally {
+            countCall(methodName);
+            if (!isRead(methodName))
+                forgetWritten(methodName, args);
+        }
+
+        if (resultKey != null && result != null) {
+            remember(resultKey, copy(result));
+        } else if ("getObject".equals(methodName) && args.length == 2 && args[0] instanceof String
+                && result instanceof S3Object && ((S3Object) result).getObjectMetadata() != null) {
+            remember(metadataKey((String) args[0], (String) args[1]), ((S3Object) result).getObjectMetadata().clone());
+        }
+        return result;
+    }
+
+    private void remember(final String resultKey, final Object result) {
+        if (result != null)
+            results.put(resultKey, result);
+    }
+
+    // the key of a result that may be remembered, or null if the result of the call is not remembered
+    private static String resultKey(final String methodName, final Object[] args) {
+        if ("getObjectMetadata".equals(methodName)) {
+            if (args.length == 2 && args[0] instanceof String)
+                return metadataKey((String) args[0], (String) args[1]);
+            if (args.length == 1 && args[0] instanceof GetObjectMetadataRequest) {
+                final GetObjectMetadataRequest request = (GetObjectMetadataRequest) args[0];
+                if (request.getVersionId() == null && request.getPartNumber() == null)
+                    return metadataKey(request.getBucketName(), request.getKey());
+            }
+        } else if ("getObjectTagging".equals(methodName) && args.length == 1 && args[0] instanceof GetObjectTaggingRequest) {
+            final GetObjectTaggingRequest request = (GetObjectTaggingRequest) args[0];
+            if (request.getVersionId() == null)
+                return taggingKey(request.getBucketName(), request.getKey());
+        }
+        return null;
+    }
+
+    // forget the object written by the call, or everything if the object written is not known
+    private void forgetWritten(final String methodName, final Object[] args) {
+        String bucketName = null;
+        String key = null;
+        if ("copyObject".equals(methodName) && args.length == 4 && args[2] instanceof String) {
+            bucketName = (String) args[2];
+            key = (String) args[3];
+        } else if ("copyObject".equals(methodName) && args.length == 1 && args[0] instanceof CopyObjectRequest) {
+            bucketName = ((CopyObjectRequest) args[0]).getDestinationBucketName();
+            key = ((CopyObjectRequest) args[0]).getDestinationKey();
+        } else if (!"copyObject".equals(methodName) && args.length >= 2 && args[0] instanceof String && args[1] instanceof String) {
+            bucketName = (String) args[0];
+            key = (String) args[1];
+        } else if (args.length == 1 && args[0] instanceof AbstractPutObjectRequest) {
+            bucketName = ((AbstractPutObjectRequest) args[0]).getBucketName();
+            key = ((AbstractPutObjectRequest) args[0]).getKey();
+        } else if (args.length == 1 && args[0] instanceof SetObjectTaggingRequest) {
+            bucketName = ((SetObjectTaggingRequest) args[0]).getBucketName();
+            key = ((SetObjectTaggingRequest) args[0]).getKey();
+        } else if (args.length == 1 && args[0] instanceof DeleteObjectRequest) {
+            bucketName = ((DeleteObjectRequest) args[0]).getBucketName();
+            key = ((DeleteObjectRequest) args[0]).getKey();
+        }
+
+        if (bucketName == null || key == null) {
+            results.clear();
+        } else {
+            results.remove(metadataKey(bucketName, key));
+            results.remove(taggingKey(bucketName, key));
+        }
+    }
+
+    private static String metadataKey(final String bucketName, final String key) {
+        return "metadata:" + bucketName + "/" + key;
+    }
+
+    private static String taggingKey(final String bucketName, final String key) {
+        return "tagging:" + bucketName + "/" + key;
+    }
+
+    private static boolean isRead(final String methodName) {
+        return methodName.startsWith("get") || methodName.startsWith("list")
+                || methodName.startsWith("does") || methodName.startsWith("generatePresigned");
+    }
+
+    // the remembered results are copied so that a caller cannot change them
+    private static Object copy(final Object result) {
+        if (result instanceof ObjectMetadata)
+            return ((ObjectMetadata) result).clone();
+        if (result instanceof GetObjectTaggingResult) {
+            final GetObjectTaggingResult tagging = (GetObjectTaggingResult) result;
+            return new GetObjectTaggingResult(tagging.getTagSet() == null ? null : new ArrayList<>(tagging.getTagSet()));
+        }
+        return result;
+    }
+
+    private static class MemoizingInvocationHandler implements InvocationHandler {
+        private final Supplier<AmazonS3> amazonS3;
+
+        private MemoizingInvocationHandler(final Supplier<AmazonS3> amazonS3) {
+            this.amazonS3 = amazonS3;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final Object[] effectiveArgs = args == null ? new Object[0] : args;
+            final S3CallScope scope = method.getDeclaringClass() == Object.class ? null : active();
+            return scope == null
+                    ? call(amazonS3.get(), method, effectiveArgs)
+                    : scope.invoke(amazonS3.get(), method, effectiveArgs);
+        }
+
+        private static Object call(final AmazonS3 amazonS3, final Method method, final Object[] args) throws Throwable {
+            try {
+                return method.invoke(amazonS3, args);
+            } catch (InvocationTargetException itX) {
+                throw itX.getCause();
+            }
+        }
+    }
+}
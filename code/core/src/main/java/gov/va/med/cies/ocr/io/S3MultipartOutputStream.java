@@ -0,0 +1,160 @@
+package gov.va.med.cies.ocr.io;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes an S3 object as a multipart upload, so that the content is never held in memory all at once.
+ * Content is buffered until a part is full, then the part is uploaded. An object that is smaller than one
+ * part is written with a single PUT when the stream is closed.
+ * If the content cannot be completed then abort() must be called rather than close(), else the object
+ * is created with the content written so far.
+ */
+public class S3MultipartOutputStream extends OutputStream {
+    // S3 rejects any part but the last that is smaller than this
+    public static final int MINIMUM_PART_SIZE = 5 * 1024 * 1024;
+
+    private final Logger logger = LoggerFactory.getLogger(S3MultipartOutputStream.class);
+
+    private final AmazonS3 amazonS3;
+    private final String bucketName;
+    private final String key;
+    private final ObjectMetadata metadata;
+    private final byte[] part;
+
+    private int partLength = 0;
+    private String uploadId = null;
+    private final List<PartETag> partETags = new ArrayList<>();
+    private boolean closed = false;
+
+    public S3MultipartOutputStream(final AmazonS3 amazonS3, final String bucketName, final String key, final ObjectMetadata metadata) {
+        this(amazonS3, bucketName, key, metadata, MINIMUM_PART_SIZE);
+    }
+
+    /**
+     * @param partSize the size of each part but the last, at least MINIMUM_PART_SIZE
+     */
+    public S3MultipartOutputStream(
+            final AmazonS3 amazonS3,
+            final String bucketName, final String key,
+            final ObjectMetadata metadata,
+            final int partSize) {
+        this.amazonS3 = amazonS3;
+        this.bucketName = bucketName;
+        this.key = key;
+        this.metadata = metadata == null ? new ObjectMetadata() : metadata;
+        this.part = new byte[Math.max(MINIMUM_PART_SIZE, partSize)];
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        ensureOpen();
+        if (partLength == part.length)
+            uploadPart();
+        part[partLength++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] bytes, int offset, int length) throws IOException {
+        ensureOpen();
+        while (length > 0) {
+            if (partLength == part.length)
+                uploadPart();
+            final int count = Math.min(length, part.length - partLength);
+            System.arraycopy(bytes, offset, part, partLength, count);
+            partLength += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Upload the remaining content and complete the object.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+
+        try {
+            if (uploadId == null) {
+                metadata.setContentLength(partLength);
+                amazonS3.putObject(new PutObjectRequest(bucketName, key, new ByteArrayInputStream(part, 0, partLength), metadata));
+            } else {
+                if (partLength > 0)
+                    uploadPartInternal(true);
+                amazonS3.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, key, uploadId, partETags));
+                logger.debug("close(), completed [{}] in {} parts", key, partETags.size());
+            }
+        } catch (SdkClientException sdkcX) {
+            abortUpload();
+            throw new IOException("Failed to complete upload of [" + key + "]", sdkcX);
+        }
+    }
+
+    /**
+     * Discard the content, the object is not created.
+     */
+    public void abort() {
+        if (closed)
+            return;
+        closed = true;
+        abortUpload();
+    }
+
+    private void uploadPart() throws IOException {
+        try {
+            if (uploadId == null)
+                uploadId = amazonS3.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, key, metadata)).getUploadId();
+            uploadPartInternal(false);
+        } catch (SdkClientException sdkcX) {
+            abort();
+            throw new IOException("Failed to upload part of [" + key + "]", sdkcX);
+        }
+    }
+
+    private void uploadPartInternal(final boolean lastPart) {
+        UploadPartRequest uploadPartRequest = new UploadPartRequest()
+                .withBucketName(bucketName)
+                .withKey(key)
+                .withUploadId(uploadId)
+                .withPartNumber(partETags.size() + 1)
+                .withInputStream(new ByteArrayInputStream(part, 0, partLength))
+                .withPartSize(partLength)
+                .withLastPart(lastPart);
+        partETags.add(amazonS3.uploadPart(uploadPartRequest).getPartETag());
+        partLength = 0;
+    }
+
+    private void abortUpload() {
+        if (uploadId == null)
+            return;
+        try {
+            amazonS3.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, uploadId));
+        } catch (SdkClientException sdkcX) {
+            // the bucket lifecycle rule removes incomplete uploads
+            logger.warn("abortUpload(), failed to abort upload of [{}]", key, sdkcX);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed)
+            throw new IOException("Stream is closed");
+    }
+}
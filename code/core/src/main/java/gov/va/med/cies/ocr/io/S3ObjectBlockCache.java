@@ -0,0 +1,211 @@
+package gov.va.med.cies.ocr.io;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A fixed size block view of a single S3 object. Blocks are fetched with ranged GETs the first time they
+ * are requested and kept in a bounded LRU cache. When a spill file is configured, blocks evicted from the
+ * cache are written to the spill file so that re-reading them does not go back to S3.
+ * An instance is thread safe and may be shared by any number of S3RangedRandomAccessRead instances.
+ */
+public class S3ObjectBlockCache implements Closeable {
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+    public static final int DEFAULT_CACHED_BLOCKS = 16;
+
+    private final Logger logger = LoggerFactory.getLogger(S3ObjectBlockCache.class);
+
+    private final AmazonS3 amazonS3;
+    private final String bucketName;
+    private final String key;
+    private final long length;
+    private final int blockSize;
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<Long, byte[]> cache;
+    private final File spillFile;
+    private final RandomAccessFile spill;
+    private final BitSet spilledBlocks = new BitSet();
+
+    // counters, used for logging only
+    private long fetchCount = 0L;
+    private long fetchedBytes = 0L;
+
+    /**
+     * @param amazonS3 the S3 client used for the ranged GETs
+     * @param bucketName the bucket containing the object
+     * @param key the object key
+     * @param length the length of the object, as reported by the object metadata
+     * @param blockSize the size of each ranged GET, must be positive
+     * @param cachedBlocks the maximum number of blocks held in memory, must be positive
+     * @param spillDirectory if not null, evicted blocks are written to a temporary file in this directory
+     */
+    public S3ObjectBlockCache(
+            final AmazonS3 amazonS3,
+            final String bucketName, final String key,
+            final long length,
+            final int blockSize, final int cachedBlocks,
+            final File spillDirectory) throws IOException {
+        if (amazonS3 == null || bucketName == null || key == null)
+            throw new IllegalArgumentException("amazonS3, bucketName and key must not be null");
+        if (length < 0)
+            throw new IllegalArgumentException("length must not be negative");
+        if (blockSize <= 0 || cachedBlocks <= 0)
+            throw new IllegalArgumentException("blockSize and cachedBlocks must be positive");
+
+        this.amazonS3 = amazonS3;
+        this.bucketName = bucketName;
+        this.key = key;
+        this.length = length;
+        this.blockSize = blockSize;
+
+        if (spillDirectory != null) {
+            spillFile = File.createTempFile("s3block", ".spill", spillDirectory);
+            spill = new RandomAccessFile(spillFile, "rw");
+        } else {
+            spillFile = null;
+            spill = null;
+        }
+
+        this.cache = new LinkedHashMap<Long, byte[]>(cachedBlocks + 1, 1.0f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                if (size() > cachedBlocks) {
+                    spillBlock(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Copy up to len bytes starting at the given position into the buffer.
+     * @return the number of bytes copied, or -1 if position is at or past the end of the object
+     */
+    public int read(final long position, final byte[] buffer, final int offset, final int len) throws IOException {
+        if (position >= length)
+            return -1;
+
+        final long blockIndex = position / blockSize;
+        final int blockOffset = (int) (position % blockSize);
+        final byte[] block = getBlock(blockIndex);
+
+        final int count = Math.min(len, block.length - blockOffset);
+        System.arraycopy(block, blockOffset, buffer, offset, count);
+        return count;
+    }
+
+    /**
+     * Get the block with the given index, from memory, the spill file or S3 in that order.
+     */
+    byte[] getBlock(final long blockIndex) throws IOException {
+        byte[] block;
+        synchronized (lock) {
+            block = cache.get(blockIndex);
+            if (block == null && spill != null && spilledBlocks.get((int) blockIndex))
+                block = readSpilledBlock(blockIndex);
+        }
+
+        if (block == null) {
+            // the fetch is done outside the lock so that concurrent readers of other blocks are not blocked,
+            // the worst case is that two readers fetch the same block
+            block = fetchBlock(blockIndex);
+        }
+
+        synchronized (lock) {
+            cache.put(blockIndex, block);
+        }
+        return block;
+    }
+
+    private byte[] fetchBlock(final long blockIndex) throws IOException {
+        final long start = blockIndex * blockSize;
+        final long end = Math.min(start + blockSize, length) - 1;
+        final byte[] block = new byte[(int) (end - start + 1)];
+
+        GetObjectRequest request = new GetObjectRequest(bucketName, key).withRange(start, end);
+        try (S3Object s3Object = amazonS3.getObject(request)) {
+            if (s3Object == null)
+                throw new IOException("Object [" + bucketName + "/" + key + "] not found reading range " + start + "-" + end);
+            try (S3ObjectInputStream inStream = s3Object.getObjectContent()) {
+                int offset = 0;
+                for (int bytesRead = 0; offset < block.length && bytesRead >= 0; offset += bytesRead) {
+                    bytesRead = inStream.read(block, offset, block.length - offset);
+                    if (bytesRead < 0)
+                        break;
+                }
+                if (offset < block.length)
+                    throw new EOFException("Object [" + bucketName + "/" + key + "] ended early reading range " + start + "-" + end);
+            }
+        } catch (SdkClientException sdkcX) {
+            throw new IOException("Failed to read range " + start + "-" + end + " of [" + bucketName + "/" + key + "]", sdkcX);
+        }
+
+        synchronized (lock) {
+            ++fetchCount;
+            fetchedBytes += block.length;
+        }
+        return block;
+    }
+
+    // called with the lock held, from removeEldestEntry
+    private void spillBlock(final long blockIndex, final byte[] block) {
+        if (spill == null || spilledBlocks.get((int) blockIndex))
+            return;
+        try {
+            spill.seek(blockIndex * blockSize);
+            spill.write(block);
+            spilledBlocks.set((int) blockIndex);
+        } catch (IOException ioX) {
+            // not fatal, the block will be fetched from S3 again if it is needed
+            logger.warn("Failed to spill block {} of [{}] to [{}]", blockIndex, key, spillFile, ioX);
+        }
+    }
+
+    // called with the lock held
+    private byte[] readSpilledBlock(final long blockIndex) throws IOException {
+        final long start = blockIndex * blockSize;
+        final byte[] block = new byte[(int) (Math.min(start + blockSize, length) - start)];
+        spill.seek(start);
+        spill.readFully(block);
+        return block;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            logger.debug("S3ObjectBlockCache [{}/{}] closing, {} ranged GETs fetched {} of {} bytes",
+                    bucketName, key, fetchCount, fetchedBytes, length);
+            cache.clear();
+            if (spill != null) {
+                spill.close();
+                // NOTE: the spill file MUST be deleted when we're done with it else we'll rapidly use up the available 500M
+                if (spillFile.exists())
+                    spillFile.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package gov.va.med.cies.ocr.io;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadView;
+
+import java.io.IOException;
+
+/**
+ * A PDFBox RandomAccessRead over an S3 object. PDFBox seeks to the trailer, the xref and then the
+ * objects that it needs, so only those ranges of the object are read from S3, through the given
+ * S3ObjectBlockCache.
+ * Each instance maintains its own position, any number of instances may share one S3ObjectBlockCache.
+ */
+public class S3RangedRandomAccessRead implements RandomAccessRead {
+    private final S3ObjectBlockCache blockCache;
+    private final boolean closeBlockCache;
+    private final byte[] singleByte = new byte[1];
+
+    private long position = 0L;
+    private boolean closed = false;
+
+    /**
+     * @param blockCache the source of the object content
+     * @param closeBlockCache if true then the block cache is closed when this instance is closed,
+     *                        set this when the block cache is not shared
+     */
+    public S3RangedRandomAccessRead(final S3ObjectBlockCache blockCache, final boolean closeBlockCache) {
+        if (blockCache == null)
+            throw new IllegalArgumentException("blockCache must not be null");
+        this.blockCache = blockCache;
+        this.closeBlockCache = closeBlockCache;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(singleByte, 0, 1) < 0 ? -1 : singleByte[0] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int offset, final int length) throws IOException {
+        checkClosed();
+        if (length == 0)
+            return 0;
+
+        int total = 0;
+        while (total < length) {
+            final int count = blockCache.read(position, b, offset + total, length - total);
+            if (count < 0)
+                break;
+            position += count;
+            total += count;
+        }
+        return total == 0 ? -1 : total;
+    }
+
+    @Override
+    public long getPosition() throws IOException {
+        checkClosed();
+        return position;
+    }
+
+    @Override
+    public void seek(final long newPosition) throws IOException {
+        checkClosed();
+        if (newPosition < 0)
+            throw new IOException("Invalid position " + newPosition);
+        position = Math.min(newPosition, blockCache.length());
+    }
+
+    @Override
+    public long length() throws IOException {
+        checkClosed();
+        return blockCache.length();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public boolean isEOF() throws IOException {
+        checkClosed();
+        return position >= blockCache.length();
+    }
+
+    @Override
+    public RandomAccessReadView createView(final long startPosition, final long streamLength) throws IOException {
+        checkClosed();
+        return new RandomAccessReadView(this, startPosition, streamLength);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            if (closeBlockCache)
+                blockCache.close();
+        }
+    }
+
+    private void checkClosed() throws IOException {
+        if (closed)
+            throw new IOException("S3RangedRandomAccessRead already closed");
+    }
+}
@@ -0,0 +1,68 @@
+package gov.va.med.cies.ocr.io;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Issues independent S3 reads (a HEAD, the tags, the status record ...) concurrently rather than one after
+ * another, so that the latency of a request is that of its slowest read rather than the sum of them.
+ * Each read is a CompletableFuture, which may be combined with the others (thenCombine, allOf ...) and
+ * is awaited with await(). A read is made within the S3CallScope of the thread that started it, so the
+ * remembered results are shared and the calls are counted in the scope of the request.
+ * When the fan out is disabled every read is made on the calling thread when it is started.
+ */
+public class S3ReadFanOut {
+    // the reads are I/O bound, a thread is created for each concurrent read and kept for reuse
+    private static final ExecutorService READ_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "s3-read-fan-out");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final boolean enabled;
+
+    public S3ReadFanOut(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start a read. An exception thrown by the read is thrown by await(), as it was thrown.
+     */
+    public <T> CompletableFuture<T> read(final Supplier<T> read) {
+        final Supplier<T> scopedRead = S3CallScope.within(S3CallScope.active(), read);
+        if (enabled)
+            return CompletableFuture.supplyAsync(scopedRead, READ_EXECUTOR);
+
+        try {
+            return CompletableFuture.completedFuture(scopedRead.get());
+        } catch (RuntimeException | Error x) {
+            final CompletableFuture<T> result = new CompletableFuture<>();
+            result.completeExceptionally(x);
+            return result;
+        }
+    }
+
+    /**
+     * Wait for a read to complete.
+     * @return the result of the read
+     * @throws RuntimeException the exception thrown by the read e.g. an AmazonS3Exception
+     */
+    public static <T> T await(final CompletableFuture<T> read) {
+        try {
+            return read.join();
+        } catch (CompletionException cX) {
+            if (cX.getCause() instanceof RuntimeException)
+                throw (RuntimeException) cX.getCause();
+            if (cX.getCause() instanceof Error)
+                throw (Error) cX.getCause();
+            throw cX;
+        }
+    }
+}
@@ -18,27 +18,37 @@ public class CanonicalDocument {
     final String filename;
     final String contentType;
     final Integer contentLength;
+    final String contentEncoding;
     final String body;
     final InputStream bodyStream;
     final boolean bodyIsBase64Encoded;
     final DocumentExtractStatus documentExtractStatus;
     final String jobId;
+    final Integer chunkIndex;
+    final String contentSha256;
+    final String callbackUrl;
 
     private CanonicalDocument(
             String identifier, String filename,
-            String contentType, Integer contentLength,
+            String contentType, Integer contentLength, String contentEncoding,
             String body, InputStream bodyStream, boolean bodyIsBase64Encoded,
             DocumentExtractStatus documentExtractStatus,
-            String jobId) {
+            String jobId, Integer chunkIndex,
+            String contentSha256,
+            String callbackUrl) {
         this.identifier = identifier;
         this.filename = filename;
         this.contentType = contentType;
         this.contentLength = contentLength;
+        this.contentEncoding = contentEncoding;
         this.body = body;
         this.bodyStream = bodyStream;
         this.bodyIsBase64Encoded = bodyIsBase64Encoded;
         this.documentExtractStatus = documentExtractStatus;
         this.jobId = jobId;
+        this.chunkIndex = chunkIndex;
+        this.contentSha256 = contentSha256;
+        this.callbackUrl = callbackUrl;
     }
 
     public String getIdentifier() {
@@ -57,6 +67,11 @@ public class CanonicalDocument {
         return contentLength;
     }
 
+    // the encoding of the body content e.g. "gzip", null if the body is not encoded
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
     public boolean hasBody() {
         return body != null || bodyStream != null;
     }
@@ -100,6 +115,21 @@ public class CanonicalDocument {
         return jobId;
     }
 
+    // the chunk of the document that a Textract job was for, null if the whole document was submitted
+    public Integer getChunkIndex() {
+        return chunkIndex;
+    }
+
+    // the hex encoded SHA-256 of the document content, null if it is not known
+    public String getContentSha256() {
+        return contentSha256;
+    }
+
+    // the URL that is sent the status (and for small results the text) when extraction completes, null if none
+    public String getCallbackUrl() {
+        return callbackUrl;
+    }
+
     @Override
     public String toString() {
         return "CanonicalDocument{" +
@@ -107,8 +137,12 @@ public class CanonicalDocument {
                 ", filename='" + filename + '\'' +
                 ", contentType='" + contentType + '\'' +
                 ", contentLength=" + contentLength +
+                ", contentEncoding=" + contentEncoding +
                 ", documentExtractStatus=" + documentExtractStatus +
                 ", jobId=" + jobId +
+                ", chunkIndex=" + chunkIndex +
+                ", contentSha256=" + contentSha256 +
+                ", callbackUrl=" + callbackUrl +
                 ", body='" + (body == null ? "null" : "not null") + '\'' +
                 ", bodyStream=" + (bodyStream == null ? "null" : "not null") +
                 ", bodyIsBase64Encoded=" + bodyIsBase64Encoded +
@@ -124,11 +158,15 @@ public class CanonicalDocument {
         private String filename;
         private String contentType;
         private Integer contentLength;
+        private String contentEncoding;
         private String body;
         private InputStream bodyStream;
         private boolean bodyIsBase64Encoded;
         private DocumentExtractStatus documentExtractStatus;
         private String jobId;
+        private Integer chunkIndex;
+        private String contentSha256;
+        private String callbackUrl;
 
         public Builder() {
         }
@@ -138,17 +176,21 @@ public class CanonicalDocument {
             this.filename = other.filename;
             this.contentType = other.contentType;
             this.contentLength = other.contentLength;
+            this.contentEncoding = other.contentEncoding;
             this.body = other.body;
             this.bodyStream = other.bodyStream;
             this.bodyIsBase64Encoded = other.bodyIsBase64Encoded;
             this.documentExtractStatus = other.documentExtractStatus;
             this.jobId = other.jobId;
+            this.chunkIndex = other.chunkIndex;
+            this.contentSha256 = other.contentSha256;
+            this.callbackUrl = other.callbackUrl;
 
             return this;
         }
 
         // copies the content of the given CanonicalDocument to this Builder,
-        // without the body (body, bodyStream and bodyIsBase64Encoded fields)
+        // without the body (body, bodyStream, bodyIsBase64Encoded and contentEncoding fields)
         public Builder withMetadata(final CanonicalDocument other) {
             this.identifier = other.identifier;
             this.filename = other.filename;
@@ -156,6 +198,8 @@ public class CanonicalDocument {
             this.contentLength = other.contentLength;
             this.documentExtractStatus = other.documentExtractStatus;
             this.jobId = other.jobId;
+            this.contentSha256 = other.contentSha256;
+            this.callbackUrl = other.callbackUrl;
 
             return this;
         }
@@ -206,6 +250,11 @@ public class CanonicalDocument {
             return this;
         }
 
+        public Builder withContentEncoding(String contentEncoding) {
+            this.contentEncoding = contentEncoding;
+            return this;
+        }
+
         public Builder withBody(String body) {
             this.body = body;
             return this;
@@ -231,8 +280,23 @@ public class CanonicalDocument {
             return this;
         }
 
+        public Builder withChunkIndex(Integer chunkIndex) {
+            this.chunkIndex = chunkIndex;
+            return this;
+        }
+
+        public Builder withContentSha256(String contentSha256) {
+            this.contentSha256 = contentSha256;
+            return this;
+        }
+
+        public Builder withCallbackUrl(String callbackUrl) {
+            this.callbackUrl = callbackUrl;
+            return this;
+        }
+
         public CanonicalDocument build() {
-            return new CanonicalDocument(identifier, filename, contentType, contentLength, body, bodyStream, bodyIsBase64Encoded, documentExtractStatus, jobId);
+            return new CanonicalDocument(identifier, filename, contentType, contentLength, contentEncoding, body, bodyStream, bodyIsBase64Encoded, documentExtractStatus, jobId, chunkIndex, contentSha256, callbackUrl);
         }
     }
 }
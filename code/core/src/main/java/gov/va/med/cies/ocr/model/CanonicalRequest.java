@@ -3,13 +3,20 @@ package gov.va.med.cies.ocr.model;
 import com.amazonaws.services.s3.model.ExpectedBucketOwnerRequest;
 import gov.va.med.cies.ocr.exceptions.InstanceValidationException;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 public class CanonicalRequest {
     final String method;
     final CanonicalDocument canonicalDocument;
+    // the query string parameters of the request
+    final Map<String, String> parameters;
 
-    private CanonicalRequest(String method, final CanonicalDocument canonicalDocument) {
+    private CanonicalRequest(String method, final CanonicalDocument canonicalDocument, final Map<String, String> parameters) {
         this.method = method;
         this.canonicalDocument = canonicalDocument;
+        this.parameters = parameters;
     }
 
     public String getMethod() {
@@ -20,11 +27,23 @@ public class CanonicalRequest {
         return canonicalDocument;
     }
 
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * @return the value of the query string parameter, or null if the request does not include it
+     */
+    public String getParameter(final String name) {
+        return parameters.get(name);
+    }
+
     @Override
     public String toString() {
         return "CanonicalRequest{" +
                 "method='" + method + '\'' +
                 ", canonicalDocument=" + canonicalDocument +
+                ", parameters=" + parameters +
                 '}';
     }
 
@@ -35,6 +54,7 @@ public class CanonicalRequest {
     public static final class Builder {
         private String method;
         private CanonicalDocument canonicalDocument;
+        private final Map<String, String> parameters = new HashMap<>();
 
         public Builder withMethod(String method) {
             this.method = method;
@@ -46,9 +66,22 @@ public class CanonicalRequest {
             return this;
         }
 
+        public Builder withParameter(final String name, final String value) {
+            if (name != null && value != null)
+                this.parameters.put(name, value);
+            return this;
+        }
+
+        public Builder withParameters(final Map<String, String> parameters) {
+            if (parameters != null)
+                parameters.forEach(this::withParameter);
+            return this;
+        }
+
         public Builder with(CanonicalRequest canonicalRequest) {
             withMethod(canonicalRequest.method);
             withCanonicalDocument(canonicalRequest.canonicalDocument);
+            withParameters(canonicalRequest.parameters);
 
             return this;
         }
@@ -97,7 +130,7 @@ public class CanonicalRequest {
             if (xBuilder.includesValidationFailures())
                 throw xBuilder.build();
 
-            return new CanonicalRequest(method, canonicalDocument);
+            return new CanonicalRequest(method, canonicalDocument, Collections.unmodifiableMap(new HashMap<>(parameters)));
         }
 
     }
@@ -0,0 +1,74 @@
+package gov.va.med.cies.ocr.model;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * An entry of the content index in the destination bucket, the document whose results were produced from
+ * content with the given key (see Utility.createContentHashIndexId and Utility.createContentETagIndexId).
+ * The entry is only as good as the document it names, which may have been saved again, with other content,
+ * or deleted since, so the content key of the document is checked before its results are used.
+ * blocks is true if the Textract blocks (JSON) were saved with the text.
+ */
+public class ContentIndexEntry {
+    private static final String KEY_IDENTIFIER = "identifier";
+    private static final String KEY_CONTENT_KEY = "contentKey";
+    private static final String KEY_BLOCKS = "blocks";
+
+    private final String identifier;
+    private final String contentKey;
+    private final boolean blocks;
+
+    public ContentIndexEntry(final String identifier, final String contentKey, final boolean blocks) {
+        this.identifier = identifier;
+        this.contentKey = contentKey;
+        this.blocks = blocks;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public String getContentKey() {
+        return contentKey;
+    }
+
+    public boolean isBlocks() {
+        return blocks;
+    }
+
+    public String toJson() {
+        JSONObject result = new JSONObject();
+        result.put(KEY_IDENTIFIER, identifier);
+        result.put(KEY_CONTENT_KEY, contentKey);
+        result.put(KEY_BLOCKS, blocks);
+        return result.toString();
+    }
+
+    /**
+     * @return the entry, or null if the JSON is not an entry (e.g. an entry of an earlier version, which was
+     * the identifier alone)
+     */
+    public static ContentIndexEntry fromJson(final String json) {
+        if (json == null)
+            return null;
+        try {
+            JSONObject root = new JSONObject(json);
+            return new ContentIndexEntry(
+                    root.getString(KEY_IDENTIFIER),
+                    root.getString(KEY_CONTENT_KEY),
+                    root.optBoolean(KEY_BLOCKS, false));
+        } catch (JSONException jX) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ContentIndexEntry{" +
+                "identifier='" + identifier + '\'' +
+                ", contentKey='" + contentKey + '\'' +
+                ", blocks=" + blocks +
+                '}';
+    }
+}
@@ -0,0 +1,56 @@
+package gov.va.med.cies.ocr.model;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A query of the status of many documents, the body of a POST to the status endpoint e.g.
+ * {"identifiers":["655321","655322"],"metadata":false}
+ * When metadata is false (the default is true) only the status and job ID are returned, which does not read
+ * the source bucket.
+ */
+public class DocumentStatusQuery {
+    private static final String KEY_IDENTIFIERS = "identifiers";
+    private static final String KEY_METADATA = "metadata";
+
+    private final List<String> identifiers;
+    private final boolean includeMetadata;
+
+    public DocumentStatusQuery(final List<String> identifiers, final boolean includeMetadata) {
+        this.identifiers = Collections.unmodifiableList(new ArrayList<>(identifiers));
+        this.includeMetadata = includeMetadata;
+    }
+
+    public List<String> getIdentifiers() {
+        return identifiers;
+    }
+
+    public boolean isIncludeMetadata() {
+        return includeMetadata;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the JSON is not a query
+     */
+    public static DocumentStatusQuery fromJson(final String json) {
+        try {
+            JSONObject root = new JSONObject(json);
+            JSONArray identifiersJson = root.getJSONArray(KEY_IDENTIFIERS);
+            List<String> identifiers = new ArrayList<>(identifiersJson.length());
+            for (int index = 0; index < identifiersJson.length(); ++index) {
+                final String identifier = identifiersJson.getString(index);
+                if (identifier.isEmpty())
+                    throw new IllegalArgumentException(KEY_IDENTIFIERS + " must not include an empty identifier");
+                identifiers.add(identifier);
+            }
+            return new DocumentStatusQuery(identifiers, root.optBoolean(KEY_METADATA, true));
+        } catch (JSONException jX) {
+            throw new IllegalArgumentException("Invalid status query, " + jX.getMessage(), jX);
+        }
+    }
+}
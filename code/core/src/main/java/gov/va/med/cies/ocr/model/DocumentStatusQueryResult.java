@@ -0,0 +1,76 @@
+package gov.va.med.cies.ocr.model;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of a DocumentStatusQuery, returned as compact JSON e.g.
+ * {"documents":{"655321":{"s":"SUCCEEDED","j":"job001","t":"application/pdf","l":123655,"f":"scan.pdf"}},
+ *  "notFound":["655322"],"failed":["655323"]}
+ * The document fields are abbreviated because a result may describe thousands of documents:
+ * s - status, j - job ID, t - content type, l - content length, f - file name. Null fields are omitted,
+ * as are empty notFound and failed lists. A failed document could not be read and may be queried again.
+ */
+public class DocumentStatusQueryResult {
+    private static final String KEY_DOCUMENTS = "documents";
+    private static final String KEY_NOT_FOUND = "notFound";
+    private static final String KEY_FAILED = "failed";
+    private static final String KEY_STATUS = "s";
+    private static final String KEY_JOB_ID = "j";
+    private static final String KEY_CONTENT_TYPE = "t";
+    private static final String KEY_CONTENT_LENGTH = "l";
+    private static final String KEY_FILE_NAME = "f";
+
+    private final Map<String, CanonicalDocument> documents;
+    private final List<String> notFound;
+    private final List<String> failed;
+
+    public DocumentStatusQueryResult(
+            final Map<String, CanonicalDocument> documents,
+            final List<String> notFound,
+            final List<String> failed) {
+        this.documents = Collections.unmodifiableMap(new LinkedHashMap<>(documents));
+        this.notFound = Collections.unmodifiableList(new ArrayList<>(notFound));
+        this.failed = Collections.unmodifiableList(new ArrayList<>(failed));
+    }
+
+    public Map<String, CanonicalDocument> getDocuments() {
+        return documents;
+    }
+
+    public List<String> getNotFound() {
+        return notFound;
+    }
+
+    public List<String> getFailed() {
+        return failed;
+    }
+
+    public String toJson() {
+        JSONObject documentsJson = new JSONObject();
+        documents.forEach((identifier, document) -> {
+            JSONObject documentJson = new JSONObject();
+            if (document.getDocumentExtractStatus() != null)
+                documentJson.put(KEY_STATUS, document.getDocumentExtractStatus().toString());
+            documentJson.putOpt(KEY_JOB_ID, document.getJobId());
+            documentJson.putOpt(KEY_CONTENT_TYPE, document.getContentType());
+            documentJson.putOpt(KEY_CONTENT_LENGTH, document.getContentLength());
+            documentJson.putOpt(KEY_FILE_NAME, document.getFilename());
+            documentsJson.put(identifier, documentJson);
+        });
+
+        JSONObject result = new JSONObject();
+        result.put(KEY_DOCUMENTS, documentsJson);
+        if (!notFound.isEmpty())
+            result.put(KEY_NOT_FOUND, new JSONArray(notFound));
+        if (!failed.isEmpty())
+            result.put(KEY_FAILED, new JSONArray(failed));
+        return result.toString();
+    }
+}
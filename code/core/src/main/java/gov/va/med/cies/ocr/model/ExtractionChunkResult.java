@@ -0,0 +1,77 @@
+package gov.va.med.cies.ocr.model;
+
+import gov.va.med.cies.ocr.DocumentExtractStatus;
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The result of the Textract job of one chunk of a document, stored as JSON in the destination bucket
+ * until the results of all the chunks are available.
+ * The page text is keyed by Textract (1 based) page number within the chunk.
+ */
+public class ExtractionChunkResult {
+    private static final String KEY_CHUNK_INDEX = "chunkIndex";
+    private static final String KEY_STATUS = "status";
+    private static final String KEY_PAGES = "pages";
+
+    private final int chunkIndex;
+    private final DocumentExtractStatus status;
+    private final Map<Integer, String> pageText;
+
+    public ExtractionChunkResult(final int chunkIndex, final DocumentExtractStatus status, final Map<Integer, String> pageText) {
+        this.chunkIndex = chunkIndex;
+        this.status = status;
+        this.pageText = pageText == null
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new TreeMap<>(pageText));
+    }
+
+    public int getChunkIndex() {
+        return chunkIndex;
+    }
+
+    public DocumentExtractStatus getStatus() {
+        return status;
+    }
+
+    public Map<Integer, String> getPageText() {
+        return pageText;
+    }
+
+    public String toJson() {
+        JSONObject pagesJson = new JSONObject();
+        pageText.forEach((pageNumber, text) -> pagesJson.put(pageNumber.toString(), text));
+
+        JSONObject result = new JSONObject();
+        result.put(KEY_CHUNK_INDEX, chunkIndex);
+        result.put(KEY_STATUS, status.toString());
+        result.put(KEY_PAGES, pagesJson);
+        return result.toString();
+    }
+
+    public static ExtractionChunkResult fromJson(final String json) {
+        JSONObject root = new JSONObject(json);
+
+        Map<Integer, String> pageText = new TreeMap<>();
+        JSONObject pagesJson = root.getJSONObject(KEY_PAGES);
+        for (String pageNumber : pagesJson.keySet())
+            pageText.put(Integer.valueOf(pageNumber), pagesJson.getString(pageNumber));
+
+        return new ExtractionChunkResult(
+                root.getInt(KEY_CHUNK_INDEX),
+                DocumentExtractStatus.of(root.getString(KEY_STATUS)),
+                pageText);
+    }
+
+    @Override
+    public String toString() {
+        return "ExtractionChunkResult{" +
+                "chunkIndex=" + chunkIndex +
+                ", status=" + status +
+                ", pages=" + pageText.size() +
+                '}';
+    }
+}
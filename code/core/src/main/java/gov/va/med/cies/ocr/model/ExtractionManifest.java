@@ -0,0 +1,118 @@
+package gov.va.med.cies.ocr.model;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Describes how the text of a document is assembled when its pages are not submitted to Textract as
+ * a single, whole, document.
+ * The local pages are the text extracted from the PDF, keyed by page number. The chunks are the documents
+ * submitted to Textract, each chunk is the list of (original) page numbers that were copied, in order,
+ * into the chunk document, i.e. page n of the Textract result of chunk c is page chunks[c][n-1] of the
+ * original document.
+ * The manifest is stored as JSON in the destination bucket until all the Textract jobs complete.
+ */
+public class ExtractionManifest {
+    private static final String KEY_PAGE_COUNT = "pageCount";
+    private static final String KEY_LOCAL_PAGES = "localPages";
+    private static final String KEY_CHUNKS = "chunks";
+
+    private final int pageCount;
+    private final Map<Integer, String> localPages;
+    private final List<List<Integer>> chunks;
+
+    public ExtractionManifest(final int pageCount, final Map<Integer, String> localPages, final List<List<Integer>> chunks) {
+        this.pageCount = pageCount;
+        this.localPages = Collections.unmodifiableMap(new TreeMap<>(localPages));
+        List<List<Integer>> chunksCopy = new ArrayList<>(chunks.size());
+        chunks.forEach(chunk -> chunksCopy.add(Collections.unmodifiableList(new ArrayList<>(chunk))));
+        this.chunks = Collections.unmodifiableList(chunksCopy);
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public Map<Integer, String> getLocalPages() {
+        return localPages;
+    }
+
+    public List<List<Integer>> getChunks() {
+        return chunks;
+    }
+
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * Merge the local page text and the OCR page text of every chunk in the original page order.
+     * @param chunkPageText keyed by chunk index, the text of each page of the Textract result of the chunk,
+     *                      keyed by Textract (1 based) page number
+     */
+    public String merge(final Map<Integer, Map<Integer, String>> chunkPageText) {
+        final Map<Integer, String> pages = new TreeMap<>(localPages);
+        for (int chunkIndex = 0; chunkIndex < chunks.size(); ++chunkIndex) {
+            final List<Integer> chunk = chunks.get(chunkIndex);
+            final Map<Integer, String> ocrPageText = chunkPageText.getOrDefault(chunkIndex, Collections.emptyMap());
+            for (int index = 0; index < chunk.size(); ++index) {
+                final String text = ocrPageText.get(index + 1);
+                pages.put(chunk.get(index), text == null ? "" : text);
+            }
+        }
+
+        StringBuilder result = new StringBuilder();
+        pages.values().forEach(result::append);
+        return result.toString();
+    }
+
+    public String toJson() {
+        JSONObject localPagesJson = new JSONObject();
+        localPages.forEach((pageNumber, text) -> localPagesJson.put(pageNumber.toString(), text));
+
+        JSONArray chunksJson = new JSONArray();
+        chunks.forEach(chunk -> chunksJson.put(new JSONArray(chunk)));
+
+        JSONObject result = new JSONObject();
+        result.put(KEY_PAGE_COUNT, pageCount);
+        result.put(KEY_LOCAL_PAGES, localPagesJson);
+        result.put(KEY_CHUNKS, chunksJson);
+        return result.toString();
+    }
+
+    public static ExtractionManifest fromJson(final String json) {
+        JSONObject root = new JSONObject(json);
+
+        Map<Integer, String> localPages = new TreeMap<>();
+        JSONObject localPagesJson = root.getJSONObject(KEY_LOCAL_PAGES);
+        for (String pageNumber : localPagesJson.keySet())
+            localPages.put(Integer.valueOf(pageNumber), localPagesJson.getString(pageNumber));
+
+        List<List<Integer>> chunks = new ArrayList<>();
+        JSONArray chunksJson = root.getJSONArray(KEY_CHUNKS);
+        for (int chunkIndex = 0; chunkIndex < chunksJson.length(); ++chunkIndex) {
+            JSONArray chunkJson = chunksJson.getJSONArray(chunkIndex);
+            List<Integer> chunk = new ArrayList<>(chunkJson.length());
+            for (int index = 0; index < chunkJson.length(); ++index)
+                chunk.add(chunkJson.getInt(index));
+            chunks.add(chunk);
+        }
+
+        return new ExtractionManifest(root.getInt(KEY_PAGE_COUNT), localPages, chunks);
+    }
+
+    @Override
+    public String toString() {
+        return "ExtractionManifest{" +
+                "pageCount=" + pageCount +
+                ", localPages=" + localPages.size() +
+                ", chunks=" + chunks.size() +
+                '}';
+    }
+}
@@ -0,0 +1,68 @@
+package gov.va.med.cies.ocr.model;
+
+/**
+ * The result of sampling the text density of a PDF document.
+ * The bounds are the confidence interval of the mean number of characters per page.
+ */
+public class TextDensityEstimate {
+    public enum Decision {
+        SHORTCUT,       // the document has enough text, skip Textract
+        TEXTRACT,       // the document does not have enough text, submit it to Textract
+        INCONCLUSIVE    // the sample could not decide, extract all the text and compare
+    }
+
+    private final int pageCount;
+    private final int sampledPageCount;
+    private final double meanCharactersPerPage;
+    private final double lowerBound;
+    private final double upperBound;
+    private final Decision decision;
+
+    public TextDensityEstimate(
+            final int pageCount, final int sampledPageCount,
+            final double meanCharactersPerPage, final double lowerBound, final double upperBound,
+            final Decision decision) {
+        this.pageCount = pageCount;
+        this.sampledPageCount = sampledPageCount;
+        this.meanCharactersPerPage = meanCharactersPerPage;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.decision = decision;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public int getSampledPageCount() {
+        return sampledPageCount;
+    }
+
+    public double getMeanCharactersPerPage() {
+        return meanCharactersPerPage;
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    public Decision getDecision() {
+        return decision;
+    }
+
+    @Override
+    public String toString() {
+        return "TextDensityEstimate{" +
+                "pageCount=" + pageCount +
+                ", sampledPageCount=" + sampledPageCount +
+                ", meanCharactersPerPage=" + meanCharactersPerPage +
+                ", lowerBound=" + lowerBound +
+                ", upperBound=" + upperBound +
+                ", decision=" + decision +
+                '}';
+    }
+}
@@ -0,0 +1,116 @@
+package gov.va.med.cies.ocr.model;
+
+import org.json.JSONObject;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A request to start a Textract job for a document (or a chunk of a document), stored as JSON in the retry queue
+ * when it cannot be submitted immediately.
+ * The client request token is assigned when the submission is created and kept across retries, Textract
+ * returns the existing job rather than starting a second one if the same submission is started twice.
+ */
+public class TextractSubmission {
+    private static final String KEY_JOB_TAG = "jobTag";
+    private static final String KEY_BUCKET = "bucket";
+    private static final String KEY_KEY = "key";
+    private static final String KEY_CLIENT_REQUEST_TOKEN = "clientRequestToken";
+    private static final String KEY_ATTEMPT = "attempt";
+    private static final String KEY_NOT_BEFORE = "notBefore";
+
+    private final String jobTag;
+    private final String bucket;
+    private final String key;
+    private final String clientRequestToken;
+    private final int attempt;
+    private final long notBefore;
+
+    private TextractSubmission(
+            final String jobTag,
+            final String bucket, final String key,
+            final String clientRequestToken,
+            final int attempt, final long notBefore) {
+        this.jobTag = jobTag;
+        this.bucket = bucket;
+        this.key = key;
+        this.clientRequestToken = clientRequestToken;
+        this.attempt = attempt;
+        this.notBefore = notBefore;
+    }
+
+    /**
+     * Create the first attempt to submit the document in the given bucket and key.
+     * @param jobTag identifies the document (and chunk) in the completion notification
+     */
+    public static TextractSubmission create(final String jobTag, final String bucket, final String key) {
+        return new TextractSubmission(jobTag, bucket, key, UUID.randomUUID().toString(), 0, 0L);
+    }
+
+    /**
+     * @return the next attempt of this submission, which must not be started before the given time
+     */
+    public TextractSubmission retry(final Instant notBefore) {
+        return new TextractSubmission(jobTag, bucket, key, clientRequestToken, attempt + 1, notBefore.toEpochMilli());
+    }
+
+    public String getJobTag() {
+        return jobTag;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getClientRequestToken() {
+        return clientRequestToken;
+    }
+
+    // 0 for the first attempt
+    public int getAttempt() {
+        return attempt;
+    }
+
+    // milliseconds since the epoch, 0 for the first attempt
+    public long getNotBefore() {
+        return notBefore;
+    }
+
+    public String toJson() {
+        JSONObject result = new JSONObject();
+        result.put(KEY_JOB_TAG, jobTag);
+        result.put(KEY_BUCKET, bucket);
+        result.put(KEY_KEY, key);
+        result.put(KEY_CLIENT_REQUEST_TOKEN, clientRequestToken);
+        result.put(KEY_ATTEMPT, attempt);
+        result.put(KEY_NOT_BEFORE, notBefore);
+        return result.toString();
+    }
+
+    public static TextractSubmission fromJson(final String json) {
+        JSONObject root = new JSONObject(json);
+
+        return new TextractSubmission(
+                root.getString(KEY_JOB_TAG),
+                root.getString(KEY_BUCKET),
+                root.getString(KEY_KEY),
+                root.getString(KEY_CLIENT_REQUEST_TOKEN),
+                root.getInt(KEY_ATTEMPT),
+                root.getLong(KEY_NOT_BEFORE));
+    }
+
+    @Override
+    public String toString() {
+        return "TextractSubmission{" +
+                "jobTag='" + jobTag + '\'' +
+                ", bucket='" + bucket + '\'' +
+                ", key='" + key + '\'' +
+                ", attempt=" + attempt +
+                ", notBefore=" + notBefore +
+                '}';
+    }
+}
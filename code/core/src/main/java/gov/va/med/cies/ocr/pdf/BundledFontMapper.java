@@ -0,0 +1,114 @@
+package gov.va.med.cies.ocr.pdf;
+
+import org.apache.fontbox.FontBoxFont;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.font.CIDFontMapping;
+import org.apache.pdfbox.pdmodel.font.FontMapper;
+import org.apache.pdfbox.pdmodel.font.FontMapping;
+import org.apache.pdfbox.pdmodel.font.FontMappers;
+import org.apache.pdfbox.pdmodel.font.PDCIDSystemInfo;
+import org.apache.pdfbox.pdmodel.font.PDFontDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maps every font that a PDF document uses but does not embed to the one font that PDFBox bundles,
+ * LiberationSans-Regular.
+ * PDFBox's own mapper scans the system fonts, and parses every one of them, the first time that a document
+ * uses a font that it does not embed (which includes every document that uses one of the standard 14 fonts),
+ * adding seconds to the first text extraction in each container. This mapper reads no font until one is used,
+ * and then only the bundled font.
+ * The text is extracted from the encoding of a font, and its widths from the document (or, for the standard 14
+ * fonts, from the metrics that PDFBox bundles), the glyphs of the mapped font are only drawn when a page is
+ * rendered. So a serif, monospaced or bold font is not a fallback here, it is mapped as if it were an exact
+ * match, which also keeps PDFBox from logging a warning for each of them. A CID font, whose glyphs a Latin
+ * font cannot stand in for, is mapped as a fallback.
+ */
+public class BundledFontMapper implements FontMapper {
+    public static final String FONT_RESOURCE = "org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BundledFontMapper.class);
+    private static final AtomicBoolean INSTALLED = new AtomicBoolean(false);
+
+    private final AtomicLong lookups = new AtomicLong();
+    private volatile TrueTypeFont font;
+
+    /**
+     * Make the bundled font the PDFBox font mapper, once for the JVM. If the font is not on the class path then
+     * PDFBox's own mapper is left in place.
+     * @return true if the bundled font mapper is installed
+     */
+    public static boolean install() {
+        if (INSTALLED.get())
+            return true;
+        synchronized (INSTALLED) {
+            if (!INSTALLED.get()) {
+                if (BundledFontMapper.class.getClassLoader().getResource(FONT_RESOURCE) == null) {
+                    LOGGER.warn("install(), {} not found on the class path, the system fonts will be scanned", FONT_RESOURCE);
+                } else {
+                    FontMappers.set(new BundledFontMapper());
+                    INSTALLED.set(true);
+                    LOGGER.info("install(), fonts that are not embedded are mapped to {}", FONT_RESOURCE);
+                }
+            }
+            return INSTALLED.get();
+        }
+    }
+
+    /**
+     * @return the number of fonts looked up
+     */
+    public long getLookupCount() {
+        return lookups.get();
+    }
+
+    @Override
+    public FontMapping<TrueTypeFont> getTrueTypeFont(final String baseFont, final PDFontDescriptor fontDescriptor) {
+        return new FontMapping<>(font(), false);
+    }
+
+    @Override
+    public FontMapping<FontBoxFont> getFontBoxFont(final String baseFont, final PDFontDescriptor fontDescriptor) {
+        return new FontMapping<>(font(), false);
+    }
+
+    @Override
+    public CIDFontMapping getCIDFont(final String baseFont, final PDFontDescriptor fontDescriptor, final PDCIDSystemInfo cidSystemInfo) {
+        return new CIDFontMapping(null, font(), true);
+    }
+
+    private TrueTypeFont font() {
+        lookups.incrementAndGet();
+        TrueTypeFont result = font;
+        if (result == null) {
+            synchronized (this) {
+                result = font;
+                if (result == null)
+                    font = result = parseFont();
+            }
+        }
+        return result;
+    }
+
+    private static TrueTypeFont parseFont() {
+        final long start = System.currentTimeMillis();
+        try (InputStream fontStream = BundledFontMapper.class.getClassLoader().getResourceAsStream(FONT_RESOURCE)) {
+            if (fontStream == null)
+                throw new IOException("Bundled font " + FONT_RESOURCE + " not found on the class path");
+            // the font reads its tables as they are used, from the buffer
+            final TrueTypeFont result = new TTFParser().parse(new RandomAccessReadBuffer(fontStream));
+            LOGGER.debug("parseFont(), parsed in {} ms", System.currentTimeMillis() - start);
+            return result;
+        } catch (IOException ioX) {
+            throw new UncheckedIOException("Unable to parse bundled font " + FONT_RESOURCE, ioX);
+        }
+    }
+}
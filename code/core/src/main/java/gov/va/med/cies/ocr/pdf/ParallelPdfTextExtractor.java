@@ -0,0 +1,112 @@
+package gov.va.med.cies.ocr.pdf;
+
+import gov.va.med.cies.ocr.model.ExtractedPdfText;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Extracts the text of a PDF by stripping contiguous page ranges on worker threads and concatenating the
+ * results in page order.
+ * A PDDocument is not thread safe, so each worker loads its own PDDocument from the DocumentSource, once,
+ * and strips one page range from it; the first range is stripped from the loaded document on the calling
+ * thread. The DocumentSource should share the underlying bytes (e.g. an S3ObjectBlockCache) so that the
+ * document content is read only once.
+ * The worker threads are started for an extraction and shut down when it completes.
+ */
+public class ParallelPdfTextExtractor {
+    /**
+     * A source of independent readers of the same PDF content.
+     */
+    public interface DocumentSource {
+        RandomAccessRead open() throws IOException;
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(ParallelPdfTextExtractor.class);
+
+    private final int parallelism;
+    private final int minimumPagesPerTask;
+
+    /**
+     * @param parallelism the number of threads, including the calling thread, zero or less to use the number of
+     *                    available processors
+     * @param minimumPagesPerTask the document is not split into page ranges of fewer than this number of pages
+     */
+    public ParallelPdfTextExtractor(final int parallelism, final int minimumPagesPerTask) {
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.minimumPagesPerTask = Math.max(1, minimumPagesPerTask);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Extract all the text of the given document. If the document is too small to split, or there is only
+     * one thread, the loaded document is stripped on the calling thread, else the page ranges after the
+     * first are stripped in parallel from documents opened from the source.
+     * @param pdfDocument the loaded document, used to count pages and to strip the first page range
+     * @param source a source of the same document, used by the workers
+     */
+    public ExtractedPdfText extractText(final PDDocument pdfDocument, final DocumentSource source) throws IOException {
+        final int pageCount = pdfDocument.getNumberOfPages();
+        final int rangeCount = Math.min(parallelism, (pageCount + minimumPagesPerTask - 1) / minimumPagesPerTask);
+
+        if (rangeCount <= 1 || source == null) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            return new ExtractedPdfText(stripper.getText(pdfDocument), pageCount);
+        }
+
+        final int pagesPerRange = (pageCount + rangeCount - 1) / rangeCount;
+        logger.debug("extractText, {} pages in {} ranges of up to {} pages", pageCount, rangeCount, pagesPerRange);
+        final ExecutorService executor = Executors.newFixedThreadPool(rangeCount - 1);
+        try {
+            final List<Future<String>> futures = new ArrayList<>(rangeCount - 1);
+            for (int firstPage = pagesPerRange + 1; firstPage <= pageCount; firstPage += pagesPerRange) {
+                final int rangeFirstPage = firstPage;
+                final int rangeLastPage = Math.min(pageCount, firstPage + pagesPerRange - 1);
+                futures.add(executor.submit(() -> stripPageRange(source, rangeFirstPage, rangeLastPage)));
+            }
+
+            final StringBuilder text = new StringBuilder(stripPageRange(pdfDocument, 1, pagesPerRange));
+            for (Future<String> future : futures)
+                text.append(future.get());
+            return new ExtractedPdfText(text.toString(), pageCount);
+        } catch (ExecutionException eX) {
+            if (eX.getCause() instanceof IOException)
+                throw (IOException) eX.getCause();
+            throw new IOException("Failed to strip the pages of the document", eX.getCause());
+        } catch (InterruptedException iX) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while stripping the pages of the document");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // a worker loads the document once, for the one range that it strips
+    private static String stripPageRange(final DocumentSource source, final int firstPage, final int lastPage) throws IOException {
+        try (PDDocument pdfDocument = Loader.loadPDF(source.open())) {
+            return stripPageRange(pdfDocument, firstPage, lastPage);
+        }
+    }
+
+    private static String stripPageRange(final PDDocument pdfDocument, final int firstPage, final int lastPage) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setStartPage(firstPage);
+        stripper.setEndPage(lastPage);
+        return stripper.getText(pdfDocument);
+    }
+}
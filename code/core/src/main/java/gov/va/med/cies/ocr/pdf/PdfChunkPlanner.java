@@ -0,0 +1,57 @@
+package gov.va.med.cies.ocr.pdf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits the pages of a large document into chunks that may be submitted to Textract as separate,
+ * concurrent, jobs. A document is large when it has more than the page threshold or is larger than
+ * the byte threshold. The pages are divided evenly, in order, between the fewest chunks that are within
+ * both thresholds, up to the maximum number of chunks.
+ */
+public class PdfChunkPlanner {
+    private final long byteThreshold;
+    private final int pageThreshold;
+    private final int maximumChunks;
+
+    /**
+     * @param byteThreshold documents larger than this are split, zero or less to ignore the size
+     * @param pageThreshold documents with more pages than this are split, zero or less to ignore the page count
+     * @param maximumChunks the maximum number of chunks, 1 or less disables splitting
+     */
+    public PdfChunkPlanner(final long byteThreshold, final int pageThreshold, final int maximumChunks) {
+        this.byteThreshold = byteThreshold;
+        this.pageThreshold = pageThreshold;
+        this.maximumChunks = Math.max(1, maximumChunks);
+    }
+
+    /**
+     * @param pages the page numbers to be submitted to Textract, in order
+     * @param estimatedBytes the estimated size of a document containing the pages
+     * @return the chunks, a single chunk containing all the pages if the document is not large
+     */
+    public List<List<Integer>> plan(final List<Integer> pages, final long estimatedBytes) {
+        final int chunkCount = Math.min(Math.min(maximumChunks, pages.size()), Math.max(
+                byteThreshold > 0 ? ceilingDivide(estimatedBytes, byteThreshold) : 1,
+                pageThreshold > 0 ? ceilingDivide(pages.size(), pageThreshold) : 1));
+        if (chunkCount <= 1)
+            return Collections.singletonList(pages);
+
+        final List<List<Integer>> result = new ArrayList<>(chunkCount);
+        // the first (pages % chunkCount) chunks have one more page than the rest
+        final int pagesPerChunk = pages.size() / chunkCount;
+        final int remainder = pages.size() % chunkCount;
+        int start = 0;
+        for (int chunkIndex = 0; chunkIndex < chunkCount; ++chunkIndex) {
+            final int end = start + pagesPerChunk + (chunkIndex < remainder ? 1 : 0);
+            result.add(new ArrayList<>(pages.subList(start, end)));
+            start = end;
+        }
+        return result;
+    }
+
+    private static int ceilingDivide(final long dividend, final long divisor) {
+        return (int) Math.min(Integer.MAX_VALUE, (dividend + divisor - 1) / divisor);
+    }
+}
@@ -0,0 +1,88 @@
+package gov.va.med.cies.ocr.pdf;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classifies each page of a PDF as either text bearing (the PDF text can be used as is) or requiring OCR.
+ * A page requires OCR when it has less than the minimum number of characters and it draws an image
+ * (directly or through a form). A page with little text and no images is blank, it does not need OCR.
+ */
+public class PdfPageClassifier {
+    private final double minimumCharactersPerPage;
+
+    public PdfPageClassifier(final double minimumCharactersPerPage) {
+        this.minimumCharactersPerPage = minimumCharactersPerPage;
+    }
+
+    /**
+     * The classification of a single page, the text is the PDF text of the page whether or not the
+     * page requires OCR.
+     */
+    public static class ClassifiedPage {
+        private final int pageNumber;
+        private final String text;
+        private final boolean requiresOcr;
+
+        public ClassifiedPage(final int pageNumber, final String text, final boolean requiresOcr) {
+            this.pageNumber = pageNumber;
+            this.text = text;
+            this.requiresOcr = requiresOcr;
+        }
+
+        // 1 based, as in PDFTextStripper
+        public int getPageNumber() {
+            return pageNumber;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public boolean isRequiresOcr() {
+            return requiresOcr;
+        }
+    }
+
+    public List<ClassifiedPage> classify(final PDDocument pdfDocument) throws IOException {
+        final int pageCount = pdfDocument.getNumberOfPages();
+        final List<ClassifiedPage> result = new ArrayList<>(pageCount);
+        final PDFTextStripper stripper = new PDFTextStripper();
+
+        for (int pageNumber = 1; pageNumber <= pageCount; ++pageNumber) {
+            stripper.setStartPage(pageNumber);
+            stripper.setEndPage(pageNumber);
+            final String text = stripper.getText(pdfDocument);
+
+            final boolean requiresOcr = text.trim().length() < minimumCharactersPerPage
+                    && hasImage(pdfDocument.getPage(pageNumber - 1).getResources(), 0);
+            result.add(new ClassifiedPage(pageNumber, text, requiresOcr));
+        }
+
+        return result;
+    }
+
+    // forms may be nested, the depth limit protects against a form that references itself
+    private boolean hasImage(final PDResources resources, final int depth) throws IOException {
+        if (resources == null || depth > 8)
+            return false;
+
+        for (COSName name : resources.getXObjectNames()) {
+            final PDXObject xObject = resources.getXObject(name);
+            if (xObject instanceof PDImageXObject)
+                return true;
+            if (xObject instanceof PDFormXObject && hasImage(((PDFormXObject) xObject).getResources(), depth + 1))
+                return true;
+        }
+        return false;
+    }
+}
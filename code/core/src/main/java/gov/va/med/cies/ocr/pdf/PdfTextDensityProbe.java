@@ -0,0 +1,139 @@
+package gov.va.med.cies.ocr.pdf;
+
+import gov.va.med.cies.ocr.model.TextDensityEstimate;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Estimates whether a PDF has enough text to skip Textract by stripping a sample of its pages
+ * rather than the whole document.
+ * The sample is the first page, the last page and pages at a regular stride, starting from a random offset.
+ * The mean characters per page of the sample, with a confidence interval, is compared to the minimum
+ * characters per page. When the whole interval is on one side of the minimum the decision is made,
+ * otherwise the result is INCONCLUSIVE and the caller should extract all the text and compare exactly.
+ * The interval is never narrower than the Wilson interval of the proportion of text-bearing pages (those with
+ * at least the minimum characters) allows, a sample whose pages are all alike has no variance but does not
+ * show that the pages that were not sampled are alike too.
+ */
+public class PdfTextDensityProbe {
+    private final int samplePageCount;
+    private final double z;
+    private final Random random;
+
+    /**
+     * @param samplePageCount the number of pages to sample, documents with no more than this number of
+     *                        pages are not sampled (the result is INCONCLUSIVE), zero or less disables sampling
+     * @param confidence the two-sided confidence level of the interval, e.g. 0.95
+     */
+    public PdfTextDensityProbe(final int samplePageCount, final double confidence) {
+        this(samplePageCount, confidence, new Random());
+    }
+
+    // allow the random source to be specified so that tests are repeatable
+    public PdfTextDensityProbe(final int samplePageCount, final double confidence, final Random random) {
+        if (confidence <= 0.0 || confidence >= 1.0)
+            throw new IllegalArgumentException("confidence must be greater than 0 and less than 1");
+        this.samplePageCount = samplePageCount;
+        this.z = inverseNormalUpperTail((1.0 - confidence) / 2.0);
+        this.random = random;
+    }
+
+    public int getSamplePageCount() {
+        return samplePageCount;
+    }
+
+    /**
+     * Sample the document and compare the estimated characters per page to the given minimum.
+     */
+    public TextDensityEstimate estimate(final PDDocument pdfDocument, final double minimumCharactersPerPage) throws IOException {
+        final int pageCount = pdfDocument.getNumberOfPages();
+
+        // small documents are cheaper to extract completely than to sample
+        if (samplePageCount <= 0 || pageCount <= samplePageCount)
+            return new TextDensityEstimate(pageCount, 0, 0.0, 0.0, 0.0, TextDensityEstimate.Decision.INCONCLUSIVE);
+
+        final SortedSet<Integer> samplePages = selectSamplePages(pageCount);
+        final PDFTextStripper stripper = new PDFTextStripper();
+        double sum = 0.0;
+        double sumOfSquares = 0.0;
+        int textPages = 0;
+        double textSum = 0.0;
+        for (int page : samplePages) {
+            stripper.setStartPage(page);
+            stripper.setEndPage(page);
+            final int characters = stripper.getText(pdfDocument).length();
+            sum += characters;
+            sumOfSquares += (double) characters * characters;
+            if (characters >= minimumCharactersPerPage) {
+                ++textPages;
+                textSum += characters;
+            }
+        }
+
+        final int n = samplePages.size();
+        final double mean = sum / n;
+        final double variance = n > 1 ? Math.max(0.0, (sumOfSquares - n * mean * mean) / (n - 1)) : 0.0;
+        // standard error of the mean, with the finite population correction since pages are sampled without replacement
+        final double standardError = Math.sqrt(variance / n) * Math.sqrt((double) (pageCount - n) / (pageCount - 1));
+        // the pages that were not sampled are as dense as the sampled text-bearing pages in the proportion that
+        // is bounded by the Wilson interval, and (at the lower bound) empty otherwise
+        final double[] textProportion = proportionInterval(textPages, n, pageCount);
+        final double meanText = textPages > 0 ? textSum / textPages : 0.0;
+        final double meanOther = textPages < n ? (sum - textSum) / (n - textPages) : 0.0;
+        final double lowerBound = Math.min(mean - z * standardError, textProportion[0] * meanText);
+        final double upperBound = Math.max(mean + z * standardError,
+                textProportion[1] * Math.max(meanText, minimumCharactersPerPage) + (1.0 - textProportion[1]) * meanOther);
+
+        final TextDensityEstimate.Decision decision;
+        if (lowerBound > minimumCharactersPerPage)
+            decision = TextDensityEstimate.Decision.SHORTCUT;
+        else if (upperBound <= minimumCharactersPerPage)
+            decision = TextDensityEstimate.Decision.TEXTRACT;
+        else
+            decision = TextDensityEstimate.Decision.INCONCLUSIVE;
+
+        return new TextDensityEstimate(pageCount, n, mean, lowerBound, upperBound, decision);
+    }
+
+    // the Wilson score interval of a proportion, from the successes within the sample, with the finite
+    // population correction since pages are sampled without replacement
+    double[] proportionInterval(final int successes, final int sampleSize, final int populationSize) {
+        final double p = (double) successes / sampleSize;
+        final double zSquaredOverN = z * z / sampleSize;
+        final double centre = (p + zSquaredOverN / 2.0) / (1.0 + zSquaredOverN);
+        final double halfWidth = z / (1.0 + zSquaredOverN)
+                * Math.sqrt(p * (1.0 - p) / sampleSize + zSquaredOverN / (4.0 * sampleSize))
+                * Math.sqrt((double) (populationSize - sampleSize) / (populationSize - 1));
+        return new double[]{Math.max(0.0, centre - halfWidth), Math.min(1.0, centre + halfWidth)};
+    }
+
+    // select the first, the last and pages at a regular stride with a random start, page numbers are 1 based
+    SortedSet<Integer> selectSamplePages(final int pageCount) {
+        SortedSet<Integer> result = new TreeSet<>();
+        result.add(1);
+        result.add(pageCount);
+
+        final int interiorSamples = samplePageCount - 2;
+        final int interiorPages = pageCount - 2;
+        if (interiorSamples > 0 && interiorPages > 0) {
+            final double stride = (double) interiorPages / interiorSamples;
+            final double offset = random.nextDouble() * stride;
+            for (int index = 0; index < interiorSamples; ++index)
+                result.add(2 + Math.min(interiorPages - 1, (int) (offset + index * stride)));
+        }
+
+        return result;
+    }
+
+    // the z value with the given upper tail probability, Abramowitz and Stegun 26.2.23 (error < 4.5e-4)
+    static double inverseNormalUpperTail(final double p) {
+        final double t = Math.sqrt(-2.0 * Math.log(p));
+        return t - (2.515517 + 0.802853 * t + 0.010328 * t * t)
+                / (1.0 + 1.432788 * t + 0.189269 * t * t + 0.001308 * t * t * t);
+    }
+}
@@ -0,0 +1,35 @@
+package gov.va.med.cies.ocr.priming;
+
+import gov.va.med.cies.ocr.AbstractBaseLambda;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Reports the size of the jar of a function and the time that its initialization takes, in a JVM of its own
+ * (see the report target of Makefile), with the function jar first on the class path.
+ * The handler is created as Lambda creates it, the clients that it declares are created but not used.
+ * Usage: FunctionReport handler-class-name
+ */
+public class FunctionReport {
+    public static void main(final String[] args) throws ReflectiveOperationException {
+        if (args.length != 1) {
+            System.err.println("Usage: FunctionReport handler-class-name");
+            System.exit(1);
+        }
+        final long start = System.currentTimeMillis();
+        final AbstractBaseLambda handler = (AbstractBaseLambda) Class.forName(args[0])
+                .getDeclaredConstructor()
+                .newInstance();
+        final long created = System.currentTimeMillis();
+
+        System.out.printf("%s, %d KB jar, %d ms from JVM start, %d ms to create the handler, %d classes loaded%n",
+                handler.getClass().getSimpleName(),
+                handler.getArtifactSize() / 1024,
+                created - ManagementFactory.getRuntimeMXBean().getStartTime(),
+                created - start,
+                ManagementFactory.getClassLoadingMXBean().getLoadedClassCount()
+        );
+        // the clients may hold non-daemon threads
+        System.exit(0);
+    }
+}
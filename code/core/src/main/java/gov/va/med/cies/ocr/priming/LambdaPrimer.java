@@ -0,0 +1,298 @@
+package gov.va.med.cies.ocr.priming;
+
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.GetObjectTaggingRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import gov.va.med.cies.ocr.ApplicationProperties;
+import gov.va.med.cies.ocr.DocumentExtractManager;
+import gov.va.med.cies.ocr.DocumentExtractStatus;
+import gov.va.med.cies.ocr.exceptions.AbstractApplicationException;
+import gov.va.med.cies.ocr.model.CanonicalDocument;
+import gov.va.med.cies.ocr.model.CanonicalRequest;
+import gov.va.med.cies.ocr.model.CanonicalResponse;
+import gov.va.med.cies.ocr.pdf.BundledFontMapper;
+import gov.va.med.cies.ocr.pdf.PdfTextDensityProbe;
+import gov.va.med.cies.ocr.provider.ProviderRegistry;
+import gov.va.med.cies.ocr.status.InMemoryDocumentStatusStore;
+import gov.va.med.cies.ocr.webhook.WebhookNotification;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.FontMappers;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.textract.TextractClient;
+import software.amazon.awssdk.services.textract.model.DetectDocumentTextRequest;
+import software.amazon.awssdk.services.textract.model.Document;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Exercises the code paths of a first invocation, without AWS, so that the classes they use are loaded and
+ * initialized (and, with SnapStart, included in the snapshot) before the first real request arrives.
+ * The S3 and Textract clients are built against a StubAwsEndpoint on the loopback interface with fixed
+ * credentials, and are discarded afterwards; nothing is sent to AWS and nothing of the priming is kept except
+ * the initialized classes and caches (e.g. the PDFBox font mappings).
+ * Each step is independent, a step that fails is logged and the remaining steps are run.
+ */
+public class LambdaPrimer {
+    public enum Step {
+        PDFBOX,
+        JSON,
+        S3_CLIENT,
+        TEXTRACT_CLIENT,
+        DOCUMENT_EXTRACT_MANAGER
+    }
+
+    private static final String REGION = "us-east-1";
+    private static final String SOURCE_BUCKET_NAME = "priming-source";
+    private static final String DESTINATION_BUCKET_NAME = "priming-destination";
+    private static final String PRIMING_TEXT = "Priming the text extraction of a PDF document";
+    private static final String TEXTRACT_RESPONSE =
+            "{\"DocumentMetadata\":{\"Pages\":1},\"Blocks\":[" +
+                    "{\"BlockType\":\"PAGE\",\"Id\":\"1\",\"Page\":1,\"Relationships\":[{\"Type\":\"CHILD\",\"Ids\":[\"2\"]}]}," +
+                    "{\"BlockType\":\"LINE\",\"Id\":\"2\",\"Page\":1,\"Confidence\":99.5,\"Text\":\"" + PRIMING_TEXT + "\"}" +
+                    "]}";
+
+    private final Logger logger = LoggerFactory.getLogger(LambdaPrimer.class);
+
+    /**
+     * Run every step.
+     * @return the steps that completed
+     */
+    public Set<Step> prime() {
+        return primeSteps(EnumSet.allOf(Step.class));
+    }
+
+    /**
+     * Run the steps of the given dependencies of a function, a function that does not use PDFBox or Textract
+     * does not load them.
+     * @return the steps that completed
+     */
+    public Set<Step> prime(final Set<ProviderRegistry.Dependency> dependencies) {
+        return primeSteps(stepsOf(dependencies));
+    }
+
+    /**
+     * @return the steps that exercise the given dependencies, JSON is a dependency of every function
+     */
+    public static Set<Step> stepsOf(final Set<ProviderRegistry.Dependency> dependencies) {
+        final Set<Step> result = EnumSet.of(Step.JSON);
+        if (dependencies.contains(ProviderRegistry.Dependency.PDF))
+            result.add(Step.PDFBOX);
+        if (dependencies.contains(ProviderRegistry.Dependency.S3))
+            result.add(Step.S3_CLIENT);
+        if (dependencies.contains(ProviderRegistry.Dependency.TEXTRACT))
+            result.add(Step.TEXTRACT_CLIENT);
+        // the submission of a document with text, which is extracted by PDFBox and stored in S3
+        if (dependencies.contains(ProviderRegistry.Dependency.PDF) && dependencies.contains(ProviderRegistry.Dependency.S3))
+            result.add(Step.DOCUMENT_EXTRACT_MANAGER);
+        return result;
+    }
+
+    private Set<Step> primeSteps(final Set<Step> steps) {
+        final Set<Step> completed = EnumSet.noneOf(Step.class);
+        // the clients only move the bytes, PDFBox is not loaded unless a step uses it
+        final byte[] pdf;
+        try {
+            pdf = steps.contains(Step.PDFBOX) || steps.contains(Step.DOCUMENT_EXTRACT_MANAGER)
+                    ? createTextPdf()
+                    : PRIMING_TEXT.getBytes(StandardCharsets.UTF_8);
+        } catch (IOException | RuntimeException x) {
+            logger.warn("prime(), unable to create the priming document, nothing primed", x);
+            return completed;
+        }
+
+        try (StubAwsEndpoint endpoint = new StubAwsEndpoint(TEXTRACT_RESPONSE)) {
+            for (Step step : steps) {
+                final long start = System.currentTimeMillis();
+                try {
+                    run(step, endpoint, pdf);
+                    completed.add(step);
+                    logger.info("prime(), {} primed in {} ms", step, System.currentTimeMillis() - start);
+                } catch (Exception x) {
+                    logger.warn("prime(), {} failed after {} ms", step, System.currentTimeMillis() - start, x);
+                }
+            }
+            logger.info("prime(), {} requests to the stub endpoint", endpoint.getRequestCount());
+        } catch (IOException ioX) {
+            logger.warn("prime(), unable to start the stub endpoint, only the local steps are primed", ioX);
+            for (Step step : steps) {
+                if (step != Step.PDFBOX && step != Step.JSON)
+                    continue;
+                try {
+                    run(step, null, pdf);
+                    completed.add(step);
+                } catch (Exception x) {
+                    logger.warn("prime(), {} failed", step, x);
+                }
+            }
+        }
+        return completed;
+    }
+
+    private void run(final Step step, final StubAwsEndpoint endpoint, final byte[] pdf) throws Exception {
+        switch (step) {
+            case PDFBOX:
+                primePdfBox(pdf);
+                break;
+            case JSON:
+                primeJson();
+                break;
+            case S3_CLIENT:
+                primeS3Client(endpoint, pdf);
+                break;
+            case TEXTRACT_CLIENT:
+                primeTextractClient(endpoint, pdf);
+                break;
+            case DOCUMENT_EXTRACT_MANAGER:
+                primeDocumentExtractManager(endpoint, pdf);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown priming step " + step);
+        }
+    }
+
+    // the font mappers scan the system fonts the first time that they are used, which is most of the
+    // time of the first extraction, unless the bundled font mapper is installed
+    private void primePdfBox(final byte[] pdf) throws IOException {
+        if (Boolean.parseBoolean(ApplicationProperties.getSingleton().getProperty(ApplicationProperties.BUNDLED_FONT_MAPPING, "true")))
+            BundledFontMapper.install();
+        FontMappers.instance().getFontBoxFont(Standard14Fonts.FontName.HELVETICA.getName(), null);
+        try (PDDocument pdfDocument = Loader.loadPDF(pdf)) {
+            final String text = new PDFTextStripper().getText(pdfDocument);
+            if (!text.contains(PRIMING_TEXT))
+                throw new IllegalStateException("The text of the priming document was not extracted");
+            new PdfTextDensityProbe(1, 0.95).estimate(pdfDocument, 1.0);
+        }
+    }
+
+    private void primeJson() {
+        final String notification = new WebhookNotification(
+                "http://localhost/", UUID.randomUUID().toString(), DocumentExtractStatus.SUCCEEDED, null, PRIMING_TEXT
+        ).toJson();
+        if (!new JSONObject(notification).has("identifier"))
+            throw new IllegalStateException("The priming notification was not serialized");
+        ApplicationProperties.getSingleton();
+    }
+
+    private void primeS3Client(final StubAwsEndpoint endpoint, final byte[] pdf) {
+        final AmazonS3 amazonS3 = createAmazonS3(endpoint);
+        try {
+            final String key = UUID.randomUUID().toString();
+            final ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentType("application/pdf");
+            metadata.setContentLength(pdf.length);
+            amazonS3.putObject(SOURCE_BUCKET_NAME, key, new ByteArrayInputStream(pdf), metadata);
+            amazonS3.getObjectMetadata(SOURCE_BUCKET_NAME, key);
+            try (S3Object s3Object = amazonS3.getObject(SOURCE_BUCKET_NAME, key)) {
+                s3Object.getObjectContent().readAllBytes();
+            } catch (IOException ioX) {
+                throw new IllegalStateException(ioX);
+            }
+            amazonS3.getObjectTagging(new GetObjectTaggingRequest(SOURCE_BUCKET_NAME, key));
+            amazonS3.deleteObject(SOURCE_BUCKET_NAME, key);
+        } finally {
+            amazonS3.shutdown();
+        }
+    }
+
+    private void primeTextractClient(final StubAwsEndpoint endpoint, final byte[] pdf) {
+        try (TextractClient textractClient = createTextractClient(endpoint)) {
+            textractClient.detectDocumentText(DetectDocumentTextRequest.builder()
+                    .document(Document.builder().bytes(SdkBytes.fromByteArray(pdf)).build())
+                    .build());
+        }
+    }
+
+    // the shortcut path: the text of the document is extracted locally and stored in the destination bucket
+    private void primeDocumentExtractManager(final StubAwsEndpoint endpoint, final byte[] pdf)
+            throws AbstractApplicationException {
+        final AmazonS3 amazonS3 = createAmazonS3(endpoint);
+        final TextractClient textractClient = createTextractClient(endpoint);
+        try {
+            final String identifier = UUID.randomUUID().toString();
+            endpoint.putObject(SOURCE_BUCKET_NAME, identifier, pdf, "application/pdf");
+            final DocumentExtractManager dxm = new DocumentExtractManager(
+                    REGION,
+                    SOURCE_BUCKET_NAME, DESTINATION_BUCKET_NAME,
+                    "arn:aws:iam::000000000000:role/priming", "priming",
+                    amazonS3, textractClient,
+                    new InMemoryDocumentStatusStore()
+            );
+            final CanonicalRequest request = CanonicalRequest.builder()
+                    .withMethod("NewDocument")
+                    .withCanonicalDocument(CanonicalDocument.builder().withIdentifier(identifier).build())
+                    .build();
+            final CanonicalResponse submitted = dxm.submitDocumentForTextExtraction(request);
+            if (submitted.getResult() >= 300)
+                throw new IllegalStateException("Submission of the priming document returned " + submitted.getResult());
+            dxm.getDocumentMetadata(request);
+            final CanonicalResponse text = dxm.getTextFromDestinationBucket(request);
+            if (text.getResult() != 200)
+                throw new IllegalStateException("The text of the priming document was not stored, " + text.getResult());
+        } finally {
+            textractClient.close();
+            amazonS3.shutdown();
+        }
+    }
+
+    private static AmazonS3 createAmazonS3(final StubAwsEndpoint endpoint) {
+        return AmazonS3ClientBuilder.standard()
+                .withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpoint.getUri().toString(), REGION))
+                .withPathStyleAccessEnabled(true)
+                .withCredentials(new AWSStaticCredentialsProvider(new BasicAWSCredentials("priming", "priming")))
+                .build();
+    }
+
+    private static TextractClient createTextractClient(final StubAwsEndpoint endpoint) {
+        return TextractClient.builder()
+                .region(Region.of(REGION))
+                .endpointOverride(endpoint.getUri())
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("priming", "priming")))
+                .build();
+    }
+
+    // a single page of Helvetica text, enough that the document takes the shortcut past Textract
+    static byte[] createTextPdf() throws IOException {
+        try (PDDocument pdfDocument = new PDDocument();
+             ByteArrayOutputStream pdf = new ByteArrayOutputStream()) {
+            final PDPage page = new PDPage();
+            pdfDocument.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(pdfDocument, page)) {
+                content.beginText();
+                content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 10);
+                content.setLeading(12);
+                content.newLineAtOffset(36, 750);
+                for (String line : Collections.nCopies(60, PRIMING_TEXT)) {
+                    content.showText(line);
+                    content.newLine();
+                }
+                content.endText();
+            }
+            pdfDocument.save(pdf);
+            return pdf.toByteArray();
+        }
+    }
+}
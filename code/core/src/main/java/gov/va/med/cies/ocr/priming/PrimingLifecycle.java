@@ -0,0 +1,52 @@
+package gov.va.med.cies.ocr.priming;
+
+import org.crac.Context;
+import org.crac.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The checkpoint and restore hooks of a Lambda function with SnapStart (or any CRaC runtime).
+ * Before the checkpoint the function is primed, so that the snapshot is of a warm JVM; after the restore the
+ * clients are refreshed, because the credentials and the connections in the snapshot are those of the
+ * initialization and may be expired or closed by the time that the snapshot is restored.
+ * A failure of either hook is logged and does not fail the checkpoint or the restore, the function then
+ * starts as it would without priming.
+ */
+public class PrimingLifecycle implements Resource {
+    private final Logger logger = LoggerFactory.getLogger(PrimingLifecycle.class);
+
+    private final Runnable prime;
+    private final Runnable refresh;
+
+    /**
+     * @param prime called before the checkpoint
+     * @param refresh called after the restore
+     */
+    public PrimingLifecycle(final Runnable prime, final Runnable refresh) {
+        this.prime = prime;
+        this.refresh = refresh;
+    }
+
+    @Override
+    public void beforeCheckpoint(final Context<? extends Resource> context) {
+        final long start = System.currentTimeMillis();
+        try {
+            prime.run();
+            logger.info("beforeCheckpoint(), primed in {} ms", System.currentTimeMillis() - start);
+        } catch (RuntimeException rX) {
+            logger.warn("beforeCheckpoint(), priming failed, continuing with the checkpoint", rX);
+        }
+    }
+
+    @Override
+    public void afterRestore(final Context<? extends Resource> context) {
+        final long start = System.currentTimeMillis();
+        try {
+            refresh.run();
+            logger.info("afterRestore(), refreshed in {} ms", System.currentTimeMillis() - start);
+        } catch (RuntimeException rX) {
+            logger.warn("afterRestore(), refresh failed, continuing with the snapshot clients", rX);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package gov.va.med.cies.ocr.priming;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An HTTP endpoint on the loopback interface that answers just enough of the S3 (path style) and Textract
+ * APIs for the clients to be exercised without AWS, so that the marshalling, signing, HTTP and parsing
+ * classes are loaded and initialized before a snapshot is taken.
+ * The S3 objects are held in memory: PUT, copy, GET (including a byte range), HEAD, DELETE, the object tags
+ * and a listing (ListObjectsV2) are supported. Every Textract request is answered with the response
+ * given to the constructor, whatever the operation.
+ * This is not an S3 implementation, it is only as faithful as the priming requires.
+ */
+public class StubAwsEndpoint implements AutoCloseable {
+    private static final String TEXTRACT_CONTENT_TYPE = "application/x-amz-json-1.1";
+    private static final String STREAMING_PAYLOAD = "STREAMING-AWS4-HMAC-SHA256-PAYLOAD";
+    private static final String XML_NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+
+    private final Logger logger = LoggerFactory.getLogger(StubAwsEndpoint.class);
+
+    private final String textractResponse;
+    private final HttpServer server;
+    private final Map<String, StoredObject> objects = new HashMap<>();
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    private static final class StoredObject {
+        private final byte[] content;
+        private final Map<String, String> headers;
+        private final Date lastModified = new Date();
+        private String tagging;
+
+        private StoredObject(final byte[] content, final Map<String, String> headers) {
+            this.content = content;
+            this.headers = headers;
+        }
+    }
+
+    /**
+     * Start the endpoint on an ephemeral port.
+     * @param textractResponse the JSON body of every Textract response
+     */
+    public StubAwsEndpoint(final String textractResponse) throws IOException {
+        this.textractResponse = textractResponse;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public URI getUri() {
+        return URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Store an object, as if it had been PUT.
+     */
+    public synchronized void putObject(final String bucketName, final String key, final byte[] content, final String contentType) {
+        final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.put("Content-Type", contentType);
+        objects.put(bucketName + "/" + key, new StoredObject(content, headers));
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        try {
+            final byte[] body = decodeBody(exchange);
+            if (exchange.getRequestHeaders().containsKey("X-Amz-Target")) {
+                exchange.getResponseHeaders().set("Content-Type", TEXTRACT_CONTENT_TYPE);
+                respond(exchange, 200, textractResponse.getBytes(StandardCharsets.UTF_8));
+            } else {
+                handleS3(exchange, body);
+            }
+        } catch (RuntimeException rX) {
+            logger.warn("handle({} {}), failed", exchange.getRequestMethod(), exchange.getRequestURI(), rX);
+            respond(exchange, 500, new byte[0]);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private synchronized void handleS3(final HttpExchange exchange, final byte[] body) throws IOException {
+        final String path = URLDecoder.decode(exchange.getRequestURI().getRawPath(), StandardCharsets.UTF_8.name()).substring(1);
+        final String query = exchange.getRequestURI().getRawQuery() == null ? "" : exchange.getRequestURI().getRawQuery();
+        final String method = exchange.getRequestMethod();
+        final int separator = path.indexOf('/');
+        final String bucketName = separator < 0 ? path : path.substring(0, separator);
+
+        if (separator < 0 || separator == path.length() - 1) {
+            if ("GET".equals(method) && query.contains("list-type=2")) {
+                respondXml(exchange, 200, listObjects(bucketName, queryParameter(query, "prefix")));
+            } else {
+                respond(exchange, 200, new byte[0]);
+            }
+            return;
+        }
+
+        final String objectKey = path;
+        final StoredObject object = objects.get(objectKey);
+        switch (method) {
+            case "PUT":
+                final String copySource = exchange.getRequestHeaders().getFirst("x-amz-copy-source");
+                if (query.startsWith("tagging")) {
+                    if (object == null) {
+                        respondNotFound(exchange);
+                    } else {
+                        object.tagging = new String(body, StandardCharsets.UTF_8);
+                        respond(exchange, 200, new byte[0]);
+                    }
+                } else if (copySource != null) {
+                    final StoredObject source = objects.get(URLDecoder.decode(copySource, StandardCharsets.UTF_8.name()).replaceFirst("^/", ""));
+                    if (source == null) {
+                        respondNotFound(exchange);
+                    } else {
+                        final StoredObject copy = new StoredObject(source.content, source.headers);
+                        objects.put(objectKey, copy);
+                        respondXml(exchange, 200, "<CopyObjectResult><LastModified>" + isoDate(copy.lastModified)
+                                + "</LastModified><ETag>&quot;" + md5Hex(copy.content) + "&quot;</ETag></CopyObjectResult>");
+                    }
+                } else {
+                    final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                    exchange.getRequestHeaders().forEach((name, values) -> {
+                        if (name.equalsIgnoreCase("Content-Type") || name.toLowerCase(Locale.ROOT).startsWith("x-amz-meta-"))
+                            headers.put(name, values.get(0));
+                    });
+                    objects.put(objectKey, new StoredObject(body, headers));
+                    exchange.getResponseHeaders().set("ETag", "\"" + md5Hex(body) + "\"");
+                    respond(exchange, 200, new byte[0]);
+                }
+                break;
+            case "DELETE":
+                objects.remove(objectKey);
+                respond(exchange, 204, null);
+                break;
+            case "HEAD":
+            case "GET":
+                if (object == null) {
+                    respondNotFound(exchange);
+                } else if (query.startsWith("tagging")) {
+                    respondXml(exchange, 200, object.tagging != null
+                            ? object.tagging
+                            : "<Tagging xmlns=\"" + XML_NAMESPACE + "\"><TagSet></TagSet></Tagging>");
+                } else {
+                    respondObject(exchange, object, "HEAD".equals(method));
+                }
+                break;
+            default:
+                respond(exchange, 405, new byte[0]);
+        }
+    }
+
+    private void respondObject(final HttpExchange exchange, final StoredObject object, final boolean headOnly) throws IOException {
+        object.headers.forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+        exchange.getResponseHeaders().set("ETag", "\"" + md5Hex(object.content) + "\"");
+        exchange.getResponseHeaders().set("Last-Modified", httpDate(object.lastModified));
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+
+        byte[] content = object.content;
+        int status = 200;
+        final String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null && range.startsWith("bytes=")) {
+            final String[] bounds = range.substring("bytes=".length()).split("-");
+            final int start = Integer.parseInt(bounds[0]);
+            final int end = Math.min(bounds.length > 1 ? Integer.parseInt(bounds[1]) : content.length - 1, content.length - 1);
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+            content = Arrays.copyOfRange(content, start, end + 1);
+            status = 206;
+        }
+
+        if (headOnly) {
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(content.length));
+            exchange.sendResponseHeaders(status, -1);
+        } else {
+            respond(exchange, status, content);
+        }
+    }
+
+    private String listObjects(final String bucketName, final String prefix) {
+        final StringBuilder contents = new StringBuilder();
+        int keyCount = 0;
+        for (Map.Entry<String, StoredObject> entry : new TreeMap<>(objects).entrySet()) {
+            final String key = entry.getKey().substring(bucketName.length() + 1);
+            if (entry.getKey().startsWith(bucketName + "/") && (prefix == null || key.startsWith(prefix))) {
+                ++keyCount;
+                contents.append("<Contents><Key>").append(key)
+                        .append("</Key><LastModified>").append(isoDate(entry.getValue().lastModified))
+                        .append("</LastModified><ETag>&quot;").append(md5Hex(entry.getValue().content))
+                        .append("&quot;</ETag><Size>").append(entry.getValue().content.length)
+                        .append("</Size><StorageClass>STANDARD</StorageClass></Contents>");
+            }
+        }
+        return "<ListBucketResult xmlns=\"" + XML_NAMESPACE + "\"><Name>" + bucketName + "</Name><Prefix>"
+                + (prefix == null ? "" : prefix) + "</Prefix><KeyCount>" + keyCount
+                + "</KeyCount><MaxKeys>1000</MaxKeys><IsTruncated>false</IsTruncated>" + contents + "</ListBucketResult>";
+    }
+
+    private void respondNotFound(final HttpExchange exchange) throws IOException {
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(404, -1);
+        } else {
+            respondXml(exchange, 404, "<Error><Code>NoSuchKey</Code><Message>The specified key does not exist.</Message></Error>");
+        }
+    }
+
+    private static void respondXml(final HttpExchange exchange, final int status, final String xml) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        respond(exchange, status, ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + xml).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // a null content is a response without a body
+    private static void respond(final HttpExchange exchange, final int status, final byte[] content) throws IOException {
+        if (content == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, content.length == 0 ? -1 : content.length);
+        if (content.length > 0)
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(content);
+            }
+    }
+
+    // the v1 client signs each chunk of an upload to an HTTP endpoint, the chunk headers are not content
+    private static byte[] decodeBody(final HttpExchange exchange) throws IOException {
+        final byte[] body = exchange.getRequestBody().readAllBytes();
+        if (!STREAMING_PAYLOAD.equals(exchange.getRequestHeaders().getFirst("x-amz-content-sha256")))
+            return body;
+        final ByteArrayOutputStream content = new ByteArrayOutputStream(body.length);
+        int offset = 0;
+        while (offset < body.length) {
+            int headerEnd = offset;
+            while (headerEnd + 1 < body.length && !(body[headerEnd] == '\r' && body[headerEnd + 1] == '\n'))
+                ++headerEnd;
+            final String header = new String(body, offset, headerEnd - offset, StandardCharsets.US_ASCII);
+            final int chunkSize = Integer.parseInt(header.split(";", 2)[0].trim(), 16);
+            if (chunkSize == 0)
+                break;
+            content.write(body, headerEnd + 2, chunkSize);
+            offset = headerEnd + 2 + chunkSize + 2;
+        }
+        return content.toByteArray();
+    }
+
+    private static String queryParameter(final String query, final String name) throws IOException {
+        for (String parameter : query.split("&")) {
+            final List<String> nameValue = Arrays.asList(parameter.split("=", 2));
+            if (nameValue.get(0).equals(name))
+                return nameValue.size() > 1 ? URLDecoder.decode(nameValue.get(1), StandardCharsets.UTF_8.name()) : "";
+        }
+        return null;
+    }
+
+    private static String md5Hex(final byte[] content) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("MD5").digest(content);
+            StringBuilder result = new StringBuilder(digest.length * 2);
+            for (byte b : digest)
+                result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            return result.toString();
+        } catch (NoSuchAlgorithmException nsaX) {
+            // every Java platform is required to support MD5
+            throw new IllegalStateException("MD5 is not available", nsaX);
+        }
+    }
+
+    private static String httpDate(final Date date) {
+        final SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format.format(date);
+    }
+
+    private static String isoDate(final Date date) {
+        final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(date);
+    }
+}
@@ -0,0 +1,92 @@
+package gov.va.med.cies.ocr.provider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Creates an instance (a client, a dispatcher ...) the first time that it is used, and returns the same
+ * instance thereafter. The time taken to create the instance is recorded, so that what a function pays for
+ * each of its dependencies can be reported.
+ * Thread safe, the instance is created once however many threads ask for it at the same time.
+ */
+public class LazyProvider<T> implements Supplier<T> {
+    private final Logger logger = LoggerFactory.getLogger(LazyProvider.class);
+
+    private final String name;
+    private final Supplier<T> factory;
+    private volatile T instance;
+    private volatile long creationMillis = -1L;
+
+    /**
+     * @param name the name of the instance, for logging
+     * @param factory creates the instance, called at most once
+     */
+    public LazyProvider(final String name, final Supplier<T> factory) {
+        this.name = name;
+        this.factory = factory;
+    }
+
+    /**
+     * A provider of an instance that has already been created e.g. a client given to a constructor.
+     */
+    public static <T> LazyProvider<T> of(final String name, final T instance) {
+        final LazyProvider<T> result = new LazyProvider<>(name, () -> instance);
+        result.instance = instance;
+        result.creationMillis = 0L;
+        return result;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public T get() {
+        T result = instance;
+        if (result == null) {
+            synchronized (this) {
+                result = instance;
+                if (result == null) {
+                    final long start = System.currentTimeMillis();
+                    result = factory.get();
+                    creationMillis = System.currentTimeMillis() - start;
+                    instance = result;
+                    logger.info("get(), {} created in {} ms", name, creationMillis);
+                }
+            }
+        }
+        return result;
+    }
+
+    public boolean isCreated() {
+        return instance != null;
+    }
+
+    /**
+     * @return the milliseconds taken to create the instance, -1 if it has not been created
+     */
+    public long getCreationMillis() {
+        return creationMillis;
+    }
+
+    /**
+     * Pass the instance to the consumer if it has been created e.g. to close it, without creating it.
+     */
+    public void ifCreated(final Consumer<T> consumer) {
+        final T result = instance;
+        if (result != null)
+            consumer.accept(result);
+    }
+
+    @Override
+    public String toString() {
+        return "LazyProvider{" +
+                "name='" + name + '\'' +
+                ", created=" + isCreated() +
+                ", creationMillis=" + creationMillis +
+                '}';
+    }
+}
@@ -0,0 +1,128 @@
+package gov.va.med.cies.ocr.provider;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import gov.va.med.cies.ocr.ApplicationProperties;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+import software.amazon.awssdk.services.textract.TextractClient;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The clients of a Lambda function, each created when it is first used.
+ * A function declares the dependencies that it uses, initialize() creates the declared clients during the
+ * initialization of the function (and so before a SnapStart snapshot), any other client is created only
+ * if a request does use it. PDF has no client, it is declared so that PDFBox is primed (see LambdaPrimer).
+ * The DynamoDB client is used only by the DYNAMODB document status store, it is created with that store.
+ */
+public class ProviderRegistry {
+    public enum Dependency {
+        S3,
+        TEXTRACT,
+        PDF
+    }
+
+    private final Set<Dependency> dependencies;
+    private final LazyProvider<AmazonS3> amazonS3;
+    private final LazyProvider<TextractClient> textractClient;
+    private final LazyProvider<DynamoDbClient> dynamoDbClient;
+
+    /**
+     * The registry of the AWS clients, with the default credentials, in the given region.
+     */
+    public ProviderRegistry(final String region, final Set<Dependency> dependencies) {
+        this(
+                dependencies,
+                new LazyProvider<>("AmazonS3", AmazonS3ClientBuilder::defaultClient),
+                new LazyProvider<>("TextractClient", () -> TextractClient.builder().region(Region.of(region)).build()),
+                new LazyProvider<>("DynamoDbClient", () -> createDynamoDbClient(region))
+        );
+    }
+
+    public ProviderRegistry(
+            final Set<Dependency> dependencies,
+            final LazyProvider<AmazonS3> amazonS3,
+            final LazyProvider<TextractClient> textractClient,
+            final LazyProvider<DynamoDbClient> dynamoDbClient) {
+        this.dependencies = dependencies.isEmpty()
+                ? Collections.emptySet()
+                : Collections.unmodifiableSet(EnumSet.copyOf(dependencies));
+        this.amazonS3 = amazonS3;
+        this.textractClient = textractClient;
+        this.dynamoDbClient = dynamoDbClient;
+    }
+
+    /**
+     * A DynamoDB client in the given region, or of the DocumentStatusEndpoint (e.g. DynamoDB local) if one is set.
+     */
+    public static DynamoDbClient createDynamoDbClient(final String region) {
+        final String endpoint = ApplicationProperties.getSingleton().getProperty(ApplicationProperties.DOCUMENT_STATUS_ENDPOINT, "");
+        DynamoDbClientBuilder dynamoDbClientBuilder = DynamoDbClient.builder().region(Region.of(region));
+        if (!endpoint.trim().isEmpty())
+            dynamoDbClientBuilder.endpointOverride(URI.create(endpoint.trim()));
+        return dynamoDbClientBuilder.build();
+    }
+
+    public Set<Dependency> getDependencies() {
+        return dependencies;
+    }
+
+    public LazyProvider<AmazonS3> getAmazonS3() {
+        return amazonS3;
+    }
+
+    public LazyProvider<TextractClient> getTextractClient() {
+        return textractClient;
+    }
+
+    public LazyProvider<DynamoDbClient> getDynamoDbClient() {
+        return dynamoDbClient;
+    }
+
+    /**
+     * Create the clients of the declared dependencies.
+     */
+    public void initialize() {
+        if (dependencies.contains(Dependency.S3))
+            amazonS3.get();
+        if (dependencies.contains(Dependency.TEXTRACT))
+            textractClient.get();
+    }
+
+    /**
+     * @return the milliseconds taken to create each client that has been created, by name
+     */
+    public Map<String, Long> getCreationMillis() {
+        final Map<String, Long> result = new LinkedHashMap<>();
+        for (LazyProvider<?> provider : new LazyProvider<?>[]{amazonS3, textractClient, dynamoDbClient})
+            if (provider.isCreated())
+                result.put(provider.getName(), provider.getCreationMillis());
+        return result;
+    }
+
+    /**
+     * Shut down the clients that have been created.
+     */
+    public void close() {
+        amazonS3.ifCreated(AmazonS3::shutdown);
+        textractClient.ifCreated(TextractClient::close);
+        dynamoDbClient.ifCreated(DynamoDbClient::close);
+    }
+
+    @Override
+    public String toString() {
+        return "ProviderRegistry{" +
+                "dependencies=" + dependencies +
+                ", amazonS3=" + amazonS3 +
+                ", textractClient=" + textractClient +
+                ", dynamoDbClient=" + dynamoDbClient +
+                '}';
+    }
+}
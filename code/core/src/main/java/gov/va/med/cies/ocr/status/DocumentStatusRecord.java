@@ -0,0 +1,50 @@
+package gov.va.med.cies.ocr.status;
+
+import gov.va.med.cies.ocr.DocumentExtractStatus;
+
+import java.util.Objects;
+
+/**
+ * The mutable state of a document, its extraction status and the ID of its Textract job.
+ */
+public final class DocumentStatusRecord {
+    private final DocumentExtractStatus status;
+    private final String jobId;
+
+    public DocumentStatusRecord(final DocumentExtractStatus status, final String jobId) {
+        this.status = status;
+        this.jobId = jobId;
+    }
+
+    public DocumentExtractStatus getStatus() {
+        return status;
+    }
+
+    // null if the document has not been submitted to Textract as a single job
+    public String getJobId() {
+        return jobId;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof DocumentStatusRecord))
+            return false;
+        DocumentStatusRecord that = (DocumentStatusRecord) other;
+        return status == that.status && Objects.equals(jobId, that.jobId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(status, jobId);
+    }
+
+    @Override
+    public String toString() {
+        return "DocumentStatusRecord{" +
+                "status=" + status +
+                ", jobId='" + jobId + '\'' +
+                '}';
+    }
+}
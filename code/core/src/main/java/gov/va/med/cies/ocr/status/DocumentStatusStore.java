@@ -0,0 +1,53 @@
+package gov.va.med.cies.ocr.status;
+
+import gov.va.med.cies.ocr.DocumentExtractStatus;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records the status and Textract job ID of documents.
+ * A document that has no recorded status is treated as New.
+ */
+public interface DocumentStatusStore {
+    /**
+     * @return the status of the document, null if no status is recorded
+     */
+    DocumentStatusRecord get(String identifier);
+
+    /**
+     * Get the status of many documents, in as few requests as the store allows.
+     * @return the status of each document that has one, documents with no recorded status are not included
+     */
+    Map<String, DocumentStatusRecord> getAll(Collection<String> identifiers);
+
+    /**
+     * @return the most documents that getAll() reads with one request, 1 if each document is read in turn
+     */
+    default int getBatchSize() {
+        return 1;
+    }
+
+    /**
+     * Set the status of the document whatever its current status.
+     * @param jobId the Textract job ID, null leaves the recorded job ID unchanged
+     */
+    void put(String identifier, DocumentExtractStatus status, String jobId);
+
+    /**
+     * Set the status of the document only if its current status is one of the expected statuses.
+     * @param expected the statuses from which the transition is allowed, New includes a document with no status
+     * @param jobId the Textract job ID, null leaves the recorded job ID unchanged
+     * @return false if the current status was not expected, the status is unchanged
+     */
+    boolean compareAndSet(String identifier, Set<DocumentExtractStatus> expected, DocumentExtractStatus status, String jobId);
+
+    /**
+     * @return true if the status is recorded with the document itself, then the status New of a saved document is
+     * set by the same request that saves the document
+     */
+    default boolean isRecordedWithDocument() {
+        return false;
+    }
+}
@@ -0,0 +1,197 @@
+package gov.va.med.cies.ocr.status;
+
+import gov.va.med.cies.ocr.DocumentExtractStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records the status of documents in a DynamoDB (or DynamoDB compatible) table, keyed by the document identifier.
+ * Every write is a single UpdateItem, a compare-and-set is a conditional update so concurrent transitions
+ * of a document cannot overwrite each other.
+ */
+public class DynamoDbDocumentStatusStore implements DocumentStatusStore {
+    public static final String KEY_ATTRIBUTE = "DocumentId";
+    public static final String STATUS_ATTRIBUTE = "Status";
+    public static final String JOB_ID_ATTRIBUTE = "JobId";
+    public static final String UPDATED_ATTRIBUTE = "Updated";
+
+    // the most keys that a BatchGetItem request may have
+    public static final int MAX_BATCH_KEYS = 100;
+    // the number of times unprocessed keys are retried before they are read individually
+    public static final int MAX_BATCH_ATTEMPTS = 4;
+
+    private final Logger logger = LoggerFactory.getLogger(DynamoDbDocumentStatusStore.class);
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+
+    public DynamoDbDocumentStatusStore(final DynamoDbClient dynamoDbClient, final String tableName) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+    }
+
+    @Override
+    public DocumentStatusRecord get(final String identifier) {
+        final GetItemResponse response = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(tableName)
+                .key(key(identifier))
+                .consistentRead(true)
+                .build());
+        return response.hasItem() ? toRecord(response.item()) : null;
+    }
+
+    @Override
+    public Map<String, DocumentStatusRecord> getAll(final Collection<String> identifiers) {
+        Map<String, DocumentStatusRecord> result = new HashMap<>();
+        final List<String> distinctIdentifiers = new ArrayList<>(new LinkedHashSet<>(identifiers));
+        for (int start = 0; start < distinctIdentifiers.size(); start += MAX_BATCH_KEYS) {
+            List<Map<String, AttributeValue>> keys = new ArrayList<>();
+            for (String identifier : distinctIdentifiers.subList(start, Math.min(start + MAX_BATCH_KEYS, distinctIdentifiers.size())))
+                keys.add(key(identifier));
+            getBatch(keys, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int getBatchSize() {
+        return MAX_BATCH_KEYS;
+    }
+
+    @Override
+    public void put(final String identifier, final DocumentExtractStatus status, final String jobId) {
+        dynamoDbClient.updateItem(createUpdateRequest(identifier, status, jobId, null).build());
+    }
+
+    @Override
+    public boolean compareAndSet(
+            final String identifier,
+            final Set<DocumentExtractStatus> expected,
+            final DocumentExtractStatus status, final String jobId) {
+        try {
+            dynamoDbClient.updateItem(createUpdateRequest(identifier, status, jobId, expected).build());
+            return true;
+        } catch (ConditionalCheckFailedException ccfX) {
+            logger.debug("compareAndSet({}, {}, {}), the status was not expected", identifier, expected, status);
+            return false;
+        }
+    }
+
+    private UpdateItemRequest.Builder createUpdateRequest(
+            final String identifier,
+            final DocumentExtractStatus status, final String jobId,
+            final Set<DocumentExtractStatus> expected) {
+        // "Status" is a DynamoDB reserved word, all the attributes are referenced by name placeholders
+        Map<String, String> names = new HashMap<>();
+        names.put("#status", STATUS_ATTRIBUTE);
+        names.put("#updated", UPDATED_ATTRIBUTE);
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":status", AttributeValue.builder().s(status.toString()).build());
+        values.put(":updated", AttributeValue.builder().n(String.valueOf(System.currentTimeMillis())).build());
+
+        StringBuilder updateExpression = new StringBuilder("SET #status = :status, #updated = :updated");
+        if (jobId != null) {
+            names.put("#jobId", JOB_ID_ATTRIBUTE);
+            values.put(":jobId", AttributeValue.builder().s(jobId).build());
+            updateExpression.append(", #jobId = :jobId");
+        }
+
+        UpdateItemRequest.Builder result = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(key(identifier))
+                .updateExpression(updateExpression.toString());
+
+        if (expected != null) {
+            List<String> conditions = new ArrayList<>();
+            // a document with no status is New
+            if (expected.contains(DocumentExtractStatus.New))
+                conditions.add("attribute_not_exists(#status)");
+            if (!expected.isEmpty()) {
+                List<String> placeholders = new ArrayList<>();
+                for (DocumentExtractStatus expectedStatus : expected) {
+                    final String placeholder = ":expected" + placeholders.size();
+                    placeholders.add(placeholder);
+                    values.put(placeholder, AttributeValue.builder().s(expectedStatus.toString()).build());
+                }
+                conditions.add("#status IN (" + String.join(", ", placeholders) + ")");
+            } else {
+                // nothing is expected, the update can never be made
+                conditions.add("attribute_not_exists(#status) AND attribute_exists(#status)");
+            }
+            result.conditionExpression(String.join(" OR ", conditions));
+        }
+
+        return result
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values);
+    }
+
+    // reads a batch of keys, retrying the keys that DynamoDB did not process
+    private void getBatch(final List<Map<String, AttributeValue>> keys, final Map<String, DocumentStatusRecord> result) {
+        Map<String, KeysAndAttributes> requestItems = Collections.singletonMap(
+                tableName,
+                KeysAndAttributes.builder().keys(keys).consistentRead(true).build());
+
+        for (int attempt = 0; attempt < MAX_BATCH_ATTEMPTS && !requestItems.isEmpty(); ++attempt) {
+            if (attempt > 0)
+                pause(attempt);
+            final BatchGetItemResponse response = dynamoDbClient.batchGetItem(BatchGetItemRequest.builder()
+                    .requestItems(requestItems)
+                    .build());
+            if (response.hasResponses() && response.responses().get(tableName) != null)
+                for (Map<String, AttributeValue> item : response.responses().get(tableName))
+                    result.put(item.get(KEY_ATTRIBUTE).s(), toRecord(item));
+            requestItems = response.hasUnprocessedKeys() ? response.unprocessedKeys() : Collections.emptyMap();
+        }
+
+        // the table is throttled, read whatever remains one at a time
+        final KeysAndAttributes unprocessed = requestItems.get(tableName);
+        if (unprocessed != null) {
+            logger.warn("getBatch(), {} keys were not processed by a batch read", unprocessed.keys().size());
+            for (Map<String, AttributeValue> key : unprocessed.keys()) {
+                final String identifier = key.get(KEY_ATTRIBUTE).s();
+                final DocumentStatusRecord record = get(identifier);
+                if (record != null)
+                    result.put(identifier, record);
+            }
+        }
+    }
+
+    private static void pause(final int attempt) {
+        try {
+            Thread.sleep(50L << attempt);
+        } catch (InterruptedException iX) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, AttributeValue> key(final String identifier) {
+        return Collections.singletonMap(KEY_ATTRIBUTE, AttributeValue.builder().s(identifier).build());
+    }
+
+    private static DocumentStatusRecord toRecord(final Map<String, AttributeValue> item) {
+        final AttributeValue status = item.get(STATUS_ATTRIBUTE);
+        final AttributeValue jobId = item.get(JOB_ID_ATTRIBUTE);
+        return new DocumentStatusRecord(
+                DocumentExtractStatus.of(status == null ? null : status.s()),
+                jobId == null ? null : jobId.s());
+    }
+}
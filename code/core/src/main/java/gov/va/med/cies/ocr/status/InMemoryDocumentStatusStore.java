@@ -0,0 +1,58 @@
+package gov.va.med.cies.ocr.status;
+
+import gov.va.med.cies.ocr.DocumentExtractStatus;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the status of documents in this instance only, for tests and local use.
+ * Transitions are atomic.
+ */
+public class InMemoryDocumentStatusStore implements DocumentStatusStore {
+    private final Map<String, DocumentStatusRecord> records = new ConcurrentHashMap<>();
+
+    @Override
+    public DocumentStatusRecord get(final String identifier) {
+        return records.get(identifier);
+    }
+
+    @Override
+    public Map<String, DocumentStatusRecord> getAll(final Collection<String> identifiers) {
+        Map<String, DocumentStatusRecord> result = new HashMap<>();
+        for (String identifier : identifiers) {
+            final DocumentStatusRecord record = records.get(identifier);
+            if (record != null)
+                result.put(identifier, record);
+        }
+        return result;
+    }
+
+    @Override
+    public void put(final String identifier, final DocumentExtractStatus status, final String jobId) {
+        records.compute(identifier, (key, current) -> update(current, status, jobId));
+    }
+
+    @Override
+    public boolean compareAndSet(
+            final String identifier,
+            final Set<DocumentExtractStatus> expected,
+            final DocumentExtractStatus status, final String jobId) {
+        final boolean[] result = {false};
+        records.compute(identifier, (key, current) -> {
+            final DocumentExtractStatus currentStatus = current == null ? DocumentExtractStatus.New : current.getStatus();
+            if (!expected.contains(currentStatus))
+                return current;
+            result[0] = true;
+            return update(current, status, jobId);
+        });
+        return result[0];
+    }
+
+    private static DocumentStatusRecord update(final DocumentStatusRecord current, final DocumentExtractStatus status, final String jobId) {
+        return new DocumentStatusRecord(status, jobId != null || current == null ? jobId : current.getJobId());
+    }
+}
@@ -0,0 +1,112 @@
+package gov.va.med.cies.ocr.status;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectTaggingRequest;
+import com.amazonaws.services.s3.model.GetObjectTaggingResult;
+import com.amazonaws.services.s3.model.ObjectTagging;
+import com.amazonaws.services.s3.model.SetObjectTaggingRequest;
+import com.amazonaws.services.s3.model.Tag;
+import gov.va.med.cies.ocr.DocumentExtractStatus;
+import gov.va.med.cies.ocr.HeaderTags;
+import org.apache.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Records the status of a document as tags of the document in the source bucket.
+ * S3 replaces the whole tag set of an object, so every write reads the tags first to keep the other tags,
+ * and a compare-and-set is not atomic. Where concurrent transitions matter use DynamoDbDocumentStatusStore.
+ */
+public class S3TagDocumentStatusStore implements DocumentStatusStore {
+    private final AmazonS3 amazonS3;
+    private final String bucketName;
+
+    public S3TagDocumentStatusStore(final AmazonS3 amazonS3, final String bucketName) {
+        this.amazonS3 = amazonS3;
+        this.bucketName = bucketName;
+    }
+
+    @Override
+    public DocumentStatusRecord get(final String identifier) {
+        return toRecord(getTags(identifier));
+    }
+
+    // S3 has no batch read of tags, the tags of each document are read in turn
+    // a document that does not exist has no status, as it has no item in the other stores
+    @Override
+    public Map<String, DocumentStatusRecord> getAll(final Collection<String> identifiers) {
+        Map<String, DocumentStatusRecord> result = new HashMap<>();
+        for (String identifier : identifiers) {
+            try {
+                final DocumentStatusRecord record = get(identifier);
+                if (record != null)
+                    result.put(identifier, record);
+            } catch (AmazonS3Exception s3X) {
+                if (s3X.getStatusCode() != HttpStatus.SC_NOT_FOUND)
+                    throw s3X;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void put(final String identifier, final DocumentExtractStatus status, final String jobId) {
+        setTags(identifier, getTags(identifier), status, jobId);
+    }
+
+    @Override
+    public boolean compareAndSet(
+            final String identifier,
+            final Set<DocumentExtractStatus> expected,
+            final DocumentExtractStatus status, final String jobId) {
+        final List<Tag> tags = getTags(identifier);
+        final DocumentStatusRecord current = toRecord(tags);
+        if (!expected.contains(current == null ? DocumentExtractStatus.New : current.getStatus()))
+            return false;
+        setTags(identifier, tags, status, jobId);
+        return true;
+    }
+
+    // the tags are set with the document, by the PUT that saves it
+    @Override
+    public boolean isRecordedWithDocument() {
+        return true;
+    }
+
+    private List<Tag> getTags(final String identifier) {
+        final GetObjectTaggingResult tagging = amazonS3.getObjectTagging(new GetObjectTaggingRequest(bucketName, identifier));
+        return tagging == null || tagging.getTagSet() == null ? Collections.emptyList() : tagging.getTagSet();
+    }
+
+    // replaces the status and job ID tags, keeping any other tags
+    private void setTags(final String identifier, final List<Tag> tags, final DocumentExtractStatus status, final String jobId) {
+        List<Tag> tagUpdates = tags.stream()
+                .filter(tag -> !HeaderTags.TAG_KEY_STATUS.equals(tag.getKey()))
+                .filter(tag -> !(jobId != null && HeaderTags.TAG_JOB_ID.equals(tag.getKey())))
+                .collect(Collectors.toCollection(ArrayList::new));
+        tagUpdates.add(new Tag(HeaderTags.TAG_KEY_STATUS, status.toString()));
+        if (jobId != null)
+            tagUpdates.add(new Tag(HeaderTags.TAG_JOB_ID, jobId));
+        amazonS3.setObjectTagging(new SetObjectTaggingRequest(bucketName, identifier, new ObjectTagging(tagUpdates)));
+    }
+
+    private static DocumentStatusRecord toRecord(final List<Tag> tags) {
+        String status = null;
+        String jobId = null;
+        for (Tag tag : tags) {
+            if (HeaderTags.TAG_KEY_STATUS.equals(tag.getKey()))
+                status = tag.getValue();
+            else if (HeaderTags.TAG_JOB_ID.equals(tag.getKey()))
+                jobId = tag.getValue();
+        }
+        return status == null ? null : new DocumentStatusRecord(DocumentExtractStatus.of(status), jobId);
+    }
+}
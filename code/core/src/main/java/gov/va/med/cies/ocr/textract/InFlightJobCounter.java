@@ -0,0 +1,24 @@
+package gov.va.med.cies.ocr.textract;
+
+/**
+ * Counts the Textract jobs that have been started and have not completed, against the concurrent
+ * asynchronous job quota of the account.
+ */
+public interface InFlightJobCounter {
+    /**
+     * Count a job that is about to be started.
+     * @param jobTag identifies the job in the completion notification
+     * @return false if the maximum number of jobs are already in flight, the job is not counted
+     */
+    boolean tryAcquire(String jobTag);
+
+    /**
+     * The job has completed, or was not started.
+     */
+    void release(String jobTag);
+
+    /**
+     * @return the number of jobs in flight
+     */
+    int count();
+}
@@ -0,0 +1,37 @@
+package gov.va.med.cies.ocr.textract;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Counts the jobs started by this instance only.
+ */
+public class InMemoryInFlightJobCounter implements InFlightJobCounter {
+    private final int maximumJobs;
+    private final Set<String> jobTags = new HashSet<>();
+
+    /**
+     * @param maximumJobs 0 or less is unlimited
+     */
+    public InMemoryInFlightJobCounter(final int maximumJobs) {
+        this.maximumJobs = maximumJobs;
+    }
+
+    @Override
+    public synchronized boolean tryAcquire(final String jobTag) {
+        if (maximumJobs > 0 && !jobTags.contains(jobTag) && jobTags.size() >= maximumJobs)
+            return false;
+        jobTags.add(jobTag);
+        return true;
+    }
+
+    @Override
+    public synchronized void release(final String jobTag) {
+        jobTags.remove(jobTag);
+    }
+
+    @Override
+    public synchronized int count() {
+        return jobTags.size();
+    }
+}
@@ -0,0 +1,41 @@
+package gov.va.med.cies.ocr.textract;
+
+import gov.va.med.cies.ocr.model.TextractSubmission;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * A retry queue that does not survive this instance.
+ */
+public class InMemorySubmissionRetryQueue implements SubmissionRetryQueue {
+    private final TreeSet<TextractSubmission> submissions = new TreeSet<>(Comparator
+            .comparingLong(TextractSubmission::getNotBefore)
+            .thenComparing(TextractSubmission::getClientRequestToken));
+
+    @Override
+    public synchronized void enqueue(final TextractSubmission submission) {
+        submissions.add(submission);
+    }
+
+    @Override
+    public synchronized List<TextractSubmission> due(final Instant now, final int maximum) {
+        return submissions.stream()
+                .filter(submission -> submission.getNotBefore() <= now.toEpochMilli())
+                .limit(maximum)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public synchronized void remove(final TextractSubmission submission) {
+        submissions.remove(submission);
+    }
+
+    public synchronized int size() {
+        return submissions.size();
+    }
+}
@@ -0,0 +1,74 @@
+package gov.va.med.cies.ocr.textract;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Counts the jobs started by all instances, as a marker object per job under a prefix of a bucket.
+ * The count and the marker write are not atomic so concurrent instances may exceed the maximum slightly,
+ * Textract rejects the excess jobs with LimitExceededException and the scheduler defers them.
+ * A marker older than the expiry is not counted, in case the completion notification of the job was lost.
+ */
+public class S3InFlightJobCounter implements InFlightJobCounter {
+    private final Logger logger = LoggerFactory.getLogger(S3InFlightJobCounter.class);
+
+    private final AmazonS3 amazonS3;
+    private final String bucketName;
+    private final String prefix;
+    private final int maximumJobs;
+    private final Duration expiry;
+
+    public S3InFlightJobCounter(
+            final AmazonS3 amazonS3,
+            final String bucketName, final String prefix,
+            final int maximumJobs, final Duration expiry) {
+        this.amazonS3 = amazonS3;
+        this.bucketName = bucketName;
+        this.prefix = prefix;
+        this.maximumJobs = maximumJobs;
+        this.expiry = expiry;
+    }
+
+    @Override
+    public boolean tryAcquire(final String jobTag) {
+        final int count = count();
+        if (count >= maximumJobs) {
+            logger.info("tryAcquire({}), {} jobs are in flight", jobTag, count);
+            return false;
+        }
+        amazonS3.putObject(bucketName, prefix + jobTag, "");
+        return true;
+    }
+
+    @Override
+    public void release(final String jobTag) {
+        amazonS3.deleteObject(bucketName, prefix + jobTag);
+    }
+
+    @Override
+    public int count() {
+        final Date oldest = new Date(System.currentTimeMillis() - expiry.toMillis());
+        ListObjectsV2Request listRequest = new ListObjectsV2Request()
+                .withBucketName(bucketName)
+                .withPrefix(prefix);
+
+        int result = 0;
+        ListObjectsV2Result listing;
+        do {
+            listing = amazonS3.listObjectsV2(listRequest);
+            for (S3ObjectSummary summary : listing.getObjectSummaries())
+                if (summary.getLastModified() == null || summary.getLastModified().after(oldest))
+                    ++result;
+            listRequest.setContinuationToken(listing.getNextContinuationToken());
+        } while (listing.isTruncated() && result < maximumJobs);
+
+        return result;
+    }
+}
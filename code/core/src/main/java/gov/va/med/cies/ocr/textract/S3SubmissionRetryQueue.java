@@ -0,0 +1,71 @@
+package gov.va.med.cies.ocr.textract;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import gov.va.med.cies.ocr.model.TextractSubmission;
+import org.apache.http.HttpStatus;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A retry queue of JSON objects under a prefix of a bucket.
+ * The key of an entry starts with its (zero padded) not before time, S3 lists keys in order so the due
+ * entries are always listed first.
+ */
+public class S3SubmissionRetryQueue implements SubmissionRetryQueue {
+    private static final int NOT_BEFORE_DIGITS = 13;
+
+    private final AmazonS3 amazonS3;
+    private final String bucketName;
+    private final String prefix;
+
+    public S3SubmissionRetryQueue(final AmazonS3 amazonS3, final String bucketName, final String prefix) {
+        this.amazonS3 = amazonS3;
+        this.bucketName = bucketName;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public void enqueue(final TextractSubmission submission) {
+        amazonS3.putObject(bucketName, createKey(submission), submission.toJson());
+    }
+
+    @Override
+    public List<TextractSubmission> due(final Instant now, final int maximum) {
+        ListObjectsV2Result listing = amazonS3.listObjectsV2(new ListObjectsV2Request()
+                .withBucketName(bucketName)
+                .withPrefix(prefix)
+                .withMaxKeys(maximum));
+
+        List<TextractSubmission> result = new ArrayList<>();
+        for (S3ObjectSummary summary : listing.getObjectSummaries()) {
+            final String notBefore = summary.getKey().substring(prefix.length(), prefix.length() + NOT_BEFORE_DIGITS);
+            if (Long.parseLong(notBefore) > now.toEpochMilli())
+                break;
+            try {
+                result.add(TextractSubmission.fromJson(amazonS3.getObjectAsString(bucketName, summary.getKey())));
+            } catch (AmazonS3Exception s3X) {
+                // another instance retried the submission since the listing
+                if (s3X.getStatusCode() != HttpStatus.SC_NOT_FOUND)
+                    throw s3X;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void remove(final TextractSubmission submission) {
+        amazonS3.deleteObject(bucketName, createKey(submission));
+    }
+
+    private String createKey(final TextractSubmission submission) {
+        return prefix
+                + String.format("%0" + NOT_BEFORE_DIGITS + "d", submission.getNotBefore())
+                + "-" + submission.getClientRequestToken() + ".json";
+    }
+}
@@ -0,0 +1,61 @@
+package gov.va.med.cies.ocr.textract;
+
+import gov.va.med.cies.ocr.model.TextractSubmission;
+
+/**
+ * The result of an attempt to start a Textract job.
+ */
+public class SubmissionOutcome {
+    public enum State {
+        // the job was started
+        SUBMITTED,
+        // the job was not started, the submission is in the retry queue
+        DEFERRED,
+        // the job was not started and will not be retried
+        ABANDONED
+    }
+
+    private final State state;
+    private final TextractSubmission submission;
+    private final String jobId;
+
+    private SubmissionOutcome(final State state, final TextractSubmission submission, final String jobId) {
+        this.state = state;
+        this.submission = submission;
+        this.jobId = jobId;
+    }
+
+    public static SubmissionOutcome submitted(final TextractSubmission submission, final String jobId) {
+        return new SubmissionOutcome(State.SUBMITTED, submission, jobId);
+    }
+
+    public static SubmissionOutcome deferred(final TextractSubmission submission) {
+        return new SubmissionOutcome(State.DEFERRED, submission, null);
+    }
+
+    public static SubmissionOutcome abandoned(final TextractSubmission submission) {
+        return new SubmissionOutcome(State.ABANDONED, submission, null);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public TextractSubmission getSubmission() {
+        return submission;
+    }
+
+    // the Textract job ID, null unless SUBMITTED
+    public String getJobId() {
+        return jobId;
+    }
+
+    @Override
+    public String toString() {
+        return "SubmissionOutcome{" +
+                "state=" + state +
+                ", jobTag='" + submission.getJobTag() + '\'' +
+                ", jobId='" + jobId + '\'' +
+                '}';
+    }
+}
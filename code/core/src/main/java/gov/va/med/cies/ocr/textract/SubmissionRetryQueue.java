@@ -0,0 +1,25 @@
+package gov.va.med.cies.ocr.textract;
+
+import gov.va.med.cies.ocr.model.TextractSubmission;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Holds the Textract submissions that were deferred until they are due to be retried.
+ * A submission is removed only after it has been retried, or deferred again as a new entry, so an instance
+ * that fails while retrying does not lose it.
+ */
+public interface SubmissionRetryQueue {
+    /**
+     * Add a submission, which is due at its not before time.
+     */
+    void enqueue(TextractSubmission submission);
+
+    /**
+     * @return at most maximum submissions that are due at the given time, the earliest first
+     */
+    List<TextractSubmission> due(Instant now, int maximum);
+
+    void remove(TextractSubmission submission);
+}
@@ -0,0 +1,132 @@
+package gov.va.med.cies.ocr.textract;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import software.amazon.awssdk.services.textract.model.Block;
+import software.amazon.awssdk.services.textract.model.BoundingBox;
+import software.amazon.awssdk.services.textract.model.Geometry;
+import software.amazon.awssdk.services.textract.model.Point;
+import software.amazon.awssdk.services.textract.model.Relationship;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes the blocks of a Textract result as JSON, one page of blocks at a time, so that the result is never
+ * held in memory all at once. The JSON has the same shape as a Textract GetDocument* response:
+ * {"JobId": "...", "Blocks": [{"BlockType": "LINE", "Id": "...", "Geometry": {...}, ...}, ...]}
+ * Closing the writer completes the JSON and closes the underlying stream.
+ */
+public class TextractBlockJsonWriter implements Closeable {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonGenerator generator;
+
+    public TextractBlockJsonWriter(final OutputStream outStream, final String jobId) throws IOException {
+        this.generator = JSON_FACTORY.createGenerator(outStream, JsonEncoding.UTF8);
+        generator.writeStartObject();
+        if (jobId != null)
+            generator.writeStringField("JobId", jobId);
+        generator.writeArrayFieldStart("Blocks");
+    }
+
+    /**
+     * Append the blocks to the result, in the order given.
+     */
+    public void write(final List<Block> blocks) throws IOException {
+        if (blocks == null)
+            return;
+        for (Block block : blocks)
+            writeBlock(block);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (generator.isClosed())
+            return;
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    private void writeBlock(final Block block) throws IOException {
+        generator.writeStartObject();
+        writeStringField("BlockType", block.blockTypeAsString());
+        writeStringField("Id", block.id());
+        writeNumberField("Page", block.page());
+        writeStringField("Text", block.text());
+        writeStringField("TextType", block.textTypeAsString());
+        writeNumberField("Confidence", block.confidence());
+        writeNumberField("RowIndex", block.rowIndex());
+        writeNumberField("ColumnIndex", block.columnIndex());
+        writeNumberField("RowSpan", block.rowSpan());
+        writeNumberField("ColumnSpan", block.columnSpan());
+        writeStringField("SelectionStatus", block.selectionStatusAsString());
+        if (block.hasEntityTypes())
+            writeStringArrayField("EntityTypes", block.entityTypesAsStrings());
+        if (block.geometry() != null)
+            writeGeometry(block.geometry());
+        if (block.hasRelationships()) {
+            generator.writeArrayFieldStart("Relationships");
+            for (Relationship relationship : block.relationships()) {
+                generator.writeStartObject();
+                writeStringField("Type", relationship.typeAsString());
+                if (relationship.hasIds())
+                    writeStringArrayField("Ids", relationship.ids());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeGeometry(final Geometry geometry) throws IOException {
+        generator.writeObjectFieldStart("Geometry");
+        final BoundingBox boundingBox = geometry.boundingBox();
+        if (boundingBox != null) {
+            generator.writeObjectFieldStart("BoundingBox");
+            writeNumberField("Width", boundingBox.width());
+            writeNumberField("Height", boundingBox.height());
+            writeNumberField("Left", boundingBox.left());
+            writeNumberField("Top", boundingBox.top());
+            generator.writeEndObject();
+        }
+        if (geometry.hasPolygon()) {
+            generator.writeArrayFieldStart("Polygon");
+            for (Point point : geometry.polygon()) {
+                generator.writeStartObject();
+                writeNumberField("X", point.x());
+                writeNumberField("Y", point.y());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    // absent (null) values are omitted, as they are in a Textract response
+    private void writeStringField(final String name, final String value) throws IOException {
+        if (value != null)
+            generator.writeStringField(name, value);
+    }
+
+    private void writeNumberField(final String name, final Integer value) throws IOException {
+        if (value != null)
+            generator.writeNumberField(name, value);
+    }
+
+    private void writeNumberField(final String name, final Float value) throws IOException {
+        if (value != null)
+            generator.writeNumberField(name, value);
+    }
+
+    private void writeStringArrayField(final String name, final List<String> values) throws IOException {
+        generator.writeArrayFieldStart(name);
+        for (String value : values)
+            generator.writeString(value);
+        generator.writeEndArray();
+    }
+}
@@ -0,0 +1,119 @@
+package gov.va.med.cies.ocr.textract;
+
+import software.amazon.awssdk.services.textract.TextractClient;
+import software.amazon.awssdk.services.textract.model.Block;
+import software.amazon.awssdk.services.textract.model.GetDocumentAnalysisRequest;
+import software.amazon.awssdk.services.textract.model.GetDocumentAnalysisResponse;
+import software.amazon.awssdk.services.textract.model.GetDocumentTextDetectionRequest;
+import software.amazon.awssdk.services.textract.model.GetDocumentTextDetectionResponse;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pages through the blocks of a Textract job result. The next page is requested while the current page is
+ * processed, so at most two pages of blocks are held in memory whatever the size of the document.
+ */
+public class TextractResultPager {
+    public static final int MAX_RESULTS = 1000;
+
+    // the requests are I/O bound, a thread is created for each concurrent prefetch and kept for reuse
+    private static final ExecutorService PREFETCH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "textract-result-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Gets one page of the result.
+     */
+    @FunctionalInterface
+    interface PageFetcher {
+        ResultPage fetch(String nextToken);
+    }
+
+    /**
+     * Processes one page of blocks, in the order that Textract returns them.
+     */
+    @FunctionalInterface
+    public interface PageConsumer<X extends Exception> {
+        void accept(List<Block> blocks) throws X;
+    }
+
+    static final class ResultPage {
+        private final List<Block> blocks;
+        private final String nextToken;
+
+        ResultPage(final List<Block> blocks, final String nextToken) {
+            this.blocks = blocks == null ? Collections.emptyList() : blocks;
+            this.nextToken = nextToken;
+        }
+    }
+
+    private final PageFetcher pageFetcher;
+
+    TextractResultPager(final PageFetcher pageFetcher) {
+        this.pageFetcher = pageFetcher;
+    }
+
+    public static TextractResultPager detection(final TextractClient textractClient, final String jobId) {
+        return new TextractResultPager(nextToken -> {
+            final GetDocumentTextDetectionResponse response = textractClient.getDocumentTextDetection(GetDocumentTextDetectionRequest.builder()
+                    .jobId(jobId)
+                    .maxResults(MAX_RESULTS)
+                    .nextToken(nextToken)
+                    .build());
+            return new ResultPage(response.blocks(), response.nextToken());
+        });
+    }
+
+    public static TextractResultPager analysis(final TextractClient textractClient, final String jobId) {
+        return new TextractResultPager(nextToken -> {
+            final GetDocumentAnalysisResponse response = textractClient.getDocumentAnalysis(GetDocumentAnalysisRequest.builder()
+                    .jobId(jobId)
+                    .maxResults(MAX_RESULTS)
+                    .nextToken(nextToken)
+                    .build());
+            return new ResultPage(response.blocks(), response.nextToken());
+        });
+    }
+
+    /**
+     * Pass every page of blocks to the consumer, requesting the next page before the consumer is called.
+     * An exception thrown by Textract (an SdkException) is rethrown as it was thrown.
+     */
+    public <X extends Exception> void forEachPage(final PageConsumer<X> consumer) throws X {
+        CompletableFuture<ResultPage> nextPage = fetch(null);
+        while (nextPage != null) {
+            final ResultPage page = await(nextPage);
+            nextPage = page.nextToken == null ? null : fetch(page.nextToken);
+            try {
+                consumer.accept(page.blocks);
+            } catch (Exception | Error x) {
+                if (nextPage != null)
+                    nextPage.cancel(true);
+                throw x;
+            }
+        }
+    }
+
+    private CompletableFuture<ResultPage> fetch(final String nextToken) {
+        return CompletableFuture.supplyAsync(() -> pageFetcher.fetch(nextToken), PREFETCH_EXECUTOR);
+    }
+
+    private static ResultPage await(final CompletableFuture<ResultPage> page) {
+        try {
+            return page.join();
+        } catch (CompletionException cX) {
+            if (cX.getCause() instanceof RuntimeException)
+                throw (RuntimeException) cX.getCause();
+            if (cX.getCause() instanceof Error)
+                throw (Error) cX.getCause();
+            throw cX;
+        }
+    }
+}
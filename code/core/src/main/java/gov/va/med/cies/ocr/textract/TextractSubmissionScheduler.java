@@ -0,0 +1,189 @@
+package gov.va.med.cies.ocr.textract;
+
+import com.amazonaws.SdkClientException;
+import gov.va.med.cies.ocr.exceptions.BaseServiceException;
+import gov.va.med.cies.ocr.model.TextractSubmission;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.textract.model.LimitExceededException;
+import software.amazon.awssdk.services.textract.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.textract.model.ThrottlingException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts Textract jobs within the Start* rate and the concurrent job quota. A submission that would exceed
+ * either, or that Textract rejects as throttled, is deferred to the retry queue with a jittered exponential
+ * backoff rather than being dropped. The queue is drained when jobs complete, freeing capacity, and periodically.
+ */
+public class TextractSubmissionScheduler {
+    // the longest time to wait for the rate limit before deferring a submission
+    public static final long MAXIMUM_RATE_WAIT_MILLIS = 1000L;
+
+    /**
+     * Starts the Textract job of a submission.
+     */
+    @FunctionalInterface
+    public interface Starter {
+        /**
+         * @return the Textract job ID
+         * @throws SdkException if Textract did not start the job
+         */
+        String start(TextractSubmission submission);
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(TextractSubmissionScheduler.class);
+
+    private final TokenBucket tokenBucket;
+    private final InFlightJobCounter inFlightJobCounter;
+    private final SubmissionRetryQueue retryQueue;
+    private final Starter starter;
+    private final int maximumAttempts;
+    private final Duration baseDelay;
+    private final Duration maximumDelay;
+    private final Clock clock;
+
+    /**
+     * @param maximumAttempts a submission is abandoned after this many attempts
+     * @param baseDelay the delay before the first retry, doubled for each following retry
+     * @param maximumDelay the longest delay before a retry
+     */
+    public TextractSubmissionScheduler(
+            final TokenBucket tokenBucket,
+            final InFlightJobCounter inFlightJobCounter,
+            final SubmissionRetryQueue retryQueue,
+            final Starter starter,
+            final int maximumAttempts, final Duration baseDelay, final Duration maximumDelay) {
+        this(tokenBucket, inFlightJobCounter, retryQueue, starter, maximumAttempts, baseDelay, maximumDelay, Clock.systemUTC());
+    }
+
+    TextractSubmissionScheduler(
+            final TokenBucket tokenBucket,
+            final InFlightJobCounter inFlightJobCounter,
+            final SubmissionRetryQueue retryQueue,
+            final Starter starter,
+            final int maximumAttempts, final Duration baseDelay, final Duration maximumDelay,
+            final Clock clock) {
+        this.tokenBucket = tokenBucket;
+        this.inFlightJobCounter = inFlightJobCounter;
+        this.retryQueue = retryQueue;
+        this.starter = starter;
+        this.maximumAttempts = Math.max(1, maximumAttempts);
+        this.baseDelay = baseDelay;
+        this.maximumDelay = maximumDelay;
+        this.clock = clock;
+    }
+
+    /**
+     * Start the Textract job of the submission if there is capacity, else defer it.
+     * @throws BaseServiceException if Textract rejected the submission for any reason other than capacity
+     */
+    public SubmissionOutcome submit(final TextractSubmission submission) throws BaseServiceException {
+        final String jobTag = submission.getJobTag();
+        try {
+            if (!inFlightJobCounter.tryAcquire(jobTag))
+                return defer(submission, "the concurrent job quota is in use");
+
+            boolean started = false;
+            try {
+                if (!tokenBucket.tryAcquire(MAXIMUM_RATE_WAIT_MILLIS, TimeUnit.MILLISECONDS))
+                    return defer(submission, "the start rate is exceeded");
+
+                final String jobId = starter.start(submission);
+                started = true;
+                logger.debug("submit({}), started job [{}]", submission, jobId);
+                return SubmissionOutcome.submitted(submission, jobId);
+            } catch (ProvisionedThroughputExceededException | ThrottlingException | LimitExceededException capacityX) {
+                return defer(submission, capacityX.getMessage());
+            } catch (InterruptedException iX) {
+                Thread.currentThread().interrupt();
+                return defer(submission, "interrupted");
+            } finally {
+                if (!started)
+                    inFlightJobCounter.release(jobTag);
+            }
+        } catch (SdkException sdkX) {
+            throw new BaseServiceException("Failed to submit document for text extraction", sdkX);
+        } catch (SdkClientException sdkcX) {
+            throw new BaseServiceException("Failed to schedule document for text extraction", sdkcX);
+        }
+    }
+
+    /**
+     * Retry the submissions that are due, until one of them is deferred again.
+     * A submission that Textract rejects is abandoned.
+     * @param maximum the most submissions to retry
+     * @return the outcome of each submission that was retried
+     */
+    public List<SubmissionOutcome> drain(final int maximum) throws BaseServiceException {
+        final List<TextractSubmission> due;
+        try {
+            due = retryQueue.due(clock.instant(), maximum);
+        } catch (SdkClientException sdkcX) {
+            throw new BaseServiceException("Failed to read the submission retry queue", sdkcX);
+        }
+
+        List<SubmissionOutcome> result = new ArrayList<>(due.size());
+        for (TextractSubmission submission : due) {
+            SubmissionOutcome outcome;
+            try {
+                outcome = submit(submission);
+            } catch (BaseServiceException bsX) {
+                logger.warn("drain(), abandoning {}", submission, bsX);
+                outcome = SubmissionOutcome.abandoned(submission);
+            }
+            try {
+                retryQueue.remove(submission);
+            } catch (SdkClientException sdkcX) {
+                throw new BaseServiceException("Failed to update the submission retry queue", sdkcX);
+            }
+            result.add(outcome);
+
+            // there is no more capacity for now
+            if (outcome.getState() == SubmissionOutcome.State.DEFERRED)
+                break;
+        }
+        return result;
+    }
+
+    /**
+     * The job has completed, its capacity is available to another submission.
+     */
+    public void release(final String jobTag) throws BaseServiceException {
+        try {
+            inFlightJobCounter.release(jobTag);
+        } catch (SdkClientException sdkcX) {
+            throw new BaseServiceException("Failed to release job [" + jobTag + "]", sdkcX);
+        }
+    }
+
+    private SubmissionOutcome defer(final TextractSubmission submission, final String reason) {
+        if (submission.getAttempt() + 1 >= maximumAttempts) {
+            logger.warn("defer({}), abandoned after {} attempts, {}", submission, submission.getAttempt() + 1, reason);
+            return SubmissionOutcome.abandoned(submission);
+        }
+
+        final TextractSubmission retry = submission.retry(clock.instant().plus(backoff(submission.getAttempt())));
+        retryQueue.enqueue(retry);
+        logger.info("defer({}), retry at {}, {}", submission, Instant.ofEpochMilli(retry.getNotBefore()), reason);
+        return SubmissionOutcome.deferred(retry);
+    }
+
+    /**
+     * The delay before the next attempt, half of the exponential delay plus a random part of the other half
+     * so that the submissions deferred by a burst are not all retried at once.
+     */
+    Duration backoff(final int attempt) {
+        final long ceiling = Math.min(
+                maximumDelay.toMillis(),
+                baseDelay.toMillis() * (1L << Math.min(attempt, 20)));
+        return Duration.ofMillis(ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1));
+    }
+}
@@ -0,0 +1,73 @@
+package gov.va.med.cies.ocr.textract;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the rate of calls to a service, permits are added at a fixed rate up to the capacity of the bucket.
+ * The limit applies to this instance only, every Lambda instance has its own bucket.
+ */
+public class TokenBucket {
+    private final double permitsPerNanosecond;
+    private final double capacity;
+    private final LongSupplier nanoClock;
+
+    private double permits;
+    private long lastRefill;
+
+    /**
+     * @param permitsPerSecond the sustained rate, 0 or less is unlimited
+     * @param capacity the maximum burst, the bucket starts full
+     */
+    public TokenBucket(final double permitsPerSecond, final int capacity) {
+        this(permitsPerSecond, capacity, System::nanoTime);
+    }
+
+    TokenBucket(final double permitsPerSecond, final int capacity, final LongSupplier nanoClock) {
+        this.permitsPerNanosecond = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, capacity);
+        this.nanoClock = nanoClock;
+        this.permits = this.capacity;
+        this.lastRefill = nanoClock.getAsLong();
+    }
+
+    /**
+     * Take a permit if one is available now.
+     */
+    public synchronized boolean tryAcquire() {
+        if (permitsPerNanosecond <= 0.0)
+            return true;
+
+        refill();
+        if (permits >= 1.0) {
+            permits -= 1.0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Take a permit, waiting up to the given time for one to become available.
+     * @return false if no permit would be available within the time
+     */
+    public boolean tryAcquire(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = nanoClock.getAsLong() + unit.toNanos(timeout);
+        while (true) {
+            final long waitNanos;
+            synchronized (this) {
+                if (tryAcquire())
+                    return true;
+                waitNanos = (long) Math.ceil((1.0 - permits) / permitsPerNanosecond);
+            }
+            if (nanoClock.getAsLong() + waitNanos > deadline)
+                return false;
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private void refill() {
+        final long now = nanoClock.getAsLong();
+        permits = Math.min(capacity, permits + (now - lastRefill) * permitsPerNanosecond);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,222 @@
+package gov.va.med.cies.ocr.timeline;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * When each stage of the extraction of a document was reached, as milliseconds since the epoch.
+ * A stage that was not reached (e.g. TEXTRACT_SUBMITTED of a document whose PDF text was used) has no time.
+ * The timeline is reported as compact JSON, each stage keyed by a single letter
+ * e.g. {"i":"655321","u":1700000000000,"e":1700000000850,"r":1700000001200}.
+ * The stages are recorded by different Lambdas, on different hosts, a latency is never less than zero.
+ *
+ * The timeline is not stored as a single object, which each Lambda would have to read and write again (losing
+ * the stages that another recorded in between). Each transition is an empty object in the destination bucket
+ * whose key is the stages reached at that transition, under the upload of the document:
+ * timeline/{upload hour}/{identifier}/{upload time}/{stage key}{time}[.{stage key}{time} ...]
+ * e.g. timeline/2023-11-14T22/655321/1700000000000/e1700000000850.r1700000001200
+ * A document uploaded again has a new upload time, and so starts a new timeline. The timelines of the documents
+ * uploaded within a window are listed hour by hour, without reading any object.
+ */
+public class DocumentTimeline {
+    public static final String KEY_PREFIX = "timeline/";
+
+    private static final String KEY_IDENTIFIER = "i";
+    private static final String EVENT_SEPARATOR = ".";
+    private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH").withZone(ZoneOffset.UTC);
+
+    public enum Stage {
+        // the document was written to the source bucket, its last modified time
+        UPLOAD_RECEIVED("u"),
+        // the PDF text, or the text of an identical document, was evaluated as a substitute for OCR
+        SHORTCUT_EVALUATED("e"),
+        // the document (or all its chunks) was submitted to Textract
+        TEXTRACT_SUBMITTED("s"),
+        // the (last) Textract completion notification was received
+        NOTIFICATION_RECEIVED("n"),
+        // the text of the document was stored in the destination bucket
+        RESULTS_STORED("r");
+
+        private final String key;
+
+        Stage(final String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private final String identifier;
+    private final Map<Stage, Long> timestamps;
+
+    public DocumentTimeline(final String identifier, final Map<Stage, Long> timestamps) {
+        this.identifier = identifier;
+        this.timestamps = timestamps.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new EnumMap<>(timestamps));
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * @return the time of each stage that was reached, in stage order
+     */
+    public Map<Stage, Long> getTimestamps() {
+        return timestamps;
+    }
+
+    /**
+     * @return the time the stage was reached, or null if it was not reached
+     */
+    public Instant getTimestamp(final Stage stage) {
+        final Long timestamp = timestamps.get(stage);
+        return timestamp == null ? null : Instant.ofEpochMilli(timestamp);
+    }
+
+    /**
+     * @return a timeline with the given stages (re)recorded
+     */
+    public DocumentTimeline with(final Map<Stage, Instant> stages) {
+        final Map<Stage, Long> result = new EnumMap<>(Stage.class);
+        result.putAll(timestamps);
+        stages.forEach((stage, instant) -> result.put(stage, instant.toEpochMilli()));
+        return new DocumentTimeline(identifier, result);
+    }
+
+    /**
+     * @return for each stage that was reached after the first, the milliseconds since the previous stage that was reached
+     */
+    public Map<Stage, Long> getStageLatencies() {
+        final Map<Stage, Long> result = new EnumMap<>(Stage.class);
+        Long previous = null;
+        for (Map.Entry<Stage, Long> entry : timestamps.entrySet()) {
+            if (previous != null)
+                result.put(entry.getKey(), Math.max(0L, entry.getValue() - previous));
+            previous = entry.getValue();
+        }
+        return result;
+    }
+
+    /**
+     * @return the milliseconds from upload to stored results, or null if either was not recorded
+     */
+    public Long getTotalLatency() {
+        final Long uploaded = timestamps.get(Stage.UPLOAD_RECEIVED);
+        final Long stored = timestamps.get(Stage.RESULTS_STORED);
+        return uploaded == null || stored == null ? null : Math.max(0L, stored - uploaded);
+    }
+
+    public String toJson() {
+        JSONObject result = new JSONObject();
+        result.put(KEY_IDENTIFIER, identifier);
+        timestamps.forEach((stage, timestamp) -> result.put(stage.getKey(), timestamp.longValue()));
+        return result.toString();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the JSON is not a timeline
+     */
+    public static DocumentTimeline fromJson(final String json) {
+        try {
+            final JSONObject root = new JSONObject(json);
+            final Map<Stage, Long> timestamps = new EnumMap<>(Stage.class);
+            for (Stage stage : Stage.values())
+                if (root.has(stage.getKey()))
+                    timestamps.put(stage, root.getLong(stage.getKey()));
+            return new DocumentTimeline(root.getString(KEY_IDENTIFIER), timestamps);
+        } catch (JSONException jX) {
+            throw new IllegalArgumentException("Invalid document timeline, " + jX.getMessage(), jX);
+        }
+    }
+
+    /**
+     * @return the prefix of the transitions of the documents uploaded within the hour of the given time
+     */
+    public static String createHourPrefix(final Instant time) {
+        return KEY_PREFIX + HOUR_FORMAT.format(time) + "/";
+    }
+
+    /**
+     * @return the prefix of the transitions of the document as uploaded at the given time
+     */
+    public static String createTimelinePrefix(final String identifier, final Instant uploadReceived) {
+        return createHourPrefix(uploadReceived) + identifier + "/" + uploadReceived.toEpochMilli() + "/";
+    }
+
+    /**
+     * @return the key of the transition at which the stages were reached, the stages must not be empty
+     */
+    public static String createTransitionKey(final String identifier, final Instant uploadReceived, final Map<Stage, Instant> stages) {
+        final StringBuilder result = new StringBuilder(createTimelinePrefix(identifier, uploadReceived));
+        stages.forEach((stage, instant) -> {
+            if (result.charAt(result.length() - 1) != '/')
+                result.append(EVENT_SEPARATOR);
+            result.append(stage.getKey()).append(instant.toEpochMilli());
+        });
+        return result.toString();
+    }
+
+    /**
+     * Assemble the timelines of the transition keys, e.g. a listing of createHourPrefix() or createTimelinePrefix().
+     * A stage that was recorded more than once has its latest time. A key that is not a transition is ignored.
+     * @return a timeline for each upload of a document, in the order of the keys
+     */
+    public static List<DocumentTimeline> fromTransitionKeys(final Collection<String> keys) {
+        // keyed by the timeline prefix
+        final Map<String, DocumentTimeline> timelines = new LinkedHashMap<>();
+        for (String key : keys) {
+            final int stagesStart = key.lastIndexOf('/') + 1;
+            final int uploadStart = key.lastIndexOf('/', stagesStart - 2) + 1;
+            final int identifierStart = key.indexOf('/', KEY_PREFIX.length()) + 1;
+            if (!key.startsWith(KEY_PREFIX) || identifierStart == 0 || uploadStart <= identifierStart)
+                continue;
+            try {
+                final Map<Stage, Long> timestamps = new EnumMap<>(Stage.class);
+                timestamps.put(Stage.UPLOAD_RECEIVED, Long.parseLong(key.substring(uploadStart, stagesStart - 1)));
+                for (String event : key.substring(stagesStart).split("\\" + EVENT_SEPARATOR)) {
+                    final Stage stage = stageOf(event.isEmpty() ? "" : event.substring(0, 1));
+                    if (stage != null)
+                        timestamps.merge(stage, Long.parseLong(event.substring(1)), Math::max);
+                }
+                final String prefix = key.substring(0, stagesStart);
+                final DocumentTimeline recorded = timelines.get(prefix);
+                if (recorded != null)
+                    recorded.timestamps.forEach((stage, timestamp) -> timestamps.merge(stage, timestamp, Math::max));
+                timelines.put(prefix, new DocumentTimeline(key.substring(identifierStart, uploadStart - 1), timestamps));
+            } catch (NumberFormatException nfX) {
+                // not a transition
+            }
+        }
+        return new ArrayList<>(timelines.values());
+    }
+
+    private static Stage stageOf(final String key) {
+        for (Stage stage : Stage.values())
+            if (stage.getKey().equals(key))
+                return stage;
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "DocumentTimeline{" +
+                "identifier='" + identifier + '\'' +
+                ", timestamps=" + timestamps +
+                '}';
+    }
+}
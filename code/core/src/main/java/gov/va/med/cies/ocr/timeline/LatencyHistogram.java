@@ -0,0 +1,72 @@
+package gov.va.med.cies.ocr.timeline;
+
+/**
+ * Counts latencies (milliseconds) in buckets that grow exponentially, four buckets for each doubling, so that
+ * a percentile is within about 19% of the recorded latency whether it is 10 milliseconds or 10 hours, and
+ * the histogram is the same small size however many latencies are recorded.
+ * A percentile is reported as the upper bound of its bucket, and never more than the maximum recorded.
+ * Not thread safe.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS_PER_DOUBLING = 4;
+    // 2^27 milliseconds is more than a day and a half, longer latencies are counted in the last bucket
+    private static final int BUCKET_COUNT = 27 * BUCKETS_PER_DOUBLING + 1;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long count = 0;
+    private long maximum = 0;
+
+    public void record(final long latency) {
+        final long effectiveLatency = Math.max(0L, latency);
+        ++counts[bucketOf(effectiveLatency)];
+        ++count;
+        maximum = Math.max(maximum, effectiveLatency);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMaximum() {
+        return maximum;
+    }
+
+    /**
+     * @param percentile e.g. 99.0
+     * @return the latency that the given percentage of the recorded latencies do not exceed, 0 if there are none
+     */
+    public long getPercentile(final double percentile) {
+        if (count == 0)
+            return 0L;
+        final long rank = Math.max(1L, (long) Math.ceil(count * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+        long cumulative = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; ++bucket) {
+            cumulative += counts[bucket];
+            if (cumulative >= rank)
+                return Math.min(maximum, upperBoundOf(bucket));
+        }
+        return maximum;
+    }
+
+    private static int bucketOf(final long latency) {
+        if (latency <= 1)
+            return 0;
+        final int bucket = (int) Math.ceil(BUCKETS_PER_DOUBLING * Math.log(latency) / Math.log(2));
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    private static long upperBoundOf(final int bucket) {
+        return (long) Math.floor(Math.pow(2.0, (double) bucket / BUCKETS_PER_DOUBLING));
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram{" +
+                "count=" + count +
+                ", p50=" + getPercentile(50.0) +
+                ", p90=" + getPercentile(90.0) +
+                ", p99=" + getPercentile(99.0) +
+                ", maximum=" + maximum +
+                '}';
+    }
+}
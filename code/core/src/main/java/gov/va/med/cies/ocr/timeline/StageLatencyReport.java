@@ -0,0 +1,98 @@
+package gov.va.med.cies.ocr.timeline;
+
+import org.json.JSONObject;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The latency of each stage of the extraction pipeline over the documents whose timelines were recorded
+ * within a window e.g. the last 24 hours. The latency of a stage is the time since the previous stage that the
+ * document reached, TOTAL is the time from upload to stored results.
+ */
+public class StageLatencyReport {
+    public static final String TOTAL = "TOTAL";
+
+    private static final String KEY_DOCUMENTS = "documents";
+    private static final String KEY_WINDOW_SECONDS = "windowSeconds";
+    private static final String KEY_STAGES = "stages";
+    private static final String KEY_COUNT = "count";
+    private static final String KEY_P50 = "p50";
+    private static final String KEY_P90 = "p90";
+    private static final String KEY_P99 = "p99";
+    private static final String KEY_MAXIMUM = "max";
+
+    private final int documents;
+    private final Duration window;
+    private final Map<String, LatencyHistogram> histograms;
+
+    private StageLatencyReport(final int documents, final Duration window, final Map<String, LatencyHistogram> histograms) {
+        this.documents = documents;
+        this.window = window;
+        this.histograms = Collections.unmodifiableMap(histograms);
+    }
+
+    public static StageLatencyReport of(final Collection<DocumentTimeline> timelines, final Duration window) {
+        final Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+        for (DocumentTimeline.Stage stage : DocumentTimeline.Stage.values())
+            histograms.put(stage.name(), new LatencyHistogram());
+        histograms.put(TOTAL, new LatencyHistogram());
+
+        for (DocumentTimeline timeline : timelines) {
+            timeline.getStageLatencies().forEach((stage, latency) -> histograms.get(stage.name()).record(latency));
+            final Long total = timeline.getTotalLatency();
+            if (total != null)
+                histograms.get(TOTAL).record(total);
+        }
+        // the first stage has no latency of its own
+        histograms.values().removeIf(histogram -> histogram.getCount() == 0);
+
+        return new StageLatencyReport(timelines.size(), window, histograms);
+    }
+
+    public int getDocuments() {
+        return documents;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    /**
+     * @return the histogram of each stage that was reached, keyed by stage name, and TOTAL
+     */
+    public Map<String, LatencyHistogram> getHistograms() {
+        return histograms;
+    }
+
+    public String toJson() {
+        JSONObject stagesJson = new JSONObject();
+        histograms.forEach((stage, histogram) -> {
+            JSONObject histogramJson = new JSONObject();
+            histogramJson.put(KEY_COUNT, histogram.getCount());
+            histogramJson.put(KEY_P50, histogram.getPercentile(50.0));
+            histogramJson.put(KEY_P90, histogram.getPercentile(90.0));
+            histogramJson.put(KEY_P99, histogram.getPercentile(99.0));
+            histogramJson.put(KEY_MAXIMUM, histogram.getMaximum());
+            stagesJson.put(stage, histogramJson);
+        });
+
+        JSONObject result = new JSONObject();
+        result.put(KEY_DOCUMENTS, documents);
+        result.put(KEY_WINDOW_SECONDS, window.getSeconds());
+        result.put(KEY_STAGES, stagesJson);
+        return result.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "StageLatencyReport{" +
+                "documents=" + documents +
+                ", window=" + window +
+                ", histograms=" + histograms +
+                '}';
+    }
+}
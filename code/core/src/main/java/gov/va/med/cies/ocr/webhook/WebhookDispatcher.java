@@ -0,0 +1,224 @@
+package gov.va.med.cies.ocr.webhook;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * POSTs webhook notifications to their callback URLs.
+ * A batch of notifications is delivered concurrently, by no more than maximumConcurrency threads.
+ * A notification that fails with a connection error, a timeout, a 408, 429 or a 5xx response is retried
+ * after retryBaseDelay, doubling for each attempt, up to maximumAttempts. Any other response is final.
+ * A batch is delivered within deliveryDeadline, whatever the number of notifications and attempts: a request waits
+ * no longer than the time that remains, a retry that would start after the deadline is not made and the requests
+ * still in flight at the deadline are abandoned. The deadline bounds the time that a completion handler spends
+ * on notifications, however slow or unreachable the receivers are.
+ * Delivery is best-effort: the completions waiting to be notified are held in memory by the Lambda that
+ * completed them, a notification is lost if the invocation fails or its container is recycled before delivery,
+ * and a receiver may be sent the same notification more than once. Receivers that must not miss a completion
+ * should also poll the document status.
+ */
+public class WebhookDispatcher {
+    public static final String CONTENT_TYPE = "application/json";
+    public static final String DOCUMENT_ID_HEADER = "ocr-document-id";
+
+    private final Logger logger = LoggerFactory.getLogger(WebhookDispatcher.class);
+
+    private final HttpClient httpClient;
+    private final int maximumConcurrency;
+    private final int maximumAttempts;
+    private final Duration retryBaseDelay;
+    private final Duration requestTimeout;
+    private final Duration deliveryDeadline;
+
+    public WebhookDispatcher(
+            final int maximumConcurrency, final int maximumAttempts,
+            final Duration retryBaseDelay, final Duration requestTimeout,
+            final Duration deliveryDeadline) {
+        this(
+                HttpClient.newBuilder()
+                        .connectTimeout(requestTimeout)
+                        .followRedirects(HttpClient.Redirect.NEVER)
+                        .build(),
+                maximumConcurrency, maximumAttempts, retryBaseDelay, requestTimeout, deliveryDeadline);
+    }
+
+    /**
+     * @param httpClient the client used for all the requests
+     * @param maximumConcurrency the most notifications delivered at the same time
+     * @param maximumAttempts the most times a notification is sent
+     * @param retryBaseDelay the delay before the first retry
+     * @param requestTimeout the longest time to wait for a response to each request
+     * @param deliveryDeadline the longest time to deliver a batch (or a single notification), including the retries
+     */
+    public WebhookDispatcher(
+            final HttpClient httpClient,
+            final int maximumConcurrency, final int maximumAttempts,
+            final Duration retryBaseDelay, final Duration requestTimeout,
+            final Duration deliveryDeadline) {
+        this.httpClient = httpClient;
+        this.maximumConcurrency = Math.max(1, maximumConcurrency);
+        this.maximumAttempts = Math.max(1, maximumAttempts);
+        this.retryBaseDelay = retryBaseDelay;
+        this.requestTimeout = requestTimeout;
+        this.deliveryDeadline = deliveryDeadline;
+    }
+
+    /**
+     * The callback URLs that are accepted are absolute https URLs to one of the allowed hosts, an allowed host
+     * that starts with a '.' (e.g. ".example.com") allows any host within that domain.
+     * @param allowedHosts the hosts that notifications may be sent to, none are allowed if empty
+     * @return true if the URL is an accepted callback URL
+     */
+    public static boolean isValidCallbackUrl(final String callbackUrl, final Set<String> allowedHosts) {
+        if (callbackUrl == null || allowedHosts == null || allowedHosts.isEmpty())
+            return false;
+        try {
+            final URI uri = new URI(callbackUrl);
+            if (!"https".equalsIgnoreCase(uri.getScheme()) || uri.getHost() == null || uri.getUserInfo() != null)
+                return false;
+            final String host = uri.getHost().toLowerCase(Locale.ROOT);
+            for (String allowedHost : allowedHosts) {
+                final String allowed = allowedHost.toLowerCase(Locale.ROOT);
+                if (allowed.startsWith(".") ? host.endsWith(allowed) : host.equals(allowed))
+                    return true;
+            }
+            return false;
+        } catch (URISyntaxException usX) {
+            return false;
+        }
+    }
+
+    /**
+     * Deliver a batch of notifications, returning when every notification has been delivered or has failed,
+     * or at the delivery deadline.
+     * @return the number of notifications that were delivered
+     */
+    public int deliver(final List<WebhookNotification> notifications) {
+        if (notifications.isEmpty())
+            return 0;
+
+        final long deadline = System.nanoTime() + deliveryDeadline.toNanos();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(notifications.size(), maximumConcurrency));
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>(notifications.size());
+            for (WebhookNotification notification : notifications)
+                futures.add(executor.submit(() -> deliver(notification, deadline)));
+
+            int result = 0;
+            int abandoned = 0;
+            for (Future<Boolean> future : futures) {
+                try {
+                    if (future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS))
+                        ++result;
+                } catch (TimeoutException tX) {
+                    ++abandoned;
+                }
+            }
+            if (abandoned > 0)
+                logger.warn("deliver(), {} notifications abandoned at the delivery deadline of {}", abandoned, deliveryDeadline);
+            logger.info("deliver(), {} of {} notifications delivered", result, notifications.size());
+            return result;
+        } catch (ExecutionException eX) {
+            // deliver(WebhookNotification, long) does not throw
+            throw new IllegalStateException("Failed to deliver webhook notifications", eX.getCause());
+        } catch (InterruptedException iX) {
+            Thread.currentThread().interrupt();
+            logger.warn("deliver(), interrupted, notifications may not have been delivered");
+            return 0;
+        } finally {
+            // interrupts the requests that are still in flight
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Deliver a single notification, retrying as needed within the delivery deadline.
+     * @return true if the receiver accepted the notification
+     */
+    public boolean deliver(final WebhookNotification notification) {
+        return deliver(notification, System.nanoTime() + deliveryDeadline.toNanos());
+    }
+
+    // deadline is in System.nanoTime() terms
+    private boolean deliver(final WebhookNotification notification, final long deadline) {
+        final HttpRequest.Builder requestBuilder;
+        try {
+            requestBuilder = HttpRequest.newBuilder(new URI(notification.getCallbackUrl()))
+                    .header("Content-Type", CONTENT_TYPE)
+                    .header(DOCUMENT_ID_HEADER, notification.getIdentifier())
+                    .POST(HttpRequest.BodyPublishers.ofString(notification.toJson()));
+        } catch (URISyntaxException | IllegalArgumentException x) {
+            logger.warn("deliver({}), invalid callback URL", notification, x);
+            return false;
+        }
+
+        for (int attempt = 0; attempt < maximumAttempts; ++attempt) {
+            if (attempt > 0 && !pause(attempt, deadline)) {
+                logger.warn("deliver({}), not delivered before the delivery deadline, {} attempts", notification, attempt);
+                return false;
+            }
+            final long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0L) {
+                logger.warn("deliver({}), not delivered before the delivery deadline, {} attempts", notification, attempt);
+                return false;
+            }
+            final HttpRequest request = requestBuilder
+                    .timeout(Duration.ofNanos(Math.min(requestTimeout.toNanos(), remainingNanos)))
+                    .build();
+            try {
+                final HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                final int statusCode = response.statusCode();
+                if (statusCode >= 200 && statusCode < 300)
+                    return true;
+                if (!isRetryable(statusCode)) {
+                    logger.warn("deliver({}), rejected with [{}], not retried", notification, statusCode);
+                    return false;
+                }
+                logger.info("deliver({}), attempt {} failed with [{}]", notification, attempt + 1, statusCode);
+            } catch (IOException ioX) {
+                logger.info("deliver({}), attempt {} failed with [{}]", notification, attempt + 1, ioX.toString());
+            } catch (InterruptedException iX) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        logger.warn("deliver({}), not delivered after {} attempts", notification, maximumAttempts);
+        return false;
+    }
+
+    private static boolean isRetryable(final int statusCode) {
+        return statusCode == 408 || statusCode == 429 || statusCode >= 500;
+    }
+
+    // returns false if the retry would start after the deadline, or if interrupted
+    private boolean pause(final int attempt, final long deadline) {
+        final long delayMillis = retryBaseDelay.toMillis() << Math.min(attempt - 1, 16);
+        if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis) >= deadline)
+            return false;
+        try {
+            Thread.sleep(delayMillis);
+            return true;
+        } catch (InterruptedException iX) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
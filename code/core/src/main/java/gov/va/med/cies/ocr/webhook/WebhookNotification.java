@@ -0,0 +1,81 @@
+package gov.va.med.cies.ocr.webhook;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.va.med.cies.ocr.DocumentExtractStatus;
+
+/**
+ * The completion of a document, as sent to the callback URL registered when the document was saved.
+ * The body is JSON e.g. {"identifier":"655321","status":"SUCCEEDED","jobId":"...","text":"..."},
+ * the text is included only for small results, else it is retrieved from the text endpoint.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WebhookNotification {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String callbackUrl;
+    private final String identifier;
+    private final DocumentExtractStatus status;
+    private final String jobId;
+    private final String text;
+
+    public WebhookNotification(
+            final String callbackUrl,
+            final String identifier, final DocumentExtractStatus status, final String jobId,
+            final String text) {
+        this.callbackUrl = callbackUrl;
+        this.identifier = identifier;
+        this.status = status;
+        this.jobId = jobId;
+        this.text = text;
+    }
+
+    @JsonIgnore
+    public String getCallbackUrl() {
+        return callbackUrl;
+    }
+
+    @JsonProperty("identifier")
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    @JsonProperty("status")
+    public DocumentExtractStatus getStatus() {
+        return status;
+    }
+
+    @JsonProperty("jobId")
+    public String getJobId() {
+        return jobId;
+    }
+
+    // null if the text is too large to include
+    @JsonProperty("text")
+    public String getText() {
+        return text;
+    }
+
+    public String toJson() {
+        try {
+            return objectMapper.writeValueAsString(this);
+        } catch (JsonProcessingException jpX) {
+            // only simple values are serialized
+            throw new IllegalStateException("Failed to serialize webhook notification for [" + identifier + "]", jpX);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "WebhookNotification{" +
+                "callbackUrl='" + callbackUrl + '\'' +
+                ", identifier='" + identifier + '\'' +
+                ", status=" + status +
+                ", jobId='" + jobId + '\'' +
+                ", text=" + (text == null ? "null" : text.length() + " characters") +
+                '}';
+    }
+}
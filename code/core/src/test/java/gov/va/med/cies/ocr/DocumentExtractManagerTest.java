@@ -0,0 +1,884 @@
+package gov.va.med.cies.ocr;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.*;
+import com.amazonaws.services.s3.model.S3Object;
+import gov.va.med.cies.ocr.exceptions.AbstractApplicationException;
+import gov.va.med.cies.ocr.exceptions.InstanceValidationException;
+import gov.va.med.cies.ocr.io.S3CallRecorder;
+import gov.va.med.cies.ocr.model.CanonicalDocument;
+import gov.va.med.cies.ocr.model.CanonicalRequest;
+import gov.va.med.cies.ocr.model.CanonicalResponse;
+import gov.va.med.cies.ocr.model.ContentIndexEntry;
+import gov.va.med.cies.ocr.model.DocumentStatusQuery;
+import gov.va.med.cies.ocr.model.DocumentStatusQueryResult;
+import gov.va.med.cies.ocr.status.DocumentStatusStore;
+import gov.va.med.cies.ocr.status.InMemoryDocumentStatusStore;
+import gov.va.med.cies.ocr.timeline.DocumentTimeline;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import software.amazon.awssdk.services.textract.TextractAsyncClient;
+import software.amazon.awssdk.services.textract.TextractClient;
+import software.amazon.awssdk.services.textract.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.Mockito.doReturn;
+
+public class DocumentExtractManagerTest {
+    private final String SOURCE_BUCKET_NAME = "sourceBucket";
+    private final String DESTINATION_BUCKET_NAME = "destinationBucket";
+    private final String TEXTRACT_SERVICE_ROLE = "arn:aws:role:655321";
+    private final String STATUS_TOPIC_NAME = "notification";
+
+    private final Logger logger = LoggerFactory.getLogger(DocumentExtractManagerTest.class);
+
+    // the tags of the documents mocked by mockGetObjectMetadataAndGetObjectTagging
+    private final Map<String, List<Tag>> mockedTagSets = new HashMap<>();
+
+    @DataProvider(name = "PresignedURLDataProvider")
+    public Object[][] presignedUrlDataProvider() throws MalformedURLException {
+        return new Object[][]{
+                {"655321", new URL("https://localhost:443/success")}
+        };
+    }
+
+    @Test(dataProvider = "PresignedURLDataProvider")
+    public void testGeneratePresignedPostURL(final String identifier, final URL expected)
+            throws AbstractApplicationException {
+        DocumentExtractManager dxm = createTestSubject();
+        mockGeneratePresignedUrl(dxm, SOURCE_BUCKET_NAME, identifier, expected);
+        URL actual = dxm.generatePresignedPostURL(identifier);
+
+        Assert.assertNotNull(actual);
+        Mockito.verify(dxm.getAmazonS3())
+                .generatePresignedUrl(Mockito.eq(SOURCE_BUCKET_NAME), Mockito.eq(identifier), Mockito.any(Date.class));
+        Assert.assertEquals(actual, expected);
+    }
+
+    @DataProvider(name = "GetDocumentMetadataProvider")
+    public Object[][] getDocumentMetadataProvider() throws InstanceValidationException {
+        return new Object[][] {
+                {
+                    // mocking data
+                    createObjectMetadata(
+                            "655321", "filename001",
+                            "application/pdf", Integer.valueOf(123655),
+                            DocumentExtractStatus.New, "job001"),
+                    // the request to invoke
+                    CanonicalRequest.builder()
+                            .withMethod("HEAD")
+                            .withCanonicalDocument(CanonicalDocument.builder()
+                                    .withIdentifier("655321")
+                                    .build())
+                            .build(),
+                    // expected results
+                    "application/pdf", Integer.valueOf(123655), "filename001"
+                }
+        };
+    }
+
+    @Test(dataProvider = "GetDocumentMetadataProvider")
+    public void testGetDocumentMetadata(
+            final ObjectMetadata mockedObjectMetadata,
+            final CanonicalRequest request,
+            final String expectedContentType, final Integer expectedContentLength,
+            final String expectedFilename)
+    {
+        DocumentExtractManager dxm = createTestSubject();
+        final String identifier = request.getCanonicalDocument().getIdentifier();
+
+        // mock the S3 metadata and tagging response
+        mockGetObjectMetadataAndGetObjectTagging(dxm, mockedObjectMetadata);
+
+        // make the subject call
+        CanonicalResponse actualResponse = dxm.getDocumentMetadata(request);
+
+        // assert that the response is NOT null and that S3 was called to get the object metadata and tagging
+        Assert.assertNotNull(actualResponse);
+        Mockito.verify(dxm.getAmazonS3())
+                .getObjectMetadata(Mockito.eq(SOURCE_BUCKET_NAME), Mockito.eq(identifier));
+        Mockito.verify(dxm.getAmazonS3())
+                .getObjectMetadata(Mockito.eq(SOURCE_BUCKET_NAME), Mockito.eq(identifier));
+
+        Assert.assertEquals(actualResponse.getDocumentCount(), 1);
+        Assert.assertNotNull(actualResponse.getDocuments());
+        CanonicalDocument responseDocument = actualResponse.getDocuments().get(0);
+        Assert.assertNotNull(responseDocument);
+        Assert.assertEquals(responseDocument.getContentType(), expectedContentType);
+        Assert.assertEquals(responseDocument.getContentLength(), expectedContentLength);
+        Assert.assertEquals(responseDocument.getFilename(), expectedFilename);
+        // the metadata and the status tags
+        assertS3CallBudget(dxm, "getDocumentMetadata", 2);
+    }
+
+    // a document deleted (by another instance) after its metadata was read is not found, not a service error
+    @Test
+    public void testGetDocumentMetadataOfDeletedDocument() throws InstanceValidationException {
+        DocumentExtractManager dxm = createTestSubject();
+        mockGetObjectMetadataAndGetObjectTagging(dxm, createObjectMetadata(
+                "655321", "filename001",
+                "application/pdf", Integer.valueOf(123655),
+                DocumentExtractStatus.New, "job001"));
+        AmazonS3Exception notFound = new AmazonS3Exception("The specified key does not exist.");
+        notFound.setStatusCode(HttpStatus.SC_NOT_FOUND);
+        notFound.setErrorCode("NoSuchKey");
+        Mockito.doThrow(notFound)
+                .when(dxm.getAmazonS3())
+                .getObjectTagging(Mockito.any(GetObjectTaggingRequest.class));
+
+        CanonicalResponse actualResponse = dxm.getDocumentMetadata(CanonicalRequest.builder()
+                .withMethod("HEAD")
+                .withCanonicalDocument(CanonicalDocument.builder()
+                        .withIdentifier("655321")
+                        .build())
+                .build());
+
+        Assert.assertEquals(actualResponse.getResult(), HttpStatus.SC_NOT_FOUND);
+    }
+
+    // the status is read again until it is one that is waited for
+    @Test
+    public void testWaitForDocumentStatus() throws InstanceValidationException {
+        DocumentExtractManager dxm = createTestSubject();
+        mockGetObjectMetadataAndGetObjectTagging(dxm, createObjectMetadata(
+                "655321", "filename001",
+                "application/pdf", Integer.valueOf(123655),
+                DocumentExtractStatus.Submitted, "job001"));
+        doReturn(new GetObjectTaggingResult(Collections.singletonList(new Tag(HeaderTags.TAG_KEY_STATUS, "Submitted"))))
+                .doReturn(new GetObjectTaggingResult(Collections.singletonList(new Tag(HeaderTags.TAG_KEY_STATUS, "SUCCEEDED"))))
+                .when(dxm.getAmazonS3())
+                .getObjectTagging(Mockito.any(GetObjectTaggingRequest.class));
+
+        CanonicalResponse actualResponse = dxm.waitForDocumentStatus(
+                CanonicalRequest.builder()
+                        .withMethod("HEAD")
+                        .withCanonicalDocument(CanonicalDocument.builder().withIdentifier("655321").build())
+                        .build(),
+                EnumSet.of(DocumentExtractStatus.SUCCEEDED),
+                Duration.ofSeconds(10));
+
+        Assert.assertEquals(actualResponse.getDocumentCount(), 1);
+        Assert.assertEquals(actualResponse.getDocuments().get(0).getDocumentExtractStatus(), DocumentExtractStatus.SUCCEEDED);
+        Mockito.verify(dxm.getAmazonS3(), Mockito.times(2)).getObjectTagging(Mockito.any(GetObjectTaggingRequest.class));
+        // the immutable metadata is read once
+        Mockito.verify(dxm.getAmazonS3(), Mockito.times(1))
+                .getObjectMetadata(Mockito.eq(SOURCE_BUCKET_NAME), Mockito.eq("655321"));
+    }
+
+    // duplicate identifiers are read once, a document that does not exist is not found
+    @Test
+    public void testQueryDocumentStatus() throws AbstractApplicationException {
+        DocumentExtractManager dxm = createTestSubject();
+        mockGetObjectMetadataAndGetObjectTagging(dxm, createObjectMetadata(
+                "655321", "filename001",
+                "application/pdf", Integer.valueOf(123655),
+                DocumentExtractStatus.SUCCEEDED, "job001"));
+        AmazonS3Exception notFound = new AmazonS3Exception("Not Found");
+        notFound.setStatusCode(HttpStatus.SC_NOT_FOUND);
+        Mockito.doThrow(notFound)
+                .when(dxm.getAmazonS3())
+                .getObjectMetadata(Mockito.eq(SOURCE_BUCKET_NAME), Mockito.eq("655322"));
+
+        DocumentStatusQueryResult actual = dxm.queryDocumentStatus(
+                new DocumentStatusQuery(Arrays.asList("655321", "655322", "655321"), true));
+
+        Assert.assertEquals(actual.getDocuments().size(), 1);
+        CanonicalDocument document = actual.getDocuments().get("655321");
+        Assert.assertEquals(document.getDocumentExtractStatus(), DocumentExtractStatus.SUCCEEDED);
+        Assert.assertEquals(document.getJobId(), "job001");
+        Assert.assertEquals(document.getContentType(), "application/pdf");
+        Assert.assertEquals(actual.getNotFound(), Collections.singletonList("655322"));
+        Assert.assertTrue(actual.getFailed().isEmpty());
+        Mockito.verify(dxm.getAmazonS3(), Mockito.times(1))
+                .getObjectMetadata(Mockito.eq(SOURCE_BUCKET_NAME), Mockito.eq("655321"));
+    }
+
+    // the timeline is assembled from the keys of the transitions of the current upload, no object is read
+    @Test
+    public void testGetDocumentTimeline() throws AbstractApplicationException {
+        DocumentExtractManager dxm = createTestSubject();
+        final Instant uploaded = Instant.ofEpochMilli(1700000000000L);
+        for (String documentId : Arrays.asList("655321", "655322")) {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setLastModified(Date.from(uploaded));
+            Mockito.when(dxm.getAmazonS3().getObjectMetadata(SOURCE_BUCKET_NAME, documentId)).thenReturn(metadata);
+        }
+        final String transitionPrefix = DocumentTimeline.createTimelinePrefix("655321", uploaded);
+        Mockito.when(dxm.getAmazonS3().listObjectsV2(Mockito.any(ListObjectsV2Request.class))).thenAnswer(invocation -> {
+            ListObjectsV2Result listing = new ListObjectsV2Result();
+            if (transitionPrefix.equals(((ListObjectsV2Request) invocation.getArguments()[0]).getPrefix()))
+                for (String transition : Arrays.asList("e1700000000850.r1700000001200", "n1700000001100")) {
+                    S3ObjectSummary summary = new S3ObjectSummary();
+                    summary.setKey(transitionPrefix + transition);
+                    listing.getObjectSummaries().add(summary);
+                }
+            return listing;
+        });
+
+        DocumentTimeline actual = dxm.getDocumentTimeline("655321");
+
+        Assert.assertEquals(actual.getTotalLatency(), Long.valueOf(1200L));
+        Assert.assertEquals(actual.getTimestamp(DocumentTimeline.Stage.NOTIFICATION_RECEIVED), uploaded.plusMillis(1100));
+        Assert.assertNull(actual.getTimestamp(DocumentTimeline.Stage.TEXTRACT_SUBMITTED));
+        Assert.assertNull(dxm.getDocumentTimeline("655322"));
+        Mockito.verify(dxm.getAmazonS3(), Mockito.never()).getObjectAsString(Mockito.eq(DESTINATION_BUCKET_NAME), Mockito.anyString());
+    }
+
+    @DataProvider(name = "SaveDocumentToSourceBucketProvider")
+    public Object[][] saveDocumentToSourceBucketProvider() throws InstanceValidationException {
+        return new Object[][] {
+                {CanonicalRequest.builder()
+                        .withMethod("POST")
+                        .withCanonicalDocument(CanonicalDocument.builder()
+                                .withContentType("text/plain")
+                                .withContentLength(Integer.valueOf(17))
+                                .withBody("Document Body 001")
+                                .build())
+                        .build()
+                }
+        };
+    }
+
+    @Test(dataProvider = "SaveDocumentToSourceBucketProvider")
+    public void testSaveDocumentToSourceBucket(final CanonicalRequest canonicalRequest) {
+        DocumentExtractManager dxm = createTestSubject();
+        mockPutObject(dxm, canonicalRequest.getCanonicalDocument().getContentType(), canonicalRequest.getCanonicalDocument().getContentLength());
+
+        CanonicalResponse actualResponse = null;
+        try {
+            actualResponse = dxm.saveDocumentToSourceBucket(canonicalRequest);
+            Assert.assertNotNull(actualResponse);
+            Assert.assertEquals(actualResponse.getDocumentCount(), 1);
+            Assert.assertNotNull(actualResponse.getDocuments());
+            CanonicalDocument document = actualResponse.getDocuments().get(0);
+            Assert.assertNotNull(document);
+            Assert.assertFalse(document.hasBody());
+            Assert.assertNotNull(document.getContentLength());
+            Assert.assertTrue(document.getContentLength().intValue() > 0);
+            // the object is written with its tags, the content hash and the status
+            assertS3CallBudget(dxm, "saveDocumentToSourceBucket", 1);
+            ArgumentCaptor<PutObjectRequest> putRequest = ArgumentCaptor.forClass(PutObjectRequest.class);
+            Mockito.verify(dxm.getAmazonS3()).putObject(putRequest.capture());
+            Assert.assertEquals(putRequest.getValue().getTagging().getTagSet().size(), 2);
+            Assert.assertTrue(putRequest.getValue().getTagging().getTagSet().stream()
+                    .anyMatch(tag -> HeaderTags.TAG_KEY_STATUS.equals(tag.getKey()) && "New".equals(tag.getValue())));
+            Mockito.verify(dxm.getAmazonS3(), Mockito.never()).setObjectTagging(Mockito.any(SetObjectTaggingRequest.class));
+        } catch (AbstractApplicationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // the submission triggered by the PUT may have moved the status on before the save records New
+    @Test
+    public void testSaveDocumentDoesNotResetSubmittedStatus() throws AbstractApplicationException {
+        final InMemoryDocumentStatusStore statusStore = new InMemoryDocumentStatusStore();
+        DocumentExtractManager dxm = createTestSubject(statusStore);
+        final String documentId = UUID.randomUUID().toString();
+        Mockito.when(dxm.getAmazonS3().putObject(Mockito.any(PutObjectRequest.class))).thenAnswer(invocation -> {
+            statusStore.put(documentId, DocumentExtractStatus.Submitted, "job001");
+            return new PutObjectResult();
+        });
+
+        CanonicalResponse actualResponse = dxm.saveDocumentToSourceBucket(CanonicalRequest.builder()
+                .withMethod("PUT")
+                .withCanonicalDocument(CanonicalDocument.builder()
+                        .withIdentifier(documentId)
+                        .withContentType("text/plain")
+                        .withContentLength(Integer.valueOf(17))
+                        .withBody("Document Body 001")
+                        .build())
+                .build());
+
+        Assert.assertEquals(actualResponse.getResult(), HttpStatus.SC_OK);
+        Assert.assertEquals(statusStore.get(documentId).getStatus(), DocumentExtractStatus.Submitted);
+        Assert.assertEquals(statusStore.get(documentId).getJobId(), "job001");
+        // the status is not recorded in the tags of the document
+        ArgumentCaptor<PutObjectRequest> putRequest = ArgumentCaptor.forClass(PutObjectRequest.class);
+        Mockito.verify(dxm.getAmazonS3()).putObject(putRequest.capture());
+        Assert.assertEquals(putRequest.getValue().getTagging().getTagSet().size(), 1);
+        Assert.assertEquals(putRequest.getValue().getTagging().getTagSet().get(0).getKey(), HeaderTags.METADATA_KEY_CONTENT_SHA256);
+    }
+
+    @Test
+    public void testGetDocumentFromSourceBucket() throws AbstractApplicationException {
+        // Arrange
+        DocumentExtractManager dxm = createTestSubject();
+
+        final String documentId = UUID.randomUUID().toString();
+
+        CanonicalDocument canonicalDocument = CanonicalDocument.builder()
+                .withIdentifier(documentId)
+                .build();
+        CanonicalRequest canonicalRequest = CanonicalRequest.builder()
+                .withMethod("GET")
+                .withCanonicalDocument(canonicalDocument)
+                .build();
+
+        S3Object s3Object = Mockito.mock(S3Object.class);
+        ObjectMetadata objectMetadata = Mockito.mock(ObjectMetadata.class);
+        S3ObjectInputStream inputStream = new S3ObjectInputStream(
+                new ByteArrayInputStream("document content".getBytes()),
+                new HttpRequestBase(){
+                    @Override
+                    public String getMethod() {
+                        return "GET";
+                    }
+                }
+        );
+
+        Mockito.when(dxm.getAmazonS3().getObject(SOURCE_BUCKET_NAME, documentId)).thenReturn(s3Object);
+        Mockito.when(s3Object.getObjectContent()).thenReturn(inputStream);
+        Mockito.when(s3Object.getObjectMetadata()).thenReturn(objectMetadata);
+        Mockito.when(dxm.getAmazonS3().getObjectMetadata(SOURCE_BUCKET_NAME, documentId)).thenReturn(objectMetadata);
+        Mockito.when(objectMetadata.getContentType()).thenReturn("application/pdf");
+        Mockito.when(objectMetadata.getContentLength()).thenReturn(123L);
+        Mockito.when(objectMetadata.getUserMetaDataOf(HeaderTags.TAG_KEY_STATUS)).thenReturn("New");
+
+        // Act
+        CanonicalResponse response = dxm.getDocumentFromSourceBucket(canonicalRequest);
+
+        // Assert
+        Assert.assertNotNull(response);
+        Assert.assertEquals(response.getResult(), HttpStatus.SC_OK);
+        Assert.assertEquals(response.getDocumentCount(), 1);
+        CanonicalDocument responseDocument = response.getDocuments().get(0);
+        Assert.assertEquals(responseDocument.getIdentifier(), documentId);
+        Assert.assertEquals(responseDocument.getContentType(), "application/pdf");
+        Assert.assertEquals(responseDocument.getContentLength(), 123);
+        // the metadata comes with the object
+        assertS3CallBudget(dxm, "getDocumentFromSourceBucket", 1);
+        Mockito.verify(dxm.getAmazonS3(), Mockito.never()).getObjectMetadata(SOURCE_BUCKET_NAME, documentId);
+    }
+
+    @Test
+    public void testGetTextFromDestinationBucket() throws AbstractApplicationException {
+        // Arrange
+        DocumentExtractManager dxm = createTestSubject();
+        final String documentID = UUID.randomUUID().toString();
+        mockDestinationTextObject(dxm, documentID);
+
+        CanonicalDocument document = CanonicalDocument.builder().withIdentifier(documentID).build();
+        CanonicalRequest request = CanonicalRequest.builder().withMethod("GET").withCanonicalDocument(document).build();
+
+        // Act
+        CanonicalResponse response = dxm.getTextFromDestinationBucket(request);
+
+        // Assert
+        Assert.assertNotNull(response);
+        Assert.assertEquals(response.getResult(), HttpStatus.SC_OK);
+        Assert.assertEquals(response.getDocumentCount(), 1);
+        assertS3CallBudget(dxm, "getTextFromDestinationBucket", 1);
+    }
+
+    @Test
+    public void testGetJsonFromDestinationBucket() throws AbstractApplicationException {
+        // Arrange
+        DocumentExtractManager dxm = createTestSubject();
+        final String documentID = UUID.randomUUID().toString();
+        mockDestinationJsonObject(dxm, documentID);
+
+        CanonicalDocument document = CanonicalDocument.builder().withIdentifier(documentID).build();
+        CanonicalRequest request = CanonicalRequest.builder().withMethod("GET").withCanonicalDocument(document).build();
+
+        // Act
+        CanonicalResponse response = dxm.getJsonFromDestinationBucket(request);
+
+        // Assert
+        Assert.assertNotNull(response);
+        Assert.assertEquals(response.getResult(), HttpStatus.SC_OK);
+        Assert.assertEquals(response.getDocumentCount(), 1);
+        assertS3CallBudget(dxm, "getJsonFromDestinationBucket", 1);
+    }
+
+    @Test
+    public void testDeleteDocumentFromSourceBucket() throws AbstractApplicationException {
+        // Arrange
+        DocumentExtractManager dxm = createTestSubject();
+        final String documentId = UUID.randomUUID().toString();
+
+        CanonicalDocument document = CanonicalDocument.builder().withIdentifier(documentId).build();
+        CanonicalRequest request = CanonicalRequest.builder().withMethod("DELETE").withCanonicalDocument(document).build();
+
+        mockObjectMetadata(dxm, documentId);
+
+        // Act
+        CanonicalResponse response = dxm.deleteDocumentFromSourceBucket(request);
+
+        // Assert
+        Assert.assertEquals(response.getResult(), HttpStatus.SC_OK);
+        Assert.assertEquals(response.getDocuments().size(), 1);
+        Assert.assertEquals(response.getDocuments().get(0).getIdentifier(), documentId);
+        Mockito.verify(dxm.getAmazonS3()).deleteObject(SOURCE_BUCKET_NAME, documentId);
+        assertS3CallBudget(dxm, "deleteDocumentFromSourceBucket", 2);
+    }
+
+    // Submitting a valid document for text extraction returns a successful response
+    @Test
+    public void testValidSubmitDocumentForTextExtraction() throws InstanceValidationException {
+        // Arrange
+        DocumentExtractManager dxm = createTestSubject();
+        final String documentId = UUID.randomUUID().toString();
+
+        // the document start detection and analysis must return something to avoid and NPE
+        mockStartDocumentTextDetection(dxm);
+        mockStartDocumentTextAnalysis(dxm);
+
+        CanonicalDocument document = CanonicalDocument.builder()
+                .withIdentifier(documentId)
+                .build();
+        CanonicalRequest request = CanonicalRequest.builder()
+                .withMethod("NewDocument")
+                .withCanonicalDocument(document)
+                .build();
+
+        // Act
+        CanonicalResponse response = dxm.submitDocumentForTextExtraction(request);
+
+        // Assert
+        Assert.assertEquals(response.getResult(), HttpStatus.SC_OK);
+    }
+
+    // Submitting a document with the same content as a document that has been extracted copies the text
+    // and does not submit the document to Textract
+    @Test
+    public void testSubmitDuplicateDocumentForTextExtraction() throws InstanceValidationException {
+        // Arrange
+        DocumentExtractManager dxm = createTestSubject();
+        final String documentId = UUID.randomUUID().toString();
+        final String identicalDocumentId = UUID.randomUUID().toString();
+        final String contentSha256 = "c4633b9b8f4965ad79923c4e8dbd97723a6b752a7848f0991713421b63c23e83";
+
+        mockGetObjectMetadataAndGetObjectTagging(dxm, createContentMetadata(identicalDocumentId, "application/pdf", contentSha256, DocumentExtractStatus.SUCCEEDED));
+        mockGetObjectMetadataAndGetObjectTagging(dxm, createContentMetadata(documentId, "application/pdf", contentSha256, DocumentExtractStatus.SUCCEEDED));
+        doReturn(new ContentIndexEntry(identicalDocumentId, Utility.createContentHashIndexId(contentSha256), true).toJson())
+                .when(dxm.getAmazonS3())
+                .getObjectAsString(DESTINATION_BUCKET_NAME, Utility.createContentHashIndexId(contentSha256));
+
+        CanonicalDocument document = CanonicalDocument.builder()
+                .withIdentifier(documentId)
+                .build();
+        CanonicalRequest request = CanonicalRequest.builder()
+                .withMethod("NewDocument")
+                .withCanonicalDocument(document)
+                .build();
+
+        // Act
+        CanonicalResponse response = dxm.submitDocumentForTextExtraction(request);
+
+        // Assert
+        Assert.assertEquals(response.getResult(), HttpStatus.SC_OK);
+        Mockito.verify(dxm.getAmazonS3()).copyObject(
+                DESTINATION_BUCKET_NAME, Utility.createTextResultId(identicalDocumentId),
+                DESTINATION_BUCKET_NAME, Utility.createTextResultId(documentId));
+        Mockito.verify(dxm.getAmazonS3()).copyObject(
+                DESTINATION_BUCKET_NAME, Utility.createJsonResultId(identicalDocumentId),
+                DESTINATION_BUCKET_NAME, Utility.createJsonResultId(documentId));
+        Mockito.verify(dxm.getTextractClient(), Mockito.never())
+                .startDocumentTextDetection(Mockito.any(StartDocumentTextDetectionRequest.class));
+    }
+
+    // A large document uploaded with a presigned URL has no hash, it is matched by its ETag rather than read
+    @Test
+    public void testSubmitLargeDuplicateDocumentMatchedByETag() throws InstanceValidationException {
+        // Arrange
+        DocumentExtractManager dxm = createTestSubject();
+        final String documentId = UUID.randomUUID().toString();
+        final String identicalDocumentId = UUID.randomUUID().toString();
+        final String eTag = "\"6f5902ac237024bdd0c176cb93063dc4\"";
+
+        for (String id : Arrays.asList(identicalDocumentId, documentId)) {
+            ObjectMetadata objectMetadata = new ObjectMetadata();
+            objectMetadata.setContentType("application/pdf");
+            objectMetadata.setContentLength(64L * 1024 * 1024);
+            objectMetadata.setHeader(Headers.ETAG, eTag);
+            objectMetadata.addUserMetadata(HeaderTags.METADATA_KEY_IDENTIFIER, id);
+            objectMetadata.addUserMetadata(HeaderTags.TAG_KEY_STATUS, DocumentExtractStatus.SUCCEEDED.toString());
+            mockGetObjectMetadataAndGetObjectTagging(dxm, objectMetadata);
+        }
+        doReturn(new ContentIndexEntry(identicalDocumentId, Utility.createContentETagIndexId(eTag), false).toJson())
+                .when(dxm.getAmazonS3())
+                .getObjectAsString(DESTINATION_BUCKET_NAME, Utility.createContentETagIndexId(eTag));
+
+        CanonicalRequest request = CanonicalRequest.builder()
+                .withMethod("NewDocument")
+                .withCanonicalDocument(CanonicalDocument.builder()
+                        .withIdentifier(documentId)
+                        .build())
+                .build();
+
+        // Act
+        CanonicalResponse response = dxm.submitDocumentForTextExtraction(request);
+
+        // Assert
+        Assert.assertEquals(response.getResult(), HttpStatus.SC_OK);
+        Mockito.verify(dxm.getAmazonS3(), Mockito.never())
+                .getObject(Mockito.anyString(), Mockito.anyString());
+        Mockito.verify(dxm.getAmazonS3()).copyObject(
+                DESTINATION_BUCKET_NAME, Utility.createTextResultId(identicalDocumentId),
+                DESTINATION_BUCKET_NAME, Utility.createTextResultId(documentId));
+    }
+
+    // An index entry for a document that has since been saved again with other content is removed and
+    // the document is extracted, the text of the other document is not copied
+    @Test
+    public void testSubmitDocumentWithStaleContentIndexEntry() throws InstanceValidationException {
+        // Arrange
+        DocumentExtractManager dxm = createTestSubject();
+        final String documentId = UUID.randomUUID().toString();
+        final String changedDocumentId = UUID.randomUUID().toString();
+        final String contentSha256 = "c4633b9b8f4965ad79923c4e8dbd97723a6b752a7848f0991713421b63c23e83";
+
+        mockGetObjectMetadataAndGetObjectTagging(dxm, createContentMetadata(changedDocumentId, "image/png", UUID.randomUUID().toString(), DocumentExtractStatus.SUCCEEDED));
+        mockGetObjectMetadataAndGetObjectTagging(dxm, createContentMetadata(documentId, "image/png", contentSha256, null));
+        doReturn(new ContentIndexEntry(changedDocumentId, Utility.createContentHashIndexId(contentSha256), true).toJson())
+                .when(dxm.getAmazonS3())
+                .getObjectAsString(DESTINATION_BUCKET_NAME, Utility.createContentHashIndexId(contentSha256));
+        mockDetectDocumentText(dxm);
+
+        CanonicalRequest request = CanonicalRequest.builder()
+                .withMethod("NewDocument")
+                .withCanonicalDocument(CanonicalDocument.builder()
+                        .withIdentifier(documentId)
+                        .build())
+                .build();
+
+        // Act
+        CanonicalResponse response = dxm.submitDocumentForTextExtraction(request);
+
+        // Assert
+        Assert.assertEquals(response.getResult(), HttpStatus.SC_OK);
+        Mockito.verify(dxm.getAmazonS3(), Mockito.never())
+                .copyObject(Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString());
+        Mockito.verify(dxm.getAmazonS3())
+                .deleteObject(DESTINATION_BUCKET_NAME, Utility.createContentHashIndexId(contentSha256));
+        Mockito.verify(dxm.getTextractClient())
+                .detectDocumentText(Mockito.any(DetectDocumentTextRequest.class));
+    }
+
+    // A small image is extracted with a synchronous Textract call, it is not submitted to a Textract job
+    @Test
+    public void testSubmitImageForSynchronousTextExtraction() throws InstanceValidationException {
+        // Arrange
+        DocumentExtractManager dxm = createTestSubject();
+        final String documentId = UUID.randomUUID().toString();
+
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentType("image/png");
+        objectMetadata.setContentLength(12345);
+        objectMetadata.addUserMetadata(HeaderTags.METADATA_KEY_IDENTIFIER, documentId);
+        objectMetadata.addUserMetadata(HeaderTags.METADATA_KEY_CONTENT_SHA256, UUID.randomUUID().toString());
+        mockGetObjectMetadataAndGetObjectTagging(dxm, objectMetadata);
+        mockDetectDocumentText(dxm);
+
+        CanonicalDocument document = CanonicalDocument.builder()
+                .withIdentifier(documentId)
+                .build();
+        CanonicalRequest request = CanonicalRequest.builder()
+                .withMethod("NewDocument")
+                .withCanonicalDocument(document)
+                .build();
+
+        // Act
+        CanonicalResponse response = dxm.submitDocumentForTextExtraction(request);
+
+        // Assert
+        Assert.assertEquals(response.getResult(), HttpStatus.SC_OK);
+        Mockito.verify(dxm.getTextractClient())
+                .detectDocumentText(Mockito.any(DetectDocumentTextRequest.class));
+        Mockito.verify(dxm.getTextractClient(), Mockito.never())
+                .startDocumentTextDetection(Mockito.any(StartDocumentTextDetectionRequest.class));
+        Mockito.verify(dxm.getAmazonS3())
+                .putObject(DESTINATION_BUCKET_NAME, Utility.createTextResultId(documentId), "line001" + System.lineSeparator());
+    }
+
+    // TODO: add more complex tests
+    // the following test method invokes only the simplest positive case
+    @Test
+    public void testOcrComplete() throws InstanceValidationException {
+        // Arrange
+        DocumentExtractManager dxm = createTestSubject();
+        final String documentId = UUID.randomUUID().toString();
+        final String jobId = UUID.randomUUID().toString();
+        mockGetDocumentTextDetection(dxm);
+
+        CanonicalDocument document = CanonicalDocument.builder()
+                .withIdentifier(documentId)
+                .withDocumentExtractStatus(DocumentExtractStatus.SUCCEEDED)
+                .withJobId(jobId)
+                .build();
+        CanonicalRequest request = CanonicalRequest.builder()
+                .withMethod("DocumentExtractComplete")
+                .withCanonicalDocument(document)
+                .build();
+
+        // Act
+        CanonicalResponse response = dxm.moveExtractedTextToDestination(request);
+
+        // Assert
+        Assert.assertEquals(response.getResult(), HttpStatus.SC_OK);
+        // the blocks are saved as compressed JSON alongside the text
+        ArgumentCaptor<PutObjectRequest> putRequests = ArgumentCaptor.forClass(PutObjectRequest.class);
+        Mockito.verify(dxm.getAmazonS3(), Mockito.atLeastOnce()).putObject(putRequests.capture());
+        PutObjectRequest jsonPutRequest = putRequests.getAllValues().stream()
+                .filter(putRequest -> Utility.createJsonResultId(documentId).equals(putRequest.getKey()))
+                .findFirst()
+                .orElse(null);
+        Assert.assertNotNull(jsonPutRequest);
+        Assert.assertEquals(jsonPutRequest.getMetadata().getContentType(), "application/json");
+        Assert.assertEquals(jsonPutRequest.getMetadata().getContentEncoding(), "gzip");
+    }
+
+    // ==============================================================================================
+    //
+    // ==============================================================================================
+    // no invocation of the operation made more than budget S3 calls
+    private void assertS3CallBudget(final DocumentExtractManager dxm, final String operation, final int budget) {
+        final S3CallRecorder.Statistics statistics = dxm.getS3CallStatistics(operation);
+        Assert.assertTrue(statistics.getInvocations() > 0, operation + " was not recorded");
+        Assert.assertTrue(statistics.getMaximumCalls() <= budget,
+                operation + " made " + statistics.getMaximumCalls() + " S3 calls, the budget is " + budget);
+    }
+
+    private DocumentExtractManager createTestSubject() {
+        return createTestSubject(null);
+    }
+
+    // the status store, if it is not null, replaces the store of the application properties
+    private DocumentExtractManager createTestSubject(final DocumentStatusStore statusStore) {
+        AmazonS3 amazonS3 = Mockito.mock(AmazonS3.class);
+        TextractClient textractClient = Mockito.mock(TextractClient.class);
+        // no Textract jobs are in flight
+        doReturn(new ListObjectsV2Result())
+                .when(amazonS3)
+                .listObjectsV2(Mockito.any(ListObjectsV2Request.class));
+
+        DocumentExtractManager subject = statusStore == null
+                ? new DocumentExtractManager(
+                        "region1",
+                        SOURCE_BUCKET_NAME, DESTINATION_BUCKET_NAME,
+                        TEXTRACT_SERVICE_ROLE, STATUS_TOPIC_NAME,
+                        amazonS3,
+                        textractClient)
+                : new DocumentExtractManager(
+                        "region1",
+                        SOURCE_BUCKET_NAME, DESTINATION_BUCKET_NAME,
+                        TEXTRACT_SERVICE_ROLE, STATUS_TOPIC_NAME,
+                        amazonS3,
+                        textractClient,
+                        statusStore);
+
+        return subject;
+    }
+
+    private void mockGeneratePresignedUrl(
+            DocumentExtractManager dxm,
+            final String bucket, final String identifier,
+            final URL response) {
+        AmazonS3 mockS3 = dxm.getAmazonS3();
+
+        doReturn(response)
+                .when(mockS3)
+                .generatePresignedUrl(Mockito.eq(bucket), Mockito.eq(identifier), Mockito.any(Date.class));
+    }
+
+    // adds a response to the S3 mock object to return a populated response to a getObjectMetadata() call
+    private void mockGetObjectMetadataAndGetObjectTagging(
+            DocumentExtractManager dxm,
+            ObjectMetadata objectMetadata) {
+        AmazonS3 mockS3 = dxm.getAmazonS3();
+
+        final String identifier = objectMetadata.getUserMetaDataOf(HeaderTags.METADATA_KEY_IDENTIFIER);
+        doReturn(objectMetadata)
+                .when(mockS3)
+                .getObjectMetadata(Mockito.eq(SOURCE_BUCKET_NAME), Mockito.eq(identifier));
+
+        List<Tag> tagSet = new ArrayList<>();
+        if (objectMetadata.getUserMetaDataOf(HeaderTags.TAG_JOB_ID) != null)
+            tagSet.add(new Tag(HeaderTags.TAG_JOB_ID, objectMetadata.getUserMetaDataOf(HeaderTags.TAG_JOB_ID)));
+        if (objectMetadata.getUserMetaDataOf(HeaderTags.TAG_KEY_STATUS) != null)
+            tagSet.add(new Tag(HeaderTags.TAG_KEY_STATUS, objectMetadata.getUserMetaDataOf(HeaderTags.TAG_KEY_STATUS)));
+        if (objectMetadata.getUserMetaDataOf(HeaderTags.METADATA_KEY_CONTENT_SHA256) != null)
+            tagSet.add(new Tag(HeaderTags.METADATA_KEY_CONTENT_SHA256, objectMetadata.getUserMetaDataOf(HeaderTags.METADATA_KEY_CONTENT_SHA256)));
+
+        // each document has its own tags, a document that was not mocked has none
+        mockedTagSets.put(identifier, tagSet);
+        Mockito.doAnswer(invocation -> {
+                    final List<Tag> mockedTagSet = mockedTagSets.get(((GetObjectTaggingRequest) invocation.getArguments()[0]).getKey());
+                    return new GetObjectTaggingResult(mockedTagSet == null ? new ArrayList<>() : mockedTagSet);
+                })
+                .when(mockS3)
+                .getObjectTagging(Mockito.any(GetObjectTaggingRequest.class));
+    }
+
+    // mocks putObject to return a result containing the given content type and length
+    // on any call to putObject(PutObjectRequest)
+    private void mockPutObject(
+            DocumentExtractManager dxm,
+            final String mockContentType,
+            final Integer mockContentLength
+    ){
+        AmazonS3 mockS3 = dxm.getAmazonS3();
+
+        PutObjectResult mockResult = new PutObjectResult();
+
+        ObjectMetadata mockMetadata = new ObjectMetadata();
+        if (mockContentType != null)
+            mockMetadata.setContentType(mockContentType);
+        if (mockContentLength != null)
+            mockMetadata.setContentLength(mockContentLength);
+        mockResult.setMetadata(mockMetadata);
+
+        doReturn(mockResult)
+                .when(mockS3)
+                .putObject(Mockito.any(PutObjectRequest.class));
+    }
+
+    private void mockSourceDocumentObject(DocumentExtractManager dxm, final String documentId) {
+        mockDestinationObject(dxm, SOURCE_BUCKET_NAME, documentId, "application/pdf");
+    }
+
+    private void mockDestinationTextObject(DocumentExtractManager dxm, final String documentId) {
+        mockDestinationObject(dxm, DESTINATION_BUCKET_NAME, Utility.createTextResultId(documentId), "text/plain");
+    }
+
+    private void mockDestinationJsonObject(DocumentExtractManager dxm, final String documentId) {
+        mockDestinationObject(dxm, DESTINATION_BUCKET_NAME, Utility.createJsonResultId(documentId), "application/json");
+    }
+
+    private void mockDestinationObject(DocumentExtractManager dxm, final String bucket, final String documentId, final String documentType) {
+        S3Object s3Object = Mockito.mock(S3Object.class);
+        final String documentContent = "document content " + documentId;
+
+        ObjectMetadata objectMetadata = Mockito.mock(ObjectMetadata.class);
+        S3ObjectInputStream inputStream = new S3ObjectInputStream(
+                new ByteArrayInputStream(documentContent.getBytes()),
+                new HttpRequestBase(){
+                    @Override
+                    public String getMethod() {
+                        return "GET";
+                    }
+                }
+        );
+
+        Mockito.when(dxm.getAmazonS3().getObject(bucket, documentId)).thenReturn(s3Object);
+        Mockito.when(s3Object.getObjectContent()).thenReturn(inputStream);
+        Mockito.when(s3Object.getObjectMetadata()).thenReturn(objectMetadata);
+
+        Mockito.when(dxm.getAmazonS3().getObjectMetadata(bucket, documentId)).thenReturn(objectMetadata);
+        Mockito.when(objectMetadata.getContentType()).thenReturn(documentType);
+        Mockito.when(objectMetadata.getContentLength()).thenReturn((long)documentContent.length());
+        Mockito.when(objectMetadata.getUserMetaDataOf(HeaderTags.TAG_KEY_STATUS)).thenReturn("New");
+
+    }
+
+    private void mockObjectMetadata(final DocumentExtractManager dxm, final String documentId) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType("application/pdf");
+        metadata.setContentLength(12345);
+        Mockito.when(dxm.getAmazonS3().getObjectMetadata(SOURCE_BUCKET_NAME, documentId)).thenReturn(metadata);
+    }
+
+    private void mockStartDocumentTextDetection(final DocumentExtractManager dxm) {
+        StartDocumentTextDetectionResponse textractResponse = StartDocumentTextDetectionResponse.builder()
+                .jobId(UUID.randomUUID().toString())
+                .build();
+
+        Mockito.doReturn(textractResponse)
+                .when(dxm.getTextractClient())
+                .startDocumentTextDetection(Mockito.any(StartDocumentTextDetectionRequest.class));
+    }
+
+    private void mockStartDocumentTextAnalysis(final DocumentExtractManager dxm) {
+        StartDocumentAnalysisResponse textractResponse = StartDocumentAnalysisResponse.builder()
+                .jobId(UUID.randomUUID().toString())
+                .build();
+
+        Mockito.doReturn(textractResponse)
+                .when(dxm.getTextractClient())
+                .startDocumentAnalysis(Mockito.any(StartDocumentAnalysisRequest.class));
+    }
+
+    private void mockGetDocumentTextDetection(final DocumentExtractManager dxm) {
+        Block textBlock = Block.builder().text("block001").blockType(BlockType.PAGE).build();
+        GetDocumentTextDetectionResponse getTextDetectionResponse = GetDocumentTextDetectionResponse.builder()
+                .blocks(textBlock)
+                .build();
+
+        Mockito.doReturn(getTextDetectionResponse)
+                .when(dxm.getTextractClient()).getDocumentTextDetection(Mockito.any(GetDocumentTextDetectionRequest.class));
+    }
+
+    private void mockDetectDocumentText(final DocumentExtractManager dxm) {
+        Block pageBlock = Block.builder().blockType(BlockType.PAGE).page(1).build();
+        Block lineBlock = Block.builder().text("line001").blockType(BlockType.LINE).page(1).build();
+        DetectDocumentTextResponse detectTextResponse = DetectDocumentTextResponse.builder()
+                .blocks(pageBlock, lineBlock)
+                .build();
+
+        Mockito.doReturn(detectTextResponse)
+                .when(dxm.getTextractClient()).detectDocumentText(Mockito.any(DetectDocumentTextRequest.class));
+    }
+
+    // the metadata of a document with the given content hash and, unless it is null, status
+    private ObjectMetadata createContentMetadata(
+            final String documentId, final String contentType, final String contentSha256, final DocumentExtractStatus status) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentType(contentType);
+        objectMetadata.setContentLength(12345);
+        objectMetadata.addUserMetadata(HeaderTags.METADATA_KEY_IDENTIFIER, documentId);
+        objectMetadata.addUserMetadata(HeaderTags.METADATA_KEY_CONTENT_SHA256, contentSha256);
+        if (status != null)
+            objectMetadata.addUserMetadata(HeaderTags.TAG_KEY_STATUS, status.toString());
+        return objectMetadata;
+    }
+
+    // create an ObjectMetadata instance with content
+    private ObjectMetadata createObjectMetadata(
+            final String identifier,
+            final String fileName,
+            final String contentType,
+            final Integer contentLength,
+            final DocumentExtractStatus status,
+            final String jobId) {
+        ObjectMetadata result = new ObjectMetadata();
+
+        if (identifier != null)
+            result.addUserMetadata(HeaderTags.METADATA_KEY_IDENTIFIER, identifier);
+        if (fileName != null)
+            result.addUserMetadata(HeaderTags.METADATA_KEY_FILE_NAME, fileName);
+        if (contentType != null)
+            result.setContentType(contentType);
+        if (contentLength != null)
+            result.setContentLength(contentLength);
+        if (status != null)
+            result.addUserMetadata(HeaderTags.TAG_KEY_STATUS, status.toString());
+        if (jobId != null)
+            result.addUserMetadata(HeaderTags.TAG_JOB_ID, jobId);
+
+        return result;
+    }
+
+}
\ No newline at end of file
@@ -33,6 +33,7 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 public class DocumentProcessor implements Callable<DocumentProcessorResult> {
     private static final String STATUS_SUCCEEDED = "SUCCEEDED";
+    private static final String STATUS_FAILED = "FAILED";
     public final static Duration STATUS_RETRY_DELAY = Duration.parse("PT5S");
     public final static int STATUS_RETRY = 60;
     public final static int POST_SOCKET_TIMEOUT_MILLIS = 5000;
@@ -44,6 +45,8 @@ public class DocumentProcessor implements Callable<DocumentProcessorResult> {
     private final URL hostUrl;
     private final File documentFile;
     private final CloseableHttpClient httpClient;
+    // if not null, the status is long polled, each HEAD waits up to this long for the document to complete
+    private final Duration statusWaitTimeout;
 
     private final AtomicReference<String> status = new AtomicReference<>(null);
     private final AtomicLong statusTime = new AtomicLong(0L);
@@ -56,12 +59,24 @@ public class DocumentProcessor implements Callable<DocumentProcessorResult> {
      * @param documentFile
      */
     public DocumentProcessor(final String identifier, final URL hostUrl, final File documentFile) {
+        this(identifier, hostUrl, documentFile, null);
+    }
+
+    /**
+     *
+     * @param identifier
+     * @param hostUrl
+     * @param documentFile
+     * @param statusWaitTimeout if not null, long poll the status waiting up to this long per request
+     */
+    public DocumentProcessor(final String identifier, final URL hostUrl, final File documentFile, final Duration statusWaitTimeout) {
         if (identifier == null || hostUrl == null || documentFile == null)
             throw new IllegalArgumentException("Both hostUrl and documentFile must be non null");
 
         this.identifier = identifier;
         this.hostUrl = hostUrl;
         this.documentFile = documentFile;
+        this.statusWaitTimeout = statusWaitTimeout;
 
         httpClient = HttpClients.createDefault();
     }
@@ -256,6 +271,9 @@ public class DocumentProcessor implements Callable<DocumentProcessorResult> {
      */
     private boolean waitForDocumentStatus()
             throws IOException {
+        if (statusWaitTimeout != null)
+            return longPollDocumentStatus();
+
         String status = null;
         for (int retryCount = 0; retryCount < STATUS_RETRY; ++retryCount) {
             status = getDocumentStatus();
@@ -271,8 +289,41 @@ public class DocumentProcessor implements Callable<DocumentProcessorResult> {
         return STATUS_SUCCEEDED.equals(status);
     }
 
+    /**
+     * Wait for the document to complete with HEAD requests that are held by the service until the document
+     * completes or statusWaitTimeout expires, for no longer in total than the polling of waitForDocumentStatus().
+     * @return
+     */
+    private boolean longPollDocumentStatus()
+            throws IOException {
+        final long deadline = System.currentTimeMillis() + STATUS_RETRY_DELAY.toMillis() * STATUS_RETRY;
+        String status = null;
+        while (System.currentTimeMillis() < deadline) {
+            final long requestStart = System.currentTimeMillis();
+            status = getDocumentStatus(createDocumentPath(identifier)
+                    + "?waitFor=" + STATUS_SUCCEEDED + "," + STATUS_FAILED
+                    + "&timeout=" + statusWaitTimeout.getSeconds());
+            if (STATUS_SUCCEEDED.equals(status) || STATUS_FAILED.equals(status))
+                break;
+            // the service returned early, probably an error, do not retry immediately
+            if (System.currentTimeMillis() - requestStart < STATUS_RETRY_DELAY.toMillis()) {
+                try {
+                    Thread.sleep(STATUS_RETRY_DELAY.toMillis());
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+
+        return STATUS_SUCCEEDED.equals(status);
+    }
+
     private String getDocumentStatus() throws IOException {
-        URL headDocumentUrl = new URL(hostUrl, createDocumentPath(identifier));
+        return getDocumentStatus(createDocumentPath(identifier));
+    }
+
+    private String getDocumentStatus(final String documentPath) throws IOException {
+        URL headDocumentUrl = new URL(hostUrl, documentPath);
         String status = null;
 
         HttpHead headDocumentMethod = new HttpHead(headDocumentUrl.toExternalForm());
@@ -38,6 +38,8 @@ public class LoadAndPerformanceTestClient {
         options.addOption("t", true, "A positive integer specifying the number of threads from which documents will be processed.");
         // add the repeater option
         options.addOption("n", true, "A positive integer specifying the number of documents to process.");
+        // add the long poll option
+        options.addOption("w", true, "A positive integer specifying the seconds that each status request waits for the document to complete (long polling). Default is to poll every " + STATUS_RETRY_DELAY.getSeconds() + " seconds.");
     }
 
     public static void main(String[] argv) {
@@ -54,6 +56,7 @@ public class LoadAndPerformanceTestClient {
         int threads = 1;
         int iterations = 1;
         int explicitIterations = 0;
+        Duration statusWaitTimeout = null;
         ExecutorService executorService = null;
         ExecutorCompletionService<DocumentProcessorResult> executorCompletionService = null;
 
@@ -74,6 +77,9 @@ public class LoadAndPerformanceTestClient {
             if (cmd.hasOption('n'))
                 explicitIterations = Integer.parseInt(cmd.getOptionValue('n'));
 
+            if (cmd.hasOption('w'))
+                statusWaitTimeout = Duration.ofSeconds(Integer.parseInt(cmd.getOptionValue('w')));
+
             executorService = Executors.newFixedThreadPool(threads, new ThreadFactory() {
                 AtomicInteger threadSerialNumber = new AtomicInteger(0);
                 @Override
@@ -93,7 +99,7 @@ public class LoadAndPerformanceTestClient {
             for (int iteration = 0; iteration < iterations; ++iteration) {
                 final String identifier = UUID.randomUUID().toString();
                 final File documentFile = documentFiles.get(iteration % (documentFiles.size()));
-                executorCompletionService.submit(new DocumentProcessor(identifier, hostUrl, documentFile));
+                executorCompletionService.submit(new DocumentProcessor(identifier, hostUrl, documentFile, statusWaitTimeout));
             }
 
             for (int iteration = 0; iteration < iterations; ++iteration) {
@@ -0,0 +1,113 @@
+package gov.va.med.cies.ocr;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class RecordProcessorTest {
+    @Test
+    public void testEveryRecordIsProcessed() {
+        RecordProcessor subject = new RecordProcessor(4);
+        List<Integer> records = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        Set<Integer> processed = ConcurrentHashMap.newKeySet();
+
+        Assert.assertEquals(subject.process(records, processed::add), 0);
+        Assert.assertEquals(processed.size(), records.size());
+    }
+
+    @Test
+    public void testConcurrencyIsBounded() {
+        RecordProcessor subject = new RecordProcessor(3);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maximumActive = new AtomicInteger();
+
+        subject.process(IntStream.range(0, 30).boxed().collect(Collectors.toList()), record -> {
+            maximumActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            sleep(5);
+            active.decrementAndGet();
+        });
+
+        Assert.assertTrue(maximumActive.get() <= 3, "at most 3 records at once, was " + maximumActive.get());
+        Assert.assertTrue(maximumActive.get() > 1, "records processed one after another");
+    }
+
+    @Test
+    public void testFailedRecordDoesNotStopTheOthers() {
+        RecordProcessor subject = new RecordProcessor(2);
+        List<String> processed = Collections.synchronizedList(new ArrayList<>());
+
+        int failed = subject.process(Arrays.asList("a", "fail", "b", "fail", "c"), record -> {
+            if ("fail".equals(record))
+                throw new IllegalStateException(record);
+            processed.add(record);
+        });
+
+        Assert.assertEquals(failed, 2);
+        Assert.assertEquals(new TreeSet<>(processed), new TreeSet<>(Arrays.asList("a", "b", "c")));
+    }
+
+    // the first record waits until the others have been processed, they complete only if it does not hold them up
+    @Test(timeOut = 10000)
+    public void testSlowRecordDoesNotHoldUpTheOthers() {
+        RecordProcessor subject = new RecordProcessor(2);
+        CountDownLatch others = new CountDownLatch(4);
+
+        int failed = subject.process(Arrays.asList(0, 1, 2, 3, 4), record -> {
+            if (record == 0)
+                await(others);
+            else
+                others.countDown();
+        });
+
+        Assert.assertEquals(failed, 0);
+    }
+
+    @Test
+    public void testSingleRecordIsProcessedOnCallingThread() {
+        RecordProcessor subject = new RecordProcessor(8);
+        List<Thread> threads = new ArrayList<>();
+
+        subject.process(Collections.singletonList("only"), record -> threads.add(Thread.currentThread()));
+
+        Assert.assertEquals(threads, Collections.singletonList(Thread.currentThread()));
+    }
+
+    @Test
+    public void testNoRecords() {
+        Assert.assertEquals(new RecordProcessor(8).process(Collections.emptyList(), record -> Assert.fail()), 0);
+        Assert.assertEquals(new RecordProcessor(8).process(null, record -> Assert.fail()), 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConcurrencyMustBePositive() {
+        new RecordProcessor(0);
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException iX) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException iX) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package gov.va.med.cies.ocr.cache;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TtlCacheTest {
+    @Test
+    public void testValueExpires() {
+        AtomicLong clock = new AtomicLong();
+        TtlCache<String, String> subject = new TtlCache<>(10, clock::get);
+
+        subject.put("655321", "metadata", Duration.ofSeconds(5));
+        clock.addAndGet(Duration.ofSeconds(4).toNanos());
+        Assert.assertEquals(subject.get("655321"), "metadata");
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        Assert.assertNull(subject.get("655321"));
+
+        TtlCache.Statistics statistics = subject.getStatistics();
+        Assert.assertEquals(statistics.getHits(), 1L);
+        Assert.assertEquals(statistics.getMisses(), 1L);
+        Assert.assertEquals(statistics.getExpirations(), 1L);
+        Assert.assertEquals(statistics.getHitRate(), 0.5, 0.0001);
+        Assert.assertEquals(statistics.getSize(), 0);
+    }
+
+    // each entry has its own time to live
+    @Test
+    public void testSeparateTimesToLive() {
+        AtomicLong clock = new AtomicLong();
+        TtlCache<String, String> subject = new TtlCache<>(10, clock::get);
+
+        subject.put("655321", "found", Duration.ofSeconds(300));
+        subject.put("655322", "not found", Duration.ofSeconds(5));
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        Assert.assertEquals(subject.get("655321"), "found");
+        Assert.assertNull(subject.get("655322"));
+    }
+
+    // the least recently read entry is evicted when the cache is full
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        TtlCache<String, String> subject = new TtlCache<>(2);
+
+        subject.put("655321", "one", Duration.ofSeconds(60));
+        subject.put("655322", "two", Duration.ofSeconds(60));
+        subject.get("655321");
+        subject.put("655323", "three", Duration.ofSeconds(60));
+
+        Assert.assertEquals(subject.get("655321"), "one");
+        Assert.assertNull(subject.get("655322"));
+        Assert.assertEquals(subject.get("655323"), "three");
+        Assert.assertEquals(subject.getStatistics().getEvictions(), 1L);
+        Assert.assertEquals(subject.size(), 2);
+    }
+
+    @Test
+    public void testInvalidate() {
+        TtlCache<String, String> subject = new TtlCache<>(10);
+
+        subject.put("655321", "metadata", Duration.ofSeconds(60));
+        subject.invalidate("655321");
+
+        Assert.assertNull(subject.get("655321"));
+    }
+
+    // a zero time to live, or a zero size, disables caching
+    @Test
+    public void testDisabled() {
+        TtlCache<String, String> zeroTtl = new TtlCache<>(10);
+        zeroTtl.put("655321", "metadata", Duration.ZERO);
+        Assert.assertNull(zeroTtl.get("655321"));
+
+        TtlCache<String, String> zeroSize = new TtlCache<>(0);
+        zeroSize.put("655321", "metadata", Duration.ofSeconds(60));
+        Assert.assertNull(zeroSize.get("655321"));
+        Assert.assertEquals(zeroSize.size(), 0);
+    }
+}
@@ -0,0 +1,147 @@
+package gov.va.med.cies.ocr.io;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectTaggingRequest;
+import com.amazonaws.services.s3.model.GetObjectTaggingResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.ObjectTagging;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.SetObjectTaggingRequest;
+import com.amazonaws.services.s3.model.Tag;
+import org.apache.http.HttpStatus;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+public class S3CallScopeTest {
+    private final String BUCKET_NAME = "sourceBucket";
+    private final String KEY = "655321";
+
+    private AmazonS3 mockAmazonS3() {
+        AmazonS3 amazonS3 = Mockito.mock(AmazonS3.class);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType("application/pdf");
+        metadata.setContentLength(123655);
+        Mockito.when(amazonS3.getObjectMetadata(BUCKET_NAME, KEY)).thenReturn(metadata);
+        Mockito.when(amazonS3.getObjectTagging(Mockito.any(GetObjectTaggingRequest.class)))
+                .thenReturn(new GetObjectTaggingResult(new ArrayList<>(Collections.singletonList(new Tag("status", "New")))));
+        return amazonS3;
+    }
+
+    @Test
+    public void testMetadataAndTagsAreReadOnce() {
+        AmazonS3 amazonS3 = mockAmazonS3();
+        AmazonS3 subject = S3CallScope.memoizing(amazonS3);
+
+        try (S3CallScope scope = S3CallScope.open("test", null)) {
+            for (int index = 0; index < 3; ++index) {
+                Assert.assertEquals(subject.getObjectMetadata(BUCKET_NAME, KEY).getContentLength(), 123655L);
+                Assert.assertEquals(subject.getObjectTagging(new GetObjectTaggingRequest(BUCKET_NAME, KEY)).getTagSet().size(), 1);
+            }
+
+            Assert.assertEquals(scope.getCallCount("getObjectMetadata"), 1);
+            Assert.assertEquals(scope.getCallCount("getObjectTagging"), 1);
+            Assert.assertEquals(scope.getTotalCallCount(), 2);
+            Assert.assertEquals(scope.getMemoizedCallCount(), 4);
+        }
+        Mockito.verify(amazonS3, Mockito.times(1)).getObjectMetadata(BUCKET_NAME, KEY);
+        Mockito.verify(amazonS3, Mockito.times(1)).getObjectTagging(Mockito.any(GetObjectTaggingRequest.class));
+    }
+
+    // the metadata of an object that was read is not read again
+    @Test
+    public void testObjectMetadataIsReused() {
+        AmazonS3 amazonS3 = mockAmazonS3();
+        S3Object s3Object = new S3Object();
+        s3Object.getObjectMetadata().setContentLength(42L);
+        Mockito.when(amazonS3.getObject(BUCKET_NAME, "other")).thenReturn(s3Object);
+        AmazonS3 subject = S3CallScope.memoizing(amazonS3);
+
+        try (S3CallScope scope = S3CallScope.open("test", null)) {
+            subject.getObject(BUCKET_NAME, "other");
+            Assert.assertEquals(subject.getObjectMetadata(BUCKET_NAME, "other").getContentLength(), 42L);
+        }
+        Mockito.verify(amazonS3, Mockito.never()).getObjectMetadata(BUCKET_NAME, "other");
+    }
+
+    @Test
+    public void testNotFoundIsRemembered() {
+        AmazonS3 amazonS3 = Mockito.mock(AmazonS3.class);
+        AmazonS3Exception notFound = new AmazonS3Exception("Not Found");
+        notFound.setStatusCode(HttpStatus.SC_NOT_FOUND);
+        Mockito.when(amazonS3.getObjectMetadata(BUCKET_NAME, KEY)).thenThrow(notFound);
+        AmazonS3 subject = S3CallScope.memoizing(amazonS3);
+
+        try (S3CallScope scope = S3CallScope.open("test", null)) {
+            for (int index = 0; index < 2; ++index) {
+                try {
+                    subject.getObjectMetadata(BUCKET_NAME, KEY);
+                    Assert.fail("not found was not thrown");
+                } catch (AmazonS3Exception s3X) {
+                    Assert.assertEquals(s3X.getStatusCode(), HttpStatus.SC_NOT_FOUND);
+                }
+            }
+        }
+        Mockito.verify(amazonS3, Mockito.times(1)).getObjectMetadata(BUCKET_NAME, KEY);
+    }
+
+    // a write forgets what was read of the object written, and only that object
+    @Test
+    public void testWriteForgetsObject() {
+        AmazonS3 amazonS3 = mockAmazonS3();
+        Mockito.when(amazonS3.getObjectMetadata(BUCKET_NAME, "other")).thenReturn(new ObjectMetadata());
+        AmazonS3 subject = S3CallScope.memoizing(amazonS3);
+
+        try (S3CallScope scope = S3CallScope.open("test", null)) {
+            subject.getObjectTagging(new GetObjectTaggingRequest(BUCKET_NAME, KEY));
+            subject.getObjectMetadata(BUCKET_NAME, "other");
+            subject.setObjectTagging(new SetObjectTaggingRequest(BUCKET_NAME, KEY, new ObjectTagging(new ArrayList<>())));
+            subject.getObjectTagging(new GetObjectTaggingRequest(BUCKET_NAME, KEY));
+            subject.getObjectMetadata(BUCKET_NAME, "other");
+
+            Assert.assertEquals(scope.getCallCount("getObjectTagging"), 2);
+            Assert.assertEquals(scope.getCallCount("getObjectMetadata"), 1);
+            Assert.assertEquals(scope.getCallCount("setObjectTagging"), 1);
+        }
+    }
+
+    // a nested scope counts its calls in both scopes and shares what was read
+    @Test
+    public void testNestedScope() {
+        AmazonS3 amazonS3 = mockAmazonS3();
+        AmazonS3 subject = S3CallScope.memoizing(amazonS3);
+        S3CallRecorder recorder = new S3CallRecorder();
+
+        try (S3CallScope outer = S3CallScope.open("request", recorder::record)) {
+            subject.getObjectMetadata(BUCKET_NAME, KEY);
+            try (S3CallScope inner = S3CallScope.open("operation", recorder::record)) {
+                subject.getObjectMetadata(BUCKET_NAME, KEY);
+                subject.getObjectTagging(new GetObjectTaggingRequest(BUCKET_NAME, KEY));
+            }
+            Assert.assertSame(S3CallScope.active(), outer);
+        }
+
+        Assert.assertNull(S3CallScope.active());
+        Assert.assertEquals(recorder.getStatistics("request").getTotalCalls(), 2L);
+        Assert.assertEquals(recorder.getStatistics("operation").getTotalCalls(), 1L);
+        Assert.assertEquals(recorder.getStatistics("operation").getMemoizedCalls(), 1L);
+        Assert.assertEquals(recorder.getOperations().size(), 2);
+    }
+
+    // outside of a scope every call is made
+    @Test
+    public void testWithoutScope() {
+        AmazonS3 amazonS3 = mockAmazonS3();
+        AmazonS3 subject = S3CallScope.memoizing(amazonS3);
+
+        subject.getObjectMetadata(BUCKET_NAME, KEY);
+        subject.getObjectMetadata(BUCKET_NAME, KEY);
+
+        Mockito.verify(amazonS3, Mockito.times(2)).getObjectMetadata(BUCKET_NAME, KEY);
+        Assert.assertSame(S3CallScope.memoizing(subject), subject);
+    }
+}
@@ -0,0 +1,114 @@
+package gov.va.med.cies.ocr.io;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+public class S3MultipartOutputStreamTest {
+    private final String BUCKET_NAME = "destinationBucket";
+    private final String KEY = "655321.txt";
+    private final String UPLOAD_ID = "upload001";
+
+    @Test
+    public void testSmallObjectIsPut() throws IOException {
+        AmazonS3 amazonS3 = Mockito.mock(AmazonS3.class);
+        final byte[] content = "small content".getBytes();
+
+        try (S3MultipartOutputStream subject = new S3MultipartOutputStream(amazonS3, BUCKET_NAME, KEY, new ObjectMetadata())) {
+            subject.write(content);
+        }
+
+        ArgumentCaptor<PutObjectRequest> putCaptor = ArgumentCaptor.forClass(PutObjectRequest.class);
+        Mockito.verify(amazonS3).putObject(putCaptor.capture());
+        Assert.assertEquals(readAll(putCaptor.getValue().getInputStream()), content);
+        Assert.assertEquals(putCaptor.getValue().getMetadata().getContentLength(), content.length);
+        Mockito.verify(amazonS3, Mockito.never()).initiateMultipartUpload(Mockito.any(InitiateMultipartUploadRequest.class));
+    }
+
+    @Test
+    public void testLargeObjectIsUploadedInParts() throws IOException {
+        ByteArrayOutputStream uploaded = new ByteArrayOutputStream();
+        AmazonS3 amazonS3 = mockMultipartUpload(uploaded);
+        final byte[] content = new byte[2 * S3MultipartOutputStream.MINIMUM_PART_SIZE + 1234];
+        new Random(655321).nextBytes(content);
+
+        try (S3MultipartOutputStream subject = new S3MultipartOutputStream(amazonS3, BUCKET_NAME, KEY, new ObjectMetadata())) {
+            // a mix of single bytes and arrays that straddle the parts
+            subject.write(content[0]);
+            for (int offset = 1; offset < content.length; offset += 100000)
+                subject.write(content, offset, Math.min(100000, content.length - offset));
+        }
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> completeCaptor = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        Mockito.verify(amazonS3).completeMultipartUpload(completeCaptor.capture());
+        Assert.assertEquals(completeCaptor.getValue().getPartETags().size(), 3);
+        Assert.assertTrue(Arrays.equals(uploaded.toByteArray(), content));
+        Mockito.verify(amazonS3, Mockito.never()).putObject(Mockito.any(PutObjectRequest.class));
+    }
+
+    @Test
+    public void testAbort() throws IOException {
+        AmazonS3 amazonS3 = mockMultipartUpload(new ByteArrayOutputStream());
+
+        S3MultipartOutputStream subject = new S3MultipartOutputStream(amazonS3, BUCKET_NAME, KEY, new ObjectMetadata());
+        subject.write(new byte[S3MultipartOutputStream.MINIMUM_PART_SIZE + 1]);
+        subject.abort();
+        subject.close();
+
+        Mockito.verify(amazonS3).abortMultipartUpload(Mockito.any(AbortMultipartUploadRequest.class));
+        Mockito.verify(amazonS3, Mockito.never()).completeMultipartUpload(Mockito.any(CompleteMultipartUploadRequest.class));
+    }
+
+    // mocks the multipart upload calls, the content of the parts is written to the given stream in part order
+    private AmazonS3 mockMultipartUpload(final ByteArrayOutputStream uploaded) {
+        AmazonS3 amazonS3 = Mockito.mock(AmazonS3.class);
+
+        InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+        initiateResult.setUploadId(UPLOAD_ID);
+        Mockito.doReturn(initiateResult)
+                .when(amazonS3).initiateMultipartUpload(Mockito.any(InitiateMultipartUploadRequest.class));
+
+        Mockito.doAnswer(new Answer<UploadPartResult>() {
+            @Override
+            public UploadPartResult answer(InvocationOnMock invocation) throws IOException {
+                UploadPartRequest request = (UploadPartRequest) invocation.getArguments()[0];
+                Assert.assertEquals(request.getUploadId(), UPLOAD_ID);
+                uploaded.write(readAll(request.getInputStream()));
+
+                UploadPartResult result = new UploadPartResult();
+                result.setPartNumber(request.getPartNumber());
+                result.setETag("etag" + request.getPartNumber());
+                return result;
+            }
+        }).when(amazonS3).uploadPart(Mockito.any(UploadPartRequest.class));
+
+        return amazonS3;
+    }
+
+    private static byte[] readAll(final InputStream inStream) throws IOException {
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int count = inStream.read(buffer); count >= 0; count = inStream.read(buffer))
+            outStream.write(buffer, 0, count);
+        return outStream.toByteArray();
+    }
+}
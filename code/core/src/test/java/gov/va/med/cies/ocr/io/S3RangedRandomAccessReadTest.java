@@ -0,0 +1,126 @@
+package gov.va.med.cies.ocr.io;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class S3RangedRandomAccessReadTest {
+    private final String BUCKET_NAME = "sourceBucket";
+    private final String KEY = "655321";
+
+    @DataProvider(name = "BlockSizeProvider")
+    public Object[][] blockSizeProvider() {
+        return new Object[][]{
+                // block size, cached blocks, spill
+                {4096, 4, false},
+                {4096, 4, true},
+                {1024 * 1024, 16, false}
+        };
+    }
+
+    @Test(dataProvider = "BlockSizeProvider")
+    public void testExtractedTextMatchesFile(final int blockSize, final int cachedBlocks, final boolean spill) throws IOException {
+        final File pdfFile = getFileOnClasspath("PET-CT1.pdf");
+        final byte[] content = Files.readAllBytes(pdfFile.toPath());
+        final AtomicInteger rangedGetCount = new AtomicInteger(0);
+        final AmazonS3 amazonS3 = mockRangedGet(content, rangedGetCount);
+
+        final String expected;
+        try (PDDocument document = Loader.loadPDF(pdfFile)) {
+            expected = new PDFTextStripper().getText(document);
+        }
+
+        final File spillDirectory = spill ? new File(System.getProperty("java.io.tmpdir")) : null;
+        S3ObjectBlockCache blockCache = new S3ObjectBlockCache(amazonS3, BUCKET_NAME, KEY, content.length, blockSize, cachedBlocks, spillDirectory);
+        final String actual;
+        try (PDDocument document = Loader.loadPDF(new S3RangedRandomAccessRead(blockCache, true))) {
+            actual = new PDFTextStripper().getText(document);
+        }
+
+        Assert.assertEquals(actual, expected);
+        Assert.assertTrue(rangedGetCount.get() > 0);
+    }
+
+    @Test
+    public void testSeekAndRead() throws IOException {
+        final byte[] content = new byte[10000];
+        for (int index = 0; index < content.length; ++index)
+            content[index] = (byte) index;
+        final AtomicInteger rangedGetCount = new AtomicInteger(0);
+        final AmazonS3 amazonS3 = mockRangedGet(content, rangedGetCount);
+
+        S3ObjectBlockCache blockCache = new S3ObjectBlockCache(amazonS3, BUCKET_NAME, KEY, content.length, 1000, 2, null);
+        try (S3RangedRandomAccessRead subject = new S3RangedRandomAccessRead(blockCache, true)) {
+            Assert.assertEquals(subject.length(), content.length);
+
+            // a read that spans a block boundary
+            subject.seek(990);
+            byte[] buffy = new byte[20];
+            Assert.assertEquals(subject.read(buffy), 20);
+            Assert.assertEquals(buffy, Arrays.copyOfRange(content, 990, 1010));
+            Assert.assertEquals(subject.getPosition(), 1010);
+            Assert.assertEquals(rangedGetCount.get(), 2);
+
+            // re-reading a cached block does not go back to S3
+            subject.seek(995);
+            Assert.assertEquals(subject.read(), content[995] & 0xff);
+            Assert.assertEquals(rangedGetCount.get(), 2);
+
+            // a read at the end of the object
+            subject.seek(content.length - 1);
+            Assert.assertEquals(subject.read(), content[content.length - 1] & 0xff);
+            Assert.assertTrue(subject.isEOF());
+            Assert.assertEquals(subject.read(), -1);
+        }
+    }
+
+    // mocks getObject(GetObjectRequest) to return the requested range of the given content
+    private AmazonS3 mockRangedGet(final byte[] content, final AtomicInteger rangedGetCount) {
+        AmazonS3 amazonS3 = Mockito.mock(AmazonS3.class);
+        Mockito.doAnswer(new Answer<S3Object>() {
+            @Override
+            public S3Object answer(InvocationOnMock invocation) {
+                GetObjectRequest request = (GetObjectRequest) invocation.getArguments()[0];
+                long[] range = request.getRange();
+                rangedGetCount.incrementAndGet();
+
+                InputStream rangeContent = new ByteArrayInputStream(content, (int) range[0], (int) (range[1] - range[0] + 1));
+                S3Object s3Object = new S3Object();
+                s3Object.setBucketName(request.getBucketName());
+                s3Object.setKey(request.getKey());
+                s3Object.setObjectContent(rangeContent);
+                return s3Object;
+            }
+        }).when(amazonS3).getObject(Mockito.any(GetObjectRequest.class));
+
+        return amazonS3;
+    }
+
+    private File getFileOnClasspath(String fileName) {
+        ClassLoader classLoader = getClass().getClassLoader();
+        java.net.URL resource = classLoader.getResource(fileName);
+
+        if (resource == null) {
+            throw new IllegalArgumentException("file is not found!");
+        } else {
+            return new File(resource.getFile());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package gov.va.med.cies.ocr.io;
+
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class S3ReadFanOutTest {
+    // each read waits for the other, they complete only if they are made concurrently
+    @Test(timeOut = 10000)
+    public void testReadsAreConcurrent() {
+        S3ReadFanOut subject = new S3ReadFanOut(true);
+        CountDownLatch started = new CountDownLatch(2);
+
+        CompletableFuture<String> first = subject.read(() -> awaitOther(started, "first"));
+        CompletableFuture<String> second = subject.read(() -> awaitOther(started, "second"));
+
+        Assert.assertEquals(S3ReadFanOut.await(first), "first");
+        Assert.assertEquals(S3ReadFanOut.await(second), "second");
+    }
+
+    @Test
+    public void testReadIsMadeWithinScope() {
+        S3ReadFanOut subject = new S3ReadFanOut(true);
+
+        try (S3CallScope scope = S3CallScope.open("test", null)) {
+            Assert.assertSame(S3ReadFanOut.await(subject.read(S3CallScope::active)), scope);
+        }
+        Assert.assertNull(S3ReadFanOut.await(subject.read(S3CallScope::active)));
+    }
+
+    @Test(expectedExceptions = AmazonS3Exception.class)
+    public void testExceptionIsRethrown() {
+        S3ReadFanOut subject = new S3ReadFanOut(true);
+
+        S3ReadFanOut.await(subject.read(() -> {
+            throw new AmazonS3Exception("Not Found");
+        }));
+    }
+
+    @Test
+    public void testDisabledReadsOnCallingThread() {
+        S3ReadFanOut subject = new S3ReadFanOut(false);
+
+        CompletableFuture<Thread> read = subject.read(Thread::currentThread);
+
+        Assert.assertTrue(read.isDone());
+        Assert.assertSame(S3ReadFanOut.await(read), Thread.currentThread());
+    }
+
+    @Test(expectedExceptions = AmazonS3Exception.class)
+    public void testDisabledExceptionIsRethrownByAwait() {
+        S3ReadFanOut subject = new S3ReadFanOut(false);
+
+        CompletableFuture<Object> read = subject.read(() -> {
+            throw new AmazonS3Exception("Not Found");
+        });
+        S3ReadFanOut.await(read);
+    }
+
+    private static String awaitOther(final CountDownLatch started, final String result) {
+        started.countDown();
+        try {
+            if (!started.await(5, TimeUnit.SECONDS))
+                throw new IllegalStateException("the reads were not concurrent");
+        } catch (InterruptedException iX) {
+            throw new IllegalStateException(iX);
+        }
+        return result;
+    }
+}
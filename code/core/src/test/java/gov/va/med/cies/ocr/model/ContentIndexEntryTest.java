@@ -0,0 +1,23 @@
+package gov.va.med.cies.ocr.model;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ContentIndexEntryTest {
+    @Test
+    public void testRoundTrip() {
+        ContentIndexEntry actual = ContentIndexEntry.fromJson(new ContentIndexEntry("655321", "sha256/c4633b9b", true).toJson());
+
+        Assert.assertNotNull(actual);
+        Assert.assertEquals(actual.getIdentifier(), "655321");
+        Assert.assertEquals(actual.getContentKey(), "sha256/c4633b9b");
+        Assert.assertTrue(actual.isBlocks());
+    }
+
+    // an entry of an earlier version is the identifier alone, it is not used
+    @Test
+    public void testIdentifierAloneIsNotAnEntry() {
+        Assert.assertNull(ContentIndexEntry.fromJson("655321"));
+        Assert.assertNull(ContentIndexEntry.fromJson("{\"identifier\":\"655321\"}"));
+    }
+}
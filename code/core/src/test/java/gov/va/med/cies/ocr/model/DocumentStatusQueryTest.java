@@ -0,0 +1,71 @@
+package gov.va.med.cies.ocr.model;
+
+import gov.va.med.cies.ocr.DocumentExtractStatus;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class DocumentStatusQueryTest {
+    @Test
+    public void testFromJson() {
+        DocumentStatusQuery actual = DocumentStatusQuery.fromJson("{\"identifiers\":[\"655321\",\"655322\"],\"metadata\":false}");
+
+        Assert.assertEquals(actual.getIdentifiers(), Arrays.asList("655321", "655322"));
+        Assert.assertFalse(actual.isIncludeMetadata());
+        // metadata is included unless it is refused
+        Assert.assertTrue(DocumentStatusQuery.fromJson("{\"identifiers\":[]}").isIncludeMetadata());
+    }
+
+    @DataProvider(name = "InvalidQueryDataProvider")
+    public Object[][] invalidQueryDataProvider() {
+        return new Object[][]{
+                {""},
+                {"[\"655321\"]"},
+                {"{}"},
+                {"{\"identifiers\":[\"\"]}"},
+                {"{\"identifiers\":\"655321\"}"}
+        };
+    }
+
+    @Test(dataProvider = "InvalidQueryDataProvider", expectedExceptions = IllegalArgumentException.class)
+    public void testFromInvalidJson(final String json) {
+        DocumentStatusQuery.fromJson(json);
+    }
+
+    // null fields and empty lists are omitted
+    @Test
+    public void testResultToJson() {
+        Map<String, CanonicalDocument> documents = new LinkedHashMap<>();
+        documents.put("655321", CanonicalDocument.builder()
+                .withIdentifier("655321")
+                .withDocumentExtractStatus(DocumentExtractStatus.SUCCEEDED)
+                .withJobId("job001")
+                .withContentType("application/pdf")
+                .withContentLength(Integer.valueOf(123655))
+                .build());
+        documents.put("655322", CanonicalDocument.builder()
+                .withIdentifier("655322")
+                .withDocumentExtractStatus(DocumentExtractStatus.Submitted)
+                .build());
+        DocumentStatusQueryResult subject = new DocumentStatusQueryResult(
+                documents, Collections.singletonList("655323"), Collections.emptyList());
+
+        JSONObject actual = new JSONObject(subject.toJson());
+
+        JSONObject document = actual.getJSONObject("documents").getJSONObject("655321");
+        Assert.assertEquals(document.getString("s"), "SUCCEEDED");
+        Assert.assertEquals(document.getString("j"), "job001");
+        Assert.assertEquals(document.getString("t"), "application/pdf");
+        Assert.assertEquals(document.getInt("l"), 123655);
+        Assert.assertFalse(document.has("f"));
+        Assert.assertEquals(actual.getJSONObject("documents").getJSONObject("655322").keySet(), Collections.singleton("s"));
+        Assert.assertEquals(actual.getJSONArray("notFound").getString(0), "655323");
+        Assert.assertFalse(actual.has("failed"));
+    }
+}
@@ -0,0 +1,70 @@
+package gov.va.med.cies.ocr.model;
+
+import gov.va.med.cies.ocr.DocumentExtractStatus;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ExtractionManifestTest {
+    @Test
+    public void testMergeSingleChunk() {
+        Map<Integer, String> localPages = new TreeMap<>();
+        localPages.put(1, "one\n");
+        localPages.put(3, "three\n");
+        ExtractionManifest subject = new ExtractionManifest(4, localPages, Collections.singletonList(Arrays.asList(2, 4)));
+
+        // the manifest survives a round trip through the destination bucket
+        ExtractionManifest actual = ExtractionManifest.fromJson(subject.toJson());
+        Assert.assertEquals(actual.getChunkCount(), 1);
+
+        // Textract pages are numbered within the OCR document, page 1 is original page 2
+        Map<Integer, String> ocrPageText = new HashMap<>();
+        ocrPageText.put(1, "two\n");
+        ocrPageText.put(2, "four\n");
+        Assert.assertEquals(actual.merge(Collections.singletonMap(0, ocrPageText)), "one\ntwo\nthree\nfour\n");
+    }
+
+    @Test
+    public void testMergeChunks() {
+        ExtractionManifest subject = ExtractionManifest.fromJson(new ExtractionManifest(
+                5, Collections.emptyMap(), Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(4, 5))).toJson());
+        Assert.assertEquals(subject.getChunkCount(), 2);
+
+        Map<Integer, String> chunk0 = new HashMap<>();
+        chunk0.put(1, "one\n");
+        chunk0.put(2, "two\n");
+        chunk0.put(3, "three\n");
+        Map<Integer, String> chunk1 = new HashMap<>();
+        chunk1.put(1, "four\n");
+        chunk1.put(2, "five\n");
+
+        // the chunk results may arrive in any order
+        Map<Integer, Map<Integer, String>> chunkPageText = new HashMap<>();
+        chunkPageText.put(1, chunk1);
+        chunkPageText.put(0, chunk0);
+        Assert.assertEquals(subject.merge(chunkPageText), "one\ntwo\nthree\nfour\nfive\n");
+    }
+
+    @Test
+    public void testChunkResultRoundTrip() {
+        Map<Integer, String> pageText = new HashMap<>();
+        pageText.put(1, "one\n");
+        pageText.put(2, "two\n");
+
+        ExtractionChunkResult actual = ExtractionChunkResult.fromJson(
+                new ExtractionChunkResult(3, DocumentExtractStatus.SUCCEEDED, pageText).toJson());
+        Assert.assertEquals(actual.getChunkIndex(), 3);
+        Assert.assertEquals(actual.getStatus(), DocumentExtractStatus.SUCCEEDED);
+        Assert.assertEquals(actual.getPageText(), pageText);
+
+        ExtractionChunkResult failed = ExtractionChunkResult.fromJson(
+                new ExtractionChunkResult(0, DocumentExtractStatus.FAILED, null).toJson());
+        Assert.assertEquals(failed.getStatus(), DocumentExtractStatus.FAILED);
+        Assert.assertTrue(failed.getPageText().isEmpty());
+    }
+}
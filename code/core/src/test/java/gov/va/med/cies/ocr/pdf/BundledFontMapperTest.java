@@ -0,0 +1,165 @@
+package gov.va.med.cies.ocr.pdf;
+
+import org.apache.fontbox.FontBoxFont;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.font.FontMapper;
+import org.apache.pdfbox.pdmodel.font.FontMapping;
+import org.apache.pdfbox.pdmodel.font.FontMappers;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class BundledFontMapperTest {
+    private static final String[] FIXTURES = {"PET-CT1.pdf", "PET-CT3.pdf"};
+    // the fonts of the generated document, none of them embedded
+    private static final String[][] FONTS = {
+            {"Type1", "Helvetica"},
+            {"Type1", "Times-Roman"},
+            {"Type1", "Courier"},
+            {"TrueType", "ArialMT"}
+    };
+
+    @DataProvider(name = "FontNameProvider")
+    public Object[][] fontNameProvider() {
+        return new Object[][]{
+                {"Helvetica"},
+                {"Helvetica-Bold"},
+                {"ABCDEF+Arial,Bold"},
+                {"Times New Roman"},
+                {"CourierNewPSMT"},
+                {"Wingdings"},
+                {null}
+        };
+    }
+
+    // every font is the bundled font, without a fallback warning
+    @Test(dataProvider = "FontNameProvider")
+    public void testMapping(final String fontName) {
+        BundledFontMapper subject = new BundledFontMapper();
+
+        FontMapping<TrueTypeFont> trueTypeFont = subject.getTrueTypeFont(fontName, null);
+        Assert.assertNotNull(trueTypeFont.getFont());
+        Assert.assertFalse(trueTypeFont.isFallback());
+        FontMapping<FontBoxFont> fontBoxFont = subject.getFontBoxFont(fontName, null);
+        Assert.assertSame(fontBoxFont.getFont(), trueTypeFont.getFont());
+        Assert.assertTrue(subject.getCIDFont(fontName, null, null).isFallback());
+        Assert.assertEquals(subject.getLookupCount(), 3L);
+    }
+
+    /**
+     * Extract the text of the fixtures, and of a document that uses fonts that it does not embed, twice.
+     * Each font that is not embedded is looked up in the bundled mapper, once for each extraction, and the
+     * fixtures (which have no fonts) look up none.
+     */
+    @Test
+    public void testNonEmbeddedFontExtraction() throws IOException {
+        final FontMapper previous = FontMappers.instance();
+        final BundledFontMapper subject = new BundledFontMapper();
+        FontMappers.set(subject);
+        try {
+            final byte[] document = createDocument();
+
+            final String firstText = extractAll(document);
+            Assert.assertEquals(subject.getLookupCount(), FONTS.length);
+            final String secondText = extractAll(document);
+            Assert.assertEquals(subject.getLookupCount(), 2L * FONTS.length);
+
+            Assert.assertEquals(secondText, firstText);
+            for (String[] font : FONTS)
+                Assert.assertTrue(firstText.contains("Set in " + font[1]), font[1]);
+        } finally {
+            FontMappers.set(previous);
+        }
+    }
+
+    private String extractAll(final byte[] document) throws IOException {
+        final StringBuilder result = new StringBuilder();
+        for (String fixture : FIXTURES)
+            result.append(extract(fixture));
+        return result.append(extract(document)).toString();
+    }
+
+    private String extract(final String fixture) throws IOException {
+        try (InputStream fixtureStream = getClass().getClassLoader().getResourceAsStream(fixture)) {
+            Assert.assertNotNull(fixtureStream, fixture);
+            return extract(fixtureStream.readAllBytes());
+        }
+    }
+
+    private String extract(final byte[] pdf) throws IOException {
+        try (PDDocument pdfDocument = Loader.loadPDF(pdf)) {
+            return new PDFTextStripper().getText(pdfDocument);
+        }
+    }
+
+    // the fonts are written as dictionaries, a PDFont would be mapped before the mapper under test is installed
+    private byte[] createDocument() throws IOException {
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream result = new ByteArrayOutputStream()) {
+            final PDPage page = new PDPage();
+            final COSDictionary fonts = new COSDictionary();
+            final StringBuilder content = new StringBuilder("BT\n72 720 Td\n");
+            for (int index = 0; index < FONTS.length; ++index) {
+                final COSDictionary font = new COSDictionary();
+                font.setItem(COSName.TYPE, COSName.FONT);
+                font.setName(COSName.SUBTYPE, FONTS[index][0]);
+                font.setName(COSName.BASE_FONT, FONTS[index][1]);
+                font.setItem(COSName.ENCODING, COSName.WIN_ANSI_ENCODING);
+                if ("TrueType".equals(FONTS[index][0]))
+                    addDescriptor(font, FONTS[index][1]);
+                fonts.setItem(COSName.getPDFName("F" + index), font);
+                content.append("/F").append(index).append(" 12 Tf\n(Set in ").append(FONTS[index][1]).append(") Tj\n0 -20 Td\n");
+            }
+            content.append("ET\n");
+
+            final PDResources resources = new PDResources();
+            resources.getCOSObject().setItem(COSName.FONT, fonts);
+            page.setResources(resources);
+            final PDStream contents = new PDStream(document);
+            try (OutputStream contentStream = contents.createOutputStream()) {
+                contentStream.write(content.toString().getBytes(StandardCharsets.US_ASCII));
+            }
+            page.setContents(contents);
+            document.addPage(page);
+            document.save(result);
+            return result.toByteArray();
+        }
+    }
+
+    // a TrueType font that is not one of the standard 14 needs widths and a descriptor
+    private void addDescriptor(final COSDictionary font, final String fontName) {
+        final COSArray widths = new COSArray();
+        for (int code = 32; code <= 126; ++code)
+            widths.add(COSInteger.get(556));
+        font.setInt(COSName.FIRST_CHAR, 32);
+        font.setInt(COSName.LAST_CHAR, 126);
+        font.setItem(COSName.WIDTHS, widths);
+
+        final COSDictionary descriptor = new COSDictionary();
+        descriptor.setItem(COSName.TYPE, COSName.FONT_DESC);
+        descriptor.setName(COSName.FONT_NAME, fontName);
+        descriptor.setInt(COSName.FLAGS, 32);
+        descriptor.setItem(COSName.FONT_BBOX, new COSArray());
+        descriptor.setInt(COSName.ITALIC_ANGLE, 0);
+        descriptor.setInt(COSName.ASCENT, 905);
+        descriptor.setInt(COSName.DESCENT, -212);
+        descriptor.setInt(COSName.CAP_HEIGHT, 716);
+        descriptor.setInt(COSName.STEM_V, 80);
+        font.setItem(COSName.FONT_DESC, descriptor);
+    }
+}
@@ -0,0 +1,82 @@
+package gov.va.med.cies.ocr.pdf;
+
+import gov.va.med.cies.ocr.model.ExtractedPdfText;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ParallelPdfTextExtractorTest {
+
+    @DataProvider(name = "ParallelismProvider")
+    public Object[][] parallelismProvider() {
+        return new Object[][]{
+                // page count, parallelism, minimum pages per task, documents loaded from the source
+                {50, 4, 4, 3},
+                {50, 4, 16, 3},
+                {50, 4, 20, 2},
+                {7, 3, 1, 2},
+                {3, 4, 16, 0},     // too small to split
+                {50, 1, 4, 0}      // single threaded
+        };
+    }
+
+    @Test(dataProvider = "ParallelismProvider")
+    public void testTextMatchesSequentialExtraction(
+            final int pageCount, final int parallelism, final int minimumPagesPerTask, final int expectedOpens)
+            throws IOException {
+        final byte[] pdfContent = createDocument(pageCount);
+        ParallelPdfTextExtractor subject = new ParallelPdfTextExtractor(parallelism, minimumPagesPerTask);
+
+        try (PDDocument pdfDocument = Loader.loadPDF(pdfContent)) {
+            final String expected = new PDFTextStripper().getText(pdfDocument);
+
+            final AtomicInteger opens = new AtomicInteger();
+            ExtractedPdfText actual = subject.extractText(pdfDocument, () -> {
+                opens.incrementAndGet();
+                return new RandomAccessReadBuffer(pdfContent);
+            });
+
+            Assert.assertNotNull(actual);
+            Assert.assertEquals(actual.getPageCount(), pageCount);
+            Assert.assertEquals(actual.getText(), expected);
+            // each worker loads the document once, the calling thread strips the document that it was given
+            Assert.assertEquals(opens.get(), expectedOpens);
+        }
+    }
+
+    private byte[] createDocument(final int pageCount) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.COURIER);
+            for (int pageIndex = 0; pageIndex < pageCount; ++pageIndex) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+                    contentStream.beginText();
+                    contentStream.setFont(font, 10);
+                    contentStream.setLeading(12);
+                    contentStream.newLineAtOffset(36, 750);
+                    for (int line = 0; line < 10; ++line) {
+                        contentStream.showText("Page " + pageIndex + " line " + line);
+                        contentStream.newLine();
+                    }
+                    contentStream.endText();
+                }
+            }
+            ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+            document.save(outStream);
+            return outStream.toByteArray();
+        }
+    }
+}
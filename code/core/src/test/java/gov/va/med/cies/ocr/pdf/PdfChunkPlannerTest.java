@@ -0,0 +1,52 @@
+package gov.va.med.cies.ocr.pdf;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class PdfChunkPlannerTest {
+    private static final long MB = 1024 * 1024;
+
+    @DataProvider(name = "PlanProvider")
+    public Object[][] planProvider() {
+        return new Object[][]{
+                // pages, bytes, byte threshold, page threshold, maximum chunks, expected chunk sizes
+                {50, MB / 2, MB, 100, 10, new int[]{50}},
+                // split by page count
+                {250, MB / 2, MB, 100, 10, new int[]{84, 83, 83}},
+                // split by size
+                {40, 4 * MB, MB, 100, 10, new int[]{10, 10, 10, 10}},
+                // never more chunks than the maximum
+                {1000, MB, MB, 10, 4, new int[]{250, 250, 250, 250}},
+                // never more chunks than pages
+                {2, 10 * MB, MB, 100, 10, new int[]{1, 1}},
+                // thresholds disabled
+                {1000, 100 * MB, 0, 0, 10, new int[]{1000}},
+        };
+    }
+
+    @Test(dataProvider = "PlanProvider")
+    public void testPlan(
+            final int pageCount, final long bytes,
+            final long byteThreshold, final int pageThreshold, final int maximumChunks,
+            final int[] expectedChunkSizes) {
+        PdfChunkPlanner subject = new PdfChunkPlanner(byteThreshold, pageThreshold, maximumChunks);
+        List<Integer> pages = IntStream.rangeClosed(1, pageCount).boxed().collect(Collectors.toList());
+
+        List<List<Integer>> actual = subject.plan(pages, bytes);
+
+        Assert.assertEquals(
+                actual.stream().map(List::size).collect(Collectors.toList()),
+                Arrays.stream(expectedChunkSizes).boxed().collect(Collectors.toList()));
+        // every page is in exactly one chunk, in order
+        List<Integer> flattened = new ArrayList<>();
+        actual.forEach(flattened::addAll);
+        Assert.assertEquals(flattened, pages);
+    }
+}
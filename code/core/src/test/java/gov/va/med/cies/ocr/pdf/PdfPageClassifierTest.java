@@ -0,0 +1,72 @@
+package gov.va.med.cies.ocr.pdf;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class PdfPageClassifierTest {
+    // 50% of the assumed maximum characters per page
+    private final double MINIMUM_CHARACTERS_PER_PAGE = 264.0;
+
+    @Test
+    public void testClassify() throws IOException {
+        PdfPageClassifier subject = new PdfPageClassifier(MINIMUM_CHARACTERS_PER_PAGE);
+
+        // text, image, blank, text, image
+        try (PDDocument document = new PDDocument()) {
+            addTextPage(document, 1);
+            addImagePage(document);
+            document.addPage(new PDPage());
+            addTextPage(document, 4);
+            addImagePage(document);
+
+            List<PdfPageClassifier.ClassifiedPage> actual = subject.classify(document);
+            Assert.assertEquals(actual.size(), 5);
+            Assert.assertEquals(
+                    actual.stream().map(PdfPageClassifier.ClassifiedPage::getPageNumber).collect(Collectors.toList()),
+                    Arrays.asList(1, 2, 3, 4, 5));
+            Assert.assertEquals(
+                    actual.stream().map(PdfPageClassifier.ClassifiedPage::isRequiresOcr).collect(Collectors.toList()),
+                    Arrays.asList(false, true, false, false, true));
+            Assert.assertTrue(actual.get(0).getText().contains("Page 1 line 0"));
+        }
+    }
+
+    private void addTextPage(final PDDocument document, final int pageNumber) throws IOException {
+        PDPage page = new PDPage();
+        document.addPage(page);
+        try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+            contentStream.beginText();
+            contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.COURIER), 10);
+            contentStream.setLeading(12);
+            contentStream.newLineAtOffset(36, 750);
+            for (int line = 0; line < 50; ++line) {
+                contentStream.showText("Page " + pageNumber + " line " + line + " of the report text, findings and impression.");
+                contentStream.newLine();
+            }
+            contentStream.endText();
+        }
+    }
+
+    // a page that is only an image, as a scanner would produce
+    private void addImagePage(final PDDocument document) throws IOException {
+        PDPage page = new PDPage();
+        document.addPage(page);
+        PDImageXObject image = LosslessFactory.createFromImage(document, new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB));
+        try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+            contentStream.drawImage(image, 36, 36, 540, 720);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package gov.va.med.cies.ocr.pdf;
+
+import gov.va.med.cies.ocr.model.TextDensityEstimate;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+public class PdfTextDensityProbeTest {
+    // 50% of the assumed maximum characters per page
+    private final double MINIMUM_CHARACTERS_PER_PAGE = 264.0;
+
+    @DataProvider(name = "DocumentProvider")
+    public Object[][] documentProvider() {
+        return new Object[][]{
+                // text pages, blank pages, sample pages, expected decision
+                {40, 0, 8, TextDensityEstimate.Decision.SHORTCUT},
+                {0, 40, 8, TextDensityEstimate.Decision.TEXTRACT},
+                // small documents are not sampled
+                {4, 0, 8, TextDensityEstimate.Decision.INCONCLUSIVE},
+                // sampling disabled
+                {40, 0, 0, TextDensityEstimate.Decision.INCONCLUSIVE}
+        };
+    }
+
+    @Test(dataProvider = "DocumentProvider")
+    public void testEstimate(final int textPages, final int blankPages, final int samplePages, final TextDensityEstimate.Decision expected)
+            throws IOException {
+        PdfTextDensityProbe subject = new PdfTextDensityProbe(samplePages, 0.95, new Random(655321L));
+
+        try (PDDocument document = createDocument(textPages, blankPages)) {
+            TextDensityEstimate actual = subject.estimate(document, MINIMUM_CHARACTERS_PER_PAGE);
+
+            Assert.assertNotNull(actual);
+            Assert.assertEquals(actual.getPageCount(), textPages + blankPages);
+            Assert.assertEquals(actual.getDecision(), expected);
+            Assert.assertTrue(actual.getSampledPageCount() <= samplePages);
+        }
+    }
+
+    // every sampled page has text, none of the other pages do (e.g. a scan with a typed cover sheet every few
+    // pages), the sample has no variance but it is not enough to skip Textract
+    @Test
+    public void testUniformSampleOfImagePages() throws IOException {
+        final int pageCount = 40;
+        final SortedSet<Integer> samplePages = new PdfTextDensityProbe(8, 0.95, new Random(655321L)).selectSamplePages(pageCount);
+        PdfTextDensityProbe subject = new PdfTextDensityProbe(8, 0.95, new Random(655321L));
+
+        try (PDDocument document = createDocument(pageCount, samplePages, 5)) {
+            TextDensityEstimate actual = subject.estimate(document, MINIMUM_CHARACTERS_PER_PAGE);
+
+            Assert.assertEquals(actual.getSampledPageCount(), samplePages.size());
+            Assert.assertTrue(actual.getMeanCharactersPerPage() > MINIMUM_CHARACTERS_PER_PAGE, "every sampled page has text");
+            Assert.assertTrue(actual.getLowerBound() < actual.getMeanCharactersPerPage());
+            Assert.assertEquals(actual.getDecision(), TextDensityEstimate.Decision.INCONCLUSIVE);
+        }
+    }
+
+    @Test
+    public void testProportionInterval() {
+        PdfTextDensityProbe subject = new PdfTextDensityProbe(8, 0.95, new Random(655321L));
+
+        // all of the sample, the interval is below 1 but not by the whole sample
+        double[] actual = subject.proportionInterval(8, 8, 1000);
+        Assert.assertEquals(actual[0], 8.0 / (8.0 + 1.96 * 1.96), 0.01);
+        Assert.assertTrue(actual[1] <= 1.0);
+        actual = subject.proportionInterval(0, 8, 1000);
+        Assert.assertEquals(actual[0], 0.0, 0.001);
+        Assert.assertTrue(actual[1] > 0.2 && actual[1] < 0.5, "upper " + actual[1]);
+        // the whole population is sampled
+        actual = subject.proportionInterval(4, 8, 8);
+        Assert.assertEquals(actual[1] - actual[0], 0.0, 1.0e-9);
+    }
+
+    @Test
+    public void testSelectSamplePages() {
+        PdfTextDensityProbe subject = new PdfTextDensityProbe(8, 0.95, new Random(655321L));
+
+        SortedSet<Integer> actual = subject.selectSamplePages(500);
+        Assert.assertEquals(actual.size(), 8);
+        Assert.assertEquals(actual.first().intValue(), 1);
+        Assert.assertEquals(actual.last().intValue(), 500);
+    }
+
+    @Test
+    public void testInverseNormal() {
+        Assert.assertEquals(PdfTextDensityProbe.inverseNormalUpperTail(0.025), 1.96, 0.001);
+        Assert.assertEquals(PdfTextDensityProbe.inverseNormalUpperTail(0.005), 2.576, 0.001);
+    }
+
+    // create a document with the given number of text pages followed by the given number of blank pages
+    private PDDocument createDocument(final int textPages, final int blankPages) throws IOException {
+        SortedSet<Integer> textPageNumbers = new TreeSet<>();
+        for (int pageNumber = 1; pageNumber <= textPages; ++pageNumber)
+            textPageNumbers.add(pageNumber);
+        return createDocument(textPages + blankPages, textPageNumbers, 50);
+    }
+
+    // create a document in which the given pages (1 based) have the given number of lines of text, the others are blank
+    private PDDocument createDocument(final int pageCount, final SortedSet<Integer> textPageNumbers, final int lines) throws IOException {
+        PDDocument document = new PDDocument();
+        PDType1Font font = new PDType1Font(Standard14Fonts.FontName.COURIER);
+
+        for (int pageIndex = 0; pageIndex < pageCount; ++pageIndex) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            if (!textPageNumbers.contains(pageIndex + 1))
+                continue;
+            try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+                contentStream.beginText();
+                contentStream.setFont(font, 10);
+                contentStream.setLeading(12);
+                contentStream.newLineAtOffset(36, 750);
+                for (int line = 0; line < lines; ++line) {
+                    contentStream.showText("Page " + pageIndex + " line " + line + " of the report text, findings and impression.");
+                    contentStream.newLine();
+                }
+                contentStream.endText();
+            }
+        }
+
+        return document;
+    }
+}
@@ -0,0 +1,64 @@
+package gov.va.med.cies.ocr.priming;
+
+import gov.va.med.cies.ocr.provider.ProviderRegistry;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+public class LambdaPrimerTest {
+
+    // the steps that do not need the v2 SDK on the class path complete against the stub endpoint, without AWS
+    @Test
+    public void testPrime() {
+        Set<LambdaPrimer.Step> actual = new LambdaPrimer().prime();
+
+        Assert.assertTrue(actual.containsAll(EnumSet.of(
+                LambdaPrimer.Step.PDFBOX,
+                LambdaPrimer.Step.JSON,
+                LambdaPrimer.Step.S3_CLIENT,
+                LambdaPrimer.Step.DOCUMENT_EXTRACT_MANAGER)), actual.toString());
+    }
+
+    // a function that does not use PDFBox or Textract does not prime them
+    @Test
+    public void testStepsOf() {
+        Assert.assertEquals(
+                LambdaPrimer.stepsOf(EnumSet.of(ProviderRegistry.Dependency.S3)),
+                EnumSet.of(LambdaPrimer.Step.JSON, LambdaPrimer.Step.S3_CLIENT));
+        Assert.assertEquals(
+                LambdaPrimer.stepsOf(EnumSet.allOf(ProviderRegistry.Dependency.class)),
+                EnumSet.allOf(LambdaPrimer.Step.class));
+    }
+
+    @Test
+    public void testCreateTextPdf() throws Exception {
+        Assert.assertTrue(new String(LambdaPrimer.createTextPdf(), 0, 5).startsWith("%PDF-"));
+    }
+
+    @Test
+    public void testPrimingLifecycle() {
+        List<String> calls = new ArrayList<>();
+        PrimingLifecycle subject = new PrimingLifecycle(() -> calls.add("prime"), () -> calls.add("refresh"));
+
+        subject.beforeCheckpoint(null);
+        subject.afterRestore(null);
+
+        Assert.assertEquals(calls, Arrays.asList("prime", "refresh"));
+    }
+
+    // a failure of a hook must not fail the checkpoint or the restore
+    @Test
+    public void testPrimingLifecycleFailure() {
+        PrimingLifecycle subject = new PrimingLifecycle(
+                () -> { throw new IllegalStateException("prime"); },
+                () -> { throw new IllegalStateException("refresh"); });
+
+        subject.beforeCheckpoint(null);
+        subject.afterRestore(null);
+    }
+}
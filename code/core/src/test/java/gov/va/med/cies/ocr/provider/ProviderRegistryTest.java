@@ -0,0 +1,151 @@
+package gov.va.med.cies.ocr.provider;
+
+import com.amazonaws.services.s3.AmazonS3;
+import gov.va.med.cies.ocr.DocumentExtractManager;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import software.amazon.awssdk.services.textract.TextractClient;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ProviderRegistryTest {
+
+    private static AmazonS3 amazonS3(final List<String> calls) {
+        return (AmazonS3) Proxy.newProxyInstance(
+                AmazonS3.class.getClassLoader(),
+                new Class<?>[]{AmazonS3.class},
+                (proxy, method, arguments) -> {
+                    calls.add(method.getName());
+                    return null;
+                });
+    }
+
+    @Test
+    public void testLazyProvider() {
+        AtomicInteger created = new AtomicInteger();
+        LazyProvider<String> subject = new LazyProvider<>("subject", () -> "instance-" + created.incrementAndGet());
+
+        Assert.assertFalse(subject.isCreated());
+        Assert.assertEquals(subject.getCreationMillis(), -1L);
+        subject.ifCreated(instance -> Assert.fail("not created yet"));
+
+        Assert.assertEquals(subject.get(), "instance-1");
+        Assert.assertEquals(subject.get(), "instance-1");
+        Assert.assertTrue(subject.isCreated());
+        Assert.assertTrue(subject.getCreationMillis() >= 0L);
+        Assert.assertEquals(created.get(), 1);
+    }
+
+    // the instance is created once however many threads ask for it at the same time
+    @Test
+    public void testLazyProviderConcurrentGet() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        LazyProvider<Object> subject = new LazyProvider<>("subject", () -> {
+            created.incrementAndGet();
+            return new Object();
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<Object>> futures = new ArrayList<>();
+            for (int index = 0; index < 8; ++index)
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException iX) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return subject.get();
+                }, executor));
+            start.countDown();
+            for (CompletableFuture<Object> future : futures)
+                Assert.assertSame(future.get(), subject.get());
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(created.get(), 1);
+    }
+
+    // only the declared clients are created by initialize(), the others when first used
+    @Test
+    public void testInitialize() {
+        List<String> calls = new ArrayList<>();
+        AtomicInteger textractClientsCreated = new AtomicInteger();
+        ProviderRegistry subject = new ProviderRegistry(
+                EnumSet.of(ProviderRegistry.Dependency.S3),
+                new LazyProvider<>("AmazonS3", () -> amazonS3(calls)),
+                new LazyProvider<>("TextractClient", () -> {
+                    textractClientsCreated.incrementAndGet();
+                    return TextractClient.builder().build();
+                }),
+                new LazyProvider<>("DynamoDbClient", () -> {
+                    throw new AssertionError("the DynamoDB client is not declared");
+                }));
+
+        subject.initialize();
+
+        Assert.assertTrue(subject.getAmazonS3().isCreated());
+        Assert.assertFalse(subject.getTextractClient().isCreated());
+        Assert.assertEquals(subject.getCreationMillis().keySet(), Collections.singleton("AmazonS3"));
+
+        subject.getTextractClient().get();
+        Assert.assertEquals(textractClientsCreated.get(), 1);
+        Assert.assertEquals(subject.getCreationMillis().size(), 2);
+    }
+
+    // close() shuts down the clients that were created, and does not create the others
+    @Test
+    public void testClose() {
+        List<String> calls = new ArrayList<>();
+        AtomicInteger textractClientsCreated = new AtomicInteger();
+        ProviderRegistry subject = new ProviderRegistry(
+                EnumSet.of(ProviderRegistry.Dependency.S3),
+                new LazyProvider<>("AmazonS3", () -> amazonS3(calls)),
+                new LazyProvider<>("TextractClient", () -> {
+                    textractClientsCreated.incrementAndGet();
+                    return TextractClient.builder().build();
+                }),
+                new LazyProvider<>("DynamoDbClient", () -> {
+                    throw new AssertionError("the DynamoDB client is not declared");
+                }));
+        subject.initialize();
+
+        subject.close();
+
+        Assert.assertEquals(calls, Collections.singletonList("shutdown"));
+        Assert.assertEquals(textractClientsCreated.get(), 0);
+        Assert.assertFalse(subject.getDynamoDbClient().isCreated());
+    }
+
+    // a DocumentExtractManager created from the registry creates no client until an operation uses it
+    @Test
+    public void testDocumentExtractManagerCreatesNoClient() {
+        List<String> calls = new ArrayList<>();
+        ProviderRegistry subject = new ProviderRegistry(
+                EnumSet.noneOf(ProviderRegistry.Dependency.class),
+                new LazyProvider<>("AmazonS3", () -> amazonS3(calls)),
+                new LazyProvider<>("TextractClient", () -> {
+                    throw new AssertionError("Textract is not used");
+                }),
+                new LazyProvider<>("DynamoDbClient", () -> {
+                    throw new AssertionError("the DynamoDB client is not declared");
+                }));
+
+        DocumentExtractManager dxm = new DocumentExtractManager(
+                "us-east-1", "source", "destination", "arn:aws:iam::000000000000:role/test", "topic", subject);
+
+        Assert.assertTrue(subject.getCreationMillis().isEmpty());
+        Assert.assertSame(dxm.getAmazonS3(), subject.getAmazonS3().get());
+        Assert.assertTrue(calls.isEmpty());
+    }
+}
@@ -0,0 +1,106 @@
+package gov.va.med.cies.ocr.status;
+
+import gov.va.med.cies.ocr.DocumentExtractStatus;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+
+public class DynamoDbDocumentStatusStoreTest {
+    private final String TABLE_NAME = "documentStatus";
+
+    // a status write is a single request
+    @Test
+    public void testPutIsOneUpdate() {
+        DynamoDbClient dynamoDbClient = Mockito.mock(DynamoDbClient.class);
+        doReturn(UpdateItemResponse.builder().build()).when(dynamoDbClient).updateItem(Mockito.any(UpdateItemRequest.class));
+        DynamoDbDocumentStatusStore subject = new DynamoDbDocumentStatusStore(dynamoDbClient, TABLE_NAME);
+
+        subject.put("655321", DocumentExtractStatus.Submitted, "job001");
+
+        ArgumentCaptor<UpdateItemRequest> updateCaptor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        Mockito.verify(dynamoDbClient).updateItem(updateCaptor.capture());
+        Mockito.verifyNoMoreInteractions(dynamoDbClient);
+        UpdateItemRequest actual = updateCaptor.getValue();
+        Assert.assertEquals(actual.tableName(), TABLE_NAME);
+        Assert.assertEquals(actual.key().get(DynamoDbDocumentStatusStore.KEY_ATTRIBUTE).s(), "655321");
+        Assert.assertNull(actual.conditionExpression());
+        Assert.assertEquals(actual.expressionAttributeValues().get(":status").s(), "Submitted");
+        Assert.assertEquals(actual.expressionAttributeValues().get(":jobId").s(), "job001");
+    }
+
+    @Test
+    public void testCompareAndSetIsConditional() {
+        DynamoDbClient dynamoDbClient = Mockito.mock(DynamoDbClient.class);
+        doReturn(UpdateItemResponse.builder().build()).when(dynamoDbClient).updateItem(Mockito.any(UpdateItemRequest.class));
+        DynamoDbDocumentStatusStore subject = new DynamoDbDocumentStatusStore(dynamoDbClient, TABLE_NAME);
+
+        final boolean actual = subject.compareAndSet(
+                "655321", EnumSet.of(DocumentExtractStatus.New, DocumentExtractStatus.Submitted), DocumentExtractStatus.SUCCEEDED, null);
+
+        Assert.assertTrue(actual);
+        ArgumentCaptor<UpdateItemRequest> updateCaptor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        Mockito.verify(dynamoDbClient).updateItem(updateCaptor.capture());
+        UpdateItemRequest request = updateCaptor.getValue();
+        // New includes a document with no status
+        Assert.assertTrue(request.conditionExpression().startsWith("attribute_not_exists(#status) OR #status IN ("));
+        Assert.assertFalse(request.expressionAttributeValues().containsKey(":jobId"));
+    }
+
+    @Test
+    public void testCompareAndSetFailedCondition() {
+        DynamoDbClient dynamoDbClient = Mockito.mock(DynamoDbClient.class);
+        doThrow(ConditionalCheckFailedException.builder().message("The conditional request failed").build())
+                .when(dynamoDbClient).updateItem(Mockito.any(UpdateItemRequest.class));
+        DynamoDbDocumentStatusStore subject = new DynamoDbDocumentStatusStore(dynamoDbClient, TABLE_NAME);
+
+        final boolean actual = subject.compareAndSet(
+                "655321", EnumSet.of(DocumentExtractStatus.Submitted), DocumentExtractStatus.SUCCEEDED, null);
+
+        Assert.assertFalse(actual);
+    }
+
+    // more than a batch of identifiers are read in several batches
+    @Test
+    public void testGetAllIsBatched() {
+        DynamoDbClient dynamoDbClient = Mockito.mock(DynamoDbClient.class);
+        doReturn(BatchGetItemResponse.builder()
+                .responses(Collections.singletonMap(TABLE_NAME, Collections.singletonList(item("id0", "SUCCEEDED"))))
+                .unprocessedKeys(Collections.emptyMap())
+                .build())
+                .when(dynamoDbClient).batchGetItem(Mockito.any(BatchGetItemRequest.class));
+        DynamoDbDocumentStatusStore subject = new DynamoDbDocumentStatusStore(dynamoDbClient, TABLE_NAME);
+
+        List<String> identifiers = new ArrayList<>();
+        for (int index = 0; index < DynamoDbDocumentStatusStore.MAX_BATCH_KEYS + 1; ++index)
+            identifiers.add("id" + index);
+        Map<String, DocumentStatusRecord> actual = subject.getAll(identifiers);
+
+        Mockito.verify(dynamoDbClient, Mockito.times(2)).batchGetItem(Mockito.any(BatchGetItemRequest.class));
+        Assert.assertEquals(actual.get("id0").getStatus(), DocumentExtractStatus.SUCCEEDED);
+    }
+
+    private static Map<String, AttributeValue> item(final String identifier, final String status) {
+        Map<String, AttributeValue> result = new HashMap<>();
+        result.put(DynamoDbDocumentStatusStore.KEY_ATTRIBUTE, AttributeValue.builder().s(identifier).build());
+        result.put(DynamoDbDocumentStatusStore.STATUS_ATTRIBUTE, AttributeValue.builder().s(status).build());
+        return result;
+    }
+}
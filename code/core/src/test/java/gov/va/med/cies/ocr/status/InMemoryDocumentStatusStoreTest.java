@@ -0,0 +1,89 @@
+package gov.va.med.cies.ocr.status;
+
+import gov.va.med.cies.ocr.DocumentExtractStatus;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class InMemoryDocumentStatusStoreTest {
+    @Test
+    public void testPutKeepsJobIdWhenNotGiven() {
+        InMemoryDocumentStatusStore subject = new InMemoryDocumentStatusStore();
+
+        subject.put("655321", DocumentExtractStatus.Submitted, "job001");
+        subject.put("655321", DocumentExtractStatus.SUCCEEDED, null);
+
+        Assert.assertEquals(subject.get("655321"), new DocumentStatusRecord(DocumentExtractStatus.SUCCEEDED, "job001"));
+    }
+
+    // a document with no status is New
+    @Test
+    public void testCompareAndSetFromNoStatus() {
+        InMemoryDocumentStatusStore subject = new InMemoryDocumentStatusStore();
+
+        Assert.assertFalse(subject.compareAndSet("655321", EnumSet.of(DocumentExtractStatus.Submitted), DocumentExtractStatus.SUCCEEDED, null));
+        Assert.assertNull(subject.get("655321"));
+        Assert.assertTrue(subject.compareAndSet("655321", EnumSet.of(DocumentExtractStatus.New), DocumentExtractStatus.Submitted, "job001"));
+        Assert.assertEquals(subject.get("655321"), new DocumentStatusRecord(DocumentExtractStatus.Submitted, "job001"));
+    }
+
+    // a late notification does not change the outcome
+    @Test
+    public void testCompareAndSetRejectsUnexpectedStatus() {
+        InMemoryDocumentStatusStore subject = new InMemoryDocumentStatusStore();
+        subject.put("655321", DocumentExtractStatus.SUCCEEDED, "job001");
+
+        final boolean actual = subject.compareAndSet(
+                "655321",
+                EnumSet.of(DocumentExtractStatus.New, DocumentExtractStatus.Queued, DocumentExtractStatus.Submitted),
+                DocumentExtractStatus.FAILED, null);
+
+        Assert.assertFalse(actual);
+        Assert.assertEquals(subject.get("655321").getStatus(), DocumentExtractStatus.SUCCEEDED);
+    }
+
+    // of many concurrent transitions from the same status, exactly one is made
+    @Test
+    public void testConcurrentCompareAndSet() throws Exception {
+        InMemoryDocumentStatusStore subject = new InMemoryDocumentStatusStore();
+        subject.put("655321", DocumentExtractStatus.Submitted, "job001");
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int index = 0; index < 64; ++index) {
+                final DocumentExtractStatus status = index % 2 == 0 ? DocumentExtractStatus.SUCCEEDED : DocumentExtractStatus.FAILED;
+                futures.add(executor.submit(() -> subject.compareAndSet("655321", EnumSet.of(DocumentExtractStatus.Submitted), status, null)));
+            }
+            int transitions = 0;
+            for (Future<Boolean> future : futures)
+                if (future.get())
+                    ++transitions;
+
+            Assert.assertEquals(transitions, 1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testGetAllOmitsDocumentsWithNoStatus() {
+        InMemoryDocumentStatusStore subject = new InMemoryDocumentStatusStore();
+        subject.put("655321", DocumentExtractStatus.Queued, null);
+        subject.put("655322", DocumentExtractStatus.Submitted, "job002");
+
+        Map<String, DocumentStatusRecord> actual = subject.getAll(Arrays.asList("655321", "655322", "655323"));
+
+        Assert.assertEquals(actual.size(), 2);
+        Assert.assertEquals(actual.get("655321").getStatus(), DocumentExtractStatus.Queued);
+        Assert.assertEquals(actual.get("655322").getJobId(), "job002");
+    }
+}
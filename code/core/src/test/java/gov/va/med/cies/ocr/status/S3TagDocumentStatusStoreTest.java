@@ -0,0 +1,154 @@
+package gov.va.med.cies.ocr.status;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectTaggingRequest;
+import com.amazonaws.services.s3.model.GetObjectTaggingResult;
+import com.amazonaws.services.s3.model.SetObjectTaggingRequest;
+import com.amazonaws.services.s3.model.SetObjectTaggingResult;
+import com.amazonaws.services.s3.model.Tag;
+import gov.va.med.cies.ocr.DocumentExtractStatus;
+import gov.va.med.cies.ocr.HeaderTags;
+import org.apache.http.HttpStatus;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class S3TagDocumentStatusStoreTest {
+    private final String BUCKET_NAME = "sourceBucket";
+
+    // the tag set of each document in the mocked bucket, by identifier
+    private final Map<String, List<Tag>> tagSets = new HashMap<>();
+
+    // S3 replaces the whole tag set, the tags that are not the status are kept
+    @Test
+    public void testPutKeepsOtherTags() {
+        AmazonS3 amazonS3 = createAmazonS3();
+        tagSets.put("655321", tags(
+                new Tag(HeaderTags.METADATA_KEY_CONTENT_SHA256, "abc123"),
+                new Tag(HeaderTags.TAG_KEY_STATUS, "Submitted"),
+                new Tag(HeaderTags.TAG_JOB_ID, "job001")));
+        S3TagDocumentStatusStore subject = new S3TagDocumentStatusStore(amazonS3, BUCKET_NAME);
+
+        subject.put("655321", DocumentExtractStatus.SUCCEEDED, null);
+
+        Assert.assertEquals(tagMap("655321").get(HeaderTags.METADATA_KEY_CONTENT_SHA256), "abc123");
+        Assert.assertEquals(tagMap("655321").get(HeaderTags.TAG_KEY_STATUS), "SUCCEEDED");
+        // without a job ID the job ID of the document is kept
+        Assert.assertEquals(tagMap("655321").get(HeaderTags.TAG_JOB_ID), "job001");
+        Assert.assertEquals(tagSets.get("655321").size(), 3);
+
+        subject.put("655321", DocumentExtractStatus.Submitted, "job002");
+
+        Assert.assertEquals(subject.get("655321").getStatus(), DocumentExtractStatus.Submitted);
+        Assert.assertEquals(subject.get("655321").getJobId(), "job002");
+        Assert.assertEquals(tagSets.get("655321").size(), 3);
+    }
+
+    // a document without a status tag is New
+    @Test
+    public void testCompareAndSetFromNew() {
+        AmazonS3 amazonS3 = createAmazonS3();
+        tagSets.put("655321", tags(new Tag(HeaderTags.METADATA_KEY_CONTENT_SHA256, "abc123")));
+        S3TagDocumentStatusStore subject = new S3TagDocumentStatusStore(amazonS3, BUCKET_NAME);
+        Assert.assertNull(subject.get("655321"));
+
+        final boolean actual = subject.compareAndSet(
+                "655321", EnumSet.of(DocumentExtractStatus.New), DocumentExtractStatus.Submitted, "job001");
+
+        Assert.assertTrue(actual);
+        Assert.assertEquals(subject.get("655321").getStatus(), DocumentExtractStatus.Submitted);
+        Assert.assertEquals(subject.get("655321").getJobId(), "job001");
+    }
+
+    // the status has moved on since the caller read it, the transition is refused and nothing is written
+    @Test
+    public void testCompareAndSetConflict() {
+        AmazonS3 amazonS3 = createAmazonS3();
+        tagSets.put("655321", tags(new Tag(HeaderTags.TAG_KEY_STATUS, "SUCCEEDED"), new Tag(HeaderTags.TAG_JOB_ID, "job001")));
+        S3TagDocumentStatusStore subject = new S3TagDocumentStatusStore(amazonS3, BUCKET_NAME);
+
+        final boolean actual = subject.compareAndSet(
+                "655321", EnumSet.of(DocumentExtractStatus.New, DocumentExtractStatus.Submitted), DocumentExtractStatus.Submitted, "job002");
+
+        Assert.assertFalse(actual);
+        Mockito.verify(amazonS3, Mockito.never()).setObjectTagging(Mockito.any(SetObjectTaggingRequest.class));
+        Assert.assertEquals(subject.get("655321").getStatus(), DocumentExtractStatus.SUCCEEDED);
+        Assert.assertEquals(subject.get("655321").getJobId(), "job001");
+    }
+
+    // a document that does not exist has no status, any other failure is thrown
+    @Test
+    public void testGetAll() {
+        AmazonS3 amazonS3 = createAmazonS3();
+        tagSets.put("655321", tags(new Tag(HeaderTags.TAG_KEY_STATUS, "SUCCEEDED")));
+        tagSets.put("655322", tags(new Tag(HeaderTags.METADATA_KEY_CONTENT_SHA256, "abc123")));
+        S3TagDocumentStatusStore subject = new S3TagDocumentStatusStore(amazonS3, BUCKET_NAME);
+
+        Map<String, DocumentStatusRecord> actual = subject.getAll(Arrays.asList("655321", "655322", "655323"));
+
+        Assert.assertEquals(actual.keySet(), Collections.singleton("655321"));
+        Assert.assertEquals(actual.get("655321").getStatus(), DocumentExtractStatus.SUCCEEDED);
+        Mockito.verify(amazonS3, Mockito.times(3)).getObjectTagging(Mockito.any(GetObjectTaggingRequest.class));
+    }
+
+    @Test(expectedExceptions = AmazonS3Exception.class)
+    public void testGetAllThrowsFailure() {
+        AmazonS3 amazonS3 = createAmazonS3();
+        AmazonS3Exception forbidden = new AmazonS3Exception("Forbidden");
+        forbidden.setStatusCode(HttpStatus.SC_FORBIDDEN);
+        Mockito.doThrow(forbidden)
+                .when(amazonS3)
+                .getObjectTagging(Mockito.any(GetObjectTaggingRequest.class));
+        S3TagDocumentStatusStore subject = new S3TagDocumentStatusStore(amazonS3, BUCKET_NAME);
+
+        subject.getAll(Arrays.asList("655321"));
+    }
+
+    private static List<Tag> tags(final Tag... tags) {
+        return new ArrayList<>(Arrays.asList(tags));
+    }
+
+    private Map<String, String> tagMap(final String identifier) {
+        return tagSets.get(identifier).stream().collect(Collectors.toMap(Tag::getKey, Tag::getValue));
+    }
+
+    // an S3 mock that keeps the tag set of each document, a document without a tag set does not exist
+    private AmazonS3 createAmazonS3() {
+        AmazonS3 amazonS3 = Mockito.mock(AmazonS3.class);
+        tagSets.clear();
+
+        Mockito.doAnswer(invocation -> {
+                    final GetObjectTaggingRequest request = (GetObjectTaggingRequest) invocation.getArguments()[0];
+                    Assert.assertEquals(request.getBucketName(), BUCKET_NAME);
+                    final List<Tag> tagSet = tagSets.get(request.getKey());
+                    if (tagSet == null) {
+                        AmazonS3Exception notFound = new AmazonS3Exception("Not Found");
+                        notFound.setStatusCode(HttpStatus.SC_NOT_FOUND);
+                        throw notFound;
+                    }
+                    return new GetObjectTaggingResult(new ArrayList<>(tagSet));
+                })
+                .when(amazonS3)
+                .getObjectTagging(Mockito.any(GetObjectTaggingRequest.class));
+        Mockito.doAnswer(invocation -> {
+                    final SetObjectTaggingRequest request = (SetObjectTaggingRequest) invocation.getArguments()[0];
+                    Assert.assertEquals(request.getBucketName(), BUCKET_NAME);
+                    tagSets.put(request.getKey(), new ArrayList<>(request.getTagging().getTagSet()));
+                    return new SetObjectTaggingResult();
+                })
+                .when(amazonS3)
+                .setObjectTagging(Mockito.any(SetObjectTaggingRequest.class));
+
+        return amazonS3;
+    }
+}
@@ -0,0 +1,160 @@
+package gov.va.med.cies.ocr.textract;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import gov.va.med.cies.ocr.exceptions.BaseServiceException;
+import gov.va.med.cies.ocr.model.TextractSubmission;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import software.amazon.awssdk.services.textract.model.InvalidS3ObjectException;
+import software.amazon.awssdk.services.textract.model.LimitExceededException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class S3InFlightJobCounterTest {
+    private static final String BUCKET_NAME = "destinationBucket";
+    private static final String PREFIX = "inflight/";
+    private static final Duration EXPIRY = Duration.ofHours(1);
+    // the page size of the mocked listing, smaller than S3 so that the pagination is exercised
+    private static final int PAGE_SIZE = 2;
+
+    // the last modified time of each marker in the mocked bucket, by key
+    private final Map<String, Date> markers = new TreeMap<>();
+
+    @Test
+    public void testAcquireUpToMaximum() {
+        AmazonS3 amazonS3 = createAmazonS3();
+        S3InFlightJobCounter subject = new S3InFlightJobCounter(amazonS3, BUCKET_NAME, PREFIX, 3, EXPIRY);
+
+        Assert.assertTrue(subject.tryAcquire("a"));
+        Assert.assertTrue(subject.tryAcquire("b"));
+        Assert.assertTrue(subject.tryAcquire("c"));
+        Assert.assertFalse(subject.tryAcquire("d"));
+        Assert.assertEquals(subject.count(), 3);
+        Assert.assertEquals(new ArrayList<>(markers.keySet()), List.of(PREFIX + "a", PREFIX + "b", PREFIX + "c"));
+        // a refused job does not write a marker
+        Mockito.verify(amazonS3, Mockito.never()).putObject(BUCKET_NAME, PREFIX + "d", "");
+
+        subject.release("b");
+        Mockito.verify(amazonS3).deleteObject(BUCKET_NAME, PREFIX + "b");
+        Assert.assertTrue(subject.tryAcquire("d"));
+        Assert.assertEquals(subject.count(), 3);
+    }
+
+    // a job whose completion notification was lost does not hold its capacity forever
+    @Test
+    public void testExpiredMarkerIsNotCounted() {
+        AmazonS3 amazonS3 = createAmazonS3();
+        markers.put(PREFIX + "lost", new Date(System.currentTimeMillis() - EXPIRY.toMillis() - 1000L));
+        S3InFlightJobCounter subject = new S3InFlightJobCounter(amazonS3, BUCKET_NAME, PREFIX, 1, EXPIRY);
+
+        Assert.assertEquals(subject.count(), 0);
+        Assert.assertTrue(subject.tryAcquire("a"));
+        Assert.assertFalse(subject.tryAcquire("b"));
+    }
+
+    // the listing is not read past the page that reaches the maximum
+    @Test
+    public void testCountStopsAtMaximum() {
+        AmazonS3 amazonS3 = createAmazonS3();
+        for (int index = 0; index < 5 * PAGE_SIZE; ++index)
+            markers.put(PREFIX + "job" + index, new Date());
+        S3InFlightJobCounter subject = new S3InFlightJobCounter(amazonS3, BUCKET_NAME, PREFIX, 3, EXPIRY);
+
+        Assert.assertEquals(subject.count(), 2 * PAGE_SIZE);
+        Mockito.verify(amazonS3, Mockito.times(2)).listObjectsV2(Mockito.any(ListObjectsV2Request.class));
+    }
+
+    // a job that Textract rejects or that is deferred releases the marker it acquired
+    @Test
+    public void testFailedStartReleasesMarker() throws BaseServiceException {
+        AmazonS3 amazonS3 = createAmazonS3();
+        S3InFlightJobCounter counter = new S3InFlightJobCounter(amazonS3, BUCKET_NAME, PREFIX, 3, EXPIRY);
+        InMemorySubmissionRetryQueue queue = new InMemorySubmissionRetryQueue();
+
+        TextractSubmissionScheduler throttled = createScheduler(counter, queue, submission -> {
+            throw LimitExceededException.builder().message("too many jobs").build();
+        });
+        Assert.assertEquals(throttled.submit(submission("a")).getState(), SubmissionOutcome.State.DEFERRED);
+        Mockito.verify(amazonS3).putObject(BUCKET_NAME, PREFIX + "a", "");
+        Mockito.verify(amazonS3).deleteObject(BUCKET_NAME, PREFIX + "a");
+        Assert.assertEquals(queue.size(), 1);
+
+        TextractSubmissionScheduler rejected = createScheduler(counter, queue, submission -> {
+            throw InvalidS3ObjectException.builder().message("no such object").build();
+        });
+        try {
+            rejected.submit(submission("b"));
+            Assert.fail("the rejected submission did not throw");
+        } catch (BaseServiceException bsX) {
+            Mockito.verify(amazonS3).deleteObject(BUCKET_NAME, PREFIX + "b");
+        }
+
+        Assert.assertTrue(markers.isEmpty());
+        Assert.assertEquals(counter.count(), 0);
+    }
+
+    private TextractSubmission submission(final String jobTag) {
+        return TextractSubmission.create(jobTag, "bucket", "key-" + jobTag);
+    }
+
+    private TextractSubmissionScheduler createScheduler(
+            final InFlightJobCounter counter,
+            final SubmissionRetryQueue queue,
+            final TextractSubmissionScheduler.Starter starter) {
+        return new TextractSubmissionScheduler(
+                new TokenBucket(0.0, 1),
+                counter, queue, starter,
+                3, Duration.ofSeconds(30), Duration.ofSeconds(300));
+    }
+
+    // an S3 mock that keeps the markers written by the counter, listing them in key order a page at a time
+    private AmazonS3 createAmazonS3() {
+        AmazonS3 amazonS3 = Mockito.mock(AmazonS3.class);
+        markers.clear();
+
+        Mockito.doAnswer(invocation -> {
+                    markers.put((String) invocation.getArguments()[1], new Date());
+                    return new PutObjectResult();
+                })
+                .when(amazonS3)
+                .putObject(Mockito.eq(BUCKET_NAME), Mockito.anyString(), Mockito.eq(""));
+        Mockito.doAnswer(invocation -> markers.remove((String) invocation.getArguments()[1]))
+                .when(amazonS3)
+                .deleteObject(Mockito.eq(BUCKET_NAME), Mockito.anyString());
+        Mockito.doAnswer(invocation -> {
+                    final ListObjectsV2Request request = (ListObjectsV2Request) invocation.getArguments()[0];
+                    final List<String> keys = new ArrayList<>();
+                    for (String key : markers.keySet())
+                        if (key.startsWith(request.getPrefix()))
+                            keys.add(key);
+                    final int start = request.getContinuationToken() == null ? 0 : Integer.parseInt(request.getContinuationToken());
+                    final int end = Math.min(keys.size(), start + PAGE_SIZE);
+
+                    ListObjectsV2Result listing = new ListObjectsV2Result();
+                    for (String key : keys.subList(start, end)) {
+                        S3ObjectSummary summary = new S3ObjectSummary();
+                        summary.setBucketName(BUCKET_NAME);
+                        summary.setKey(key);
+                        summary.setLastModified(markers.get(key));
+                        listing.getObjectSummaries().add(summary);
+                    }
+                    listing.setTruncated(end < keys.size());
+                    listing.setNextContinuationToken(end < keys.size() ? Integer.toString(end) : null);
+                    return listing;
+                })
+                .when(amazonS3)
+                .listObjectsV2(Mockito.any(ListObjectsV2Request.class));
+
+        return amazonS3;
+    }
+}
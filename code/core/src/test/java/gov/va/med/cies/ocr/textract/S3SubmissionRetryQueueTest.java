@@ -0,0 +1,176 @@
+package gov.va.med.cies.ocr.textract;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import gov.va.med.cies.ocr.exceptions.BaseServiceException;
+import gov.va.med.cies.ocr.model.TextractSubmission;
+import org.apache.http.HttpStatus;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+public class S3SubmissionRetryQueueTest {
+    private static final String BUCKET_NAME = "destinationBucket";
+    private static final String PREFIX = "retry/";
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    // the content of each entry in the mocked bucket, by key
+    private final Map<String, String> entries = new TreeMap<>();
+
+    // the entries are due in the order of their not before time, whatever the order they were enqueued in
+    @Test
+    public void testDueInNotBeforeOrder() {
+        AmazonS3 amazonS3 = createAmazonS3();
+        S3SubmissionRetryQueue subject = new S3SubmissionRetryQueue(amazonS3, BUCKET_NAME, PREFIX);
+        subject.enqueue(submission("c", NOW.minusSeconds(10)));
+        TextractSubmission later = submission("later", NOW.plusSeconds(10));
+        subject.enqueue(later);
+        subject.enqueue(submission("a", NOW.minusSeconds(1000)));
+        subject.enqueue(submission("b", NOW.minusSeconds(100)));
+
+        Assert.assertEquals(jobTags(subject.due(NOW, 10)), List.of("a", "b", "c"));
+        Assert.assertEquals(jobTags(subject.due(NOW, 2)), List.of("a", "b"));
+        // the entries that are not due are not read
+        Mockito.verify(amazonS3, Mockito.never()).getObjectAsString(Mockito.eq(BUCKET_NAME), Mockito.contains(later.getClientRequestToken()));
+        Assert.assertEquals(jobTags(subject.due(NOW.plusSeconds(10), 10)), List.of("a", "b", "c", "later"));
+    }
+
+    // without the zero padding the key of 1000 would be listed before the key of 900, and end the due entries
+    @Test
+    public void testNotBeforeIsZeroPadded() {
+        AmazonS3 amazonS3 = createAmazonS3();
+        S3SubmissionRetryQueue subject = new S3SubmissionRetryQueue(amazonS3, BUCKET_NAME, PREFIX);
+        subject.enqueue(submission("late", Instant.ofEpochMilli(1000L)));
+        subject.enqueue(submission("early", Instant.ofEpochMilli(900L)));
+
+        Assert.assertEquals(jobTags(subject.due(Instant.ofEpochMilli(950L), 10)), List.of("early"));
+    }
+
+    // another instance removed the entry between the listing and the read
+    @Test
+    public void testRemovedEntryIsSkipped() {
+        AmazonS3 amazonS3 = createAmazonS3();
+        S3SubmissionRetryQueue subject = new S3SubmissionRetryQueue(amazonS3, BUCKET_NAME, PREFIX);
+        TextractSubmission removed = submission("removed", NOW.minusSeconds(100));
+        subject.enqueue(removed);
+        subject.enqueue(submission("a", NOW.minusSeconds(10)));
+
+        AmazonS3Exception notFound = new AmazonS3Exception("Not Found");
+        notFound.setStatusCode(HttpStatus.SC_NOT_FOUND);
+        Mockito.doThrow(notFound)
+                .when(amazonS3)
+                .getObjectAsString(Mockito.eq(BUCKET_NAME), Mockito.contains(removed.getClientRequestToken()));
+
+        Assert.assertEquals(jobTags(subject.due(NOW, 10)), List.of("a"));
+    }
+
+    @Test(expectedExceptions = AmazonS3Exception.class)
+    public void testReadFailureIsThrown() {
+        AmazonS3 amazonS3 = createAmazonS3();
+        S3SubmissionRetryQueue subject = new S3SubmissionRetryQueue(amazonS3, BUCKET_NAME, PREFIX);
+        subject.enqueue(submission("a", NOW.minusSeconds(10)));
+
+        AmazonS3Exception forbidden = new AmazonS3Exception("Forbidden");
+        forbidden.setStatusCode(HttpStatus.SC_FORBIDDEN);
+        Mockito.doThrow(forbidden)
+                .when(amazonS3)
+                .getObjectAsString(Mockito.eq(BUCKET_NAME), Mockito.anyString());
+
+        subject.due(NOW, 10);
+    }
+
+    // the scheduler drains the queue in not before order and stops at the first submission that is deferred again
+    @Test
+    public void testDrainOrder() throws BaseServiceException {
+        AmazonS3 amazonS3 = createAmazonS3();
+        S3SubmissionRetryQueue queue = new S3SubmissionRetryQueue(amazonS3, BUCKET_NAME, PREFIX);
+        queue.enqueue(submission("c", NOW.minusSeconds(10)));
+        queue.enqueue(submission("a", NOW.minusSeconds(1000)));
+        queue.enqueue(submission("b", NOW.minusSeconds(100)));
+        queue.enqueue(submission("d", NOW.minusSeconds(1)));
+
+        // there is capacity for two jobs
+        List<String> started = new ArrayList<>();
+        TextractSubmissionScheduler subject = new TextractSubmissionScheduler(
+                new TokenBucket(0.0, 1),
+                new InMemoryInFlightJobCounter(2),
+                queue,
+                submission -> {
+                    started.add(submission.getJobTag());
+                    return "job-" + submission.getJobTag();
+                },
+                5, Duration.ofSeconds(30), Duration.ofSeconds(300),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+
+        List<SubmissionOutcome> outcomes = subject.drain(10);
+
+        Assert.assertEquals(started, List.of("a", "b"));
+        Assert.assertEquals(outcomes.stream().map(SubmissionOutcome::getState).collect(Collectors.toList()),
+                List.of(SubmissionOutcome.State.SUBMITTED, SubmissionOutcome.State.SUBMITTED, SubmissionOutcome.State.DEFERRED));
+        // c was deferred again, after d, and d was not tried
+        Assert.assertEquals(jobTags(queue.due(NOW.plusSeconds(300), 10)), List.of("d", "c"));
+        Assert.assertEquals(queue.due(NOW.plusSeconds(300), 10).get(1).getAttempt(), 2);
+    }
+
+    private TextractSubmission submission(final String jobTag, final Instant notBefore) {
+        return TextractSubmission.create(jobTag, "bucket", "key-" + jobTag).retry(notBefore);
+    }
+
+    private List<String> jobTags(final List<TextractSubmission> submissions) {
+        return submissions.stream().map(TextractSubmission::getJobTag).collect(Collectors.toList());
+    }
+
+    // an S3 mock that keeps the entries written by the queue, listing them in key order as S3 does
+    private AmazonS3 createAmazonS3() {
+        AmazonS3 amazonS3 = Mockito.mock(AmazonS3.class);
+        entries.clear();
+
+        Mockito.doAnswer(invocation -> {
+                    entries.put((String) invocation.getArguments()[1], (String) invocation.getArguments()[2]);
+                    return new PutObjectResult();
+                })
+                .when(amazonS3)
+                .putObject(Mockito.eq(BUCKET_NAME), Mockito.anyString(), Mockito.anyString());
+        Mockito.doAnswer(invocation -> entries.remove((String) invocation.getArguments()[1]))
+                .when(amazonS3)
+                .deleteObject(Mockito.eq(BUCKET_NAME), Mockito.anyString());
+        Mockito.doAnswer(invocation -> entries.get((String) invocation.getArguments()[1]))
+                .when(amazonS3)
+                .getObjectAsString(Mockito.eq(BUCKET_NAME), Mockito.anyString());
+        Mockito.doAnswer(invocation -> {
+                    final ListObjectsV2Request request = (ListObjectsV2Request) invocation.getArguments()[0];
+                    ListObjectsV2Result listing = new ListObjectsV2Result();
+                    for (String key : entries.keySet()) {
+                        if (!key.startsWith(request.getPrefix()))
+                            continue;
+                        if (request.getMaxKeys() != null && listing.getObjectSummaries().size() == request.getMaxKeys()) {
+                            listing.setTruncated(true);
+                            break;
+                        }
+                        S3ObjectSummary summary = new S3ObjectSummary();
+                        summary.setBucketName(BUCKET_NAME);
+                        summary.setKey(key);
+                        listing.getObjectSummaries().add(summary);
+                    }
+                    return listing;
+                })
+                .when(amazonS3)
+                .listObjectsV2(Mockito.any(ListObjectsV2Request.class));
+
+        return amazonS3;
+    }
+}
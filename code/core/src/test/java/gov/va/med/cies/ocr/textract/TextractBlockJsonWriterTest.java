@@ -0,0 +1,80 @@
+package gov.va.med.cies.ocr.textract;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import software.amazon.awssdk.services.textract.model.Block;
+import software.amazon.awssdk.services.textract.model.BlockType;
+import software.amazon.awssdk.services.textract.model.Point;
+import software.amazon.awssdk.services.textract.model.Relationship;
+import software.amazon.awssdk.services.textract.model.RelationshipType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class TextractBlockJsonWriterTest {
+    @Test
+    public void testBlocksOfEveryPageAreWritten() throws IOException {
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        try (TextractBlockJsonWriter subject = new TextractBlockJsonWriter(outStream, "job-1")) {
+            subject.write(List.of(
+                    Block.builder().blockType(BlockType.PAGE).id("p1").page(1)
+                            .relationships(Relationship.builder().type(RelationshipType.CHILD).ids("l1").build())
+                            .build(),
+                    Block.builder().blockType(BlockType.LINE).id("l1").page(1).text("line 1").confidence(99.5f)
+                            .geometry(geometry -> geometry
+                                    .boundingBox(box -> box.width(0.5f).height(0.25f).left(0.125f).top(0.0625f))
+                                    .polygon(Point.builder().x(0.125f).y(0.0625f).build()))
+                            .build()));
+            subject.write(Collections.singletonList(
+                    Block.builder().blockType(BlockType.LINE).id("l2").page(2).text("line 2").build()));
+        }
+
+        JsonNode actual = new ObjectMapper().readTree(outStream.toByteArray());
+
+        Assert.assertEquals(actual.get("JobId").asText(), "job-1");
+        JsonNode blocks = actual.get("Blocks");
+        Assert.assertEquals(blocks.size(), 3);
+        Assert.assertEquals(blocks.get(0).get("BlockType").asText(), "PAGE");
+        Assert.assertEquals(blocks.get(0).get("Relationships").get(0).get("Type").asText(), "CHILD");
+        Assert.assertEquals(blocks.get(0).get("Relationships").get(0).get("Ids").get(0).asText(), "l1");
+        Assert.assertEquals(blocks.get(1).get("Text").asText(), "line 1");
+        Assert.assertEquals(blocks.get(1).get("Confidence").floatValue(), 99.5f);
+        Assert.assertEquals(blocks.get(1).get("Geometry").get("BoundingBox").get("Width").floatValue(), 0.5f);
+        Assert.assertEquals(blocks.get(1).get("Geometry").get("Polygon").get(0).get("Y").floatValue(), 0.0625f);
+        Assert.assertEquals(blocks.get(2).get("Page").asInt(), 2);
+    }
+
+    // absent values are omitted rather than written as null
+    @Test
+    public void testAbsentValuesAreOmitted() throws IOException {
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        try (TextractBlockJsonWriter subject = new TextractBlockJsonWriter(outStream, "job-1")) {
+            subject.write(Collections.singletonList(Block.builder().blockType(BlockType.WORD).id("w1").build()));
+        }
+
+        JsonNode block = new ObjectMapper().readTree(outStream.toByteArray()).get("Blocks").get(0);
+
+        Assert.assertEquals(block.size(), 2);
+        Assert.assertFalse(block.has("Geometry"));
+        Assert.assertFalse(block.has("Relationships"));
+    }
+
+    @Test
+    public void testCompressedResult() throws IOException {
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        try (TextractBlockJsonWriter subject = new TextractBlockJsonWriter(new GZIPOutputStream(outStream), "job-1")) {
+            subject.write(Collections.singletonList(Block.builder().blockType(BlockType.LINE).text("line 1").build()));
+        }
+
+        JsonNode actual = new ObjectMapper().readTree(new GZIPInputStream(new ByteArrayInputStream(outStream.toByteArray())));
+
+        Assert.assertEquals(actual.get("Blocks").get(0).get("Text").asText(), "line 1");
+    }
+}
@@ -0,0 +1,62 @@
+package gov.va.med.cies.ocr.textract;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import software.amazon.awssdk.services.textract.model.Block;
+import software.amazon.awssdk.services.textract.model.BlockType;
+import software.amazon.awssdk.services.textract.model.InvalidJobIdException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TextractResultPagerTest {
+    @Test
+    public void testPagesAreConsumedInOrder() {
+        TextractResultPager subject = new TextractResultPager(nextToken -> page(nextToken == null ? 0 : Integer.parseInt(nextToken), 5));
+
+        List<String> actual = new ArrayList<>();
+        subject.forEachPage(blocks -> blocks.forEach(block -> actual.add(block.text())));
+
+        Assert.assertEquals(actual, List.of("line 0", "line 1", "line 2", "line 3", "line 4"));
+    }
+
+    // the next page is requested before the current page has been consumed
+    @Test
+    public void testNextPageIsPrefetched() throws InterruptedException {
+        final CountDownLatch secondPageRequested = new CountDownLatch(1);
+        TextractResultPager subject = new TextractResultPager(nextToken -> {
+            final int index = nextToken == null ? 0 : Integer.parseInt(nextToken);
+            if (index == 1)
+                secondPageRequested.countDown();
+            return page(index, 2);
+        });
+
+        List<Boolean> prefetched = new ArrayList<>();
+        subject.forEachPage(blocks -> {
+            if (blocks.get(0).text().equals("line 0"))
+                prefetched.add(secondPageRequested.await(5, TimeUnit.SECONDS));
+        });
+
+        Assert.assertEquals(prefetched, List.of(true));
+    }
+
+    @Test(expectedExceptions = InvalidJobIdException.class)
+    public void testTextractExceptionIsRethrown() {
+        TextractResultPager subject = new TextractResultPager(nextToken -> {
+            if (nextToken != null)
+                throw InvalidJobIdException.builder().message("expired").build();
+            return page(0, 2);
+        });
+
+        subject.forEachPage(blocks -> {});
+    }
+
+    private static TextractResultPager.ResultPage page(final int index, final int pageCount) {
+        return new TextractResultPager.ResultPage(
+                Collections.singletonList(Block.builder().blockType(BlockType.LINE).text("line " + index).build()),
+                index + 1 < pageCount ? String.valueOf(index + 1) : null);
+    }
+}
@@ -0,0 +1,151 @@
+package gov.va.med.cies.ocr.textract;
+
+import gov.va.med.cies.ocr.exceptions.BaseServiceException;
+import gov.va.med.cies.ocr.model.TextractSubmission;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import software.amazon.awssdk.services.textract.model.InvalidS3ObjectException;
+import software.amazon.awssdk.services.textract.model.LimitExceededException;
+import software.amazon.awssdk.services.textract.model.ProvisionedThroughputExceededException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class TextractSubmissionSchedulerTest {
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+    private static final Duration BASE_DELAY = Duration.ofSeconds(30);
+    private static final Duration MAXIMUM_DELAY = Duration.ofSeconds(300);
+
+    @Test
+    public void testConcurrentJobQuota() throws BaseServiceException {
+        InMemoryInFlightJobCounter counter = new InMemoryInFlightJobCounter(2);
+        InMemorySubmissionRetryQueue queue = new InMemorySubmissionRetryQueue();
+        List<String> started = new ArrayList<>();
+        TextractSubmissionScheduler subject = createSubject(counter, queue, submission -> {
+            started.add(submission.getJobTag());
+            return "job-" + submission.getJobTag();
+        }, NOW);
+
+        Assert.assertEquals(subject.submit(submission("a")).getState(), SubmissionOutcome.State.SUBMITTED);
+        Assert.assertEquals(subject.submit(submission("b")).getState(), SubmissionOutcome.State.SUBMITTED);
+        SubmissionOutcome outcome = subject.submit(submission("c"));
+        Assert.assertEquals(outcome.getState(), SubmissionOutcome.State.DEFERRED);
+        Assert.assertEquals(outcome.getSubmission().getAttempt(), 1);
+        Assert.assertEquals(started, List.of("a", "b"));
+        Assert.assertEquals(queue.size(), 1);
+        Assert.assertEquals(counter.count(), 2);
+
+        // the retry is not due until after the backoff, even when there is capacity
+        subject.release("a");
+        Assert.assertTrue(subject.drain(10).isEmpty());
+
+        TextractSubmissionScheduler later = createSubject(counter, queue, submission -> "job-" + submission.getJobTag(), NOW.plus(MAXIMUM_DELAY));
+        List<SubmissionOutcome> outcomes = later.drain(10);
+        Assert.assertEquals(outcomes.size(), 1);
+        Assert.assertEquals(outcomes.get(0).getState(), SubmissionOutcome.State.SUBMITTED);
+        Assert.assertEquals(outcomes.get(0).getJobId(), "job-c");
+        Assert.assertEquals(queue.size(), 0);
+    }
+
+    @Test
+    public void testThrottledSubmissionIsDeferred() throws BaseServiceException {
+        InMemoryInFlightJobCounter counter = new InMemoryInFlightJobCounter(0);
+        InMemorySubmissionRetryQueue queue = new InMemorySubmissionRetryQueue();
+        TextractSubmissionScheduler subject = createSubject(counter, queue, submission -> {
+            throw ProvisionedThroughputExceededException.builder().message("slow down").build();
+        }, NOW);
+
+        TextractSubmission submission = submission("a");
+        SubmissionOutcome outcome = subject.submit(submission);
+        Assert.assertEquals(outcome.getState(), SubmissionOutcome.State.DEFERRED);
+        // the retry is the same submission, Textract would not start a second job for it
+        Assert.assertEquals(outcome.getSubmission().getClientRequestToken(), submission.getClientRequestToken());
+        Assert.assertTrue(outcome.getSubmission().getNotBefore() >= NOW.plus(BASE_DELAY.dividedBy(2)).toEpochMilli());
+        Assert.assertTrue(outcome.getSubmission().getNotBefore() <= NOW.plus(BASE_DELAY).toEpochMilli());
+        // a deferred submission does not count against the concurrent job quota
+        Assert.assertEquals(counter.count(), 0);
+        Assert.assertEquals(queue.size(), 1);
+    }
+
+    @Test
+    public void testSubmissionIsAbandonedAfterMaximumAttempts() throws BaseServiceException {
+        InMemorySubmissionRetryQueue queue = new InMemorySubmissionRetryQueue();
+        TextractSubmissionScheduler.Starter starter = submission -> {
+            throw LimitExceededException.builder().message("too many jobs").build();
+        };
+
+        TextractSubmission submission = submission("a");
+        for (int attempt = 1; attempt < 3; ++attempt) {
+            TextractSubmissionScheduler subject = createSubject(new InMemoryInFlightJobCounter(0), queue, starter, NOW.plus(Duration.ofDays(attempt)));
+            SubmissionOutcome outcome = attempt == 1 ? subject.submit(submission) : subject.drain(10).get(0);
+            Assert.assertEquals(outcome.getState(), SubmissionOutcome.State.DEFERRED);
+            Assert.assertEquals(queue.size(), 1);
+        }
+
+        TextractSubmissionScheduler subject = createSubject(new InMemoryInFlightJobCounter(0), queue, starter, NOW.plus(Duration.ofDays(3)));
+        List<SubmissionOutcome> outcomes = subject.drain(10);
+        Assert.assertEquals(outcomes.stream().map(SubmissionOutcome::getState).collect(Collectors.toList()),
+                List.of(SubmissionOutcome.State.ABANDONED));
+        Assert.assertEquals(queue.size(), 0);
+    }
+
+    @Test(expectedExceptions = BaseServiceException.class)
+    public void testRejectedSubmission() throws BaseServiceException {
+        InMemoryInFlightJobCounter counter = new InMemoryInFlightJobCounter(10);
+        TextractSubmissionScheduler subject = createSubject(counter, new InMemorySubmissionRetryQueue(), submission -> {
+            throw InvalidS3ObjectException.builder().message("no such object").build();
+        }, NOW);
+
+        try {
+            subject.submit(submission("a"));
+        } finally {
+            Assert.assertEquals(counter.count(), 0);
+        }
+    }
+
+    @Test
+    public void testBackoff() {
+        TextractSubmissionScheduler subject = createSubject(
+                new InMemoryInFlightJobCounter(0), new InMemorySubmissionRetryQueue(), submission -> null, NOW);
+
+        for (int attempt = 0; attempt < 40; ++attempt) {
+            final long ceiling = Math.min(MAXIMUM_DELAY.toMillis(), BASE_DELAY.toMillis() << Math.min(attempt, 20));
+            final long actual = subject.backoff(attempt).toMillis();
+            Assert.assertTrue(actual >= ceiling / 2 && actual <= ceiling, "attempt " + attempt + " delay " + actual);
+        }
+    }
+
+    @Test
+    public void testSubmissionRoundTrip() {
+        TextractSubmission expected = submission("doc:1").retry(NOW);
+        TextractSubmission actual = TextractSubmission.fromJson(expected.toJson());
+
+        Assert.assertEquals(actual.getJobTag(), "doc:1");
+        Assert.assertEquals(actual.getBucket(), expected.getBucket());
+        Assert.assertEquals(actual.getKey(), expected.getKey());
+        Assert.assertEquals(actual.getClientRequestToken(), expected.getClientRequestToken());
+        Assert.assertEquals(actual.getAttempt(), 1);
+        Assert.assertEquals(actual.getNotBefore(), NOW.toEpochMilli());
+    }
+
+    private TextractSubmission submission(final String jobTag) {
+        return TextractSubmission.create(jobTag, "bucket", "key-" + jobTag);
+    }
+
+    private TextractSubmissionScheduler createSubject(
+            final InFlightJobCounter counter,
+            final SubmissionRetryQueue queue,
+            final TextractSubmissionScheduler.Starter starter,
+            final Instant now) {
+        return new TextractSubmissionScheduler(
+                new TokenBucket(0.0, 1),
+                counter, queue, starter,
+                3, BASE_DELAY, MAXIMUM_DELAY,
+                Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
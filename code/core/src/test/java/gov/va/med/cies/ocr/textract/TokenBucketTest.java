@@ -0,0 +1,49 @@
+package gov.va.med.cies.ocr.textract;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TokenBucketTest {
+    @Test
+    public void testBurstThenRate() {
+        final AtomicLong nanoTime = new AtomicLong(0L);
+        TokenBucket subject = new TokenBucket(2.0, 2, nanoTime::get);
+
+        // the bucket starts full
+        Assert.assertTrue(subject.tryAcquire());
+        Assert.assertTrue(subject.tryAcquire());
+        Assert.assertFalse(subject.tryAcquire());
+
+        // a permit is added every half second
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(499));
+        Assert.assertFalse(subject.tryAcquire());
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        Assert.assertTrue(subject.tryAcquire());
+
+        // never more than the capacity
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        Assert.assertTrue(subject.tryAcquire());
+        Assert.assertTrue(subject.tryAcquire());
+        Assert.assertFalse(subject.tryAcquire());
+    }
+
+    @Test
+    public void testTimedAcquire() throws InterruptedException {
+        TokenBucket subject = new TokenBucket(20.0, 1);
+        Assert.assertTrue(subject.tryAcquire());
+
+        // the next permit is 50ms away
+        Assert.assertFalse(subject.tryAcquire(10, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(subject.tryAcquire(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testUnlimited() {
+        TokenBucket subject = new TokenBucket(0.0, 1);
+        for (int index = 0; index < 1000; ++index)
+            Assert.assertTrue(subject.tryAcquire());
+    }
+}
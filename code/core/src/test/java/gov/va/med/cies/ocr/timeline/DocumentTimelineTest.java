@@ -0,0 +1,139 @@
+package gov.va.med.cies.ocr.timeline;
+
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+public class DocumentTimelineTest {
+    private static final Instant UPLOADED = Instant.ofEpochMilli(1700000000000L);
+
+    private static DocumentTimeline timeline(final String identifier, final long... stageOffsets) {
+        Map<DocumentTimeline.Stage, Instant> stages = new EnumMap<>(DocumentTimeline.Stage.class);
+        for (int index = 0; index < stageOffsets.length; ++index)
+            if (stageOffsets[index] >= 0)
+                stages.put(DocumentTimeline.Stage.values()[index], UPLOADED.plusMillis(stageOffsets[index]));
+        return new DocumentTimeline(identifier, Collections.emptyMap()).with(stages);
+    }
+
+    @Test
+    public void testJsonRoundTrip() {
+        DocumentTimeline subject = timeline("655321", 0, 850, -1, -1, 1200);
+
+        // each stage is keyed by a single letter
+        Assert.assertEquals(new JSONObject(subject.toJson()).keySet(), new HashSet<>(Arrays.asList("i", "u", "e", "r")));
+        DocumentTimeline actual = DocumentTimeline.fromJson(subject.toJson());
+
+        Assert.assertEquals(actual.getIdentifier(), "655321");
+        Assert.assertEquals(actual.getTimestamps(), subject.getTimestamps());
+        Assert.assertNull(actual.getTimestamp(DocumentTimeline.Stage.TEXTRACT_SUBMITTED));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testFromInvalidJson() {
+        DocumentTimeline.fromJson("{\"u\":1700000000000}");
+    }
+
+    // the latency of a stage is since the previous stage that was reached, never less than zero
+    @Test
+    public void testStageLatencies() {
+        DocumentTimeline subject = timeline("655321", 0, 500, 700, 60700, 60500);
+
+        Map<DocumentTimeline.Stage, Long> actual = subject.getStageLatencies();
+
+        Assert.assertFalse(actual.containsKey(DocumentTimeline.Stage.UPLOAD_RECEIVED));
+        Assert.assertEquals(actual.get(DocumentTimeline.Stage.SHORTCUT_EVALUATED), Long.valueOf(500L));
+        Assert.assertEquals(actual.get(DocumentTimeline.Stage.TEXTRACT_SUBMITTED), Long.valueOf(200L));
+        Assert.assertEquals(actual.get(DocumentTimeline.Stage.NOTIFICATION_RECEIVED), Long.valueOf(60000L));
+        Assert.assertEquals(actual.get(DocumentTimeline.Stage.RESULTS_STORED), Long.valueOf(0L));
+        Assert.assertEquals(subject.getTotalLatency(), Long.valueOf(60500L));
+    }
+
+    // a stage recorded again replaces the earlier time, the other stages are kept
+    @Test
+    public void testWith() {
+        DocumentTimeline subject = timeline("655321", 0, 500, 700);
+
+        DocumentTimeline actual = subject.with(Collections.singletonMap(DocumentTimeline.Stage.TEXTRACT_SUBMITTED, UPLOADED.plusMillis(900)));
+
+        Assert.assertEquals(actual.getTimestamp(DocumentTimeline.Stage.TEXTRACT_SUBMITTED), UPLOADED.plusMillis(900));
+        Assert.assertEquals(actual.getTimestamp(DocumentTimeline.Stage.SHORTCUT_EVALUATED), UPLOADED.plusMillis(500));
+        Assert.assertEquals(subject.getTimestamp(DocumentTimeline.Stage.TEXTRACT_SUBMITTED), UPLOADED.plusMillis(700));
+        Assert.assertNull(actual.getTotalLatency());
+    }
+
+    // each transition is a key, the transitions of an upload of a document make its timeline
+    @Test
+    public void testTransitionKeys() {
+        final Instant uploadedAgain = UPLOADED.plusMillis(3600000L);
+        List<String> keys = Arrays.asList(
+                DocumentTimeline.createTransitionKey("655321", UPLOADED, stages(500, 700, -1, -1)),
+                DocumentTimeline.createTransitionKey("655321", UPLOADED, stages(-1, -1, 60700, 61000)),
+                DocumentTimeline.createTransitionKey("655321", uploadedAgain, Collections.singletonMap(
+                        DocumentTimeline.Stage.SHORTCUT_EVALUATED, uploadedAgain.plusMillis(300))),
+                DocumentTimeline.createTransitionKey("claims/655322", UPLOADED, stages(400, -1, -1, 900)),
+                DocumentTimeline.KEY_PREFIX + "not-a-transition");
+
+        Assert.assertEquals(keys.get(0), "timeline/2023-11-14T22/655321/1700000000000/e1700000000500.s1700000000700");
+        Assert.assertTrue(keys.get(0).startsWith(DocumentTimeline.createHourPrefix(UPLOADED)));
+        List<DocumentTimeline> actual = DocumentTimeline.fromTransitionKeys(keys);
+
+        Assert.assertEquals(actual.size(), 3);
+        Assert.assertEquals(actual.get(0).getIdentifier(), "655321");
+        Assert.assertEquals(actual.get(0).getTimestamp(DocumentTimeline.Stage.UPLOAD_RECEIVED), UPLOADED);
+        Assert.assertEquals(actual.get(0).getTimestamp(DocumentTimeline.Stage.TEXTRACT_SUBMITTED), UPLOADED.plusMillis(700));
+        Assert.assertEquals(actual.get(0).getTotalLatency(), Long.valueOf(61000L));
+        // a document uploaded again starts a new timeline
+        Assert.assertEquals(actual.get(1).getTimestamp(DocumentTimeline.Stage.UPLOAD_RECEIVED), uploadedAgain);
+        Assert.assertNull(actual.get(1).getTimestamp(DocumentTimeline.Stage.TEXTRACT_SUBMITTED));
+        Assert.assertEquals(actual.get(2).getIdentifier(), "claims/655322");
+        Assert.assertEquals(actual.get(2).getTotalLatency(), Long.valueOf(900L));
+    }
+
+    // the stages after the upload, at the given offsets (a negative offset was not reached)
+    private static Map<DocumentTimeline.Stage, Instant> stages(final long... stageOffsets) {
+        Map<DocumentTimeline.Stage, Instant> stages = new EnumMap<>(DocumentTimeline.Stage.class);
+        for (int index = 0; index < stageOffsets.length; ++index)
+            if (stageOffsets[index] >= 0)
+                stages.put(DocumentTimeline.Stage.values()[index + 1], UPLOADED.plusMillis(stageOffsets[index]));
+        return stages;
+    }
+
+    @Test
+    public void testLatencyHistogram() {
+        LatencyHistogram subject = new LatencyHistogram();
+        Assert.assertEquals(subject.getPercentile(99.0), 0L);
+
+        for (long latency = 1; latency <= 1000; ++latency)
+            subject.record(latency);
+
+        Assert.assertEquals(subject.getCount(), 1000L);
+        Assert.assertEquals(subject.getMaximum(), 1000L);
+        // each percentile is no less than the recorded latency, and within a bucket (19%) of it
+        Assert.assertTrue(subject.getPercentile(50.0) >= 500L && subject.getPercentile(50.0) <= 595L, "p50 " + subject.getPercentile(50.0));
+        Assert.assertTrue(subject.getPercentile(90.0) >= 900L && subject.getPercentile(90.0) <= 1000L, "p90 " + subject.getPercentile(90.0));
+        Assert.assertEquals(subject.getPercentile(100.0), 1000L);
+    }
+
+    @Test
+    public void testStageLatencyReport() {
+        StageLatencyReport subject = StageLatencyReport.of(Arrays.asList(
+                timeline("655321", 0, 500, -1, -1, 600),
+                timeline("655322", 0, 400, 450, 30450, 31450)), Duration.ofHours(24));
+
+        Assert.assertEquals(subject.getDocuments(), 2);
+        Assert.assertFalse(subject.getHistograms().containsKey(DocumentTimeline.Stage.UPLOAD_RECEIVED.name()));
+        Assert.assertEquals(subject.getHistograms().get(DocumentTimeline.Stage.SHORTCUT_EVALUATED.name()).getCount(), 2L);
+        Assert.assertEquals(subject.getHistograms().get(DocumentTimeline.Stage.TEXTRACT_SUBMITTED.name()).getCount(), 1L);
+        Assert.assertEquals(subject.getHistograms().get(DocumentTimeline.Stage.RESULTS_STORED.name()).getMaximum(), 1000L);
+        Assert.assertEquals(subject.getHistograms().get(StageLatencyReport.TOTAL).getMaximum(), 31450L);
+    }
+}
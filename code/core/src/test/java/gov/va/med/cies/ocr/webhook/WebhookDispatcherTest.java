@@ -0,0 +1,220 @@
+package gov.va.med.cies.ocr.webhook;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import gov.va.med.cies.ocr.DocumentExtractStatus;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Delivers to a local HTTP server standing in for the callers' receivers.
+ */
+public class WebhookDispatcherTest {
+    private HttpServer server;
+    private final ConcurrentLinkedQueue<String> receivedBodies = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<String> receivedIdentifiers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maximumConcurrent = new AtomicInteger();
+    // the response status of each request, by request number
+    private volatile IntSupplier responseStatus;
+    private volatile long responseDelayMillis;
+
+    @BeforeMethod
+    public void startServer() throws IOException {
+        receivedBodies.clear();
+        receivedIdentifiers.clear();
+        requests.set(0);
+        concurrent.set(0);
+        maximumConcurrent.set(0);
+        responseStatus = () -> 204;
+        responseDelayMillis = 0L;
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/callback", this::handle);
+        server.start();
+    }
+
+    @AfterMethod
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        final int current = concurrent.incrementAndGet();
+        maximumConcurrent.accumulateAndGet(current, Math::max);
+        try {
+            requests.incrementAndGet();
+            receivedBodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            receivedIdentifiers.add(exchange.getRequestHeaders().getFirst(WebhookDispatcher.DOCUMENT_ID_HEADER));
+            if (responseDelayMillis > 0L)
+                Thread.sleep(responseDelayMillis);
+            exchange.sendResponseHeaders(responseStatus.getAsInt(), -1);
+        } catch (InterruptedException iX) {
+            Thread.currentThread().interrupt();
+        } finally {
+            concurrent.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private String callbackUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/callback";
+    }
+
+    private WebhookDispatcher createTestSubject(final int maximumConcurrency) {
+        return new WebhookDispatcher(maximumConcurrency, 3, Duration.ofMillis(10), Duration.ofSeconds(5), Duration.ofSeconds(30));
+    }
+
+    @Test
+    public void testDeliver() {
+        WebhookDispatcher subject = createTestSubject(2);
+
+        final int actual = subject.deliver(Collections.singletonList(
+                new WebhookNotification(callbackUrl(), "655321", DocumentExtractStatus.SUCCEEDED, "job001", "some text")));
+
+        Assert.assertEquals(actual, 1);
+        Assert.assertEquals(receivedIdentifiers.peek(), "655321");
+        final String body = receivedBodies.peek();
+        Assert.assertTrue(body.contains("\"status\":\"SUCCEEDED\""), body);
+        Assert.assertTrue(body.contains("\"text\":\"some text\""), body);
+        Assert.assertFalse(body.contains("callbackUrl"), body);
+    }
+
+    // a text that is not inline is not in the body
+    @Test
+    public void testDeliverWithoutText() {
+        WebhookDispatcher subject = createTestSubject(2);
+
+        subject.deliver(Collections.singletonList(
+                new WebhookNotification(callbackUrl(), "655321", DocumentExtractStatus.FAILED, "job001", null)));
+
+        Assert.assertFalse(receivedBodies.peek().contains("\"text\""), receivedBodies.peek());
+    }
+
+    @Test
+    public void testServerErrorIsRetried() {
+        responseStatus = () -> requests.get() < 3 ? 503 : 200;
+        WebhookDispatcher subject = createTestSubject(2);
+
+        final boolean actual = subject.deliver(
+                new WebhookNotification(callbackUrl(), "655321", DocumentExtractStatus.SUCCEEDED, "job001", null));
+
+        Assert.assertTrue(actual);
+        Assert.assertEquals(requests.get(), 3);
+    }
+
+    @Test
+    public void testClientErrorIsNotRetried() {
+        responseStatus = () -> 400;
+        WebhookDispatcher subject = createTestSubject(2);
+
+        final boolean actual = subject.deliver(
+                new WebhookNotification(callbackUrl(), "655321", DocumentExtractStatus.SUCCEEDED, "job001", null));
+
+        Assert.assertFalse(actual);
+        Assert.assertEquals(requests.get(), 1);
+    }
+
+    @Test
+    public void testAttemptsAreLimited() {
+        responseStatus = () -> 500;
+        WebhookDispatcher subject = createTestSubject(2);
+
+        final boolean actual = subject.deliver(
+                new WebhookNotification(callbackUrl(), "655321", DocumentExtractStatus.SUCCEEDED, "job001", null));
+
+        Assert.assertFalse(actual);
+        Assert.assertEquals(requests.get(), 3);
+    }
+
+    // a batch is delivered by no more than the maximum concurrency
+    @Test
+    public void testConcurrencyIsBounded() {
+        responseDelayMillis = 50L;
+        WebhookDispatcher subject = createTestSubject(3);
+        List<WebhookNotification> notifications = new ArrayList<>();
+        for (int index = 0; index < 12; ++index)
+            notifications.add(new WebhookNotification(callbackUrl(), "id" + index, DocumentExtractStatus.SUCCEEDED, null, null));
+
+        final int actual = subject.deliver(notifications);
+
+        Assert.assertEquals(actual, 12);
+        Assert.assertEquals(receivedIdentifiers.size(), 12);
+        Assert.assertTrue(maximumConcurrent.get() <= 3, "maximum concurrent requests was " + maximumConcurrent.get());
+    }
+
+    // a receiver that does not respond holds the batch no longer than the delivery deadline
+    @Test
+    public void testSlowReceiverIsAbandonedAtDeadline() {
+        responseDelayMillis = 5000L;
+        WebhookDispatcher subject = new WebhookDispatcher(2, 3, Duration.ofMillis(10), Duration.ofSeconds(5), Duration.ofMillis(300));
+        List<WebhookNotification> notifications = new ArrayList<>();
+        for (int index = 0; index < 4; ++index)
+            notifications.add(new WebhookNotification(callbackUrl(), "id" + index, DocumentExtractStatus.SUCCEEDED, null, null));
+
+        final long start = System.nanoTime();
+        final int actual = subject.deliver(notifications);
+        final long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        Assert.assertEquals(actual, 0);
+        Assert.assertTrue(elapsedMillis < 2000L, "deliver() took " + elapsedMillis + "ms");
+    }
+
+    // the attempts start after 0, 100, 300 and 700ms, the next would start after the deadline
+    @Test
+    public void testRetriesStopAtDeadline() {
+        responseStatus = () -> 503;
+        WebhookDispatcher subject = new WebhookDispatcher(2, 10, Duration.ofMillis(100), Duration.ofSeconds(5), Duration.ofSeconds(1));
+
+        final boolean actual = subject.deliver(
+                new WebhookNotification(callbackUrl(), "655321", DocumentExtractStatus.SUCCEEDED, "job001", null));
+
+        Assert.assertFalse(actual);
+        Assert.assertEquals(requests.get(), 4);
+    }
+
+    @Test
+    public void testIsValidCallbackUrl() {
+        final Set<String> allowedHosts = new HashSet<>(Arrays.asList("example.com", ".receivers.example.org"));
+
+        Assert.assertTrue(WebhookDispatcher.isValidCallbackUrl("https://example.com/ocr/callback", allowedHosts));
+        Assert.assertTrue(WebhookDispatcher.isValidCallbackUrl("https://EXAMPLE.com:8443/ocr/callback", allowedHosts));
+        Assert.assertTrue(WebhookDispatcher.isValidCallbackUrl("https://claims.receivers.example.org/callback", allowedHosts));
+        Assert.assertFalse(WebhookDispatcher.isValidCallbackUrl("http://example.com/ocr/callback", allowedHosts));
+        Assert.assertFalse(WebhookDispatcher.isValidCallbackUrl("https://other.example.com/callback", allowedHosts));
+        Assert.assertFalse(WebhookDispatcher.isValidCallbackUrl("https://example.com.attacker.net/callback", allowedHosts));
+        Assert.assertFalse(WebhookDispatcher.isValidCallbackUrl("https://receivers.example.org.attacker.net/callback", allowedHosts));
+        Assert.assertFalse(WebhookDispatcher.isValidCallbackUrl("https://user@example.com/callback", allowedHosts));
+        Assert.assertFalse(WebhookDispatcher.isValidCallbackUrl("https://169.254.169.254/latest/meta-data", allowedHosts));
+        Assert.assertFalse(WebhookDispatcher.isValidCallbackUrl("file:///etc/passwd", allowedHosts));
+        Assert.assertFalse(WebhookDispatcher.isValidCallbackUrl("/callback", allowedHosts));
+        Assert.assertFalse(WebhookDispatcher.isValidCallbackUrl("not a url", allowedHosts));
+        Assert.assertFalse(WebhookDispatcher.isValidCallbackUrl(null, allowedHosts));
+    }
+
+    // no callback URL is accepted until the allowed hosts are configured
+    @Test
+    public void testNoCallbackUrlIsValidWithoutAllowedHosts() {
+        Assert.assertFalse(WebhookDispatcher.isValidCallbackUrl("https://example.com/ocr/callback", Collections.emptySet()));
+        Assert.assertFalse(WebhookDispatcher.isValidCallbackUrl("https://example.com/ocr/callback", null));
+    }
+}
@@ -0,0 +1,111 @@
+package gov.va.med.cies.ocr;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import gov.va.med.cies.ocr.exceptions.AbstractApplicationException;
+import gov.va.med.cies.ocr.provider.ProviderRegistry;
+import gov.va.med.cies.ocr.timeline.DocumentTimeline;
+import org.apache.http.HttpHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.EnumSet;
+import java.util.Map;
+
+/**
+ * This Lambda reports where the time goes in the extraction pipeline.
+ * GET /admin/timeline/{identifier} - when each stage of the extraction of the document was reached,
+ *   see DocumentTimeline for the format
+ * GET /admin/latency - the latency of each stage over the recently recorded timelines, see StageLatencyReport
+ * A request must send the shared admin token (the ADMIN_TOKEN environment variable) in the X-Admin-Token header,
+ * every request is refused if the function has no token.
+ */
+public class AdminLambda
+        extends AbstractApplicationLoadBalancerLambda {
+    public static final String TIMELINE_PATH_PREFIX = "/admin/timeline/";
+    public static final String LATENCY_PATH = "/admin/latency";
+    public static final String ADMIN_TOKEN_HEADER = "X-Admin-Token";
+    public static final String ADMIN_TOKEN_VARIABLE = "ADMIN_TOKEN";
+
+    private final Logger logger = LoggerFactory.getLogger(AdminLambda.class);
+    // null if there is no token
+    private final byte[] adminToken;
+
+    public AdminLambda() {
+        super(EnumSet.of(ProviderRegistry.Dependency.S3));
+        adminToken = toBytes(System.getenv(ADMIN_TOKEN_VARIABLE));
+    }
+
+    // for the tests, a function that uses the given DocumentExtractManager and admin token
+    AdminLambda(final DocumentExtractManager dxm, final String adminToken) {
+        super(EnumSet.of(ProviderRegistry.Dependency.S3), dxm);
+        this.adminToken = toBytes(adminToken);
+    }
+
+    public ApplicationLoadBalancerResponseEvent handleRequest(ApplicationLoadBalancerRequestEvent request, Context context) {
+        logger.debug("handleRequest({}, {})", request, context);
+
+        ApplicationLoadBalancerResponseEventBuilder resultBuilder = new ApplicationLoadBalancerResponseEventBuilder();
+        final String path = request.getPath() == null ? "" : request.getPath();
+
+        if (!isAuthorized(request)) {
+            resultBuilder.forbidden(ADMIN_TOKEN_HEADER + " is missing or is not the admin token");
+        } else if (!"GET".equals(request.getHttpMethod())) {
+            resultBuilder.methodNotAllowed(request.getHttpMethod() + " method not handled");
+        } else if (path.startsWith(TIMELINE_PATH_PREFIX) && path.length() > TIMELINE_PATH_PREFIX.length()) {
+            processTimelineRequest(Utility.returnLastPathElement(path), resultBuilder);
+        } else if (LATENCY_PATH.equals(path)) {
+            processLatencyRequest(resultBuilder);
+        } else {
+            resultBuilder.notFound(path + " not found");
+        }
+
+        return resultBuilder.build();
+    }
+
+    // the ALB passes the names of the headers in lower case, the token is compared in constant time
+    private boolean isAuthorized(final ApplicationLoadBalancerRequestEvent request) {
+        if (adminToken == null) {
+            logger.warn("isAuthorized(), {} is not set, the request is refused", ADMIN_TOKEN_VARIABLE);
+            return false;
+        }
+        final Map<String, String> headers = request.getHeaders();
+        if (headers != null)
+            for (Map.Entry<String, String> header : headers.entrySet())
+                if (ADMIN_TOKEN_HEADER.equalsIgnoreCase(header.getKey()) && header.getValue() != null)
+                    return MessageDigest.isEqual(adminToken, header.getValue().getBytes(StandardCharsets.UTF_8));
+        return false;
+    }
+
+    private static byte[] toBytes(final String token) {
+        return token == null || token.isEmpty() ? null : token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void processTimelineRequest(final String identifier, final ApplicationLoadBalancerResponseEventBuilder resultBuilder) {
+        try {
+            final DocumentTimeline timeline = getDocumentExtractManager().getDocumentTimeline(identifier);
+            if (timeline == null) {
+                resultBuilder.notFound("No timeline recorded for " + identifier);
+            } else {
+                resultBuilder.addHeader(HttpHeaders.CONTENT_TYPE, "application/json");
+                resultBuilder.body(timeline.toJson());
+                resultBuilder.ok();
+            }
+        } catch (AbstractApplicationException aaX) {
+            resultBuilder.serverError(aaX.getMessage());
+        }
+    }
+
+    private void processLatencyRequest(final ApplicationLoadBalancerResponseEventBuilder resultBuilder) {
+        try {
+            resultBuilder.addHeader(HttpHeaders.CONTENT_TYPE, "application/json");
+            resultBuilder.body(getDocumentExtractManager().getStageLatencyReport().toJson());
+            resultBuilder.ok();
+        } catch (AbstractApplicationException aaX) {
+            resultBuilder.serverError(aaX.getMessage());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package gov.va.med.cies.ocr;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import gov.va.med.cies.ocr.exceptions.BaseServiceException;
+import gov.va.med.cies.ocr.timeline.DocumentTimeline;
+import gov.va.med.cies.ocr.timeline.StageLatencyReport;
+import org.apache.http.HttpStatus;
+import org.json.JSONObject;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+public class AdminLambdaTest {
+    private static final String ADMIN_TOKEN = "b7c1e2d0-admin";
+
+    @Test
+    public void testTimeline() throws BaseServiceException {
+        DocumentExtractManager dxm = Mockito.mock(DocumentExtractManager.class);
+        Map<DocumentTimeline.Stage, Long> timestamps = new EnumMap<>(DocumentTimeline.Stage.class);
+        timestamps.put(DocumentTimeline.Stage.UPLOAD_RECEIVED, 1700000000000L);
+        timestamps.put(DocumentTimeline.Stage.RESULTS_STORED, 1700000001200L);
+        Mockito.when(dxm.getDocumentTimeline("655321")).thenReturn(new DocumentTimeline("655321", timestamps));
+
+        ApplicationLoadBalancerResponseEvent actual = new AdminLambda(dxm, ADMIN_TOKEN)
+                .handleRequest(request("GET", AdminLambda.TIMELINE_PATH_PREFIX + "655321", headers(ADMIN_TOKEN)), null);
+
+        Assert.assertEquals(actual.getStatusCode(), HttpStatus.SC_OK);
+        Assert.assertEquals(DocumentTimeline.fromJson(actual.getBody()).getTotalLatency(), Long.valueOf(1200L));
+    }
+
+    @Test
+    public void testTimelineNotFound() throws BaseServiceException {
+        DocumentExtractManager dxm = Mockito.mock(DocumentExtractManager.class);
+
+        ApplicationLoadBalancerResponseEvent actual = new AdminLambda(dxm, ADMIN_TOKEN)
+                .handleRequest(request("GET", AdminLambda.TIMELINE_PATH_PREFIX + "655321", headers(ADMIN_TOKEN)), null);
+
+        Assert.assertEquals(actual.getStatusCode(), HttpStatus.SC_NOT_FOUND);
+        Mockito.verify(dxm).getDocumentTimeline("655321");
+    }
+
+    // the ALB passes the names of the headers in lower case
+    @Test
+    public void testLatency() throws BaseServiceException {
+        DocumentExtractManager dxm = Mockito.mock(DocumentExtractManager.class);
+        Mockito.when(dxm.getStageLatencyReport()).thenReturn(StageLatencyReport.of(Collections.emptyList(), Duration.ofHours(1)));
+
+        ApplicationLoadBalancerResponseEvent actual = new AdminLambda(dxm, ADMIN_TOKEN)
+                .handleRequest(request("GET", AdminLambda.LATENCY_PATH, Collections.singletonMap("x-admin-token", ADMIN_TOKEN)), null);
+
+        Assert.assertEquals(actual.getStatusCode(), HttpStatus.SC_OK);
+        Assert.assertEquals(new JSONObject(actual.getBody()).getInt("documents"), 0);
+    }
+
+    @Test
+    public void testLatencyFailure() throws BaseServiceException {
+        DocumentExtractManager dxm = Mockito.mock(DocumentExtractManager.class);
+        Mockito.when(dxm.getStageLatencyReport()).thenThrow(new BaseServiceException("Failed to list the timelines"));
+
+        ApplicationLoadBalancerResponseEvent actual = new AdminLambda(dxm, ADMIN_TOKEN)
+                .handleRequest(request("GET", AdminLambda.LATENCY_PATH, headers(ADMIN_TOKEN)), null);
+
+        Assert.assertEquals(actual.getStatusCode(), HttpStatus.SC_INTERNAL_SERVER_ERROR);
+    }
+
+    // admin token of the function, headers of the request
+    @DataProvider(name = "ForbiddenDataProvider")
+    public Object[][] forbiddenDataProvider() {
+        return new Object[][]{
+                {ADMIN_TOKEN, null},
+                {ADMIN_TOKEN, Collections.emptyMap()},
+                {ADMIN_TOKEN, headers("")},
+                {ADMIN_TOKEN, headers(ADMIN_TOKEN + "x")},
+                {ADMIN_TOKEN, headers(ADMIN_TOKEN.toUpperCase())},
+                // a function without a token refuses every request
+                {null, headers(ADMIN_TOKEN)},
+                {"", headers("")}
+        };
+    }
+
+    // a request without the admin token is refused before any document is read, whatever its method or path
+    @Test(dataProvider = "ForbiddenDataProvider")
+    public void testForbidden(final String adminToken, final Map<String, String> headers) throws BaseServiceException {
+        DocumentExtractManager dxm = Mockito.mock(DocumentExtractManager.class);
+        AdminLambda subject = new AdminLambda(dxm, adminToken);
+
+        for (String path : new String[]{AdminLambda.TIMELINE_PATH_PREFIX + "655321", AdminLambda.LATENCY_PATH, "/admin/other"}) {
+            Assert.assertEquals(subject.handleRequest(request("GET", path, headers), null).getStatusCode(), HttpStatus.SC_FORBIDDEN, path);
+            Assert.assertEquals(subject.handleRequest(request("POST", path, headers), null).getStatusCode(), HttpStatus.SC_FORBIDDEN, path);
+        }
+        Mockito.verify(dxm, Mockito.never()).getDocumentTimeline(Mockito.anyString());
+        Mockito.verify(dxm, Mockito.never()).getStageLatencyReport();
+    }
+
+    @Test
+    public void testMethodNotAllowed() {
+        DocumentExtractManager dxm = Mockito.mock(DocumentExtractManager.class);
+
+        ApplicationLoadBalancerResponseEvent actual = new AdminLambda(dxm, ADMIN_TOKEN)
+                .handleRequest(request("DELETE", AdminLambda.LATENCY_PATH, headers(ADMIN_TOKEN)), null);
+
+        Assert.assertEquals(actual.getStatusCode(), HttpStatus.SC_METHOD_NOT_ALLOWED);
+    }
+
+    private static Map<String, String> headers(final String adminToken) {
+        Map<String, String> result = new HashMap<>();
+        result.put(AdminLambda.ADMIN_TOKEN_HEADER, adminToken);
+        return result;
+    }
+
+    private static ApplicationLoadBalancerRequestEvent request(final String method, final String path, final Map<String, String> headers) {
+        ApplicationLoadBalancerRequestEvent result = new ApplicationLoadBalancerRequestEvent();
+        result.setHttpMethod(method);
+        result.setPath(path);
+        result.setHeaders(headers);
+        result.setIsBase64Encoded(false);
+        return result;
+    }
+}
@@ -6,27 +6,39 @@ import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerReque
 import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
 import gov.va.med.cies.ocr.exceptions.AbstractApplicationException;
 import gov.va.med.cies.ocr.exceptions.BaseClientException;
+import gov.va.med.cies.ocr.io.S3CallScope;
 import gov.va.med.cies.ocr.model.CanonicalDocument;
 import gov.va.med.cies.ocr.model.CanonicalRequest;
 import gov.va.med.cies.ocr.model.CanonicalResponse;
+import gov.va.med.cies.ocr.provider.ProviderRegistry;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * This Lambda handles the interaction with the Source Bucket (POST, PUT, GET, DELETE)
  */
 public class DocumentLambda
         extends AbstractApplicationLoadBalancerLambda {
+    // HEAD /{identifier}?waitFor=SUCCEEDED,FAILED&timeout=25 waits (up to 25 seconds) for one of the statuses
+    public static final String WAIT_FOR_PARAMETER = "waitFor";
+    public static final String TIMEOUT_PARAMETER = "timeout";
+    public static final Duration DEFAULT_WAIT_TIMEOUT = Duration.ofSeconds(25);
+    // the time kept back from the Lambda timeout to return the response
+    public static final Duration WAIT_RESPONSE_MARGIN = Duration.ofSeconds(1);
+
     private final Logger logger = LoggerFactory.getLogger(DocumentLambda.class);
 
     public DocumentLambda() {
-        super();
+        super(EnumSet.of(ProviderRegistry.Dependency.S3));
     }
 
     public ApplicationLoadBalancerResponseEvent handleRequest(ApplicationLoadBalancerRequestEvent request, Context context) {
@@ -43,9 +55,25 @@ public class DocumentLambda
             return resultBuilder.build();
         }
 
+        // POST and PUT check that the document does (not) exist before saving it, the S3 calls of the
+        // request share a scope so that what one operation has read is not read again by the next
+        final S3CallScope s3CallScope = getDocumentExtractManager().openS3CallScope(DocumentLambda.class.getSimpleName() + "." + canonicalRequest.getMethod());
+        try {
+            processRequest(canonicalRequest, context, resultBuilder);
+        } finally {
+            s3CallScope.close();
+        }
+
+        return resultBuilder.build();
+    }
+
+    private void processRequest(
+            final CanonicalRequest canonicalRequest,
+            final Context context,
+            final ApplicationLoadBalancerResponseEventBuilder resultBuilder) {
         switch(canonicalRequest.getMethod()) {
             case "HEAD":
-                processHeadRequest(canonicalRequest, resultBuilder);
+                processHeadRequest(canonicalRequest, context, resultBuilder);
                 break;
             case "GET":
                 processGetRequest(canonicalRequest, resultBuilder);
@@ -62,12 +90,27 @@ public class DocumentLambda
             default:
                 resultBuilder.methodNotAllowed(canonicalRequest.getMethod() + " method not handled");
         }
-
-        return resultBuilder.build();
     }
 
-    private void processHeadRequest(final CanonicalRequest canonicalRequest, final ApplicationLoadBalancerResponseEventBuilder resultBuilder) {
-        CanonicalResponse response = getDocumentExtractManager().getDocumentMetadata(canonicalRequest);
+    private void processHeadRequest(
+            final CanonicalRequest canonicalRequest,
+            final Context context,
+            final ApplicationLoadBalancerResponseEventBuilder resultBuilder) {
+        CanonicalResponse response = null;
+        if (canonicalRequest.getParameter(WAIT_FOR_PARAMETER) == null) {
+            response = getDocumentExtractManager().getDocumentMetadata(canonicalRequest);
+        } else {
+            final Set<DocumentExtractStatus> waitFor;
+            final Duration timeout;
+            try {
+                waitFor = parseStatuses(canonicalRequest.getParameter(WAIT_FOR_PARAMETER));
+                timeout = parseTimeout(canonicalRequest.getParameter(TIMEOUT_PARAMETER), context);
+            } catch (IllegalArgumentException iaX) {
+                resultBuilder.badRequest(iaX.getMessage());
+                return;
+            }
+            response = getDocumentExtractManager().waitForDocumentStatus(canonicalRequest, waitFor, timeout);
+        }
         if (response == null || response.getDocumentCount() == 0) {
             resultBuilder.notFound(canonicalRequest.getCanonicalDocument().getIdentifier());
         }
@@ -81,6 +124,50 @@ public class DocumentLambda
         }
     }
 
+    /**
+     * @param value a comma separated list of DocumentExtractStatus names in any case, e.g. "SUCCEEDED,failed"
+     * @throws IllegalArgumentException if a name is not a DocumentExtractStatus
+     */
+    static Set<DocumentExtractStatus> parseStatuses(final String value) {
+        Set<DocumentExtractStatus> result = EnumSet.noneOf(DocumentExtractStatus.class);
+        for (String name : value.split(",")) {
+            if (name.trim().isEmpty())
+                continue;
+            try {
+                result.add(DocumentExtractStatus.valueOfIgnoreCase(name.trim()));
+            } catch (IllegalArgumentException iaX) {
+                throw new IllegalArgumentException(WAIT_FOR_PARAMETER + " [" + name.trim() + "] is not a document status");
+            }
+        }
+        if (result.isEmpty())
+            throw new IllegalArgumentException(WAIT_FOR_PARAMETER + " must include at least one document status");
+        return result;
+    }
+
+    /**
+     * @param value the timeout in seconds, DEFAULT_WAIT_TIMEOUT if null
+     * @return the timeout, limited to the time remaining before the Lambda times out
+     * @throws IllegalArgumentException if the value is not a non-negative number
+     */
+    static Duration parseTimeout(final String value, final Context context) {
+        Duration result = DEFAULT_WAIT_TIMEOUT;
+        if (value != null) {
+            try {
+                result = Duration.ofSeconds(Long.parseLong(value.trim()));
+            } catch (NumberFormatException nfX) {
+                throw new IllegalArgumentException(TIMEOUT_PARAMETER + " [" + value + "] is not a number of seconds");
+            }
+            if (result.isNegative())
+                throw new IllegalArgumentException(TIMEOUT_PARAMETER + " [" + value + "] must not be negative");
+        }
+        if (context != null) {
+            final Duration remaining = Duration.ofMillis(context.getRemainingTimeInMillis()).minus(WAIT_RESPONSE_MARGIN);
+            if (remaining.compareTo(result) < 0)
+                result = remaining.isNegative() ? Duration.ZERO : remaining;
+        }
+        return result;
+    }
+
     private void processGetRequest(final CanonicalRequest canonicalRequest, final ApplicationLoadBalancerResponseEventBuilder resultBuilder) {
         try {
             CanonicalResponse response = getDocumentExtractManager().getDocumentFromSourceBucket(canonicalRequest);
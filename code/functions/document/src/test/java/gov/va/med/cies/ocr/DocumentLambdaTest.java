@@ -0,0 +1,87 @@
+package gov.va.med.cies.ocr;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+
+public class DocumentLambdaTest {
+
+    @DataProvider(name = "StatusesDataProvider")
+    public Object[][] statusesDataProvider() {
+        return new Object[][]{
+                {"SUCCEEDED,FAILED", EnumSet.of(DocumentExtractStatus.SUCCEEDED, DocumentExtractStatus.FAILED)},
+                // the names of the statuses are not consistently capitalized, any case is accepted
+                {"succeeded", EnumSet.of(DocumentExtractStatus.SUCCEEDED)},
+                {"submitted,QUEUED,new", EnumSet.of(DocumentExtractStatus.Submitted, DocumentExtractStatus.Queued, DocumentExtractStatus.New)},
+                {" Failed , ,succeeded ", EnumSet.of(DocumentExtractStatus.SUCCEEDED, DocumentExtractStatus.FAILED)}
+        };
+    }
+
+    @Test(dataProvider = "StatusesDataProvider")
+    public void testParseStatuses(final String value, final Set<DocumentExtractStatus> expected) {
+        Assert.assertEquals(DocumentLambda.parseStatuses(value), expected);
+    }
+
+    // the HEAD request responds 400 with the message
+    @DataProvider(name = "InvalidStatusesDataProvider")
+    public Object[][] invalidStatusesDataProvider() {
+        return new Object[][]{
+                {"RUNNING"},
+                {"SUCCEEDED,DONE"},
+                {""},
+                {" , "}
+        };
+    }
+
+    @Test(dataProvider = "InvalidStatusesDataProvider", expectedExceptions = IllegalArgumentException.class)
+    public void testParseInvalidStatuses(final String value) {
+        DocumentLambda.parseStatuses(value);
+    }
+
+    @DataProvider(name = "TimeoutDataProvider")
+    public Object[][] timeoutDataProvider() {
+        return new Object[][]{
+                // value, milliseconds remaining before the Lambda times out (null for no context), expected
+                {null, null, DocumentLambda.DEFAULT_WAIT_TIMEOUT},
+                {"10", null, Duration.ofSeconds(10)},
+                {" 0 ", null, Duration.ZERO},
+                {"10", 60_000, Duration.ofSeconds(10)},
+                // limited to the time remaining, less the margin to respond
+                {"25", 5_000, Duration.ofSeconds(4)},
+                {null, 5_000, Duration.ofSeconds(4)},
+                {"25", 500, Duration.ZERO}
+        };
+    }
+
+    @Test(dataProvider = "TimeoutDataProvider")
+    public void testParseTimeout(final String value, final Integer remainingMillis, final Duration expected) {
+        Context context = null;
+        if (remainingMillis != null) {
+            context = Mockito.mock(Context.class);
+            Mockito.when(context.getRemainingTimeInMillis()).thenReturn(remainingMillis);
+        }
+
+        Assert.assertEquals(DocumentLambda.parseTimeout(value, context), expected);
+    }
+
+    @DataProvider(name = "InvalidTimeoutDataProvider")
+    public Object[][] invalidTimeoutDataProvider() {
+        return new Object[][]{
+                {"-1"},
+                {"ten"},
+                {"2.5"},
+                {""}
+        };
+    }
+
+    @Test(dataProvider = "InvalidTimeoutDataProvider", expectedExceptions = IllegalArgumentException.class)
+    public void testParseInvalidTimeout(final String value) {
+        DocumentLambda.parseTimeout(value, null);
+    }
+}
@@ -0,0 +1,75 @@
+package gov.va.med.cies.ocr;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SNSEvent;
+import gov.va.med.cies.ocr.exceptions.InstanceValidationException;
+import gov.va.med.cies.ocr.model.CanonicalDocument;
+import gov.va.med.cies.ocr.model.CanonicalRequest;
+import gov.va.med.cies.ocr.model.CanonicalResponse;
+import gov.va.med.cies.ocr.provider.ProviderRegistry;
+import org.apache.http.HttpStatus;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumSet;
+
+/**
+ * This Lambda receives SNS notification from Textract when the status of
+ * document recognition changes.
+ */
+public class ExtractStatusNotificationLambda
+        extends AbstractBaseLambda
+        implements RequestHandler<SNSEvent, Void> {
+    private final Logger logger = LoggerFactory.getLogger(ExtractStatusNotificationLambda.class);
+
+    public ExtractStatusNotificationLambda() {
+        super(EnumSet.of(ProviderRegistry.Dependency.S3, ProviderRegistry.Dependency.TEXTRACT));
+    }
+
+    @Override
+    public Void handleRequest(final SNSEvent snsEvent, final Context context) {
+        logger.debug("handleRequest ({}, {})", snsEvent, context);
+
+        // each notification is handled on its own, one that fails is logged and does not stop the others
+        getRecordProcessor().process(snsEvent.getRecords(), snsEventRecord -> {
+            try {
+                JSONObject parsedMsg = new JSONObject(snsEventRecord.getSNS().getMessage());
+                // the job tag is the document identifier, with a chunk index if the document has a manifest (was split
+                // or only some of its pages were submitted)
+                final String jobTag = parsedMsg.get("JobTag").toString();
+                final String identifier = Utility.getDocumentIdFromJobTag(jobTag);
+                final String status = parsedMsg.get("Status").toString();
+                final String jobId = parsedMsg.optString("JobId", null);
+
+                final CanonicalDocument canonicalDocument = CanonicalDocument.builder()
+                        .withIdentifier(identifier)
+                        .withDocumentExtractStatus(DocumentExtractStatus.of(status))
+                        .withJobId(jobId)
+                        .withChunkIndex(Utility.getChunkIndexFromJobTag(jobTag))
+                        .build();
+                CanonicalRequest.Builder canonicalRequestBuilder = CanonicalRequest.builder()
+                        .withMethod("ExtractComplete")
+                        .withCanonicalDocument(canonicalDocument);
+
+                CanonicalResponse response = getDocumentExtractManager().moveExtractedTextToDestination(canonicalRequestBuilder.build());
+                if (HttpStatus.SC_OK != response.getResult()) {
+                    logger.warn("Unable to move extracted text for document [{}] with [{}]", identifier, response.getException());
+                }
+            } catch (InstanceValidationException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        // the completed jobs have freed capacity for documents waiting in the retry queue
+        CanonicalResponse response = getDocumentExtractManager().submitQueuedDocuments();
+        if (HttpStatus.SC_OK != response.getResult())
+            logger.warn("Unable to submit queued documents with [{}]", response.getException());
+
+        // push the completions to the callers that registered a callback URL
+        getDocumentExtractManager().deliverCompletionNotifications();
+
+        return null;
+    }
+}
@@ -9,12 +9,14 @@ import gov.va.med.cies.ocr.exceptions.BaseClientException;
 import gov.va.med.cies.ocr.model.CanonicalDocument;
 import gov.va.med.cies.ocr.model.CanonicalRequest;
 import gov.va.med.cies.ocr.model.CanonicalResponse;
+import gov.va.med.cies.ocr.provider.ProviderRegistry;
 import org.apache.http.HttpHeaders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.EnumSet;
 import java.util.Map;
 
 /**
@@ -25,7 +27,7 @@ public class PresignedUrlLambda
     private final Logger logger = LoggerFactory.getLogger(PresignedUrlLambda.class);
 
     public PresignedUrlLambda() {
-        super();
+        super(EnumSet.of(ProviderRegistry.Dependency.S3));
     }
 
     public ApplicationLoadBalancerResponseEvent handleRequest(ApplicationLoadBalancerRequestEvent request, Context context) {
@@ -0,0 +1,102 @@
+package gov.va.med.cies.ocr;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import gov.va.med.cies.ocr.exceptions.AbstractApplicationException;
+import gov.va.med.cies.ocr.exceptions.BaseClientException;
+import gov.va.med.cies.ocr.model.CanonicalDocument;
+import gov.va.med.cies.ocr.model.CanonicalRequest;
+import gov.va.med.cies.ocr.model.DocumentStatusQuery;
+import gov.va.med.cies.ocr.model.DocumentStatusQueryResult;
+import gov.va.med.cies.ocr.provider.ProviderRegistry;
+import org.apache.http.HttpHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.EnumSet;
+
+/**
+ * This Lambda returns the status of many documents in one request (POST /status), see DocumentStatusQuery
+ * and DocumentStatusQueryResult for the request and response bodies.
+ */
+public class StatusQueryLambda
+        extends AbstractApplicationLoadBalancerLambda {
+    private final Logger logger = LoggerFactory.getLogger(StatusQueryLambda.class);
+
+    public StatusQueryLambda() {
+        super(EnumSet.of(ProviderRegistry.Dependency.S3));
+    }
+
+    // for the tests, a function that uses the given DocumentExtractManager
+    StatusQueryLambda(final DocumentExtractManager dxm) {
+        super(EnumSet.of(ProviderRegistry.Dependency.S3), dxm);
+    }
+
+    public ApplicationLoadBalancerResponseEvent handleRequest(ApplicationLoadBalancerRequestEvent request, Context context) {
+        logger.debug("handleRequest({}, {})", request, context);
+
+        ApplicationLoadBalancerResponseEventBuilder resultBuilder = new ApplicationLoadBalancerResponseEventBuilder();
+
+        CanonicalRequest canonicalRequest = null;
+        try {
+            canonicalRequest = parse(request);
+        } catch (BaseClientException e) {
+            resultBuilder.badRequest("Failed to parse ApplicationLoadBalancerRequestEvent");
+            return resultBuilder.build();
+        }
+
+        switch(canonicalRequest.getMethod()) {
+            case "POST":
+                processPostRequest(canonicalRequest, resultBuilder);
+                break;
+            case "GET":
+            case "PUT":
+            case "DELETE":
+            case "HEAD":
+            default:
+                resultBuilder.methodNotAllowed(canonicalRequest.getMethod() + " method not handled");
+        }
+
+        return resultBuilder.build();
+    }
+
+    private void processPostRequest(final CanonicalRequest canonicalRequest, final ApplicationLoadBalancerResponseEventBuilder resultBuilder) {
+        final DocumentStatusQuery query;
+        try {
+            query = DocumentStatusQuery.fromJson(readBody(canonicalRequest.getCanonicalDocument()));
+        } catch (IllegalArgumentException | IOException x) {
+            resultBuilder.badRequest(x.getMessage());
+            return;
+        }
+        if (query.getIdentifiers().size() > getDocumentExtractManager().getStatusQueryMaximumIdentifiers()) {
+            resultBuilder.badRequest("A status query is limited to "
+                    + getDocumentExtractManager().getStatusQueryMaximumIdentifiers() + " identifiers");
+            return;
+        }
+
+        try {
+            DocumentStatusQueryResult result = getDocumentExtractManager().queryDocumentStatus(query);
+            resultBuilder.addHeader(HttpHeaders.CONTENT_TYPE, "application/json");
+            resultBuilder.body(result.toJson());
+            resultBuilder.ok();
+        } catch (AbstractApplicationException aaX) {
+            resultBuilder.serverError(aaX.getMessage());
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no body or it is not valid Base64
+     */
+    private static String readBody(final CanonicalDocument document) throws IOException {
+        if (!document.hasBody())
+            throw new IllegalArgumentException("A status query must have a body");
+        final String body = document.getBody();
+        return document.isBodyIsBase64Encoded()
+                ? new String(Base64.getDecoder().decode(body), StandardCharsets.UTF_8)
+                : body;
+    }
+}
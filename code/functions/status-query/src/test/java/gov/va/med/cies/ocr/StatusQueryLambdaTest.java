@@ -0,0 +1,126 @@
+package gov.va.med.cies.ocr;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import gov.va.med.cies.ocr.exceptions.BaseServiceException;
+import gov.va.med.cies.ocr.model.CanonicalDocument;
+import gov.va.med.cies.ocr.model.DocumentStatusQuery;
+import gov.va.med.cies.ocr.model.DocumentStatusQueryResult;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.json.JSONObject;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+public class StatusQueryLambdaTest {
+    private static final int MAXIMUM_IDENTIFIERS = 3;
+
+    // the body is passed to the DocumentExtractManager as a query, as it is or Base64 encoded by the ALB
+    @DataProvider(name = "QueryDataProvider")
+    public Object[][] queryDataProvider() {
+        final String json = "{\"identifiers\": [\"655321\", \"655322\"], \"metadata\": false}";
+        return new Object[][]{
+                {json, false},
+                {Base64.getEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8)), true}
+        };
+    }
+
+    @Test(dataProvider = "QueryDataProvider")
+    public void testQuery(final String body, final boolean isBase64Encoded) throws BaseServiceException {
+        DocumentExtractManager dxm = createDocumentExtractManager();
+        Mockito.when(dxm.queryDocumentStatus(Mockito.any(DocumentStatusQuery.class))).thenReturn(new DocumentStatusQueryResult(
+                Collections.singletonMap("655321", CanonicalDocument.builder()
+                        .withIdentifier("655321")
+                        .withDocumentExtractStatus(DocumentExtractStatus.SUCCEEDED)
+                        .build()),
+                Collections.singletonList("655322"),
+                Collections.emptyList()));
+
+        ApplicationLoadBalancerResponseEvent actual = createSubject(dxm).handleRequest(request("POST", body, isBase64Encoded), null);
+
+        Assert.assertEquals(actual.getStatusCode(), HttpStatus.SC_OK);
+        Assert.assertEquals(actual.getHeaders().get(HttpHeaders.CONTENT_TYPE), "application/json");
+        JSONObject result = new JSONObject(actual.getBody());
+        Assert.assertEquals(result.getJSONObject("documents").getJSONObject("655321").getString("s"), "SUCCEEDED");
+        Assert.assertEquals(result.getJSONArray("notFound").getString(0), "655322");
+
+        ArgumentCaptor<DocumentStatusQuery> query = ArgumentCaptor.forClass(DocumentStatusQuery.class);
+        Mockito.verify(dxm).queryDocumentStatus(query.capture());
+        Assert.assertEquals(query.getValue().getIdentifiers(), Arrays.asList("655321", "655322"));
+        Assert.assertFalse(query.getValue().isIncludeMetadata());
+    }
+
+    // the request is refused before any document is read
+    @DataProvider(name = "BadRequestDataProvider")
+    public Object[][] badRequestDataProvider() {
+        return new Object[][]{
+                {null},
+                {"not JSON"},
+                {"{\"metadata\": true}"},
+                {"{\"identifiers\": [\"655321\", \"\"]}"},
+                {"{\"identifiers\": [\"1\", \"2\", \"3\", \"4\"]}"}
+        };
+    }
+
+    @Test(dataProvider = "BadRequestDataProvider")
+    public void testBadRequest(final String body) throws BaseServiceException {
+        DocumentExtractManager dxm = createDocumentExtractManager();
+
+        ApplicationLoadBalancerResponseEvent actual = createSubject(dxm).handleRequest(request("POST", body, false), null);
+
+        Assert.assertEquals(actual.getStatusCode(), HttpStatus.SC_BAD_REQUEST);
+        Mockito.verify(dxm, Mockito.never()).queryDocumentStatus(Mockito.any(DocumentStatusQuery.class));
+    }
+
+    @Test
+    public void testQueryFailure() throws BaseServiceException {
+        DocumentExtractManager dxm = createDocumentExtractManager();
+        Mockito.when(dxm.queryDocumentStatus(Mockito.any(DocumentStatusQuery.class)))
+                .thenThrow(new BaseServiceException("Failed to read the status of the documents"));
+
+        ApplicationLoadBalancerResponseEvent actual = createSubject(dxm)
+                .handleRequest(request("POST", "{\"identifiers\": [\"655321\"]}", false), null);
+
+        Assert.assertEquals(actual.getStatusCode(), HttpStatus.SC_INTERNAL_SERVER_ERROR);
+    }
+
+    @Test
+    public void testMethodNotAllowed() throws BaseServiceException {
+        DocumentExtractManager dxm = createDocumentExtractManager();
+
+        for (String method : List.of("GET", "PUT", "DELETE", "HEAD")) {
+            ApplicationLoadBalancerResponseEvent actual = createSubject(dxm).handleRequest(request(method, "{\"identifiers\": [\"655321\"]}", false), null);
+            Assert.assertEquals(actual.getStatusCode(), HttpStatus.SC_METHOD_NOT_ALLOWED, method);
+        }
+        Mockito.verify(dxm, Mockito.never()).queryDocumentStatus(Mockito.any(DocumentStatusQuery.class));
+    }
+
+    private static DocumentExtractManager createDocumentExtractManager() {
+        DocumentExtractManager dxm = Mockito.mock(DocumentExtractManager.class);
+        Mockito.when(dxm.getStatusQueryMaximumIdentifiers()).thenReturn(MAXIMUM_IDENTIFIERS);
+        return dxm;
+    }
+
+    private static StatusQueryLambda createSubject(final DocumentExtractManager dxm) {
+        return new StatusQueryLambda(dxm);
+    }
+
+    private static ApplicationLoadBalancerRequestEvent request(final String method, final String body, final boolean isBase64Encoded) {
+        ApplicationLoadBalancerRequestEvent result = new ApplicationLoadBalancerRequestEvent();
+        result.setHttpMethod(method);
+        result.setPath("/status");
+        result.setHeaders(Collections.singletonMap(HttpHeaders.CONTENT_TYPE, "application/json"));
+        result.setBody(body);
+        result.setIsBase64Encoded(isBase64Encoded);
+        return result;
+    }
+}
@@ -0,0 +1,40 @@
+package gov.va.med.cies.ocr;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.ScheduledEvent;
+import gov.va.med.cies.ocr.model.CanonicalResponse;
+import gov.va.med.cies.ocr.provider.ProviderRegistry;
+import org.apache.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumSet;
+
+/**
+ * This Lambda is triggered on a schedule to retry the Textract submissions that were deferred, in case
+ * no Textract job completes to trigger the retry.
+ */
+public class SubmissionRetryLambda
+        extends AbstractBaseLambda
+        implements RequestHandler<ScheduledEvent, Void> {
+    private final Logger logger = LoggerFactory.getLogger(SubmissionRetryLambda.class);
+
+    public SubmissionRetryLambda() {
+        super(EnumSet.of(ProviderRegistry.Dependency.S3, ProviderRegistry.Dependency.TEXTRACT));
+    }
+
+    @Override
+    public Void handleRequest(final ScheduledEvent scheduledEvent, final Context context) {
+        logger.debug("handleRequest ({}, {})", scheduledEvent, context);
+
+        CanonicalResponse response = getDocumentExtractManager().submitQueuedDocuments();
+        if (HttpStatus.SC_OK != response.getResult())
+            logger.warn("Unable to submit queued documents with [{}]", response.getException());
+
+        // documents that exhausted their submission attempts have failed
+        getDocumentExtractManager().deliverCompletionNotifications();
+
+        return null;
+    }
+}
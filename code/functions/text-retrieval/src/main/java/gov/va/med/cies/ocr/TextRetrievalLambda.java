@@ -9,14 +9,19 @@ import gov.va.med.cies.ocr.exceptions.BaseClientException;
 import gov.va.med.cies.ocr.model.CanonicalDocument;
 import gov.va.med.cies.ocr.model.CanonicalRequest;
 import gov.va.med.cies.ocr.model.CanonicalResponse;
+import gov.va.med.cies.ocr.provider.ProviderRegistry;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 /**
  * This Lambda handles the external interaction with the Destination Bucket (GET)
@@ -26,7 +31,7 @@ public class TextRetrievalLambda
     private final Logger logger = LoggerFactory.getLogger(TextRetrievalLambda.class);
 
     public TextRetrievalLambda() {
-        super();
+        super(EnumSet.of(ProviderRegistry.Dependency.S3));
     }
 
     public ApplicationLoadBalancerResponseEvent handleRequest(ApplicationLoadBalancerRequestEvent request, Context context) {
@@ -44,7 +49,7 @@ public class TextRetrievalLambda
 
         switch(canonicalRequest.getMethod()) {
             case "GET":
-                processGetRequest(canonicalRequest, resultBuilder);
+                processGetRequest(canonicalRequest, acceptsGzip(request), resultBuilder);
                 break;
             case "POST":
             case "PUT":
@@ -57,7 +62,10 @@ public class TextRetrievalLambda
         return resultBuilder.build();
     }
 
-    private void processGetRequest(final CanonicalRequest canonicalRequest, final ApplicationLoadBalancerResponseEventBuilder resultBuilder) {
+    private void processGetRequest(
+            final CanonicalRequest canonicalRequest,
+            final boolean acceptsGzip,
+            final ApplicationLoadBalancerResponseEventBuilder resultBuilder) {
         final boolean retrieveText = "text/plain".equals(canonicalRequest.getCanonicalDocument().getContentType());
 
         try {
@@ -71,8 +79,25 @@ public class TextRetrievalLambda
             else if (response.getDocumentCount() == 1) {
                 // there must be exactly one document for a successful response
                 CanonicalDocument document = response.getDocuments().get(0);
-                resultBuilder.addHeaders(document);
-                resultBuilder.body(document.getBody());
+                if (!DocumentExtractManager.GZIP_CONTENT_ENCODING.equals(document.getContentEncoding())) {
+                    resultBuilder.addHeaders(document);
+                    resultBuilder.body(document.getBody());
+                } else if (acceptsGzip) {
+                    // return the stored (compressed) content as is
+                    try (InputStream bodyStream = document.getBodyStream()) {
+                        resultBuilder.addHeaders(document);
+                        resultBuilder.body(bodyStream.readAllBytes());
+                    }
+                } else {
+                    try (InputStream bodyStream = new GZIPInputStream(document.getBodyStream())) {
+                        resultBuilder.addHeaders(CanonicalDocument.builder()
+                                .with(document)
+                                .withContentEncoding(null)
+                                .withContentLength(null)
+                                .build());
+                        resultBuilder.body(new String(bodyStream.readAllBytes(), StandardCharsets.UTF_8));
+                    }
+                }
                 resultBuilder.ok();
             } else {
                 resultBuilder.serverError("Multiple documents found for " + canonicalRequest.getCanonicalDocument().getIdentifier());
@@ -83,4 +108,29 @@ public class TextRetrievalLambda
             throw new RuntimeException(e);
         }
     }
+
+    // true if the Accept-Encoding header of the request allows a gzip response
+    private static boolean acceptsGzip(final ApplicationLoadBalancerRequestEvent request) {
+        final Map<String, String> headers = request.getHeaders();
+        if (headers == null)
+            return false;
+
+        // the load balancer may pass the header names in lower case
+        final String acceptEncoding = headers.entrySet().stream()
+                .filter(entry -> HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(null);
+        if (acceptEncoding == null)
+            return false;
+
+        for (String coding : acceptEncoding.split(",")) {
+            final String[] parameters = coding.split(";");
+            final String name = parameters[0].trim();
+            final boolean refused = parameters.length > 1 && parameters[1].trim().matches("q=0(\\.0*)?");
+            if (!refused && (DocumentExtractManager.GZIP_CONTENT_ENCODING.equalsIgnoreCase(name) || "*".equals(name)))
+                return true;
+        }
+        return false;
+    }
 }
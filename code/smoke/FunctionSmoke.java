@@ -0,0 +1,58 @@
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import gov.va.med.cies.ocr.AbstractApplicationLoadBalancerLambda;
+import gov.va.med.cies.ocr.AbstractBaseLambda;
+import gov.va.med.cies.ocr.priming.LambdaPrimer;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * The smoke test of the shaded jar of a function (see the build targets of Makefile), run by the java source
+ * launcher with the jar as the whole class path, so that a class that minimizeJar left out of the jar fails the
+ * build rather than the first invocation:
+ *     java -cp functions/document/target/ocr-document.jar smoke/FunctionSmoke.java gov.va.med.cies.ocr.DocumentLambda
+ * The handler is created as Lambda creates it, the dependencies that it declares are primed against the stub
+ * endpoint of LambdaPrimer (which loads the clients, PDFBox and the JSON classes as a request would) and the
+ * handler of an ALB function is invoked with a request that it refuses without calling AWS. Nothing is sent to AWS.
+ * Usage: FunctionSmoke handler-class-name
+ */
+public class FunctionSmoke {
+    public static void main(final String[] args) throws ReflectiveOperationException {
+        if (args.length != 1) {
+            System.err.println("Usage: FunctionSmoke handler-class-name");
+            System.exit(2);
+        }
+        final AbstractBaseLambda handler = (AbstractBaseLambda) Class.forName(args[0])
+                .getDeclaredConstructor()
+                .newInstance();
+
+        final Set<LambdaPrimer.Step> expected = LambdaPrimer.stepsOf(handler.getDependencies());
+        final Set<LambdaPrimer.Step> primed = new LambdaPrimer().prime(handler.getDependencies());
+        if (!primed.equals(expected))
+            fail(handler, "primed " + primed + " of " + expected + ", see the log of LambdaPrimer");
+
+        String invocation = "";
+        if (handler instanceof AbstractApplicationLoadBalancerLambda) {
+            final ApplicationLoadBalancerRequestEvent request = new ApplicationLoadBalancerRequestEvent();
+            request.setHttpMethod("OPTIONS");
+            request.setPath("/smoke-test");
+            request.setHeaders(Collections.emptyMap());
+            request.setIsBase64Encoded(false);
+            final ApplicationLoadBalancerResponseEvent response =
+                    ((AbstractApplicationLoadBalancerLambda) handler).handleRequest(request, null);
+            if (response == null || response.getStatusCode() < 400)
+                fail(handler, "OPTIONS /smoke-test was not refused, " + response);
+            invocation = ", OPTIONS /smoke-test " + response.getStatusCode();
+        }
+
+        System.out.printf("PASS %s, primed %s%s%n", handler.getClass().getSimpleName(), primed, invocation);
+        // the clients may hold non-daemon threads
+        System.exit(0);
+    }
+
+    private static void fail(final AbstractBaseLambda handler, final String message) {
+        System.out.printf("FAIL %s, %s%n", handler.getClass().getSimpleName(), message);
+        System.exit(1);
+    }
+}